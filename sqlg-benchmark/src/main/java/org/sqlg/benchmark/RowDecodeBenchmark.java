@@ -0,0 +1,90 @@
+package org.sqlg.benchmark;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.openjdk.jmh.annotations.*;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.util.SqlgUtil;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the rows per second materialised from a result set into vertices and edges.
+ * Run it against the previous commit for the before numbers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 5)
+@Fork(value = 1)
+@Measurement(iterations = 10, time = 5)
+@OperationsPerInvocation(RowDecodeBenchmark.ROWS)
+public class RowDecodeBenchmark extends BaseBenchmark {
+
+    static final int ROWS = 10000;
+
+    private SqlgGraph sqlgGraph;
+    private GraphTraversalSource gt;
+
+    @Benchmark
+    public List<Vertex> decodeVertices() {
+        try {
+            List<Vertex> vertices = this.gt.V().hasLabel("Person").toList();
+            if (vertices.size() != ROWS)
+                throw new RuntimeException("expected " + ROWS);
+            return vertices;
+        } finally {
+            this.sqlgGraph.tx().rollback();
+        }
+    }
+
+    @Benchmark
+    public List<Edge> decodeEdges() {
+        try {
+            List<Edge> edges = this.gt.E().hasLabel("knows").toList();
+            if (edges.size() != ROWS)
+                throw new RuntimeException("expected " + ROWS);
+            return edges;
+        } finally {
+            this.sqlgGraph.tx().rollback();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.sqlgGraph = getSqlgGraph();
+        SqlgUtil.dropDb(this.sqlgGraph);
+        this.sqlgGraph.tx().commit();
+        this.sqlgGraph = getSqlgGraph();
+        this.gt = this.sqlgGraph.traversal();
+
+        this.sqlgGraph.tx().normalBatchModeOn();
+        Vertex[] persons = new Vertex[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("name", "name" + i);
+            properties.put("surname", "surname" + i);
+            properties.put("age", i);
+            properties.put("salary", (long) i * 1000);
+            properties.put("rating", i / 3D);
+            properties.put("active", i % 2 == 0);
+            properties.put("created", LocalDateTime.now());
+            properties.put("a1", "aaaaaaaaaa1");
+            properties.put("a2", "aaaaaaaaaa2");
+            properties.put("a3", "aaaaaaaaaa3");
+            persons[i] = this.sqlgGraph.addVertex("Person", properties);
+        }
+        for (int i = 0; i < ROWS; i++) {
+            persons[i].addEdge("knows", persons[(i + 1) % ROWS], "since", i, "weight", i / 7D);
+        }
+        this.sqlgGraph.tx().commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        closeSqlgGraph(this.sqlgGraph);
+    }
+}
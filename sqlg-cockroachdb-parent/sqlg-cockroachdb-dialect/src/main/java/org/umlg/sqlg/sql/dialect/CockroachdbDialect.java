@@ -1296,6 +1296,11 @@ public class CockroachdbDialect extends BaseSqlDialect {
         }
     }
 
+    @Override
+    public boolean supportsTableLocking() {
+        return true;
+    }
+
     @Override
     public void lockTable(SqlgGraph sqlgGraph, SchemaTable schemaTable, String prefix) {
         Preconditions.checkArgument(prefix.equals(VERTEX_PREFIX) || prefix.equals(EDGE_PREFIX), "prefix must be " + VERTEX_PREFIX + " or " + EDGE_PREFIX);
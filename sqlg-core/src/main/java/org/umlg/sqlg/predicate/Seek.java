@@ -0,0 +1,59 @@
+package org.umlg.sqlg.predicate;
+
+import com.google.common.base.Preconditions;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.umlg.sqlg.structure.RecordId;
+
+import java.util.function.BiPredicate;
+
+/**
+ * Keyset (seek) pagination predicate, use in has(sortKey, Seek.after(...)).
+ * It selects the elements that come after the cursor, i.e. the last element of the previous page,
+ * when ordered by the sort key and then the id. The sql is <code>("sortKey", "ID") &gt; (?, ?)</code>
+ * so that the cost of a page does not depend on how many pages came before it.
+ * <p>
+ * In memory the id is not available so elements with the same sort value as the cursor are kept.
+ */
+public class Seek implements BiPredicate<Object, Object> {
+
+    private final Order order;
+    private final RecordId id;
+
+    private Seek(Order order, RecordId id) {
+        this.order = order;
+        this.id = id;
+    }
+
+    /**
+     * @param sortValue The cursor's value of the sort key.
+     * @param id        The cursor's id.
+     * @param order     The order of the sort key and the id.
+     * @return the predicate
+     */
+    public static P<Object> after(Object sortValue, RecordId id, Order order) {
+        Preconditions.checkArgument(sortValue != null, "Seek.after does not support a null sort value.");
+        Preconditions.checkArgument(id != null, "Seek.after needs the cursor's id.");
+        Preconditions.checkArgument(order != Order.shuffle, "Seek.after does not support Order.shuffle.");
+        return new P<>(new Seek(order, id), sortValue);
+    }
+
+    public RecordId getId() {
+        return this.id;
+    }
+
+    @SuppressWarnings("deprecation")
+    public boolean isAscending() {
+        return this.order == Order.asc || this.order == Order.incr;
+    }
+
+    @Override
+    public boolean test(Object value, Object sortValue) {
+        return value != null && this.order.compare(value, sortValue) >= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "seek" + (isAscending() ? ">" : "<") + this.id;
+    }
+}
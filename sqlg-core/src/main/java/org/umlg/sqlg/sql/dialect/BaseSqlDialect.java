@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
+import org.apache.tinkerpop.gremlin.process.traversal.Compare;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.umlg.sqlg.structure.*;
@@ -16,7 +17,14 @@ import java.security.SecureRandom;
 import java.sql.*;
 import java.util.*;
 
+import static org.umlg.sqlg.structure.PropertyType.BOOLEAN_ORDINAL;
+import static org.umlg.sqlg.structure.PropertyType.BYTE_ORDINAL;
+import static org.umlg.sqlg.structure.PropertyType.INTEGER_ORDINAL;
 import static org.umlg.sqlg.structure.PropertyType.JSON_ORDINAL;
+import static org.umlg.sqlg.structure.PropertyType.LONG_ORDINAL;
+import static org.umlg.sqlg.structure.PropertyType.SHORT_ORDINAL;
+import static org.umlg.sqlg.structure.PropertyType.STRING_ORDINAL;
+import static org.umlg.sqlg.structure.PropertyType.VARCHAR_ORDINAL;
 import static org.umlg.sqlg.structure.topology.Topology.*;
 
 /**
@@ -30,6 +38,35 @@ public abstract class BaseSqlDialect implements SqlDialect, SqlBulkDialect, SqlS
     protected BaseSqlDialect() {
     }
 
+    /**
+     * @return the sql operator for the compare followed by a parameter placeholder.
+     */
+    public static String compareToSql(Compare compare) {
+        return compareToSql(compare, "?");
+    }
+
+    /**
+     * @return the sql operator for the compare followed by the right hand side, a column or a parameter placeholder.
+     */
+    public static String compareToSql(Compare compare, String rightHandSide) {
+        switch (compare) {
+            case eq:
+                return " = " + rightHandSide;
+            case neq:
+                return " <> " + rightHandSide;
+            case gt:
+                return " > " + rightHandSide;
+            case gte:
+                return " >= " + rightHandSide;
+            case lt:
+                return " < " + rightHandSide;
+            case lte:
+                return " <= " + rightHandSide;
+            default:
+                throw new RuntimeException("Unknown Compare " + compare.name());
+        }
+    }
+
     public void validateColumnName(String column) {
         if (column.endsWith(IN_VERTEX_COLUMN_END) || column.endsWith(OUT_VERTEX_COLUMN_END)) {
             throw SqlgExceptions.invalidColumnName("Column names may not end with " + IN_VERTEX_COLUMN_END + " or " + OUT_VERTEX_COLUMN_END + ". column = " + column);
@@ -202,49 +239,335 @@ public abstract class BaseSqlDialect implements SqlDialect, SqlBulkDialect, SqlS
                 logger.debug(sql.toString());
             }
             Connection conn = sqlgGraph.tx().getConnection();
-            try (PreparedStatement preparedStatement = (vertexLabel != null && !vertexLabel.hasIDPrimaryKey() ? conn.prepareStatement(sql.toString()) : conn.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS))) {
-                List<SqlgVertex> sqlgVertices = new ArrayList<>();
-                for (Map.Entry<SqlgVertex, Map<String, Object>> rowEntry : rows.entrySet()) {
-                    int i = 1;
-                    SqlgVertex sqlgVertex = rowEntry.getKey();
-                    sqlgVertices.add(sqlgVertex);
-                    if (!columns.isEmpty()) {
-                        Map<String, Object> parameterValueMap = rowEntry.getValue();
-                        List<Pair<PropertyType, Object>> typeAndValues = new ArrayList<>();
-                        for (String column : columns) {
-                            if (!schemaTable.isTemporary()) {
-                                PropertyColumn propertyColumn = propertyColumns.get(column);
-                                typeAndValues.add(Pair.of(propertyColumn.getPropertyType(), parameterValueMap.get(column)));
-                            } else {
-                                typeAndValues.add(Pair.of(properties.get(column), parameterValueMap.get(column)));
+            StatementCache statementCache = sqlgGraph.getStatementCache();
+            try {
+                PreparedStatement preparedStatement = statementCache.prepareStatement(conn, sql.toString(), vertexLabel != null && !vertexLabel.hasIDPrimaryKey() ? Statement.NO_GENERATED_KEYS : Statement.RETURN_GENERATED_KEYS);
+                try {
+                    List<SqlgVertex> sqlgVertices = new ArrayList<>();
+                    for (Map.Entry<SqlgVertex, Map<String, Object>> rowEntry : rows.entrySet()) {
+                        int i = 1;
+                        SqlgVertex sqlgVertex = rowEntry.getKey();
+                        sqlgVertices.add(sqlgVertex);
+                        if (!columns.isEmpty()) {
+                            Map<String, Object> parameterValueMap = rowEntry.getValue();
+                            List<Pair<PropertyType, Object>> typeAndValues = new ArrayList<>();
+                            for (String column : columns) {
+                                if (!schemaTable.isTemporary()) {
+                                    PropertyColumn propertyColumn = propertyColumns.get(column);
+                                    typeAndValues.add(Pair.of(propertyColumn.getPropertyType(), parameterValueMap.get(column)));
+                                } else {
+                                    typeAndValues.add(Pair.of(properties.get(column), parameterValueMap.get(column)));
+                                }
                             }
-                        }
-                        if (vertexLabel != null && !vertexLabel.hasIDPrimaryKey()) {
-                            List<Comparable> identifiers = new ArrayList<>();
-                            for (String identifier : vertexLabel.getIdentifiers()) {
-                                identifiers.add((Comparable) parameterValueMap.get(identifier));
+                            if (vertexLabel != null && !vertexLabel.hasIDPrimaryKey()) {
+                                List<Comparable> identifiers = new ArrayList<>();
+                                for (String identifier : vertexLabel.getIdentifiers()) {
+                                    identifiers.add((Comparable) parameterValueMap.get(identifier));
+                                }
+                                sqlgVertex.setInternalPrimaryKey(RecordId.from(SchemaTable.of(schemaTable.getSchema(), schemaTable.getTable()), identifiers));
+
                             }
-                            sqlgVertex.setInternalPrimaryKey(RecordId.from(SchemaTable.of(schemaTable.getSchema(), schemaTable.getTable()), identifiers));
+                            SqlgUtil.setKeyValuesAsParameterUsingPropertyColumn(sqlgGraph, true, i, preparedStatement, typeAndValues);
+                        }
+                        preparedStatement.addBatch();
+                    }
+                    preparedStatement.executeBatch();
+                    if (vertexLabel == null || vertexLabel.hasIDPrimaryKey()) {
+                        ResultSet generatedKeys = preparedStatement.getGeneratedKeys();
+                        int i = 0;
+                        while (generatedKeys.next()) {
+                            sqlgVertices.get(i++).setInternalPrimaryKey(RecordId.from(schemaTable, generatedKeys.getLong(1)));
+                        }
+                    }
+                } finally {
+                    statementCache.release(preparedStatement);
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
 
+    @Override
+    public void flushVertexUpserts(SqlgGraph sqlgGraph, SchemaTable schemaTable, List<String> uniqueKeys, SortedSet<String> columns, Map<SqlgVertex, Map<String, Object>> rows) {
+        if (!supportsUpsert()) {
+            throw new UnsupportedOperationException("upsert is not supported by " + dialectName());
+        }
+        VertexLabel vertexLabel = sqlgGraph.getTopology()
+                .getSchema(schemaTable.getSchema()).orElseThrow(() -> new IllegalStateException(String.format("Schema %s not found", schemaTable.getSchema())))
+                .getVertexLabel(schemaTable.getTable()).orElseThrow(() -> new IllegalStateException(String.format("VertexLabel %s not found", schemaTable.getTable())));
+        Map<String, PropertyColumn> propertyColumns = vertexLabel.getProperties();
+        String sql = upsertVertexSql(sqlgGraph, vertexLabel, uniqueKeys, columns);
+        if (logger.isDebugEnabled()) {
+            logger.debug(sql);
+        }
+        boolean returnsIds = vertexLabel.hasIDPrimaryKey() && upsertReturnsIds();
+        Connection conn = sqlgGraph.tx().getConnection();
+        StatementCache statementCache = sqlgGraph.getStatementCache();
+        try {
+            PreparedStatement preparedStatement = statementCache.prepareStatement(conn, sql, returnsIds ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
+            try {
+                for (Map.Entry<SqlgVertex, Map<String, Object>> rowEntry : rows.entrySet()) {
+                    SqlgVertex sqlgVertex = rowEntry.getKey();
+                    Map<String, Object> parameterValueMap = rowEntry.getValue();
+                    List<Pair<PropertyType, Object>> typeAndValues = new ArrayList<>();
+                    for (String column : columns) {
+                        typeAndValues.add(Pair.of(propertyColumns.get(column).getPropertyType(), parameterValueMap.get(column)));
+                    }
+                    if (!vertexLabel.hasIDPrimaryKey()) {
+                        List<Comparable> identifiers = new ArrayList<>();
+                        for (String identifier : vertexLabel.getIdentifiers()) {
+                            identifiers.add((Comparable) parameterValueMap.get(identifier));
                         }
-                        SqlgUtil.setKeyValuesAsParameterUsingPropertyColumn(sqlgGraph, true, i, preparedStatement, typeAndValues);
+                        sqlgVertex.setInternalPrimaryKey(RecordId.from(SchemaTable.of(schemaTable.getSchema(), schemaTable.getTable()), identifiers));
                     }
+                    SqlgUtil.setKeyValuesAsParameterUsingPropertyColumn(sqlgGraph, true, 1, preparedStatement, typeAndValues);
                     preparedStatement.addBatch();
                 }
                 preparedStatement.executeBatch();
-                if (vertexLabel == null || vertexLabel.hasIDPrimaryKey()) {
+                if (returnsIds) {
+                    //the generated keys can be all the row's columns, i.e. RETURNING *
                     ResultSet generatedKeys = preparedStatement.getGeneratedKeys();
-                    int i = 0;
+                    Iterator<SqlgVertex> sqlgVertices = rows.keySet().iterator();
                     while (generatedKeys.next()) {
-                        sqlgVertices.get(i++).setInternalPrimaryKey(RecordId.from(schemaTable, generatedKeys.getLong(1)));
+                        sqlgVertices.next().setInternalPrimaryKey(RecordId.from(schemaTable, generatedKeys.getLong(Topology.ID)));
                     }
                 }
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
+            } finally {
+                statementCache.release(preparedStatement);
+            }
+            if (vertexLabel.hasIDPrimaryKey() && !returnsIds) {
+                selectUpsertedIds(sqlgGraph, vertexLabel, schemaTable, uniqueKeys, rows);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Sets the ids of the upserted vertices from their unique keys, for the dialects whose upsert does not return the
+     * id of an updated vertex. The vertices are selected {@link #sqlInParameterLimit()} parameters at a time and the ids
+     * are mapped back by the unique values the query returns. Unique keys whose values can not be read back exactly,
+     * e.g. a timestamp the rdbms truncates, are selected one vertex per query.
+     */
+    private void selectUpsertedIds(SqlgGraph sqlgGraph, VertexLabel vertexLabel, SchemaTable schemaTable, List<String> uniqueKeys, Map<SqlgVertex, Map<String, Object>> rows) throws SQLException {
+        Map<String, PropertyColumn> propertyColumns = vertexLabel.getProperties();
+        List<String> physicalColumns = new ArrayList<>();
+        boolean readBack = true;
+        for (String uniqueKey : uniqueKeys) {
+            PropertyType propertyType = propertyColumns.get(uniqueKey).getPropertyType();
+            String[] sqlDefinitions = propertyTypeToSqlDefinition(propertyType);
+            for (int count = 1; count <= sqlDefinitions.length; count++) {
+                physicalColumns.add(maybeWrapInQoutes(count > 1 ? uniqueKey + propertyType.getPostFixes()[count - 2] : uniqueKey));
+            }
+            readBack = readBack && isReadBackExactly(propertyType);
+        }
+        int chunkSize = readBack ? Math.max(1, sqlInParameterLimit() / physicalColumns.size()) : 1;
+        List<Map.Entry<SqlgVertex, Map<String, Object>>> rowEntries = new ArrayList<>(rows.entrySet());
+        Connection conn = sqlgGraph.tx().getConnection();
+        StatementCache statementCache = sqlgGraph.getStatementCache();
+        for (int from = 0; from < rowEntries.size(); from += chunkSize) {
+            List<Map.Entry<SqlgVertex, Map<String, Object>>> chunk = rowEntries.subList(from, Math.min(from + chunkSize, rowEntries.size()));
+            String sql = selectUpsertedIdsSql(schemaTable, physicalColumns, chunk.size());
+            if (logger.isDebugEnabled()) {
+                logger.debug(sql);
             }
+            Map<List<Object>, SqlgVertex> vertices = new HashMap<>();
+            List<Pair<PropertyType, Object>> typeAndValues = new ArrayList<>();
+            for (Map.Entry<SqlgVertex, Map<String, Object>> rowEntry : chunk) {
+                List<Object> uniqueValues = new ArrayList<>(uniqueKeys.size());
+                for (String uniqueKey : uniqueKeys) {
+                    Object value = rowEntry.getValue().get(uniqueKey);
+                    uniqueValues.add(value instanceof Number ? ((Number) value).longValue() : value);
+                    typeAndValues.add(Pair.of(propertyColumns.get(uniqueKey).getPropertyType(), value));
+                }
+                vertices.put(uniqueValues, rowEntry.getKey());
+            }
+            PreparedStatement preparedStatement = statementCache.prepareStatement(conn, sql);
+            try {
+                SqlgUtil.setKeyValuesAsParameterUsingPropertyColumn(sqlgGraph, true, 1, preparedStatement, typeAndValues);
+                int found = 0;
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        SqlgVertex sqlgVertex;
+                        if (chunk.size() == 1) {
+                            sqlgVertex = chunk.get(0).getKey();
+                        } else {
+                            List<Object> uniqueValues = new ArrayList<>(uniqueKeys.size());
+                            for (int i = 0; i < uniqueKeys.size(); i++) {
+                                uniqueValues.add(readBack(resultSet, i + 2, propertyColumns.get(uniqueKeys.get(i)).getPropertyType()));
+                            }
+                            sqlgVertex = vertices.get(uniqueValues);
+                        }
+                        if (sqlgVertex != null) {
+                            sqlgVertex.setInternalPrimaryKey(RecordId.from(schemaTable, resultSet.getLong(1)));
+                            found++;
+                        }
+                    }
+                }
+                if (found < chunk.size()) {
+                    throw new IllegalStateException(String.format("%d upserted vertices of %s not found by %s", chunk.size() - found, schemaTable.toString(), uniqueKeys));
+                }
+            } finally {
+                statementCache.release(preparedStatement);
+            }
+        }
+    }
+
+    /**
+     * <code>SELECT "ID", "k1", "k2" FROM ... WHERE ("k1", "k2") IN ((?, ?), ...)</code>, if the rdbms does not support
+     * row values the IN list is expanded, i.e. <code>("k1" = ? AND "k2" = ?) OR (...)</code>.
+     */
+    private String selectUpsertedIdsSql(SchemaTable schemaTable, List<String> physicalColumns, int count) {
+        String columns = String.join(", ", physicalColumns);
+        StringBuilder sql = new StringBuilder("SELECT ");
+        sql.append(maybeWrapInQoutes(Topology.ID));
+        sql.append(", ");
+        sql.append(columns);
+        sql.append(" FROM ");
+        sql.append(maybeWrapInQoutes(schemaTable.getSchema()));
+        sql.append(".");
+        sql.append(maybeWrapInQoutes(VERTEX_PREFIX + schemaTable.getTable()));
+        sql.append(" WHERE ");
+        if (physicalColumns.size() == 1 || supportsRowValueComparison()) {
+            String parameters = physicalColumns.size() == 1 ? "?" : "(" + String.join(", ", Collections.nCopies(physicalColumns.size(), "?")) + ")";
+            sql.append(physicalColumns.size() == 1 ? columns : "(" + columns + ")");
+            sql.append(" IN (");
+            sql.append(String.join(", ", Collections.nCopies(count, parameters)));
+            sql.append(")");
+        } else {
+            List<String> equals = new ArrayList<>();
+            for (String physicalColumn : physicalColumns) {
+                equals.add(physicalColumn + " = ?");
+            }
+            String row = "(" + String.join(" AND ", equals) + ")";
+            sql.append(String.join(" OR ", Collections.nCopies(count, row)));
+        }
+        if (needsSemicolon()) {
+            sql.append(";");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * The types whose value is read back from the rdbms equal to the value that was written.
+     */
+    private static boolean isReadBackExactly(PropertyType propertyType) {
+        switch (propertyType.ordinal()) {
+            case BOOLEAN_ORDINAL:
+            case BYTE_ORDINAL:
+            case SHORT_ORDINAL:
+            case INTEGER_ORDINAL:
+            case LONG_ORDINAL:
+            case STRING_ORDINAL:
+            case VARCHAR_ORDINAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The integral values are read back as longs, the values they are compared to are widened to longs too.
+     */
+    private static Object readBack(ResultSet resultSet, int columnIndex, PropertyType propertyType) throws SQLException {
+        switch (propertyType.ordinal()) {
+            case BOOLEAN_ORDINAL:
+                return resultSet.getBoolean(columnIndex);
+            case BYTE_ORDINAL:
+            case SHORT_ORDINAL:
+            case INTEGER_ORDINAL:
+            case LONG_ORDINAL:
+                return resultSet.getLong(columnIndex);
+            case STRING_ORDINAL:
+            case VARCHAR_ORDINAL:
+                return resultSet.getString(columnIndex);
+            default:
+                throw new IllegalStateException(String.format("PropertyType %s is not read back.", propertyType.name()));
         }
     }
 
+    /**
+     * The standard MERGE upsert of one vertex, the existing vertex is matched on the uniqueKeys and all the columns are set.
+     * The dialects differ in how the row of parameters is selected, as a VALUES row or as a SELECT without a table.
+     *
+     * @param valuesRow true for USING (VALUES (...)) AS s (...), else USING (SELECT ? AS ...) AS s.
+     */
+    protected String mergeVertexSql(VertexLabel vertexLabel, List<String> uniqueKeys, SortedSet<String> columns, boolean valuesRow) {
+        Map<String, PropertyColumn> propertyColumns = vertexLabel.getProperties();
+        List<String> physicalColumns = new ArrayList<>();
+        List<String> sqlDefinitions = new ArrayList<>();
+        for (String column : columns) {
+            PropertyType propertyType = propertyColumns.get(column).getPropertyType();
+            String[] definitions = propertyTypeToSqlDefinition(propertyType);
+            for (int count = 1; count <= definitions.length; count++) {
+                physicalColumns.add(maybeWrapInQoutes(count > 1 ? column + propertyType.getPostFixes()[count - 2] : column));
+                sqlDefinitions.add(definitions[count - 1]);
+            }
+        }
+        StringBuilder sql = new StringBuilder("MERGE INTO ");
+        sql.append(maybeWrapInQoutes(vertexLabel.getSchema().getName()));
+        sql.append(".");
+        sql.append(maybeWrapInQoutes(VERTEX_PREFIX + vertexLabel.getName()));
+        sql.append(" AS t USING (");
+        if (valuesRow) {
+            sql.append("VALUES (");
+        } else {
+            sql.append("SELECT ");
+        }
+        for (int i = 0; i < physicalColumns.size(); i++) {
+            sql.append("CAST(? AS ").append(sqlDefinitions.get(i)).append(")");
+            if (!valuesRow) {
+                sql.append(" AS ").append(physicalColumns.get(i));
+            }
+            if (i < physicalColumns.size() - 1) {
+                sql.append(", ");
+            }
+        }
+        if (valuesRow) {
+            sql.append(")) AS s (");
+            sql.append(String.join(", ", physicalColumns));
+            sql.append(")");
+        } else {
+            sql.append(") AS s");
+        }
+        sql.append(" ON ");
+        int i = 1;
+        for (String uniqueKey : uniqueKeys) {
+            PropertyType propertyType = propertyColumns.get(uniqueKey).getPropertyType();
+            int definitions = propertyTypeToSqlDefinition(propertyType).length;
+            for (int count = 1; count <= definitions; count++) {
+                String physicalColumn = maybeWrapInQoutes(count > 1 ? uniqueKey + propertyType.getPostFixes()[count - 2] : uniqueKey);
+                sql.append("t.").append(physicalColumn).append(" = s.").append(physicalColumn);
+                if (count < definitions) {
+                    sql.append(" AND ");
+                }
+            }
+            if (i++ < uniqueKeys.size()) {
+                sql.append(" AND ");
+            }
+        }
+        sql.append(" WHEN MATCHED THEN UPDATE SET ");
+        for (int j = 0; j < physicalColumns.size(); j++) {
+            //the standard does not allow the target table's alias on the set columns
+            sql.append(physicalColumns.get(j)).append(" = s.").append(physicalColumns.get(j));
+            if (j < physicalColumns.size() - 1) {
+                sql.append(", ");
+            }
+        }
+        sql.append(" WHEN NOT MATCHED THEN INSERT (");
+        sql.append(String.join(", ", physicalColumns));
+        sql.append(") VALUES (");
+        for (int j = 0; j < physicalColumns.size(); j++) {
+            sql.append("s.").append(physicalColumns.get(j));
+            if (j < physicalColumns.size() - 1) {
+                sql.append(", ");
+            }
+        }
+        sql.append(")");
+        return sql.toString();
+    }
+
     @Override
     public void flushEdgeCache(SqlgGraph sqlgGraph, Map<MetaEdge, Pair<SortedSet<String>, Map<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>>>> edgeCache) {
         for (MetaEdge metaEdge : edgeCache.keySet()) {
@@ -372,66 +695,72 @@ public abstract class BaseSqlDialect implements SqlDialect, SqlBulkDialect, SqlS
                 logger.debug(sql.toString());
             }
             Connection conn = sqlgGraph.tx().getConnection();
-            try (PreparedStatement preparedStatement = conn.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
-                List<SqlgEdge> sqlgEdges = new ArrayList<>();
-                for (Map.Entry<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>> rowEntry : rows.entrySet()) {
-                    i = 1;
-                    SqlgEdge sqlgEdge = rowEntry.getKey();
-                    sqlgEdges.add(sqlgEdge);
-                    Triple<SqlgVertex, SqlgVertex, Map<String, Object>> parameterValueMap = rowEntry.getValue();
-                    List<Pair<PropertyType, Object>> typeAndValues = new ArrayList<>();
-                    for (String column : columns) {
-                        PropertyColumn propertyColumn = propertyColumns.get(column);
-                        typeAndValues.add(Pair.of(propertyColumn.getPropertyType(), parameterValueMap.getRight().get(column)));
-                    }
-                    i = SqlgUtil.setKeyValuesAsParameterUsingPropertyColumn(sqlgGraph, true, i, preparedStatement, typeAndValues);
+            StatementCache statementCache = sqlgGraph.getStatementCache();
+            try {
+                PreparedStatement preparedStatement = statementCache.prepareStatement(conn, sql.toString(), Statement.RETURN_GENERATED_KEYS);
+                try {
+                    List<SqlgEdge> sqlgEdges = new ArrayList<>();
+                    for (Map.Entry<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>> rowEntry : rows.entrySet()) {
+                        i = 1;
+                        SqlgEdge sqlgEdge = rowEntry.getKey();
+                        sqlgEdges.add(sqlgEdge);
+                        Triple<SqlgVertex, SqlgVertex, Map<String, Object>> parameterValueMap = rowEntry.getValue();
+                        List<Pair<PropertyType, Object>> typeAndValues = new ArrayList<>();
+                        for (String column : columns) {
+                            PropertyColumn propertyColumn = propertyColumns.get(column);
+                            typeAndValues.add(Pair.of(propertyColumn.getPropertyType(), parameterValueMap.getRight().get(column)));
+                        }
+                        i = SqlgUtil.setKeyValuesAsParameterUsingPropertyColumn(sqlgGraph, true, i, preparedStatement, typeAndValues);
 
-                    if (outVertexLabel.hasIDPrimaryKey()) {
-                        preparedStatement.setLong(i++, ((RecordId) parameterValueMap.getLeft().id()).sequenceId());
-                    } else {
-                        for (String identifier : outVertexLabel.getIdentifiers()) {
-                            i = SqlgUtil.setKeyValueAsParameter(
-                                    sqlgGraph,
-                                    false,
-                                    i,
-                                    preparedStatement,
-                                    ImmutablePair.of(outVertexLabel.getProperty(identifier).orElseThrow(
-                                            () -> new IllegalStateException(String.format("Property for identifier %s not found", identifier))
-                                    ).getPropertyType(), parameterValueMap.getLeft().value(identifier)));
+                        if (outVertexLabel.hasIDPrimaryKey()) {
+                            preparedStatement.setLong(i++, ((RecordId) parameterValueMap.getLeft().id()).sequenceId());
+                        } else {
+                            for (String identifier : outVertexLabel.getIdentifiers()) {
+                                i = SqlgUtil.setKeyValueAsParameter(
+                                        sqlgGraph,
+                                        false,
+                                        i,
+                                        preparedStatement,
+                                        ImmutablePair.of(outVertexLabel.getProperty(identifier).orElseThrow(
+                                                () -> new IllegalStateException(String.format("Property for identifier %s not found", identifier))
+                                        ).getPropertyType(), parameterValueMap.getLeft().value(identifier)));
+                            }
                         }
-                    }
-                    if (inVertexLabel.hasIDPrimaryKey()) {
-                        preparedStatement.setLong(i, ((RecordId) parameterValueMap.getMiddle().id()).sequenceId());
-                    } else {
-                        for (String identifier : inVertexLabel.getIdentifiers()) {
-                            i = SqlgUtil.setKeyValueAsParameter(
-                                    sqlgGraph,
-                                    false,
-                                    i,
-                                    preparedStatement,
-                                    ImmutablePair.of(inVertexLabel.getProperty(identifier).orElseThrow(
-                                            () -> new IllegalStateException(String.format("Property for identifier %s not found", identifier))
-                                    ).getPropertyType(), parameterValueMap.getMiddle().value(identifier)));
+                        if (inVertexLabel.hasIDPrimaryKey()) {
+                            preparedStatement.setLong(i, ((RecordId) parameterValueMap.getMiddle().id()).sequenceId());
+                        } else {
+                            for (String identifier : inVertexLabel.getIdentifiers()) {
+                                i = SqlgUtil.setKeyValueAsParameter(
+                                        sqlgGraph,
+                                        false,
+                                        i,
+                                        preparedStatement,
+                                        ImmutablePair.of(inVertexLabel.getProperty(identifier).orElseThrow(
+                                                () -> new IllegalStateException(String.format("Property for identifier %s not found", identifier))
+                                        ).getPropertyType(), parameterValueMap.getMiddle().value(identifier)));
+                            }
                         }
-                    }
-                    if (!edgeLabel.hasIDPrimaryKey()) {
-                        List<Comparable> identifiers = new ArrayList<>();
-                        for (String identifier : edgeLabel.getIdentifiers()) {
-                            identifiers.add((Comparable) parameterValueMap.getRight().get(identifier));
+                        if (!edgeLabel.hasIDPrimaryKey()) {
+                            List<Comparable> identifiers = new ArrayList<>();
+                            for (String identifier : edgeLabel.getIdentifiers()) {
+                                identifiers.add((Comparable) parameterValueMap.getRight().get(identifier));
+                            }
+                            sqlgEdge.setInternalPrimaryKey(RecordId.from(SchemaTable.of(metaEdge.getSchemaTable().getSchema(), metaEdge.getSchemaTable().getTable()), identifiers));
                         }
-                        sqlgEdge.setInternalPrimaryKey(RecordId.from(SchemaTable.of(metaEdge.getSchemaTable().getSchema(), metaEdge.getSchemaTable().getTable()), identifiers));
+                        preparedStatement.addBatch();
                     }
-                    preparedStatement.addBatch();
-                }
-                preparedStatement.executeBatch();
-                if (edgeLabel.hasIDPrimaryKey()) {
-                    ResultSet generatedKeys = preparedStatement.getGeneratedKeys();
-                    i = 0;
-                    while (generatedKeys.next()) {
-                        sqlgEdges.get(i++).setInternalPrimaryKey(RecordId.from(metaEdge.getSchemaTable(), generatedKeys.getLong(1)));
+                    preparedStatement.executeBatch();
+                    if (edgeLabel.hasIDPrimaryKey()) {
+                        ResultSet generatedKeys = preparedStatement.getGeneratedKeys();
+                        i = 0;
+                        while (generatedKeys.next()) {
+                            sqlgEdges.get(i++).setInternalPrimaryKey(RecordId.from(metaEdge.getSchemaTable(), generatedKeys.getLong(1)));
+                        }
                     }
-                }
 //                insertGlobalUniqueIndex(keyValueMap, propertyColumns);
+                } finally {
+                    statementCache.release(preparedStatement);
+                }
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
@@ -504,39 +833,45 @@ public abstract class BaseSqlDialect implements SqlDialect, SqlBulkDialect, SqlS
                 logger.debug(sql.toString());
             }
             Connection conn = sqlgGraph.tx().getConnection();
-            try (PreparedStatement preparedStatement = conn.prepareStatement(sql.toString())) {
-                for (Map.Entry<SqlgVertex, Map<String, Object>> rowEntry : rows.entrySet()) {
-                    int i = 1;
-                    SqlgVertex sqlgVertex = rowEntry.getKey();
-                    if (!columns.isEmpty()) {
-                        Map<String, Object> parameterValueMap = rowEntry.getValue();
-                        List<Pair<PropertyType, Object>> typeAndValues = new ArrayList<>();
-                        for (String column : columns) {
-                            PropertyColumn propertyColumn = propertyColumns.get(column);
-                            Object value = parameterValueMap.get(column);
-                            if (value == null) {
-                                //if the value is not present update it to what is currently is.
-                                if (sqlgVertex.property(column).isPresent()) {
-                                    value = sqlgVertex.value(column);
-                                } else {
-                                    value = null;
+            StatementCache statementCache = sqlgGraph.getStatementCache();
+            try {
+                PreparedStatement preparedStatement = statementCache.prepareStatement(conn, sql.toString());
+                try {
+                    for (Map.Entry<SqlgVertex, Map<String, Object>> rowEntry : rows.entrySet()) {
+                        int i = 1;
+                        SqlgVertex sqlgVertex = rowEntry.getKey();
+                        if (!columns.isEmpty()) {
+                            Map<String, Object> parameterValueMap = rowEntry.getValue();
+                            List<Pair<PropertyType, Object>> typeAndValues = new ArrayList<>();
+                            for (String column : columns) {
+                                PropertyColumn propertyColumn = propertyColumns.get(column);
+                                Object value = parameterValueMap.get(column);
+                                if (value == null) {
+                                    //if the value is not present update it to what is currently is.
+                                    if (sqlgVertex.property(column).isPresent()) {
+                                        value = sqlgVertex.value(column);
+                                    } else {
+                                        value = null;
+                                    }
                                 }
+                                typeAndValues.add(Pair.of(propertyColumn.getPropertyType(), value));
                             }
-                            typeAndValues.add(Pair.of(propertyColumn.getPropertyType(), value));
-                        }
-                        i = SqlgUtil.setKeyValuesAsParameterUsingPropertyColumn(sqlgGraph, true, i, preparedStatement, typeAndValues);
-                        RecordId recordId = ((RecordId) sqlgVertex.id());
-                        if (recordId.hasSequenceId()) {
-                            preparedStatement.setLong(i, ((RecordId) sqlgVertex.id()).sequenceId());
-                        } else {
-                            for (Comparable identifierValue : recordId.getIdentifiers()) {
-                                preparedStatement.setObject(i, identifierValue);
+                            i = SqlgUtil.setKeyValuesAsParameterUsingPropertyColumn(sqlgGraph, true, i, preparedStatement, typeAndValues);
+                            RecordId recordId = ((RecordId) sqlgVertex.id());
+                            if (recordId.hasSequenceId()) {
+                                preparedStatement.setLong(i, ((RecordId) sqlgVertex.id()).sequenceId());
+                            } else {
+                                for (Comparable identifierValue : recordId.getIdentifiers()) {
+                                    preparedStatement.setObject(i, identifierValue);
+                                }
                             }
                         }
+                        preparedStatement.addBatch();
                     }
-                    preparedStatement.addBatch();
+                    preparedStatement.executeBatch();
+                } finally {
+                    statementCache.release(preparedStatement);
                 }
-                preparedStatement.executeBatch();
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
@@ -609,39 +944,45 @@ public abstract class BaseSqlDialect implements SqlDialect, SqlBulkDialect, SqlS
                 logger.debug(sql.toString());
             }
             Connection conn = sqlgGraph.tx().getConnection();
-            try (PreparedStatement preparedStatement = conn.prepareStatement(sql.toString())) {
-                for (Map.Entry<SqlgEdge, Map<String, Object>> rowEntry : rows.entrySet()) {
-                    int i = 1;
-                    SqlgEdge sqlgEdge = rowEntry.getKey();
-                    if (!columns.isEmpty()) {
-                        Map<String, Object> parameterValueMap = rowEntry.getValue();
-                        List<Pair<PropertyType, Object>> typeAndValues = new ArrayList<>();
-                        for (String column : columns) {
-                            PropertyColumn propertyColumn = propertyColumns.get(column);
-                            Object value = parameterValueMap.get(column);
-                            if (value == null) {
-                                //if the value is not present update it to what is currently is.
-                                if (sqlgEdge.property(column).isPresent()) {
-                                    value = sqlgEdge.value(column);
-                                } else {
-                                    value = null;
+            StatementCache statementCache = sqlgGraph.getStatementCache();
+            try {
+                PreparedStatement preparedStatement = statementCache.prepareStatement(conn, sql.toString());
+                try {
+                    for (Map.Entry<SqlgEdge, Map<String, Object>> rowEntry : rows.entrySet()) {
+                        int i = 1;
+                        SqlgEdge sqlgEdge = rowEntry.getKey();
+                        if (!columns.isEmpty()) {
+                            Map<String, Object> parameterValueMap = rowEntry.getValue();
+                            List<Pair<PropertyType, Object>> typeAndValues = new ArrayList<>();
+                            for (String column : columns) {
+                                PropertyColumn propertyColumn = propertyColumns.get(column);
+                                Object value = parameterValueMap.get(column);
+                                if (value == null) {
+                                    //if the value is not present update it to what is currently is.
+                                    if (sqlgEdge.property(column).isPresent()) {
+                                        value = sqlgEdge.value(column);
+                                    } else {
+                                        value = null;
+                                    }
                                 }
+                                typeAndValues.add(Pair.of(propertyColumn.getPropertyType(), value));
                             }
-                            typeAndValues.add(Pair.of(propertyColumn.getPropertyType(), value));
-                        }
-                        i = SqlgUtil.setKeyValuesAsParameterUsingPropertyColumn(sqlgGraph, true, i, preparedStatement, typeAndValues);
-                        RecordId recordId = (RecordId) sqlgEdge.id();
-                        if (recordId.hasSequenceId()) {
-                            preparedStatement.setLong(i, recordId.sequenceId());
-                        } else {
-                            for (Comparable identifierValue : recordId.getIdentifiers()) {
-                                preparedStatement.setObject(i, identifierValue);
+                            i = SqlgUtil.setKeyValuesAsParameterUsingPropertyColumn(sqlgGraph, true, i, preparedStatement, typeAndValues);
+                            RecordId recordId = (RecordId) sqlgEdge.id();
+                            if (recordId.hasSequenceId()) {
+                                preparedStatement.setLong(i, recordId.sequenceId());
+                            } else {
+                                for (Comparable identifierValue : recordId.getIdentifiers()) {
+                                    preparedStatement.setObject(i, identifierValue);
+                                }
                             }
                         }
+                        preparedStatement.addBatch();
                     }
-                    preparedStatement.addBatch();
+                    preparedStatement.executeBatch();
+                } finally {
+                    statementCache.release(preparedStatement);
                 }
-                preparedStatement.executeBatch();
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
@@ -790,6 +1131,111 @@ public abstract class BaseSqlDialect implements SqlDialect, SqlBulkDialect, SqlS
         }
     }
 
+    @Override
+    public String constructCompleteCopyCommandSqlVertex(SqlgGraph sqlgGraph, SqlgVertex vertex, Map<String, Object> keyValueMap) {
+        Map<String, PropertyType> propertyTypeMap = sqlgGraph.getTopology().getTableFor(SchemaTable.of(vertex.getSchema(), VERTEX_PREFIX + vertex.getTable()));
+        StringBuilder sql = new StringBuilder();
+        sql.append("INSERT INTO ");
+        sql.append(maybeWrapInQoutes(vertex.getSchema()));
+        sql.append(".");
+        sql.append(maybeWrapInQoutes(VERTEX_PREFIX + vertex.getTable()));
+        if (keyValueMap.isEmpty()) {
+            sql.append(sqlInsertEmptyValues());
+        } else {
+            List<String> columns = new ArrayList<>();
+            for (String key : keyValueMap.keySet()) {
+                addStreamingColumns(columns, key, key.equals(ID) ? PropertyType.LONG : propertyTypeMap.get(key));
+            }
+            appendStreamingColumnsAndParameters(sql, columns);
+        }
+        if (needsSemicolon()) {
+            sql.append(";");
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(sql.toString());
+        }
+        return sql.toString();
+    }
+
+    @Override
+    public String constructCompleteCopyCommandSqlEdge(SqlgGraph sqlgGraph, SqlgEdge sqlgEdge, VertexLabel outVertexLabel, VertexLabel inVertexLabel, SqlgVertex outVertex, SqlgVertex inVertex, Map<String, Object> keyValueMap) {
+        Map<String, PropertyType> propertyTypeMap = sqlgGraph.getTopology().getTableFor(SchemaTable.of(sqlgEdge.getSchema(), EDGE_PREFIX + sqlgEdge.getTable()));
+        StringBuilder sql = new StringBuilder();
+        sql.append("INSERT INTO ");
+        sql.append(maybeWrapInQoutes(sqlgEdge.getSchema()));
+        sql.append(".");
+        sql.append(maybeWrapInQoutes(EDGE_PREFIX + sqlgEdge.getTable()));
+        List<String> columns = new ArrayList<>();
+        for (String key : keyValueMap.keySet()) {
+            addStreamingColumns(columns, key, key.equals(ID) ? PropertyType.LONG : propertyTypeMap.get(key));
+        }
+        if (outVertexLabel.hasIDPrimaryKey()) {
+            columns.add(outVertex.getSchema() + "." + outVertex.getTable() + OUT_VERTEX_COLUMN_END);
+        } else {
+            for (String identifier : outVertexLabel.getIdentifiers()) {
+                columns.add(outVertex.getSchema() + "." + outVertex.getTable() + "." + identifier + OUT_VERTEX_COLUMN_END);
+            }
+        }
+        if (inVertexLabel.hasIDPrimaryKey()) {
+            columns.add(inVertex.getSchema() + "." + inVertex.getTable() + IN_VERTEX_COLUMN_END);
+        } else {
+            for (String identifier : inVertexLabel.getIdentifiers()) {
+                columns.add(inVertex.getSchema() + "." + inVertex.getTable() + "." + identifier + IN_VERTEX_COLUMN_END);
+            }
+        }
+        appendStreamingColumnsAndParameters(sql, columns);
+        if (needsSemicolon()) {
+            sql.append(";");
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(sql.toString());
+        }
+        return sql.toString();
+    }
+
+    private void addStreamingColumns(List<String> columns, String key, PropertyType propertyType) {
+        String[] sqlDefinitions = propertyTypeToSqlDefinition(propertyType);
+        columns.add(key);
+        for (int i = 1; i < sqlDefinitions.length; i++) {
+            columns.add(key + propertyType.getPostFixes()[i - 1]);
+        }
+    }
+
+    private void appendStreamingColumnsAndParameters(StringBuilder sql, List<String> columns) {
+        sql.append(" (");
+        int count = 1;
+        for (String column : columns) {
+            sql.append(maybeWrapInQoutes(column));
+            if (count++ < columns.size()) {
+                sql.append(", ");
+            }
+        }
+        sql.append(") VALUES (");
+        count = 1;
+        for (@SuppressWarnings("unused") String column : columns) {
+            sql.append("?");
+            if (count++ < columns.size()) {
+                sql.append(", ");
+            }
+        }
+        sql.append(")");
+    }
+
+    /**
+     * The dialects without a copy command stream the rows through jdbc batches of the statement.
+     *
+     * @param sql  The statement from {@link #constructCompleteCopyCommandSqlVertex(SqlgGraph, SqlgVertex, Map)} or
+     *             {@link #constructCompleteCopyCommandSqlEdge(SqlgGraph, SqlgEdge, VertexLabel, VertexLabel, SqlgVertex, SqlgVertex, Map)}.
+     * @param keys The keys the statement was constructed from, in the order of its columns.
+     */
+    @Override
+    public BatchManager.RowSink streamRowSink(SqlgGraph sqlgGraph, String sql, List<String> keys) {
+        if (supportsJdbcStreamingBatchMode()) {
+            return new JdbcBatchRowSink(sqlgGraph, sql, keys);
+        }
+        return SqlBulkDialect.super.streamRowSink(sqlgGraph, sql, keys);
+    }
+
     @Override
     public int sqlInParameterLimit() {
         return 1000;
@@ -0,0 +1,158 @@
+package org.umlg.sqlg.sql.dialect;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.umlg.sqlg.structure.*;
+import org.umlg.sqlg.structure.topology.EdgeLabel;
+import org.umlg.sqlg.structure.topology.Topology;
+import org.umlg.sqlg.structure.topology.VertexLabel;
+import org.umlg.sqlg.util.SqlgUtil;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams rows through one prepared INSERT statement, executing the JDBC batch every {@link SqlgGraph#STREAMING_BATCH_SIZE} rows.
+ * It is the streaming batch mode for the dialects without a copy command, only one batch of rows is held at a time.
+ * The values are bound in the order of the keys the statement was constructed from, the statement is taken from the
+ * {@link StatementCache} and given back when the sink is closed.
+ */
+final class JdbcBatchRowSink implements BatchManager.RowSink {
+
+    private final SqlgGraph sqlgGraph;
+    private final List<String> keys;
+    private final PreparedStatement preparedStatement;
+    private final int batchSize;
+    private int batchCount;
+    private boolean closed;
+
+    /**
+     * @param sql  The statement from {@link SqlBulkDialect#constructCompleteCopyCommandSqlVertex(SqlgGraph, SqlgVertex, Map)} or
+     *             {@link SqlBulkDialect#constructCompleteCopyCommandSqlEdge(SqlgGraph, SqlgEdge, VertexLabel, VertexLabel, SqlgVertex, SqlgVertex, Map)}.
+     * @param keys The keys the statement was constructed from, in the order of its columns.
+     */
+    JdbcBatchRowSink(SqlgGraph sqlgGraph, String sql, List<String> keys) {
+        this.sqlgGraph = sqlgGraph;
+        this.keys = new ArrayList<>(keys);
+        this.batchSize = sqlgGraph.getStreamingBatchSize();
+        Connection conn = sqlgGraph.tx().getConnection();
+        try {
+            this.preparedStatement = sqlgGraph.getStatementCache().prepareStatement(conn, sql);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void writeVertex(Map<String, Object> keyValueMap, VertexLabel vertexLabel) {
+        checkKeys(keyValueMap);
+        List<Pair<PropertyType, Object>> typeAndValues = new ArrayList<>(this.keys.size());
+        for (String key : this.keys) {
+            Object value = keyValueMap.get(key);
+            PropertyType propertyType;
+            if (key.equals(Topology.ID)) {
+                propertyType = PropertyType.LONG;
+            } else if (vertexLabel == null) {
+                //a temporary vertex
+                propertyType = value == null ? PropertyType.STRING : PropertyType.from(value);
+            } else {
+                propertyType = vertexLabel.getProperties().get(key).getPropertyType();
+            }
+            typeAndValues.add(Pair.of(propertyType, value));
+        }
+        writeRow(typeAndValues);
+    }
+
+    @Override
+    public void writeEdge(
+            SqlgEdge sqlgEdge,
+            VertexLabel outVertexLabel,
+            VertexLabel inVertexLabel,
+            SqlgVertex outVertex,
+            SqlgVertex inVertex,
+            Map<String, Object> keyValueMap,
+            EdgeLabel edgeLabel) {
+
+        checkKeys(keyValueMap);
+        List<Pair<PropertyType, Object>> typeAndValues = new ArrayList<>(this.keys.size() + 2);
+        for (String key : this.keys) {
+            PropertyType propertyType;
+            if (key.equals(Topology.ID)) {
+                propertyType = PropertyType.LONG;
+            } else {
+                propertyType = edgeLabel.getProperties().get(key).getPropertyType();
+            }
+            typeAndValues.add(Pair.of(propertyType, keyValueMap.get(key)));
+        }
+        addVertexId(typeAndValues, outVertexLabel, outVertex);
+        addVertexId(typeAndValues, inVertexLabel, inVertex);
+        writeRow(typeAndValues);
+    }
+
+    /**
+     * A row with other keys than the statement's columns would lose its values or bind them to the wrong columns.
+     */
+    private void checkKeys(Map<String, Object> keyValueMap) {
+        if (keyValueMap.size() != this.keys.size() || !keyValueMap.keySet().containsAll(this.keys)) {
+            throw new IllegalStateException("Streaming batch mode must occur for the same keys. Expected " + this.keys + " found " + keyValueMap.keySet());
+        }
+    }
+
+    private static void addVertexId(List<Pair<PropertyType, Object>> typeAndValues, VertexLabel vertexLabel, SqlgVertex sqlgVertex) {
+        RecordId.ID id = ((RecordId) sqlgVertex.id()).getID();
+        if (vertexLabel.hasIDPrimaryKey()) {
+            typeAndValues.add(Pair.of(PropertyType.LONG, id.getSequenceId()));
+        } else {
+            int count = 0;
+            for (String identifier : vertexLabel.getIdentifiers()) {
+                PropertyType propertyType = vertexLabel.getProperty(identifier).orElseThrow(
+                        () -> new IllegalStateException(String.format("identifier %s must be present on %s", identifier, vertexLabel.getFullName()))
+                ).getPropertyType();
+                typeAndValues.add(Pair.of(propertyType, id.getIdentifiers().get(count++)));
+            }
+        }
+    }
+
+    private void writeRow(List<Pair<PropertyType, Object>> typeAndValues) {
+        try {
+            SqlgUtil.setKeyValuesAsParameterUsingPropertyColumn(this.sqlgGraph, true, 1, this.preparedStatement, typeAndValues);
+            this.preparedStatement.addBatch();
+            if (++this.batchCount >= this.batchSize) {
+                executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void executeBatch() throws SQLException {
+        if (this.batchCount > 0) {
+            this.preparedStatement.executeBatch();
+            this.batchCount = 0;
+        }
+    }
+
+    /**
+     * Executes the last batch and gives the statement back to the {@link StatementCache}.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            try {
+                executeBatch();
+            } finally {
+                this.sqlgGraph.getStatementCache().release(this.preparedStatement);
+            }
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+}
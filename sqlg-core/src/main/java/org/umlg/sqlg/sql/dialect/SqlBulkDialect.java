@@ -28,6 +28,14 @@ public interface SqlBulkDialect extends SqlDialect {
 
     void flushRemovedVertices(SqlgGraph sqlgGraph, Map<SchemaTable, List<SqlgVertex>> removeVertexCache);
 
+    /**
+     * Inserts or updates the vertices of one label that are upserted with the same unique keys.
+     * The columns are those of all the rows, a row without one of them upserts it as null. The vertices' ids are set.
+     */
+    default void flushVertexUpserts(SqlgGraph sqlgGraph, SchemaTable schemaTable, List<String> uniqueKeys, SortedSet<String> columns, Map<SqlgVertex, Map<String, Object>> rows) {
+        throw new UnsupportedOperationException("upsert is not supported by " + dialectName());
+    }
+
     default void flushRemovedEdges(SqlgGraph sqlgGraph, Map<SchemaTable, List<SqlgEdge>> removeEdgeCache) {
         throw SqlgExceptions.batchModeNotSupported(dialectName());
     }
@@ -104,4 +112,22 @@ public interface SqlBulkDialect extends SqlDialect {
         throw SqlgExceptions.batchModeNotSupported(dialectName());
     }
 
+    /**
+     * The sink of one label's streamed rows, by default the rows are written by the dialect to its copy command
+     * {@link #streamSql(SqlgGraph, String)}.
+     */
+    default BatchManager.RowSink streamRowSink(SqlgGraph sqlgGraph, String sql) {
+        return BatchManager.writerRowSink(this, streamSql(sqlgGraph, sql));
+    }
+
+    /**
+     * The sink of one label's streamed rows for a statement whose columns are the keys, in the same order.
+     * The rows' values are written by key, whatever the order of their maps.
+     *
+     * @param keys The keys of the sql's property columns in their order, an edge's out and in vertex columns follow them.
+     */
+    default BatchManager.RowSink streamRowSink(SqlgGraph sqlgGraph, String sql, List<String> keys) {
+        return streamRowSink(sqlgGraph, sql);
+    }
+
 }
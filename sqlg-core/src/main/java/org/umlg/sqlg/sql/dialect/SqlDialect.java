@@ -418,6 +418,15 @@ public interface SqlDialect {
         return false;
     }
 
+    /**
+     * For the dialects without a copy command.
+     *
+     * @return true if streamed vertices and edges can be written in jdbc batches of a prepared statement.
+     */
+    default boolean supportsJdbcStreamingBatchMode() {
+        return false;
+    }
+
     default boolean supportsJsonType() {
         return false;
     }
@@ -518,18 +527,189 @@ public interface SqlDialect {
         throw SqlgExceptions.gisNotSupportedException();
     }
 
+    /**
+     * @return true if {@link #lockTable(SqlgGraph, SchemaTable, String)} is supported. Without it the STREAMING_WITH_LOCK
+     * batch mode needs the {@link org.umlg.sqlg.structure.SequenceIdAllocator} to give the streamed elements their ids.
+     */
+    default boolean supportsTableLocking() {
+        return false;
+    }
+
     void lockTable(SqlgGraph sqlgGraph, SchemaTable schemaTable, String prefix);
 
     void alterSequenceCacheSize(SqlgGraph sqlgGraph, SchemaTable schemaTable, String sequence, int batchSize);
 
     long nextSequenceVal(SqlgGraph sqlgGraph, SchemaTable schemaTable, String prefix);
 
+    /**
+     * Reserves count values of the label's ID sequence. The values are unique but need not be contiguous.
+     * The default takes them one at a time, dialects that can should take them in one round trip.
+     */
+    default long[] nextSequenceValues(SqlgGraph sqlgGraph, SchemaTable schemaTable, String prefix, int count) {
+        long[] result = new long[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = nextSequenceVal(sqlgGraph, schemaTable, prefix);
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the batch modes may reserve the ID sequences' values in blocks with
+     * {@link org.umlg.sqlg.structure.SequenceIdAllocator}, i.e. the dialect's ID columns take their default from
+     * {@link #nextSequenceValues(SqlgGraph, SchemaTable, String, int)}'s sequence and accept explicit values.
+     */
+    default boolean supportsSequenceIdAllocation() {
+        return false;
+    }
+
     long currSequenceVal(SqlgGraph sqlgGraph, SchemaTable schemaTable, String prefix);
 
     String sequenceName(SqlgGraph sqlgGraph, SchemaTable outSchemaTable, String prefix);
 
     boolean supportsBulkWithinOut();
 
+    /**
+     * If true the values of a bulk within/without predicate are bound as array parameters, one per column,
+     * instead of being printed into the sql as a VALUES expression.
+     * The sql text then only depends on the types of the values, not the values themselves.
+     */
+    default boolean supportsBulkWithinOutArrayParameter() {
+        return false;
+    }
+
+    /**
+     * Only called when {@link #supportsBulkWithinOutArrayParameter()} is true.
+     *
+     * @param arrayPropertyTypes The array type of every column of the bulk within/without values.
+     * @return The sql that expands the array parameters into rows, i.e. "unnest(?::bigint[])".
+     */
+    default String bulkWithinOutArrayParameter(List<PropertyType> arrayPropertyTypes) {
+        throw new RuntimeException("Not yet implemented.");
+    }
+
+    /**
+     * If true a repeat().until(has(...)) or repeat().emit() over one self referencing edge label is executed as a single
+     * recursive common table expression instead of one query per loop.
+     */
+    default boolean supportsRecursiveCte() {
+        return false;
+    }
+
+    /**
+     * @return The keywords that start a recursive common table expression. Mssql server does not use RECURSIVE.
+     */
+    default String withRecursive() {
+        return "WITH RECURSIVE";
+    }
+
+    /**
+     * By default the recursive common table expression's path column holds the visited ids as a string, i.e. ",1,2,3,".
+     * The anchor and the recursive part of the expression must agree on the column's type.
+     *
+     * @return The sql type the path is cast to.
+     */
+    default String recursiveCtePathType() {
+        return "VARCHAR(4000)";
+    }
+
+    /**
+     * @return The anchor's path, the edge's from and to ids.
+     */
+    default String recursiveCtePathStart(String from, String to) {
+        return "CAST(CONCAT(',', " + from + ", ',', " + to + ", ',') AS " + recursiveCtePathType() + ")";
+    }
+
+    /**
+     * @return The recursive part's path, the previous path with the to id appended.
+     */
+    default String recursiveCtePathAppend(String path, String to) {
+        return "CAST(CONCAT(" + path + ", " + to + ", ',') AS " + recursiveCtePathType() + ")";
+    }
+
+    /**
+     * Dialects that support arrays keep the path as an array and override this with a membership test on the array.
+     *
+     * @return A boolean sql expression that is true if the id is already on the path.
+     */
+    default String recursiveCtePathContains(String path, String id) {
+        return path + " LIKE CONCAT('%,', " + id + ", ',%')";
+    }
+
+    /**
+     * Indicates that connections can share a transaction's snapshot, see {@link #exportSnapshot(Connection)}.
+     * Read only traversals can then execute their distinct queries concurrently on pooled connections.
+     */
+    default boolean supportsSharedSnapshot() {
+        return false;
+    }
+
+    /**
+     * Exports the snapshot of the transaction on the connection.
+     *
+     * @param connection The transaction's connection.
+     * @return The snapshot's id or null if the snapshot can not be shared, i.e. the transaction has written.
+     */
+    default String exportSnapshot(Connection connection) {
+        throw new UnsupportedOperationException("exportSnapshot is not supported by " + dialectName());
+    }
+
+    /**
+     * Starts a transaction on the connection that sees the exported snapshot.
+     *
+     * @param connection A pooled connection, not yet in a transaction.
+     * @param snapshot   The id returned by {@link #exportSnapshot(Connection)}
+     */
+    default void importSnapshot(Connection connection, String snapshot) {
+        throw new UnsupportedOperationException("importSnapshot is not supported by " + dialectName());
+    }
+
+    /**
+     * Indicates that vertices can be inserted or, if their unique keys already exist, updated in one statement,
+     * see {@link #upsertVertexSql(SqlgGraph, VertexLabel, List, SortedSet)}.
+     */
+    default boolean supportsUpsert() {
+        return false;
+    }
+
+    /**
+     * Indicates that the upsert statement returns the ID of an inserted or updated vertex as a generated key column
+     * named ID. Else the ids of a label with an ID primary key are selected by their unique keys after the upserts.
+     */
+    default boolean upsertReturnsIds() {
+        return false;
+    }
+
+    /**
+     * The insert-or-update statement of one vertex. The parameters are the columns' values in the order of columns.
+     * For a label with an ID primary key the statement must return the ID as its generated key if
+     * {@link #upsertReturnsIds()}.
+     *
+     * @param vertexLabel The vertex's label.
+     * @param uniqueKeys  The properties of the label's identifiers or of a unique index, an existing vertex with the same values is updated.
+     * @param columns     The properties to insert or update, they include the uniqueKeys.
+     * @return The sql.
+     */
+    default String upsertVertexSql(SqlgGraph sqlgGraph, VertexLabel vertexLabel, List<String> uniqueKeys, SortedSet<String> columns) {
+        throw new UnsupportedOperationException("upsert is not supported by " + dialectName());
+    }
+
+    /**
+     * Label-less scans over many tables are batched into one UNION ALL statement.
+     * Every branch selects NULL for the columns of the other tables in the batch, typed so that the
+     * branches agree on the column types.
+     *
+     * @param propertyType The type of the column the NULL stands in for.
+     * @return The sql for the typed NULL.
+     */
+    default String unionAllNull(PropertyType propertyType) {
+        String sqlDefinition = propertyTypeToSqlDefinition(propertyType)[0];
+        int defaultIndex = sqlDefinition.indexOf(" DEFAULT ");
+        if (defaultIndex != -1) {
+            sqlDefinition = sqlDefinition.substring(0, defaultIndex);
+        }
+        return "CAST(NULL AS " + sqlDefinition + ")";
+    }
+
     String afterCreateTemporaryTableStatement();
 
     /**
@@ -714,6 +894,27 @@ public interface SqlDialect {
         return true;
     }
 
+    /**
+     * Indicates if the rdbms supports <code>ROW_NUMBER() OVER (PARTITION BY ... ORDER BY ...)</code>.
+     * If true the range of a local traversal is applied per incoming start in the db,
+     * else all the starts' elements are loaded and the range is applied per start in memory.
+     *
+     * @return true if window functions are supported else false.
+     */
+    default boolean supportsWindowFunctions() {
+        return false;
+    }
+
+    /**
+     * Indicates if the rdbms supports row value comparisons, i.e. <code>("name", "ID") &gt; (?, ?)</code>.
+     * If false the comparison is expanded into <code>("name" &gt; ? OR ("name" = ? AND "ID" &gt; ?))</code>.
+     *
+     * @return true if row value comparisons are supported else false.
+     */
+    default boolean supportsRowValueComparison() {
+        return false;
+    }
+
     /**
      * This is needed for Cockroachdb where the index needs to be specified as a part of the 'CREATE TABLE' statement.
      *
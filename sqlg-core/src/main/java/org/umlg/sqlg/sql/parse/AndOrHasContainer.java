@@ -77,6 +77,27 @@ public class AndOrHasContainer {
         }
     }
 
+    /**
+     * @see WhereClause#appendShape(org.apache.tinkerpop.gremlin.process.traversal.P, StringBuilder)
+     */
+    boolean appendShape(StringBuilder shape) {
+        shape.append(this.type).append("(");
+        for (HasContainer hasContainer : this.hasContainers) {
+            shape.append(hasContainer.getKey()).append(":");
+            if (!WhereClause.appendShape(hasContainer.getPredicate(), shape)) {
+                return false;
+            }
+            shape.append(",");
+        }
+        for (AndOrHasContainer andOrHasContainer : this.andOrHasContainers) {
+            if (!andOrHasContainer.appendShape(shape)) {
+                return false;
+            }
+        }
+        shape.append(")");
+        return true;
+    }
+
     void toSql(SqlgGraph sqlgGraph, SchemaTableTree schemaTableTree, StringBuilder result) {
         toSql(sqlgGraph, schemaTableTree, result, 0);
     }
@@ -0,0 +1,306 @@
+package org.umlg.sqlg.sql.parse;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Multimap;
+import org.apache.tinkerpop.gremlin.process.traversal.Compare;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.umlg.sqlg.sql.dialect.BaseSqlDialect;
+import org.umlg.sqlg.sql.dialect.SqlDialect;
+import org.umlg.sqlg.structure.SchemaTable;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.structure.topology.EdgeLabel;
+import org.umlg.sqlg.structure.topology.Topology;
+import org.umlg.sqlg.structure.topology.VertexLabel;
+
+import java.util.*;
+
+/**
+ * Represents a filter traversal made up of vertex steps and has steps only, i.e. g.V().not(__.out("banned")).
+ * It is printed as a correlated [NOT] EXISTS sub select in the where clause of the element it filters.
+ * The traversals are or'ed, i.e. g.V().or(__.out("a"), __.in("b")), an and() is represented by an ExistsContainer per traversal.
+ */
+public class ExistsContainer {
+
+    private static final String ALIAS_PREFIX = "sqlg_exists_";
+
+    private final boolean not;
+    private final List<List<Hop>> traversals = new ArrayList<>();
+
+    public ExistsContainer(boolean not) {
+        this.not = not;
+    }
+
+    public void addTraversal(List<Hop> hops) {
+        Preconditions.checkArgument(!hops.isEmpty(), "An exists traversal must have at least one vertex step.");
+        this.traversals.add(hops);
+    }
+
+    /**
+     * A vertex step and the has steps that follow it.
+     */
+    public static class Hop {
+
+        private final Direction direction;
+        private final String[] edgeLabels;
+        //false if the vertex step returns edges, i.e. the strategies replaced __.out() with __.outE() as the vertex is never used.
+        private final boolean toVertex;
+        private final Set<String> vertexLabels = new TreeSet<>();
+        private final List<HasContainer> hasContainers = new ArrayList<>();
+
+        public Hop(Direction direction, String[] edgeLabels, boolean toVertex) {
+            this.direction = direction;
+            this.edgeLabels = edgeLabels;
+            this.toVertex = toVertex;
+        }
+
+        public boolean isToVertex() {
+            return this.toVertex;
+        }
+
+        public Set<String> getVertexLabels() {
+            return this.vertexLabels;
+        }
+
+        public void addHasContainer(HasContainer hasContainer) {
+            Preconditions.checkState(hasContainer.getBiPredicate() instanceof Compare, "Only Compare predicates are supported, found %s", hasContainer.getBiPredicate());
+            this.hasContainers.add(hasContainer);
+        }
+
+        private boolean matchesEdgeLabel(EdgeLabel edgeLabel) {
+            if (this.edgeLabels.length == 0) {
+                return true;
+            }
+            for (String edgeLabelName : this.edgeLabels) {
+                if (edgeLabelName.equals(edgeLabel.getLabel()) || edgeLabelName.equals(edgeLabel.getFullName())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matchesVertexLabel(VertexLabel vertexLabel) {
+            if (!this.vertexLabels.isEmpty() && !this.vertexLabels.contains(vertexLabel.getLabel()) && !this.vertexLabels.contains(vertexLabel.getFullName())) {
+                return false;
+            }
+            //a property that the label does not have is null, which never compares true.
+            for (HasContainer hasContainer : this.hasContainers) {
+                if (!vertexLabel.getProperties().containsKey(hasContainer.getKey())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A hop resolved against the topology.
+     */
+    private static class Join {
+
+        private final Hop hop;
+        private final EdgeLabel edgeLabel;
+        private final Direction direction;
+        private final VertexLabel from;
+        private final VertexLabel to;
+
+        private Join(Hop hop, EdgeLabel edgeLabel, Direction direction, VertexLabel from, VertexLabel to) {
+            this.hop = hop;
+            this.edgeLabel = edgeLabel;
+            this.direction = direction;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * The hops resolved against the topology starting from the element's vertex label.
+     * Each list is a path of joins that is printed as its own EXISTS sub select.
+     * The paths are sorted so that the printed sql and the bound parameters are in the same order.
+     */
+    private List<List<Join>> paths(SqlgGraph sqlgGraph, SchemaTableTree schemaTableTree) {
+        SchemaTable schemaTable = schemaTableTree.getSchemaTable();
+        Preconditions.checkState(schemaTable.isVertexTable(), "An exists filter can only be applied to a vertex, found %s", schemaTable);
+        VertexLabel vertexLabel = sqlgGraph.getTopology().getVertexLabel(
+                schemaTable.withOutPrefix().getSchema(),
+                schemaTable.withOutPrefix().getTable()
+        ).orElseThrow(() -> new IllegalStateException(String.format("VertexLabel %s must be present.", schemaTable)));
+        List<List<Join>> result = new ArrayList<>();
+        for (List<Hop> hops : this.traversals) {
+            paths(vertexLabel, hops, 0, new ArrayDeque<>(), result);
+        }
+        return result;
+    }
+
+    private static void paths(VertexLabel from, List<Hop> hops, int index, Deque<Join> current, List<List<Join>> result) {
+        if (index == hops.size()) {
+            result.add(new ArrayList<>(current));
+            return;
+        }
+        Hop hop = hops.get(index);
+        for (Direction direction : Arrays.asList(Direction.OUT, Direction.IN)) {
+            if (hop.direction != Direction.BOTH && hop.direction != direction) {
+                continue;
+            }
+            Map<String, EdgeLabel> edgeLabels = direction == Direction.OUT ? from.getOutEdgeLabels() : from.getInEdgeLabels();
+            for (EdgeLabel edgeLabel : sortedEdgeLabels(edgeLabels.values())) {
+                if (!hop.matchesEdgeLabel(edgeLabel)) {
+                    continue;
+                }
+                if (!hop.toVertex) {
+                    current.addLast(new Join(hop, edgeLabel, direction, from, null));
+                    paths(null, hops, index + 1, current, result);
+                    current.removeLast();
+                } else {
+                    Set<VertexLabel> toVertexLabels = direction == Direction.OUT ? edgeLabel.getInVertexLabels() : edgeLabel.getOutVertexLabels();
+                    for (VertexLabel to : sortedVertexLabels(toVertexLabels)) {
+                        if (hop.matchesVertexLabel(to)) {
+                            current.addLast(new Join(hop, edgeLabel, direction, from, to));
+                            paths(to, hops, index + 1, current, result);
+                            current.removeLast();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<EdgeLabel> sortedEdgeLabels(Collection<EdgeLabel> edgeLabels) {
+        List<EdgeLabel> result = new ArrayList<>(edgeLabels);
+        result.sort(Comparator.comparing(EdgeLabel::getFullName));
+        return result;
+    }
+
+    private static List<VertexLabel> sortedVertexLabels(Collection<VertexLabel> vertexLabels) {
+        List<VertexLabel> result = new ArrayList<>(vertexLabels);
+        result.sort(Comparator.comparing(VertexLabel::getFullName));
+        return result;
+    }
+
+    /**
+     * The shape includes the resolved tables as they change with the topology.
+     */
+    boolean appendShape(SqlgGraph sqlgGraph, SchemaTableTree schemaTableTree, StringBuilder shape) {
+        shape.append(this.not ? "notExists(" : "exists(");
+        for (List<Join> path : paths(sqlgGraph, schemaTableTree)) {
+            shape.append("(");
+            for (Join join : path) {
+                shape.append(join.direction).append(":").append(join.edgeLabel.getFullName());
+                if (join.to != null) {
+                    shape.append(":").append(join.to.getFullName());
+                }
+                for (HasContainer hasContainer : join.hop.hasContainers) {
+                    shape.append(":").append(hasContainer.getKey()).append(":");
+                    if (!WhereClause.appendShape(hasContainer.getPredicate(), shape)) {
+                        return false;
+                    }
+                }
+                shape.append(",");
+            }
+            shape.append(")");
+        }
+        shape.append(")");
+        return true;
+    }
+
+    void toSql(SqlgGraph sqlgGraph, SchemaTableTree schemaTableTree, StringBuilder result) {
+        SqlDialect sqlDialect = sqlgGraph.getSqlDialect();
+        List<List<Join>> paths = paths(sqlgGraph, schemaTableTree);
+        if (paths.isEmpty()) {
+            //there are no edges to traverse.
+            result.append(this.not ? "1 = 1" : "1 = 0");
+            return;
+        }
+        result.append(this.not ? "NOT (" : "(");
+        int count = 1;
+        for (List<Join> path : paths) {
+            result.append("EXISTS (\n\tSELECT 1 FROM ");
+            StringBuilder where = new StringBuilder();
+            int depth = 1;
+            for (Join join : path) {
+                String edgeAlias = ALIAS_PREFIX + "e" + depth;
+                String vertexAlias = ALIAS_PREFIX + "v" + depth;
+                String fromAlias = ALIAS_PREFIX + "v" + (depth - 1);
+                if (depth > 1) {
+                    result.append(" INNER JOIN ");
+                }
+                appendTable(sqlDialect, join.edgeLabel.getSchema().getName(), Topology.EDGE_PREFIX + join.edgeLabel.getLabel(), edgeAlias, result);
+                String fromColumnEnd = join.direction == Direction.OUT ? Topology.OUT_VERTEX_COLUMN_END : Topology.IN_VERTEX_COLUMN_END;
+                String toColumnEnd = join.direction == Direction.OUT ? Topology.IN_VERTEX_COLUMN_END : Topology.OUT_VERTEX_COLUMN_END;
+                if (depth == 1) {
+                    //correlate the sub select with the element being filtered.
+                    String prefix = sqlDialect.maybeWrapInQoutes(schemaTableTree.getSchemaTable().getSchema()) + "." +
+                            sqlDialect.maybeWrapInQoutes(schemaTableTree.getSchemaTable().getTable());
+                    appendJoinOn(sqlDialect, join.from, edgeAlias, fromColumnEnd, prefix, where);
+                } else {
+                    result.append(" ON ");
+                    appendJoinOn(sqlDialect, join.from, edgeAlias, fromColumnEnd, sqlDialect.maybeWrapInQoutes(fromAlias), result);
+                }
+                if (join.to != null) {
+                    result.append(" INNER JOIN ");
+                    appendTable(sqlDialect, join.to.getSchema().getName(), Topology.VERTEX_PREFIX + join.to.getLabel(), vertexAlias, result);
+                    result.append(" ON ");
+                    appendJoinOn(sqlDialect, join.to, edgeAlias, toColumnEnd, sqlDialect.maybeWrapInQoutes(vertexAlias), result);
+                    for (HasContainer hasContainer : join.hop.hasContainers) {
+                        where.append(" AND ");
+                        where.append(sqlDialect.maybeWrapInQoutes(vertexAlias)).append(".").append(sqlDialect.maybeWrapInQoutes(hasContainer.getKey()));
+                        where.append(BaseSqlDialect.compareToSql((Compare) hasContainer.getBiPredicate()));
+                    }
+                }
+                depth++;
+            }
+            result.append("\n\tWHERE ").append(where).append(")");
+            if (count++ < paths.size()) {
+                result.append(" OR ");
+            }
+        }
+        result.append(")");
+    }
+
+    private static void appendTable(SqlDialect sqlDialect, String schema, String table, String alias, StringBuilder sql) {
+        sql.append(sqlDialect.maybeWrapInQoutes(schema));
+        sql.append(".");
+        sql.append(sqlDialect.maybeWrapInQoutes(table));
+        sql.append(" ");
+        sql.append(sqlDialect.maybeWrapInQoutes(alias));
+    }
+
+    /**
+     * Joins the edge's foreign key columns to the vertex's primary key columns.
+     */
+    private static void appendJoinOn(SqlDialect sqlDialect, VertexLabel vertexLabel, String edgeAlias, String columnEnd, String vertexPrefix, StringBuilder sql) {
+        String rawLabel = vertexLabel.getSchema().getName() + "." + vertexLabel.getLabel();
+        if (vertexLabel.getIdentifiers().isEmpty()) {
+            sql.append(sqlDialect.maybeWrapInQoutes(edgeAlias)).append(".").append(sqlDialect.maybeWrapInQoutes(rawLabel + columnEnd));
+            sql.append(" = ");
+            sql.append(vertexPrefix).append(".").append(sqlDialect.maybeWrapInQoutes("ID"));
+        } else {
+            int i = 1;
+            for (String identifier : vertexLabel.getIdentifiers()) {
+                sql.append(sqlDialect.maybeWrapInQoutes(edgeAlias)).append(".");
+                if (vertexLabel.isDistributed() && vertexLabel.getDistributionPropertyColumn().getName().equals(identifier)) {
+                    sql.append(sqlDialect.maybeWrapInQoutes(identifier));
+                } else {
+                    sql.append(sqlDialect.maybeWrapInQoutes(rawLabel + "." + identifier + columnEnd));
+                }
+                sql.append(" = ");
+                sql.append(vertexPrefix).append(".").append(sqlDialect.maybeWrapInQoutes(identifier));
+                if (i++ < vertexLabel.getIdentifiers().size()) {
+                    sql.append(" AND ");
+                }
+            }
+        }
+    }
+
+    public void setParameterOnStatement(SqlgGraph sqlgGraph, Multimap<String, Object> keyValueMap, SchemaTableTree schemaTableTree) {
+        for (List<Join> path : paths(sqlgGraph, schemaTableTree)) {
+            for (Join join : path) {
+                if (join.to != null) {
+                    for (HasContainer hasContainer : join.hop.hasContainers) {
+                        keyValueMap.put(hasContainer.getKey(), hasContainer.getValue());
+                    }
+                }
+            }
+        }
+    }
+}
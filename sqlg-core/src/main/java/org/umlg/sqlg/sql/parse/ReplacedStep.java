@@ -46,6 +46,7 @@ public class ReplacedStep<S, E> {
     private final List<HasContainer> idHasContainers = new ArrayList<>();
     private final List<HasContainer> labelHasContainers = new ArrayList<>();
     private final List<AndOrHasContainer> andOrHasContainers = new ArrayList<>();
+    private final List<ExistsContainer> existsContainers = new ArrayList<>();
     private final SqlgComparatorHolder sqlgComparatorHolder = new SqlgComparatorHolder();
     private final List<org.javatuples.Pair<Traversal.Admin<?, ?>, Comparator<?>>> dbComparators = new ArrayList<>();
     /**
@@ -115,6 +116,10 @@ public class ReplacedStep<S, E> {
         return this.andOrHasContainers;
     }
 
+    public List<ExistsContainer> getExistsContainers() {
+        return this.existsContainers;
+    }
+
     public SqlgComparatorHolder getSqlgComparatorHolder() {
         return this.sqlgComparatorHolder;
     }
@@ -539,6 +544,7 @@ public class ReplacedStep<S, E> {
                 this.labels
         );
         schemaTableTree.setRestrictedProperties(getRestrictedProperties());
+        schemaTableTree.setExistsContainers(this.existsContainers);
         result.add(schemaTableTree);
     }
 
@@ -782,6 +788,10 @@ public class ReplacedStep<S, E> {
         this.andOrHasContainers.add(andOrHasContainer);
     }
 
+    public void addExistsContainer(ExistsContainer existsContainer) {
+        this.existsContainers.add(existsContainer);
+    }
+
     public SqlgRangeHolder getSqlgRangeHolder() {
         return this.sqlgRangeHolder;
     }
@@ -818,7 +828,15 @@ public class ReplacedStep<S, E> {
         this.isForSqlgSchema = true;
     }
 
+    public boolean isForSqlgSchema() {
+        return this.isForSqlgSchema;
+    }
+
     public void markForGuiSchema() {
         this.isForGuiSchema = true;
     }
+
+    public boolean isForGuiSchema() {
+        return this.isForGuiSchema;
+    }
 }
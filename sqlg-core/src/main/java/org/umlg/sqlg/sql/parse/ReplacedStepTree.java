@@ -199,6 +199,13 @@ public class ReplacedStepTree {
         replacedStep.getSqlgRangeHolder().doNotApplyInStep();
     }
 
+    public void applyRangePerStart() {
+        List<ReplacedStep<?,?>> replacedSteps = linearPathToLeafNode();
+        ReplacedStep<?, ?> replacedStep = replacedSteps.get(replacedSteps.size() - 1);
+        Preconditions.checkState(replacedStep.hasRange());
+        replacedStep.getSqlgRangeHolder().applyPerStart();
+    }
+
     public void reset() {
         List<ReplacedStep<?,?>> replacedSteps = linearPathToLeafNode();
         ReplacedStep<?, ?> replacedStep = replacedSteps.get(replacedSteps.size() - 1);
@@ -0,0 +1,184 @@
+package org.umlg.sqlg.sql.parse;
+
+import com.google.common.base.Preconditions;
+import org.umlg.sqlg.structure.PropertyType;
+import org.umlg.sqlg.structure.SchemaTable;
+import org.umlg.sqlg.structure.SqlgEdge;
+import org.umlg.sqlg.structure.SqlgElement;
+import org.umlg.sqlg.structure.topology.Topology;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The column positions of a {@link SchemaTableTree}'s element in the result set of its compiled sql.
+ * Built once per query from the tree's {@link ColumnList}s, after which every row is loaded by column index only.
+ * The property types and the indexes of the multi column types' postfix columns are resolved here, once per result set shape.
+ */
+public final class RowDecoder {
+
+    private final SchemaTableTree schemaTableTree;
+    private final int idIndex;
+    private final int[] identifierIndexes;
+    private final String[] propertyNames;
+    private final int[] propertyIndexes;
+    private final PropertyType[] propertyTypes;
+    //The column indexes of the properties' postfix columns, null if a postfix column is not in the result set.
+    private final int[][] postFixIndexes;
+    private final SchemaTable[] inVertexSchemaTables;
+    private final int[] inVertexIndexes;
+    private final SchemaTable[] outVertexSchemaTables;
+    private final int[] outVertexIndexes;
+    //composite foreign keys, these are loaded column by column.
+    private final List<List<ColumnList.Column>> inVertexColumns;
+    private final List<List<ColumnList.Column>> outVertexColumns;
+
+    RowDecoder(SchemaTableTree schemaTableTree, List<ColumnList> columnListStack, Map<String, Integer> idColumnCountMap) {
+        this.schemaTableTree = schemaTableTree;
+        int stepDepth = schemaTableTree.getStepDepth();
+        SchemaTable schemaTable = schemaTableTree.getSchemaTable();
+
+        Integer id = schemaTableTree.isHasIDPrimaryKey() ? idColumnCountMap.get(schemaTableTree.labeledAliasId()) : null;
+        this.idIndex = id != null ? id : -1;
+        if (schemaTableTree.isHasIDPrimaryKey()) {
+            this.identifierIndexes = new int[0];
+        } else {
+            this.identifierIndexes = new int[schemaTableTree.getIdentifiers().size()];
+            int i = 0;
+            for (String identifier : schemaTableTree.getIdentifiers()) {
+                Integer identifierIndex = idColumnCountMap.get(schemaTableTree.labeledAliasIdentifier(identifier));
+                this.identifierIndexes[i++] = identifierIndex != null ? identifierIndex : -1;
+            }
+        }
+
+        List<ColumnList.Column> properties = new ArrayList<>();
+        Map<String, Integer> postFixColumns = new HashMap<>();
+        List<ColumnList.Column> inVertices = new ArrayList<>();
+        List<ColumnList.Column> outVertices = new ArrayList<>();
+        this.inVertexColumns = new ArrayList<>();
+        this.outVertexColumns = new ArrayList<>();
+        for (ColumnList columnList : columnListStack) {
+            for (ColumnList.Column column : columnList.getFor(stepDepth, schemaTable).keySet()) {
+                String propertyName = column.getColumn();
+                if (!column.isID() && !column.isForeignKey() && !propertyName.equals("index")) {
+                    if (isPostFix(propertyName)) {
+                        postFixColumns.put(propertyName, column.getColumnIndex());
+                    } else {
+                        properties.add(column);
+                    }
+                }
+            }
+            if (schemaTable.isEdgeTable()) {
+                addForeignKeys(columnList.getInForeignKeys(stepDepth, schemaTable), inVertices, this.inVertexColumns);
+                addForeignKeys(columnList.getOutForeignKeys(stepDepth, schemaTable), outVertices, this.outVertexColumns);
+            }
+        }
+        this.propertyNames = new String[properties.size()];
+        this.propertyIndexes = new int[properties.size()];
+        this.propertyTypes = new PropertyType[properties.size()];
+        this.postFixIndexes = new int[properties.size()][];
+        for (int i = 0; i < properties.size(); i++) {
+            ColumnList.Column column = properties.get(i);
+            this.propertyNames[i] = column.getColumn();
+            this.propertyIndexes[i] = column.getColumnIndex();
+            this.propertyTypes[i] = column.getPropertyType();
+            this.postFixIndexes[i] = postFixIndexes(column, postFixColumns);
+        }
+        this.inVertexSchemaTables = new SchemaTable[inVertices.size()];
+        this.inVertexIndexes = new int[inVertices.size()];
+        for (int i = 0; i < inVertices.size(); i++) {
+            this.inVertexSchemaTables[i] = inVertices.get(i).getForeignSchemaTable();
+            this.inVertexIndexes[i] = inVertices.get(i).getColumnIndex();
+        }
+        this.outVertexSchemaTables = new SchemaTable[outVertices.size()];
+        this.outVertexIndexes = new int[outVertices.size()];
+        for (int i = 0; i < outVertices.size(); i++) {
+            this.outVertexSchemaTables[i] = outVertices.get(i).getForeignSchemaTable();
+            this.outVertexIndexes[i] = outVertices.get(i).getColumnIndex();
+        }
+    }
+
+    private static int[] postFixIndexes(ColumnList.Column column, Map<String, Integer> postFixColumns) {
+        String[] postFixes = column.getPropertyType().getPostFixes();
+        int[] indexes = new int[postFixes.length];
+        for (int i = 0; i < postFixes.length; i++) {
+            Integer index = postFixColumns.get(column.getColumn() + postFixes[i]);
+            if (index == null) {
+                return null;
+            }
+            indexes[i] = index;
+        }
+        return indexes;
+    }
+
+    private static void addForeignKeys(Map<SchemaTable, List<ColumnList.Column>> foreignKeys, List<ColumnList.Column> singleColumns, List<List<ColumnList.Column>> compositeColumns) {
+        for (List<ColumnList.Column> columns : foreignKeys.values()) {
+            if (columns.size() == 1 && !columns.get(0).isForeignKeyProperty()) {
+                singleColumns.add(columns.get(0));
+            } else {
+                compositeColumns.add(columns);
+            }
+        }
+    }
+
+    /**
+     * The extra columns of multi column types are read by {@link SqlgElement#loadProperty} along with the property itself,
+     * by the indexes resolved here.
+     */
+    private static boolean isPostFix(String propertyName) {
+        return propertyName.endsWith(Topology.ZONEID) ||
+                propertyName.endsWith(Topology.MONTHS) ||
+                propertyName.endsWith(Topology.DAYS) ||
+                propertyName.endsWith(Topology.DURATION_NANOS);
+    }
+
+    public Long loadId(ResultSet resultSet) throws SQLException {
+        Preconditions.checkState(this.idIndex > 0, "The id column of %s is not in the result set.", this.schemaTableTree.getSchemaTable());
+        return resultSet.getLong(this.idIndex);
+    }
+
+    public List<Comparable> loadIdentifierObjects(ResultSet resultSet) throws SQLException {
+        List<Comparable> identifierObjects = new ArrayList<>(this.identifierIndexes.length);
+        for (int identifierIndex : this.identifierIndexes) {
+            Preconditions.checkState(identifierIndex > 0, "An identifier column of %s is not in the result set.", this.schemaTableTree.getSchemaTable());
+            identifierObjects.add((Comparable) resultSet.getObject(identifierIndex));
+        }
+        return identifierObjects;
+    }
+
+    public void loadProperties(ResultSet resultSet, SqlgElement sqlgElement) throws SQLException {
+        for (int i = 0; i < this.propertyIndexes.length; i++) {
+            if (this.postFixIndexes[i] != null) {
+                sqlgElement.loadProperty(resultSet, this.propertyNames[i], this.propertyIndexes[i], this.postFixIndexes[i], this.propertyTypes[i]);
+            } else {
+                sqlgElement.loadProperty(
+                        resultSet,
+                        this.propertyNames[i],
+                        this.propertyIndexes[i],
+                        this.schemaTableTree.getColumnNameAliasMap(),
+                        this.schemaTableTree.getStepDepth(),
+                        this.propertyTypes[i]
+                );
+            }
+        }
+    }
+
+    public void loadEdgeInOutVertices(ResultSet resultSet, SqlgEdge sqlgEdge) throws SQLException {
+        for (int i = 0; i < this.inVertexIndexes.length; i++) {
+            sqlgEdge.loadInVertex(resultSet, this.inVertexSchemaTables[i], this.inVertexIndexes[i]);
+        }
+        for (List<ColumnList.Column> columns : this.inVertexColumns) {
+            sqlgEdge.loadInVertex(resultSet, columns);
+        }
+        for (int i = 0; i < this.outVertexIndexes.length; i++) {
+            sqlgEdge.loadOutVertex(resultSet, this.outVertexSchemaTables[i], this.outVertexIndexes[i]);
+        }
+        for (List<ColumnList.Column> columns : this.outVertexColumns) {
+            sqlgEdge.loadOutVertex(resultSet, columns);
+        }
+    }
+}
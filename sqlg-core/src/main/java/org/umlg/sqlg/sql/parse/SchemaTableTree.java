@@ -15,6 +15,7 @@ import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.structure.*;
 import org.umlg.sqlg.predicate.Existence;
 import org.umlg.sqlg.predicate.FullText;
+import org.umlg.sqlg.sql.dialect.SqlDialect;
 import org.umlg.sqlg.strategy.*;
 import org.umlg.sqlg.structure.PropertyType;
 import org.umlg.sqlg.structure.*;
@@ -42,6 +43,12 @@ public class SchemaTableTree {
     private static final String CONSTRUCT_SQL_MAY_ONLY_BE_CALLED_ON_THE_ROOT_OBJECT = "constructSql may only be called on the root object";
     private static final String WITHIN = "within";
     private static final String WITHOUT = "without";
+    private static final int UNION_ALL_WIDTH = 50;
+    //Postgres allows at most 1664 entries in a select list.
+    private static final int UNION_ALL_MAX_COLUMNS = 1000;
+    public static final String UNION_ALL_DISCRIMINATOR = "sqlg_union";
+    //More incoming ids than this are copied into a temporary table instead of being bound as arrays.
+    private static final int PARENT_IDS_TEMP_TABLE_THRESHOLD = 50000;
     //stepDepth indicates the depth of the replaced steps. i.e. v1.out().out().out() existVertexLabel stepDepth 0,1,2,3
     private final int stepDepth;
     private final SchemaTable schemaTable;
@@ -55,6 +62,7 @@ public class SchemaTableTree {
     private final List<SchemaTableTree> leafNodes = new ArrayList<>();
     private List<HasContainer> hasContainers;
     private List<AndOrHasContainer> andOrHasContainers;
+    private List<ExistsContainer> existsContainers = Collections.emptyList();
     private SqlgComparatorHolder sqlgComparatorHolder = new SqlgComparatorHolder();
     private List<org.javatuples.Pair<Traversal.Admin<?, ?>, Comparator<?>>> dbComparators;
     //labels are immutable
@@ -84,7 +92,7 @@ public class SchemaTableTree {
     private final int replacedStepDepth;
 
     //Cached for query load performance
-    private Map<String, Pair<String, PropertyType>> columnNamePropertyName;
+    private RowDecoder rowDecoder;
     private String idProperty;
     private String labeledAliasId;
     private final boolean hasIDPrimaryKey;
@@ -105,6 +113,7 @@ public class SchemaTableTree {
     private SqlgRangeHolder sqlgRangeHolder;
     //This is the incoming element id and the traversals start elements index, for SqlgVertexStep.
     private List<Pair<RecordId.ID, Long>> parentIdsAndIndexes;
+    private List<Pair<PropertyType, Object[]>> parentIdsAndIndexesArrays;
 
     private final List<ColumnList> columnListStack = new ArrayList<>();
 
@@ -236,6 +245,7 @@ public class SchemaTableTree {
                 Vertex.class,
                 replacedStep.getHasContainers(),
                 replacedStep.getAndOrHasContainers(),
+                replacedStep.getExistsContainers(),
                 replacedStep.getSqlgComparatorHolder(),
                 replacedStep.getSqlgComparatorHolder().getComparators(),
                 replacedStep.getSqlgRangeHolder(),
@@ -273,6 +283,7 @@ public class SchemaTableTree {
                 elementClass,
                 replacedStep.getHasContainers(),
                 replacedStep.getAndOrHasContainers(),
+                replacedStep.getExistsContainers(),
                 replacedStep.getSqlgComparatorHolder(),
                 replacedStep.getSqlgComparatorHolder().getComparators(),
                 replacedStep.getSqlgRangeHolder(),
@@ -292,6 +303,7 @@ public class SchemaTableTree {
             Class<? extends Element> elementClass,
             List<HasContainer> hasContainers,
             List<AndOrHasContainer> andOrHasContainers,
+            List<ExistsContainer> existsContainers,
             SqlgComparatorHolder sqlgComparatorHolder,
             List<org.javatuples.Pair<Traversal.Admin<?, ?>, Comparator<?>>> dbComparators,
             SqlgRangeHolder sqlgRangeHolder,
@@ -309,6 +321,7 @@ public class SchemaTableTree {
                 (elementClass.isAssignableFrom(Vertex.class) && schemaTable.getTable().startsWith(VERTEX_PREFIX))) {
             schemaTableTree.hasContainers = new ArrayList<>(hasContainers);
             schemaTableTree.andOrHasContainers = new ArrayList<>(andOrHasContainers);
+            schemaTableTree.existsContainers = new ArrayList<>(existsContainers);
             schemaTableTree.sqlgComparatorHolder = sqlgComparatorHolder;
             schemaTableTree.dbComparators = new ArrayList<>(dbComparators);
             schemaTableTree.sqlgRangeHolder = sqlgRangeHolder;
@@ -334,7 +347,7 @@ public class SchemaTableTree {
         this.aliasMapHolder = new AliasMapHolder();
     }
 
-    private Map<String, String> getColumnNameAliasMap() {
+    Map<String, String> getColumnNameAliasMap() {
         return this.getRoot().aliasMapHolder.getColumnNameAliasMap();
     }
 
@@ -397,30 +410,411 @@ public class SchemaTableTree {
         return schemaTable;
     }
 
+    SqlgGraph getSqlgGraph() {
+        return this.sqlgGraph;
+    }
+
     public String constructSql(LinkedList<SchemaTableTree> distinctQueryStack) {
         Preconditions.checkState(this.parent == null, CONSTRUCT_SQL_MAY_ONLY_BE_CALLED_ON_THE_ROOT_OBJECT);
+        return constructSqlForOptional(distinctQueryStack, Collections.emptySet());
+    }
 
-        //If the same element occurs multiple times in the stack then the sql needs to be different.
-        //This is because the same element can not be joined on more than once in sql
-        //The way to overcome this is to break up the path in select sections with no duplicates and then join them together.
-        if (duplicatesInStack(distinctQueryStack)) {
-            List<LinkedList<SchemaTableTree>> subQueryStacks = splitIntoSubStacks(distinctQueryStack);
-            return constructDuplicatePathSql(this.sqlgGraph, subQueryStacks);
-        } else {
-            //If there are no duplicates in the path then one select statement will suffice.
-            return constructSinglePathSql(this.sqlgGraph, false, distinctQueryStack, null, null);
+    /**
+     * Constructs a 'SELECT COUNT(*)' for the distinct query stack.
+     * The stack may not contain duplicates, for those the rows of {@link #constructSql(LinkedList)} must be counted.
+     */
+    public String constructCountSql(LinkedList<SchemaTableTree> distinctQueryStack) {
+        Preconditions.checkState(this.parent == null, CONSTRUCT_SQL_MAY_ONLY_BE_CALLED_ON_THE_ROOT_OBJECT);
+        Preconditions.checkState(!duplicatesInStack(distinctQueryStack), "constructCountSql does not support duplicates in the stack");
+        return constructSelectSinglePathSql(this.sqlgGraph, false, distinctQueryStack, null, null, Collections.emptySet(), false, "COUNT(*)", null);
+    }
+
+    /**
+     * Constructs a select of the aggregate of the last element's property, followed by the count of the property's values.
+     * For the mean the sum is selected, the mean over all distinct queries is calculated from their sums and counts.
+     */
+    public String constructAggregateSql(LinkedList<SchemaTableTree> distinctQueryStack, SqlgSqlExecutor.AGGREGATE aggregate, String propertyKey) {
+        Preconditions.checkState(this.parent == null, CONSTRUCT_SQL_MAY_ONLY_BE_CALLED_ON_THE_ROOT_OBJECT);
+        Preconditions.checkState(!duplicatesInStack(distinctQueryStack), "constructAggregateSql does not support duplicates in the stack");
+        String aggregateSelectClause = aggregateSelectClause(distinctQueryStack.getLast(), aggregate, propertyKey);
+        return constructSelectSinglePathSql(this.sqlgGraph, false, distinctQueryStack, null, null, Collections.emptySet(), false, aggregateSelectClause, null);
+    }
+
+    /**
+     * Constructs a select of the groupByKey property of the last element and the count of the group's rows.
+     * If aggregate is not null the group's aggregate of the aggregateKey property and the count of its values follow.
+     */
+    public String constructGroupBySql(LinkedList<SchemaTableTree> distinctQueryStack, String groupByKey, SqlgSqlExecutor.AGGREGATE aggregate, String aggregateKey) {
+        Preconditions.checkState(this.parent == null, CONSTRUCT_SQL_MAY_ONLY_BE_CALLED_ON_THE_ROOT_OBJECT);
+        Preconditions.checkState(!duplicatesInStack(distinctQueryStack), "constructGroupBySql does not support duplicates in the stack");
+        String groupByColumn = lastColumn(distinctQueryStack.getLast(), groupByKey);
+        String aggregateSelectClause = groupByColumn + ", COUNT(*)";
+        if (aggregate != null) {
+            aggregateSelectClause += ", " + aggregateSelectClause(distinctQueryStack.getLast(), aggregate, aggregateKey);
+        }
+        return constructSelectSinglePathSql(this.sqlgGraph, false, distinctQueryStack, null, null, Collections.emptySet(), false, aggregateSelectClause, groupByColumn);
+    }
+
+    private String aggregateSelectClause(SchemaTableTree lastSchemaTableTree, SqlgSqlExecutor.AGGREGATE aggregate, String propertyKey) {
+        String column = lastColumn(lastSchemaTableTree, propertyKey);
+        String function = aggregate == SqlgSqlExecutor.AGGREGATE.MEAN ? "SUM" : aggregate.name();
+        return function + "(" + column + "), COUNT(" + column + ")";
+    }
+
+    private String lastColumn(SchemaTableTree lastSchemaTableTree, String propertyKey) {
+        SchemaTable lastSchemaTable = lastSchemaTableTree.getSchemaTable();
+        return this.sqlgGraph.getSqlDialect().maybeWrapInQoutes(lastSchemaTable.getSchema()) + "." +
+                this.sqlgGraph.getSqlDialect().maybeWrapInQoutes(lastSchemaTable.getTable()) + "." +
+                this.sqlgGraph.getSqlDialect().maybeWrapInQoutes(propertyKey);
+    }
+
+    /**
+     * Label-less scans, i.e. V() and E(), have a root only tree per table and each tree is a round trip to the db.
+     * Root only trees without ordering, range, emit, optional or drop semantics are batched into UNION ALL statements
+     * of at most 'union.all.width' tables. Trees not in a batch are executed as per normal.
+     */
+    public static List<List<SchemaTableTree>> unionAllBatches(SqlgGraph sqlgGraph, Set<SchemaTableTree> rootSchemaTableTrees) {
+        List<List<SchemaTableTree>> result = new ArrayList<>();
+        int width = sqlgGraph.configuration().getInt("union.all.width", UNION_ALL_WIDTH);
+        if (width < 2) {
+            return result;
+        }
+        List<SchemaTableTree> batch = new ArrayList<>();
+        int batchColumns = 0;
+        for (SchemaTableTree rootSchemaTableTree : rootSchemaTableTrees) {
+            if (rootSchemaTableTree.isUnionAllCandidate()) {
+                int columns = rootSchemaTableTree.unionAllColumns().size();
+                if (!batch.isEmpty() && (batch.size() == width || batchColumns + columns > UNION_ALL_MAX_COLUMNS)) {
+                    if (batch.size() > 1) {
+                        result.add(batch);
+                    }
+                    batch = new ArrayList<>();
+                    batchColumns = 0;
+                }
+                batch.add(rootSchemaTableTree);
+                batchColumns += columns;
+            }
+        }
+        if (batch.size() > 1) {
+            result.add(batch);
         }
+        return result;
+    }
+
+    private boolean isUnionAllCandidate() {
+        if (this.parent != null || !this.children.isEmpty() || this.stepType != STEP_TYPE.GRAPH_STEP ||
+                this.drop || this.emit || this.untilFirst || this.optionalLeftJoin || this.localStep || this.fakeEmit ||
+                !this.hasIDPrimaryKey || !this.dbComparators.isEmpty() || this.sqlgComparatorHolder.hasComparators() ||
+                (this.sqlgRangeHolder != null && (this.sqlgRangeHolder.hasRange() || this.sqlgRangeHolder.hasSkip())) ||
+                hasBulkWithinOrOut(this.sqlgGraph)) {
+            return false;
+        }
+        Map<String, PropertyType> propertyTypeMap = getFilteredAllTables().get(this.schemaTable.toString());
+        for (Map.Entry<String, PropertyType> propertyTypeEntry : propertyTypeMap.entrySet()) {
+            //multi column properties are not padded
+            if (shouldSelectProperty(propertyTypeEntry.getKey()) && propertyTypeEntry.getValue().getPostFixes().length > 0) {
+                return false;
+            }
+        }
+        if (this.schemaTable.isEdgeTable()) {
+            for (ForeignKey edgeForeignKey : this.sqlgGraph.getTopology().getEdgeForeignKeys().get(this.schemaTable.toString())) {
+                if (edgeForeignKey.getCompositeKeys().size() != 1) {
+                    return false;
+                }
+            }
+            //the foreign keys are loaded as ids, an identifier foreign key, i.e. schema.table.identifier__I, is not an id.
+            Optional<EdgeLabel> edgeLabelOptional = this.sqlgGraph.getTopology().getEdgeLabel(
+                    this.schemaTable.getSchema(), this.schemaTable.withOutPrefix().getTable());
+            if (!edgeLabelOptional.isPresent()) {
+                return false;
+            }
+            EdgeLabel edgeLabel = edgeLabelOptional.get();
+            for (VertexLabel vertexLabel : edgeLabel.getOutVertexLabels()) {
+                if (!vertexLabel.hasIDPrimaryKey()) {
+                    return false;
+                }
+            }
+            for (VertexLabel vertexLabel : edgeLabel.getInVertexLabels()) {
+                if (!vertexLabel.hasIDPrimaryKey()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The columns this tree selects in a UNION ALL batch, the ID first, then the properties and for edges the foreign keys.
+     */
+    public LinkedHashMap<String, PropertyType> unionAllColumns() {
+        LinkedHashMap<String, PropertyType> result = new LinkedHashMap<>();
+        result.put(Topology.ID, PropertyType.LONG);
+        Map<String, PropertyType> propertyTypeMap = getFilteredAllTables().get(this.schemaTable.toString());
+        for (Map.Entry<String, PropertyType> propertyTypeEntry : propertyTypeMap.entrySet()) {
+            if (shouldSelectProperty(propertyTypeEntry.getKey())) {
+                result.put(propertyTypeEntry.getKey(), propertyTypeEntry.getValue());
+            }
+        }
+        if (this.schemaTable.isEdgeTable()) {
+            for (ForeignKey edgeForeignKey : this.sqlgGraph.getTopology().getEdgeForeignKeys().get(this.schemaTable.toString())) {
+                result.put(edgeForeignKey.getCompositeKeys().get(0), PropertyType.LONG);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Every branch of the UNION ALL selects its index in the batch, followed by the columns of all the trees in the batch.
+     * The columns of the other trees are NULL so that every tree's columns have the same position in every branch.
+     */
+    public static String constructUnionAllSql(SqlgGraph sqlgGraph, List<SchemaTableTree> batch, List<LinkedHashMap<String, PropertyType>> batchColumns) {
+        SqlDialect sqlDialect = sqlgGraph.getSqlDialect();
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < batch.size(); i++) {
+            SchemaTableTree schemaTableTree = batch.get(i);
+            Preconditions.checkState(schemaTableTree.parent == null, CONSTRUCT_SQL_MAY_ONLY_BE_CALLED_ON_THE_ROOT_OBJECT);
+            if (i > 0) {
+                sql.append("\nUNION ALL\n");
+            }
+            sql.append("SELECT\n\t");
+            sql.append(i).append(" AS ").append(sqlDialect.maybeWrapInQoutes(UNION_ALL_DISCRIMINATOR));
+            for (int j = 0; j < batchColumns.size(); j++) {
+                for (Map.Entry<String, PropertyType> column : batchColumns.get(j).entrySet()) {
+                    sql.append(", ");
+                    if (i == j) {
+                        sql.append(schemaTableTree.lastColumn(schemaTableTree, column.getKey()));
+                    } else {
+                        sql.append(sqlDialect.unionAllNull(column.getValue()));
+                    }
+                }
+            }
+            sql.append("\nFROM\n\t");
+            sql.append(sqlDialect.maybeWrapInQoutes(schemaTableTree.schemaTable.getSchema()));
+            sql.append(".");
+            sql.append(sqlDialect.maybeWrapInQoutes(schemaTableTree.schemaTable.getTable()));
+            sql.append(schemaTableTree.toWhereClause(sqlgGraph, new MutableBoolean(false)));
+        }
+        if (sqlDialect.needsSemicolon()) {
+            sql.append(";");
+        }
+        return sql.toString();
     }
 
     public String constructSqlForOptional(LinkedList<SchemaTableTree> innerJoinStack, Set<SchemaTableTree> leftJoinOn) {
         Preconditions.checkState(this.parent == null, CONSTRUCT_SQL_MAY_ONLY_BE_CALLED_ON_THE_ROOT_OBJECT);
+        //the version is read once, a topology change that starts after this changes the version and the plan is not cached.
+        long topologyVersion = this.sqlgGraph.getTopology().getVersion();
+        String sqlPlanKey = sqlPlanKey(innerJoinStack, leftJoinOn, topologyVersion);
+        if (sqlPlanKey != null) {
+            SqlPlanCache.SqlPlan sqlPlan = this.sqlgGraph.getSqlPlanCache().get(sqlPlanKey);
+            if (sqlPlan != null) {
+                loadSqlPlan(sqlPlan, innerJoinStack, leftJoinOn);
+                return sqlPlan.getSql();
+            }
+        }
+        String sql;
+        //If the same element occurs multiple times in the stack then the sql needs to be different.
+        //This is because the same element can not be joined on more than once in sql
+        //The way to overcome this is to break up the path in select sections with no duplicates and then join them together.
         if (duplicatesInStack(innerJoinStack)) {
             List<LinkedList<SchemaTableTree>> subQueryStacks = splitIntoSubStacks(innerJoinStack);
-            return constructDuplicatePathSql(this.sqlgGraph, subQueryStacks, leftJoinOn);
+            sql = constructDuplicatePathSql(this.sqlgGraph, subQueryStacks, leftJoinOn);
         } else {
             //If there are no duplicates in the path then one select statement will suffice.
-            return constructSinglePathSql(this.sqlgGraph, false, innerJoinStack, null, null, leftJoinOn, false);
+            sql = constructSinglePathSql(this.sqlgGraph, false, innerJoinStack, null, null, leftJoinOn, false);
+        }
+        if (sqlPlanKey != null) {
+            this.sqlgGraph.getSqlPlanCache().put(sqlPlanKey, newSqlPlan(sql, innerJoinStack, leftJoinOn), topologyVersion);
+        }
+        return sql;
+    }
+
+    private SqlPlanCache.SqlPlan newSqlPlan(String sql, LinkedList<SchemaTableTree> innerJoinStack, Set<SchemaTableTree> leftJoinOn) {
+        List<SchemaTableTree> schemaTableTrees = new ArrayList<>(innerJoinStack);
+        schemaTableTrees.addAll(leftJoinOn);
+        List<Set<String>> labels = new ArrayList<>();
+        List<String> reducedLabels = new ArrayList<>();
+        for (SchemaTableTree schemaTableTree : schemaTableTrees) {
+            labels.add(schemaTableTree.labels);
+            reducedLabels.add(schemaTableTree.reducedLabels);
+        }
+        return new SqlPlanCache.SqlPlan(
+                sql,
+                this.aliasMapHolder.getColumnNameAliasMap(),
+                this.aliasMapHolder.getAliasColumnNameMap(),
+                this.columnListStack,
+                this.rootAliasCounter,
+                schemaTableTrees,
+                labels,
+                reducedLabels
+        );
+    }
+
+    /**
+     * Constructs the sql of the distinct query stack together with the alias maps and column lists it leaves behind.
+     * The root tree's alias maps are shared by its distinct queries, a query that executes in the background
+     * restores them with {@link #restoreSqlPlan(SqlPlanCache.SqlPlan, LinkedList)} before its rows are loaded.
+     */
+    public SqlPlanCache.SqlPlan constructSqlPlan(LinkedList<SchemaTableTree> distinctQueryStack) {
+        Preconditions.checkState(this.parent == null, CONSTRUCT_SQL_MAY_ONLY_BE_CALLED_ON_THE_ROOT_OBJECT);
+        resetColumnAliasMaps();
+        String sql = constructSql(distinctQueryStack);
+        return newSqlPlan(sql, distinctQueryStack, Collections.emptySet());
+    }
+
+    public void restoreSqlPlan(SqlPlanCache.SqlPlan sqlPlan, LinkedList<SchemaTableTree> distinctQueryStack) {
+        Preconditions.checkState(this.parent == null, CONSTRUCT_SQL_MAY_ONLY_BE_CALLED_ON_THE_ROOT_OBJECT);
+        resetColumnAliasMaps();
+        loadSqlPlan(sqlPlan, distinctQueryStack, Collections.emptySet());
+    }
+
+    /**
+     * Calculates the key for the {@link SqlPlanCache}.
+     * The key holds everything in the query stack that influences the generated sql, values that are bound as
+     * parameters are not part of it.
+     *
+     * @param topologyVersion The topology's version when the sql generation started.
+     * @return the key or null if the sql may not be cached.
+     */
+    private String sqlPlanKey(LinkedList<SchemaTableTree> distinctQueryStack, Set<SchemaTableTree> leftJoinOn, long topologyVersion) {
+        if (!this.sqlgGraph.getSqlPlanCache().isEnabled() ||
+                //the alias maps must only contain this query's aliases.
+                !this.columnListStack.isEmpty() ||
+                //a topology change in flight, on any thread, may not be visible to other threads yet.
+                Topology.isChanging(topologyVersion) ||
+                //the SqlgVertexStep's incoming ids and indexes are printed into the sql unless they are bound as arrays.
+                (distinctQueryStack.getFirst().stepType != STEP_TYPE.GRAPH_STEP && this.parentIdsAndIndexesArrays == null)) {
+            return null;
+        }
+        StringBuilder shape = new StringBuilder();
+        shape.append(this.eagerLoad);
+        if (distinctQueryStack.getFirst().stepType != STEP_TYPE.GRAPH_STEP) {
+            shape.append("|parentIds ");
+            this.parentIdsAndIndexesArrays.forEach(p -> shape.append(p.getLeft()).append(" "));
+        }
+        for (SchemaTableTree schemaTableTree : distinctQueryStack) {
+            shape.append("\n");
+            if (!schemaTableTree.appendSqlShape(shape)) {
+                return null;
+            }
+        }
+        for (SchemaTableTree schemaTableTree : leftJoinOn) {
+            shape.append("\nleftJoin ");
+            if (!schemaTableTree.appendSqlShape(shape)) {
+                return null;
+            }
+        }
+        return shape.toString();
+    }
+
+    private boolean appendSqlShape(StringBuilder shape) {
+        shape.append(this.schemaTable)
+                .append("|").append(this.stepType)
+                .append("|").append(this.stepDepth)
+                .append("|").append(this.direction)
+                .append("|").append(this.labels)
+                .append("|").append(this.reducedLabels)
+                .append("|").append(this.restrictedProperties)
+                .append("|").append(this.emit)
+                .append(",").append(this.untilFirst)
+                .append(",").append(this.optionalLeftJoin)
+                .append(",").append(this.localStep)
+                .append(",").append(this.drop);
+        for (HasContainer hasContainer : this.hasContainers) {
+            shape.append("|").append(hasContainer.getKey()).append(":");
+            if (this.sqlgGraph.getSqlDialect().supportsBulkWithinOut() && SqlgUtil.isBulkWithinAndOut(this.sqlgGraph, hasContainer)) {
+                List<Pair<PropertyType, Object[]>> bulkWithinOutArrays = bulkWithinOutArrays(hasContainer);
+                if (bulkWithinOutArrays == null) {
+                    //the within values are printed into the sql.
+                    return false;
+                }
+                shape.append("bulk").append(hasContainer.getBiPredicate()).append("(");
+                for (Pair<PropertyType, Object[]> bulkWithinOutArray : bulkWithinOutArrays) {
+                    shape.append(bulkWithinOutArray.getLeft().name()).append(",");
+                }
+                shape.append(")");
+            } else if (!WhereClause.appendShape(hasContainer.getPredicate(), shape)) {
+                return false;
+            }
+        }
+        for (AndOrHasContainer andOrHasContainer : this.andOrHasContainers) {
+            shape.append("|");
+            if (!andOrHasContainer.appendShape(shape)) {
+                return false;
+            }
+        }
+        for (ExistsContainer existsContainer : this.existsContainers) {
+            shape.append("|");
+            if (!existsContainer.appendShape(this.sqlgGraph, this, shape)) {
+                return false;
+            }
+        }
+        for (org.javatuples.Pair<Traversal.Admin<?, ?>, Comparator<?>> comparator : this.getDbComparators()) {
+            shape.append("|");
+            if (!appendComparatorShape(comparator, shape)) {
+                return false;
+            }
+        }
+        if (this.sqlgRangeHolder != null && this.sqlgRangeHolder.isApplyOnDb()) {
+            //the range is printed into the sql.
+            shape.append("|").append(this.sqlgRangeHolder.hasRange() ? this.sqlgRangeHolder.getRange() : this.sqlgRangeHolder.getSkip());
+            shape.append(",").append(this.sqlgRangeHolder.isApplyPerStart());
+        }
+        return true;
+    }
+
+    private static boolean appendComparatorShape(org.javatuples.Pair<Traversal.Admin<?, ?>, Comparator<?>> comparator, StringBuilder shape) {
+        if (comparator.getValue1() instanceof ElementValueComparator) {
+            ElementValueComparator<?> elementValueComparator = (ElementValueComparator<?>) comparator.getValue1();
+            shape.append(elementValueComparator.getPropertyKey()).append(":").append(elementValueComparator.getValueComparator());
+            return elementValueComparator.getValueComparator() instanceof Order;
         }
+        if (!(comparator.getValue1() instanceof Order)) {
+            return false;
+        }
+        Traversal.Admin<?, ?> t = comparator.getValue0();
+        if (t.getSteps().size() == 1 && t.getSteps().get(0) instanceof SelectOneStep) {
+            SelectOneStep<?, ?> selectOneStep = (SelectOneStep<?, ?>) t.getSteps().get(0);
+            if (selectOneStep.getLocalChildren().size() != 1) {
+                return false;
+            }
+            shape.append("select").append(selectOneStep.getScopeKeys()).append(":");
+            t = (Traversal.Admin<?, ?>) selectOneStep.getLocalChildren().get(0);
+        }
+        if (t instanceof ElementValueTraversal) {
+            shape.append(((ElementValueTraversal<?>) t).getPropertyKey());
+        } else if (t instanceof TokenTraversal) {
+            shape.append(((TokenTraversal<?, ?>) t).getToken());
+        } else {
+            return false;
+        }
+        shape.append(":").append(comparator.getValue1());
+        return true;
+    }
+
+    /**
+     * Restores the state that generating the sql leaves behind, the alias maps and column lists are needed to load the
+     * result set.
+     */
+    private void loadSqlPlan(SqlPlanCache.SqlPlan sqlPlan, LinkedList<SchemaTableTree> distinctQueryStack, Set<SchemaTableTree> leftJoinOn) {
+        List<SchemaTableTree> schemaTableTrees = new ArrayList<>(distinctQueryStack);
+        schemaTableTrees.addAll(leftJoinOn);
+        int i = 0;
+        for (SchemaTableTree schemaTableTree : schemaTableTrees) {
+            schemaTableTree.labels = sqlPlan.getLabels().get(i);
+            schemaTableTree.realLabels = null;
+            schemaTableTree.reducedLabels = sqlPlan.getReducedLabels().get(i++);
+        }
+        calculatePropertyRestrictions();
+        for (SchemaTableTree stt : distinctQueryStack) {
+            if (stt != this) {
+                stt.calculatePropertyRestrictions();
+            }
+        }
+        this.aliasMapHolder.getColumnNameAliasMap().putAll(sqlPlan.getColumnNameAliasMap());
+        this.aliasMapHolder.getAliasColumnNameMap().putAll(sqlPlan.getAliasColumnNameMap());
+        this.columnListStack.addAll(sqlPlan.getColumnListStack());
+        this.rootAliasCounter = sqlPlan.getRootAliasCounter();
     }
 
     public List<Triple<SqlgSqlExecutor.DROP_QUERY, String, SchemaTable>> constructDropSql(LinkedList<SchemaTableTree> distinctQueryStack) {
@@ -431,6 +825,7 @@ public class SchemaTableTree {
         if (distinctQueryStack.size() == 1 &&
                 distinctQueryStack.getFirst().getHasContainers().isEmpty() &&
                 distinctQueryStack.getFirst().getAndOrHasContainers().isEmpty() &&
+                distinctQueryStack.getFirst().getExistsContainers().isEmpty() &&
                 (
                         (this.sqlgGraph.getSqlDialect().supportsTruncateMultipleTablesTogether() && hasOnlyOneInOutEdgeLabel(distinctQueryStack.getFirst().getSchemaTable())) ||
                                 (!this.sqlgGraph.getSqlDialect().supportsTruncateMultipleTablesTogether() && hasNoEdgeLabels(distinctQueryStack.getFirst().getSchemaTable()))
@@ -512,10 +907,6 @@ public class SchemaTableTree {
         }
     }
 
-    private String constructDuplicatePathSql(SqlgGraph sqlgGraph, List<LinkedList<SchemaTableTree>> subQueryLinkedLists) {
-        return constructDuplicatePathSql(sqlgGraph, subQueryLinkedLists, Collections.emptySet());
-    }
-
     /**
      * Construct a sql statement for one original path to a leaf node.
      * As the path contains the same label more than once its been split into a List of Stacks.
@@ -779,9 +1170,15 @@ public class SchemaTableTree {
                 lastOfPrevious,
                 firstOfNextStack,
                 leftJoinOn,
-                dropStep);
+                dropStep,
+                null,
+                null);
     }
 
+    /**
+     * @param aggregateSelectClause If not null it replaces the select clause and the order by and range clauses are omitted.
+     * @param groupByColumn         If not null the rows are grouped by this column.
+     */
     private String constructSelectSinglePathSql(
             SqlgGraph sqlgGraph,
             boolean partOfDuplicateQuery,
@@ -789,7 +1186,9 @@ public class SchemaTableTree {
             SchemaTableTree lastOfPrevious,
             SchemaTableTree firstOfNextStack,
             Set<SchemaTableTree> leftJoinOn,
-            boolean dropStep) {
+            boolean dropStep,
+            String aggregateSelectClause,
+            String groupByColumn) {
 
         Preconditions.checkState(this.parent == null, "constructSelectSinglePathSql may only be called on the root SchemaTableTree");
 
@@ -815,7 +1214,7 @@ public class SchemaTableTree {
         //dropStep must not have the index as it uses 'delete from where in (select...)' or 'WITH (SELECT) DELETE...'
         //the first column in the select must be the ID.
         //As its a DELETE there is no need for the 'index' to order on.
-        if (!dropStep && lastOfPrevious == null && distinctQueryStack.getFirst().stepType != STEP_TYPE.GRAPH_STEP) {
+        if (aggregateSelectClause == null && !dropStep && lastOfPrevious == null && distinctQueryStack.getFirst().stepType != STEP_TYPE.GRAPH_STEP) {
             //if there is only 1 incoming start/traverser we use a where clause as its faster.
             if (this.parentIdsAndIndexes.size() == 1) {
                 singlePathSql.append(this.parentIdsAndIndexes.get(0).getRight());
@@ -844,7 +1243,11 @@ public class SchemaTableTree {
             startIndexColumns++;
         }
 
-        singlePathSql.append(constructSelectClause(sqlgGraph, dropStep, currentColumnList, distinctQueryStack, lastOfPrevious, firstOfNextStack));
+        if (aggregateSelectClause != null) {
+            singlePathSql.append(aggregateSelectClause);
+        } else {
+            singlePathSql.append(constructSelectClause(sqlgGraph, dropStep, currentColumnList, distinctQueryStack, lastOfPrevious, firstOfNextStack));
+        }
         singlePathSql.append("\nFROM\n\t");
         singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(firstSchemaTableTree.getSchemaTable().getSchema()));
         singlePathSql.append(".");
@@ -875,7 +1278,7 @@ public class SchemaTableTree {
         //These values are inserted/copy command into a temporary table before joining.
         for (SchemaTableTree schemaTableTree : distinctQueryStack) {
             if (sqlgGraph.getSqlDialect().supportsBulkWithinOut() && schemaTableTree.hasBulkWithinOrOut(sqlgGraph)) {
-                singlePathSql.append(schemaTableTree.bulkWithJoin(sqlgGraph));
+                singlePathSql.append(schemaTableTree.bulkWithJoin(sqlgGraph, dropStep));
             }
         }
 
@@ -884,7 +1287,14 @@ public class SchemaTableTree {
 
         //lastOfPrevious is null for the first call in the call stack it needs the id parameter in the where clause.
         if (lastOfPrevious == null && distinctQueryStack.getFirst().stepType != STEP_TYPE.GRAPH_STEP) {
-            if (this.parentIdsAndIndexes.size() != 1 && sqlgGraph.getSqlDialect().supportsValuesExpression()) {
+            if (!dropStep && this.parentIdsAndIndexesArrays != null) {
+                //the ids and indexes are bound as arrays in SqlgUtil.setParametersOnStatement
+                singlePathSql.append(" INNER JOIN\n\t");
+                singlePathSql.append(sqlgGraph.getSqlDialect().bulkWithinOutArrayParameter(
+                        this.parentIdsAndIndexesArrays.stream().map(Pair::getLeft).collect(Collectors.toList()))
+                );
+                appendParentIdsJoinOn(sqlgGraph, singlePathSql, firstSchemaTableTree);
+            } else if (this.parentIdsAndIndexes.size() != 1 && !isParentIdsInTempTable(this.parentIdsAndIndexes)) {
                 singlePathSql.append(" INNER JOIN\n\t(VALUES");
                 int count = 1;
                 for (Pair<RecordId.ID, Long> parentIdAndIndex : this.parentIdsAndIndexes) {
@@ -911,42 +1321,8 @@ public class SchemaTableTree {
                 }
 
                 if (sqlgGraph.getSqlDialect().supportsFullValueExpression()) {
-                    singlePathSql.append(") AS tmp (");
-                    if (firstSchemaTableTree.hasIDPrimaryKey) {
-                        singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes("tmpId"));
-                        singlePathSql.append(", ");
-                    } else {
-                        for (String identifier : firstSchemaTableTree.getIdentifiers()) {
-                            singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(identifier));
-                            singlePathSql.append(", ");
-                        }
-                    }
-                    singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes("index"));
-                    singlePathSql.append(") ON ");
-
-                    if (firstSchemaTableTree.hasIDPrimaryKey) {
-                        singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(firstSchemaTable.getSchema()));
-                        singlePathSql.append(".");
-                        singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(firstSchemaTable.getTable()));
-                        singlePathSql.append(".");
-                        singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(Topology.ID));
-                        singlePathSql.append(" = tmp.");
-                        singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes("tmpId"));
-                    } else {
-                        int cnt = 1;
-                        for (String identifier : firstSchemaTableTree.getIdentifiers()) {
-                            singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(firstSchemaTable.getSchema()));
-                            singlePathSql.append(".");
-                            singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(firstSchemaTable.getTable()));
-                            singlePathSql.append(".");
-                            singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(identifier));
-                            singlePathSql.append(" = tmp.");
-                            singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(identifier));
-                            if (cnt++ < firstSchemaTableTree.getIdentifiers().size()) {
-                                singlePathSql.append(" AND ");
-                            }
-                        }
-                    }
+                    singlePathSql.append(")");
+                    appendParentIdsJoinOn(sqlgGraph, singlePathSql, firstSchemaTableTree);
                 } else {
                     //This really is only for H2
                     singlePathSql.append(") ON ");
@@ -974,36 +1350,44 @@ public class SchemaTableTree {
                         }
                     }
                 }
-            } else if (this.parentIdsAndIndexes.size() != 1 && !sqlgGraph.getSqlDialect().supportsValuesExpression()) {
+            } else if (this.parentIdsAndIndexes.size() != 1) {
                 //Mariadb supports VALUES expression but not in a useful manner.
                 //https://jira.mariadb.org/browse/MDEV-16771
+                //Too many ids to bind as arrays are copied into the temporary table.
                 //Need to use a randomized name here else the temp table gets reused within the same transaction.
                 SecureRandom random = new SecureRandom();
                 byte bytes[] = new byte[6];
                 random.nextBytes(bytes);
                 String tmpTableIdentified = Base64.getEncoder().encodeToString(bytes);
+                //the temporary vertices are flushed in normal batch mode, the transaction's batch mode is restored after.
+                sqlgGraph.tx().readWrite();
+                BatchManager.BatchModeType batchModeType = sqlgGraph.tx().getBatchModeType();
                 sqlgGraph.tx().normalBatchModeOn();
-                for (Pair<RecordId.ID, Long> parentIdsAndIndex : this.parentIdsAndIndexes) {
-                    if (firstSchemaTableTree.hasIDPrimaryKey) {
-                        sqlgGraph.addTemporaryVertex(
-                                T.label, tmpTableIdentified,
-                                "tmpId", parentIdsAndIndex.getLeft().getSequenceId(),
-                                "index", parentIdsAndIndex.getRight());
-                    } else {
-                        List<Object> keyValues = new ArrayList<>();
-                        keyValues.add(T.label);
-                        keyValues.add(tmpTableIdentified);
-                        int count = 0;
-                        for (String identifier : firstSchemaTableTree.getIdentifiers()) {
-                            keyValues.add(identifier);
-                            keyValues.add(parentIdsAndIndex.getLeft().getIdentifiers().get(count++));
+                try {
+                    for (Pair<RecordId.ID, Long> parentIdsAndIndex : this.parentIdsAndIndexes) {
+                        if (firstSchemaTableTree.hasIDPrimaryKey) {
+                            sqlgGraph.addTemporaryVertex(
+                                    T.label, tmpTableIdentified,
+                                    "tmpId", parentIdsAndIndex.getLeft().getSequenceId(),
+                                    "index", parentIdsAndIndex.getRight());
+                        } else {
+                            List<Object> keyValues = new ArrayList<>();
+                            keyValues.add(T.label);
+                            keyValues.add(tmpTableIdentified);
+                            int count = 0;
+                            for (String identifier : firstSchemaTableTree.getIdentifiers()) {
+                                keyValues.add(identifier);
+                                keyValues.add(parentIdsAndIndex.getLeft().getIdentifiers().get(count++));
+                            }
+                            keyValues.add("index");
+                            keyValues.add(parentIdsAndIndex.getRight());
+                            sqlgGraph.addTemporaryVertex(keyValues.toArray());
                         }
-                        keyValues.add("index");
-                        keyValues.add(parentIdsAndIndex.getRight());
-                        sqlgGraph.addTemporaryVertex(keyValues.toArray());
                     }
+                    sqlgGraph.tx().flush();
+                } finally {
+                    sqlgGraph.tx().batchMode(batchModeType);
                 }
-                sqlgGraph.tx().flush();
 
                 singlePathSql.append(" INNER JOIN\n\t");
                 singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(sqlgGraph.getSqlDialect().getPublicSchema()));
@@ -1057,8 +1441,27 @@ public class SchemaTableTree {
             singlePathSql.append(schemaTableTree.toOptionalLeftJoinWhereClause(sqlgGraph, mutableWhere));
         }
 
+        if (groupByColumn != null) {
+            singlePathSql.append("\nGROUP BY\n\t");
+            singlePathSql.append(groupByColumn);
+        }
+
         //if partOfDuplicateQuery then the order by clause is on the outer select
-        if (!partOfDuplicateQuery) {
+        if (!partOfDuplicateQuery && aggregateSelectClause == null) {
+
+            //a local traversal's range applies per incoming start, i.e. per "index".
+            //if there is only 1 incoming start the regular range clause is per start already.
+            SchemaTableTree rangePerStart = null;
+            if (!dropStep && lastOfPrevious == null && distinctQueryStack.getFirst().stepType != STEP_TYPE.GRAPH_STEP && this.parentIdsAndIndexes.size() != 1) {
+                rangePerStart = distinctQueryStack.stream()
+                        .filter(stt -> stt.sqlgRangeHolder != null && stt.sqlgRangeHolder.isApplyOnDb() && stt.sqlgRangeHolder.isApplyPerStart())
+                        .findAny()
+                        .orElse(null);
+            }
+            if (rangePerStart != null) {
+                currentColumnList.indexColumns(startIndexColumns);
+                return wrapInRangePerStart(sqlgGraph, singlePathSql.toString(), distinctQueryStack, rangePerStart.sqlgRangeHolder);
+            }
 
             if (!dropStep && lastOfPrevious == null && distinctQueryStack.getFirst().stepType != STEP_TYPE.GRAPH_STEP) {
                 singlePathSql.append("\nORDER BY\n\t");
@@ -1078,12 +1481,91 @@ public class SchemaTableTree {
     }
 
 
+    /**
+     * Numbers the rows of every incoming start, i.e. "index", in the order of the comparators and only keeps those in the range.
+     * The row number is the last column so the column indexes of the inner select stay the same.
+     */
+    private String wrapInRangePerStart(SqlgGraph sqlgGraph, String innerSql, LinkedList<SchemaTableTree> distinctQueryStack, SqlgRangeHolder sqlgRangeHolder) {
+        Preconditions.checkState(sqlgGraph.getSqlDialect().supportsWindowFunctions(), "The range can only be applied per start if the dialect supports window functions.");
+        String rowNumber = sqlgGraph.getSqlDialect().maybeWrapInQoutes("sqlg_row_number");
+        String index = sqlgGraph.getSqlDialect().maybeWrapInQoutes("index");
+        StringBuilder sql = new StringBuilder("\nSELECT\n\t*\nFROM (\nSELECT\n\t");
+        sql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes("sqlg_per_start")).append(".*,\n\tROW_NUMBER() OVER (PARTITION BY ");
+        sql.append(index);
+        MutableBoolean mutableOrderBy = new MutableBoolean(false);
+        for (SchemaTableTree schemaTableTree : distinctQueryStack) {
+            sql.append(schemaTableTree.toOrderByClause(sqlgGraph, mutableOrderBy, -1));
+        }
+        sql.append(") AS ").append(rowNumber);
+        sql.append("\nFROM (");
+        sql.append(innerSql);
+        sql.append("\n) AS ").append(sqlgGraph.getSqlDialect().maybeWrapInQoutes("sqlg_per_start"));
+        sql.append("\n) AS ").append(sqlgGraph.getSqlDialect().maybeWrapInQoutes("sqlg_per_start_range"));
+        sql.append("\nWHERE\n\t");
+        if (sqlgRangeHolder.hasRange()) {
+            sql.append(rowNumber).append(" > ").append(sqlgRangeHolder.getRange().getMinimum());
+            sql.append(" AND ").append(rowNumber).append(" <= ").append(sqlgRangeHolder.getRange().getMaximum());
+        } else {
+            Preconditions.checkState(sqlgRangeHolder.hasSkip(), "If not a range query then it must be a skip.");
+            sql.append(rowNumber).append(" > ").append(sqlgRangeHolder.getSkip());
+        }
+        sql.append("\nORDER BY\n\t").append(index).append(", ").append(rowNumber);
+        return sql.toString();
+    }
+
+    /**
+     * Appends the alias and join condition of the SqlgVertexStep's incoming ids and indexes, i.e. " AS tmp ("tmpId", "index") ON ...".
+     */
+    private void appendParentIdsJoinOn(SqlgGraph sqlgGraph, StringBuilder singlePathSql, SchemaTableTree firstSchemaTableTree) {
+        SchemaTable firstSchemaTable = firstSchemaTableTree.getSchemaTable();
+        singlePathSql.append(" AS tmp (");
+        if (firstSchemaTableTree.hasIDPrimaryKey) {
+            singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes("tmpId"));
+            singlePathSql.append(", ");
+        } else {
+            for (String identifier : firstSchemaTableTree.getIdentifiers()) {
+                singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(identifier));
+                singlePathSql.append(", ");
+            }
+        }
+        singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes("index"));
+        singlePathSql.append(") ON ");
+
+        if (firstSchemaTableTree.hasIDPrimaryKey) {
+            singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(firstSchemaTable.getSchema()));
+            singlePathSql.append(".");
+            singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(firstSchemaTable.getTable()));
+            singlePathSql.append(".");
+            singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(Topology.ID));
+            singlePathSql.append(" = tmp.");
+            singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes("tmpId"));
+        } else {
+            int cnt = 1;
+            for (String identifier : firstSchemaTableTree.getIdentifiers()) {
+                singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(firstSchemaTable.getSchema()));
+                singlePathSql.append(".");
+                singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(firstSchemaTable.getTable()));
+                singlePathSql.append(".");
+                singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(identifier));
+                singlePathSql.append(" = tmp.");
+                singlePathSql.append(sqlgGraph.getSqlDialect().maybeWrapInQoutes(identifier));
+                if (cnt++ < firstSchemaTableTree.getIdentifiers().size()) {
+                    singlePathSql.append(" AND ");
+                }
+            }
+        }
+    }
+
     private boolean hasBulkWithinOrOut(SqlgGraph sqlgGraph) {
         return this.hasContainers.stream().anyMatch(h -> SqlgUtil.isBulkWithinAndOut(sqlgGraph, h));
     }
 
+    /**
+     * @param dropStep Drop queries are split into multiple statements that do not all join on the bulk values,
+     *                 they are printed into the sql instead of being bound as arrays.
+     */
     @SuppressWarnings("unchecked")
-    private String bulkWithJoin(SqlgGraph sqlgGraph) {
+    private String bulkWithJoin(SqlgGraph sqlgGraph, boolean dropStep) {
         StringBuilder sb = new StringBuilder();
         List<HasContainer> bulkHasContainers = this.hasContainers.stream().filter(h -> SqlgUtil.isBulkWithinAndOut(sqlgGraph, h)).collect(Collectors.toList());
         for (HasContainer hasContainer : bulkHasContainers) {
@@ -1097,41 +1579,52 @@ public class SchemaTableTree {
                 //left join and in the where clause add a IS NULL, to find the values not in the right hand table
                 sb.append(" LEFT JOIN\n\t");
             }
-            sb.append("(VALUES ");
-            boolean first = true;
             int identifierCount = 1;
-            for (Object withInOutValue : withInOuts) {
-                identifierCount = 1;
-                if (!first) {
-                    sb.append(", ");
-                }
-                first = false;
-                sb.append("(");
-                if (withInOutValue instanceof RecordId) {
-                    RecordId recordId = (RecordId) withInOutValue;
-                    if (!this.hasIDPrimaryKey) {
-                        int count = 1;
-                        for (Object identifier : recordId.getIdentifiers()) {
-                            withInOutValue = identifier;
+            List<Pair<PropertyType, Object[]>> bulkWithinOutArrays = dropStep ? null : bulkWithinOutArrays(hasContainer);
+            if (bulkWithinOutArrays != null) {
+                //the values are bound as arrays in SqlgUtil.setParametersOnStatement
+                List<PropertyType> arrayPropertyTypes = bulkWithinOutArrays.stream().map(Pair::getLeft).collect(Collectors.toList());
+                sb.append(sqlgGraph.getSqlDialect().bulkWithinOutArrayParameter(arrayPropertyTypes));
+                if (!this.hasIDPrimaryKey && withInOuts.iterator().next() instanceof RecordId) {
+                    identifierCount = arrayPropertyTypes.size() + 1;
+                }
+            } else {
+                sb.append("(VALUES ");
+                boolean first = true;
+                for (Object withInOutValue : withInOuts) {
+                    identifierCount = 1;
+                    if (!first) {
+                        sb.append(", ");
+                    }
+                    first = false;
+                    sb.append("(");
+                    if (withInOutValue instanceof RecordId) {
+                        RecordId recordId = (RecordId) withInOutValue;
+                        if (!this.hasIDPrimaryKey) {
+                            int count = 1;
+                            for (Object identifier : recordId.getIdentifiers()) {
+                                withInOutValue = identifier;
+                                PropertyType propertyType = PropertyType.from(withInOutValue);
+                                sb.append(sqlgGraph.getSqlDialect().valueToValuesString(propertyType, withInOutValue));
+                                if (count++ < recordId.getIdentifiers().size()) {
+                                    sb.append(", ");
+                                }
+                                identifierCount++;
+                            }
+                        } else {
+                            withInOutValue = recordId.sequenceId();
                             PropertyType propertyType = PropertyType.from(withInOutValue);
                             sb.append(sqlgGraph.getSqlDialect().valueToValuesString(propertyType, withInOutValue));
-                            if (count++ < recordId.getIdentifiers().size()) {
-                                sb.append(", ");
-                            }
-                            identifierCount++;
                         }
                     } else {
-                        withInOutValue = recordId.sequenceId();
                         PropertyType propertyType = PropertyType.from(withInOutValue);
                         sb.append(sqlgGraph.getSqlDialect().valueToValuesString(propertyType, withInOutValue));
                     }
-                } else {
-                    PropertyType propertyType = PropertyType.from(withInOutValue);
-                    sb.append(sqlgGraph.getSqlDialect().valueToValuesString(propertyType, withInOutValue));
+                    sb.append(")");
                 }
                 sb.append(")");
             }
-            sb.append(") as tmp");
+            sb.append(" as tmp");
             sb.append(this.rootSchemaTableTree().tmpTableAliasCounter);
             sb.append("(");
             if (hasContainer.getBiPredicate() == Contains.within) {
@@ -1206,6 +1699,83 @@ public class SchemaTableTree {
         return sb.toString();
     }
 
+    /**
+     * Splits the values of a bulk within/without {@link HasContainer} into one array per column.
+     * The arrays are bound as parameters instead of printing the values into the sql.
+     *
+     * @return The array type and values of every column, or null if the dialect does not bind the values as arrays
+     * or the values are not all of the same type.
+     */
+    public List<Pair<PropertyType, Object[]>> bulkWithinOutArrays(HasContainer hasContainer) {
+        if (!this.sqlgGraph.getSqlDialect().supportsBulkWithinOutArrayParameter()) {
+            return null;
+        }
+        Set<Object> withInOuts = new LinkedHashSet<>((Collection<?>) hasContainer.getPredicate().getValue());
+        List<PropertyType> arrayPropertyTypes = null;
+        List<List<Object>> columns = null;
+        for (Object withInOutValue : withInOuts) {
+            List<Object> row;
+            if (withInOutValue instanceof RecordId) {
+                RecordId recordId = (RecordId) withInOutValue;
+                if (!this.hasIDPrimaryKey) {
+                    row = new ArrayList<>(recordId.getIdentifiers());
+                } else {
+                    row = Collections.singletonList(recordId.sequenceId());
+                }
+            } else {
+                row = Collections.singletonList(withInOutValue);
+            }
+            if (arrayPropertyTypes == null) {
+                arrayPropertyTypes = new ArrayList<>();
+                columns = new ArrayList<>();
+                for (Object value : row) {
+                    arrayPropertyTypes.add(value == null ? null : bulkWithinOutArrayPropertyType(PropertyType.from(value)));
+                    columns.add(new ArrayList<>(withInOuts.size()));
+                }
+            }
+            if (row.size() != arrayPropertyTypes.size()) {
+                return null;
+            }
+            for (int i = 0; i < row.size(); i++) {
+                Object value = row.get(i);
+                if (value == null || arrayPropertyTypes.get(i) == null || !arrayPropertyTypes.get(i).equals(bulkWithinOutArrayPropertyType(PropertyType.from(value)))) {
+                    return null;
+                }
+                columns.get(i).add(value);
+            }
+        }
+        if (arrayPropertyTypes == null) {
+            return null;
+        }
+        List<Pair<PropertyType, Object[]>> result = new ArrayList<>();
+        for (int i = 0; i < arrayPropertyTypes.size(); i++) {
+            result.add(Pair.of(arrayPropertyTypes.get(i), columns.get(i).toArray()));
+        }
+        return result;
+    }
+
+    /**
+     * Only types whose sql comparison does not depend on a conversion of the value are bound as arrays.
+     */
+    private static PropertyType bulkWithinOutArrayPropertyType(PropertyType propertyType) {
+        switch (propertyType.ordinal()) {
+            case PropertyType.BOOLEAN_ORDINAL:
+                return PropertyType.BOOLEAN_ARRAY;
+            case PropertyType.SHORT_ORDINAL:
+                return PropertyType.SHORT_ARRAY;
+            case PropertyType.INTEGER_ORDINAL:
+                return PropertyType.INTEGER_ARRAY;
+            case PropertyType.LONG_ORDINAL:
+                return PropertyType.LONG_ARRAY;
+            case PropertyType.DOUBLE_ORDINAL:
+                return PropertyType.DOUBLE_ARRAY;
+            case PropertyType.STRING_ORDINAL:
+                return PropertyType.STRING_ARRAY;
+            default:
+                return null;
+        }
+    }
+
     private String toOptionalLeftJoinWhereClause(SqlgGraph sqlgGraph, MutableBoolean printedWhere) {
         final StringBuilder result = new StringBuilder();
         if (!printedWhere.booleanValue()) {
@@ -1344,6 +1914,15 @@ public class SchemaTableTree {
             }
             andOrHasContainer.toSql(sqlgGraph, this, result);
         }
+        for (ExistsContainer existsContainer : this.existsContainers) {
+            if (!printedWhere.booleanValue()) {
+                printedWhere.setTrue();
+                result.append("\nWHERE ");
+            } else {
+                result.append(" AND ");
+            }
+            existsContainer.toSql(sqlgGraph, this, result);
+        }
         return result.toString();
     }
 
@@ -2015,7 +2594,7 @@ public class SchemaTableTree {
         return this.getColumnNameAliasMap().get(result);
     }
 
-    private String labeledAliasIdentifier(String identifier) {
+    String labeledAliasIdentifier(String identifier) {
         String reducedLabels = reducedLabels();
         return this.stepDepth + ALIAS_SEPARATOR + reducedLabels + ALIAS_SEPARATOR + getSchemaTable().getSchema() + ALIAS_SEPARATOR + getSchemaTable().getTable() + ALIAS_SEPARATOR + identifier;
     }
@@ -2493,6 +3072,14 @@ public class SchemaTableTree {
         return andOrHasContainers;
     }
 
+    public List<ExistsContainer> getExistsContainers() {
+        return this.existsContainers;
+    }
+
+    void setExistsContainers(List<ExistsContainer> existsContainers) {
+        this.existsContainers = new ArrayList<>(existsContainers);
+    }
+
     public SqlgComparatorHolder getSqlgComparatorHolder() {
         return this.sqlgComparatorHolder;
     }
@@ -2599,62 +3186,43 @@ public class SchemaTableTree {
         return tmpTableAliasCounter;
     }
 
-    public void loadProperty(ResultSet resultSet, SqlgElement sqlgElement) throws SQLException {
-        for (ColumnList columnList : this.getColumnListStack()) {
-            LinkedHashMap<ColumnList.Column, String> columns = columnList.getFor(this.stepDepth, this.schemaTable);
-            for (ColumnList.Column column : columns.keySet()) {
-                if (!column.getColumn().equals("index")) {
-                    String propertyName = column.getColumn();
-                    PropertyType propertyType = column.getPropertyType();
-                    if (!column.isID() && !column.isForeignKey()) {
-                        sqlgElement.loadProperty(resultSet, propertyName, column.getColumnIndex(), getColumnNameAliasMap(), this.stepDepth, propertyType);
-                    }
-                }
-            }
+    /**
+     * The decoder is built on the first row of the query and cleared by {@link #clearRowDecoder()} before the next query executes.
+     *
+     * @param idColumnCountMap The id and identifier column positions of the query's result set.
+     */
+    public RowDecoder rowDecoder(Map<String, Integer> idColumnCountMap) {
+        if (this.rowDecoder == null) {
+            this.rowDecoder = new RowDecoder(this, getColumnListStack(), idColumnCountMap);
         }
+        return this.rowDecoder;
     }
 
-    public void loadEdgeInOutVertices(ResultSet resultSet, SqlgEdge sqlgEdge) throws SQLException {
-        Preconditions.checkState(this.schemaTable.isEdgeTable());
+    /**
+     * @return the value of the property in the resultSet or null if the property is not selected.
+     */
+    public Object loadPropertyValue(ResultSet resultSet, String propertyKey) throws SQLException {
         for (ColumnList columnList : this.getColumnListStack()) {
-            Map<SchemaTable, List<ColumnList.Column>> inForeignKeyColumns = columnList.getInForeignKeys(this.stepDepth, this.schemaTable);
-            for (Map.Entry<SchemaTable, List<ColumnList.Column>> schemaTableColumnsEntry : inForeignKeyColumns.entrySet()) {
-                List<ColumnList.Column> columns = schemaTableColumnsEntry.getValue();
-                if (columns.size() == 1 && !columns.get(0).isForeignKeyProperty()) {
-                    ColumnList.Column column = columns.get(0);
-                    sqlgEdge.loadInVertex(resultSet, column.getForeignSchemaTable(), column.getColumnIndex());
-                } else {
-                    sqlgEdge.loadInVertex(resultSet, columns);
-                }
-            }
-            Map<SchemaTable, List<ColumnList.Column>> outForeignKeyColumns = columnList.getOutForeignKeys(this.stepDepth, this.schemaTable);
-            for (Map.Entry<SchemaTable, List<ColumnList.Column>> schemaTableColumnsEntry : outForeignKeyColumns.entrySet()) {
-                List<ColumnList.Column> columns = schemaTableColumnsEntry.getValue();
-                if (columns.size() == 1 && !columns.get(0).isForeignKeyProperty()) {
-                    ColumnList.Column column = columns.get(0);
-                    sqlgEdge.loadOutVertex(resultSet, column.getForeignSchemaTable(), column.getColumnIndex());
-                } else {
-                    sqlgEdge.loadOutVertex(resultSet, columns);
+            LinkedHashMap<ColumnList.Column, String> columns = columnList.getFor(this.stepDepth, this.schemaTable);
+            for (ColumnList.Column column : columns.keySet()) {
+                if (column.getColumn().equals(propertyKey) && !column.isID() && !column.isForeignKey()) {
+                    return resultSet.getObject(column.getColumnIndex());
                 }
             }
         }
+        return null;
     }
 
-    public List<Comparable> loadIdentifierObjects(Map<String, Integer> idColumnCountMap, ResultSet resultSet) throws SQLException {
-        List<Comparable> identifierObjects = new ArrayList<>();
-        for (String identifier : this.identifiers) {
-            String labelledAliasIdentifier = labeledAliasIdentifier(identifier);
-            int count = idColumnCountMap.get(labelledAliasIdentifier);
-            identifierObjects.add((Comparable) resultSet.getObject(count));
-        }
-        return identifierObjects;
+    /**
+     * @return the type of the property on this SchemaTableTree's table or null if the table does not have the property.
+     */
+    public PropertyType getPropertyType(String propertyKey) {
+        Map<String, PropertyType> propertyTypeMap = getFilteredAllTables().get(this.schemaTable.toString());
+        return propertyTypeMap != null ? propertyTypeMap.get(propertyKey) : null;
     }
 
-    public void clearColumnNamePropertyNameMap() {
-        if (this.columnNamePropertyName != null) {
-            this.columnNamePropertyName.clear();
-            this.columnNamePropertyName = null;
-        }
+    public void clearRowDecoder() {
+        this.rowDecoder = null;
     }
 
     public String idProperty() {
@@ -2682,6 +3250,81 @@ public class SchemaTableTree {
 
     public void setParentIdsAndIndexes(List<Pair<RecordId.ID, Long>> parentIdsAndIndexes) {
         this.parentIdsAndIndexes = parentIdsAndIndexes;
+        this.parentIdsAndIndexesArrays = parentIdsAndIndexesArrays(parentIdsAndIndexes);
+    }
+
+    /**
+     * The SqlgVertexStep's incoming ids and indexes as one array per id column followed by the array of indexes.
+     * They are bound as parameters in {@link SqlgUtil#setParametersOnStatement} so that the sql does not depend on the ids.
+     *
+     * @return null if the dialect does not bind arrays, if there is only one incoming id, if there are more than
+     * {@link SqlgGraph#PARENT_IDS_TEMP_TABLE_THRESHOLD} incoming ids or if the identifiers' types can not be bound as arrays.
+     */
+    private List<Pair<PropertyType, Object[]>> parentIdsAndIndexesArrays(List<Pair<RecordId.ID, Long>> parentIdsAndIndexes) {
+        if (parentIdsAndIndexes == null || parentIdsAndIndexes.size() < 2 ||
+                !this.sqlgGraph.getSqlDialect().supportsBulkWithinOutArrayParameter() ||
+                !this.sqlgGraph.getSqlDialect().supportsFullValueExpression() ||
+                isParentIdsInTempTable(parentIdsAndIndexes)) {
+            return null;
+        }
+        List<PropertyType> arrayPropertyTypes = null;
+        List<Object[]> columns = null;
+        int row = 0;
+        for (Pair<RecordId.ID, Long> parentIdAndIndex : parentIdsAndIndexes) {
+            RecordId.ID id = parentIdAndIndex.getLeft();
+            List<?> ids = id.hasSequenceId() ? Collections.singletonList(id.getSequenceId()) : id.getIdentifiers();
+            if (arrayPropertyTypes == null) {
+                arrayPropertyTypes = new ArrayList<>();
+                columns = new ArrayList<>();
+                for (Object value : ids) {
+                    arrayPropertyTypes.add(value == null ? null : bulkWithinOutArrayPropertyType(PropertyType.from(value)));
+                    columns.add(new Object[parentIdsAndIndexes.size()]);
+                }
+                arrayPropertyTypes.add(PropertyType.LONG_ARRAY);
+                columns.add(new Object[parentIdsAndIndexes.size()]);
+            }
+            if (ids.size() + 1 != arrayPropertyTypes.size()) {
+                return null;
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                Object value = ids.get(i);
+                if (value == null || arrayPropertyTypes.get(i) == null || !arrayPropertyTypes.get(i).equals(bulkWithinOutArrayPropertyType(PropertyType.from(value)))) {
+                    return null;
+                }
+                columns.get(i)[row] = value;
+            }
+            columns.get(ids.size())[row] = parentIdAndIndex.getRight();
+            row++;
+        }
+        List<Pair<PropertyType, Object[]>> result = new ArrayList<>();
+        for (int i = 0; i < arrayPropertyTypes.size(); i++) {
+            result.add(Pair.of(arrayPropertyTypes.get(i), columns.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * The temporary table is only visible to the transaction's connection, a query that joins on it can not be
+     * executed on another connection.
+     */
+    public boolean hasParentIdsInTempTable() {
+        return this.parentIdsAndIndexes != null && isParentIdsInTempTable(this.parentIdsAndIndexes);
+    }
+
+    private boolean isParentIdsInTempTable(List<Pair<RecordId.ID, Long>> parentIdsAndIndexes) {
+        if (parentIdsAndIndexes.size() == 1) {
+            return false;
+        }
+        return !this.sqlgGraph.getSqlDialect().supportsValuesExpression() ||
+                (this.sqlgGraph.getSqlDialect().supportsBulkWithinOutArrayParameter() &&
+                        parentIdsAndIndexes.size() > this.sqlgGraph.configuration().getInt(SqlgGraph.PARENT_IDS_TEMP_TABLE_THRESHOLD, PARENT_IDS_TEMP_TABLE_THRESHOLD));
+    }
+
+    /**
+     * @return The incoming ids and indexes bound as arrays, or null if they are printed into the sql.
+     */
+    public List<Pair<PropertyType, Object[]>> getParentIdsAndIndexesArrays() {
+        return this.parentIdsAndIndexesArrays;
     }
 
     public STEP_TYPE getStepType() {
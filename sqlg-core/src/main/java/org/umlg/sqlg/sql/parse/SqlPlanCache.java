@@ -0,0 +1,214 @@
+package org.umlg.sqlg.sql.parse;
+
+import org.umlg.sqlg.structure.SchemaTable;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.structure.TopologyChangeAction;
+import org.umlg.sqlg.structure.TopologyInf;
+import org.umlg.sqlg.structure.TopologyListener;
+import org.umlg.sqlg.structure.topology.AbstractLabel;
+import org.umlg.sqlg.structure.topology.Index;
+import org.umlg.sqlg.structure.topology.Partition;
+import org.umlg.sqlg.structure.topology.PropertyColumn;
+import org.umlg.sqlg.structure.topology.Schema;
+import org.umlg.sqlg.structure.topology.Topology;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded LRU cache of generated sql, keyed by the shape of a distinct query stack.
+ * The shape contains everything that influences the sql text but none of the values that are bound as parameters.
+ * Together with the sql the alias maps and {@link ColumnList}s built during generation are cached,
+ * they are needed to load the {@link java.sql.ResultSet}.
+ * The parameters are bound from the executing traversal's {@link SchemaTableTree}s in the same order as they were
+ * when the sql was generated so no separate binding plan needs to be kept.
+ * <p>
+ * Entries are evicted when the topology of a label they select from changes.
+ * While a topology change is in flight nothing is added to the cache, as with the {@link org.umlg.sqlg.structure.StatementCache}
+ * this is decided by {@link Topology#isChanging(long)} of the version read before the sql was generated.
+ */
+public class SqlPlanCache implements TopologyListener {
+
+    public static final String SQL_PLAN_CACHE_SIZE = "sql.plan.cache.size";
+    private static final int DEFAULT_SQL_PLAN_CACHE_SIZE = 1000;
+
+    private final SqlgGraph sqlgGraph;
+    private final int maxSize;
+    private final LinkedHashMap<String, SqlPlan> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public SqlPlanCache(SqlgGraph sqlgGraph) {
+        this.sqlgGraph = sqlgGraph;
+        this.maxSize = sqlgGraph.configuration().getInt(SQL_PLAN_CACHE_SIZE, DEFAULT_SQL_PLAN_CACHE_SIZE);
+        this.cache = new LinkedHashMap<String, SqlPlan>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SqlPlan> eldest) {
+                return size() > SqlPlanCache.this.maxSize;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return this.maxSize > 0;
+    }
+
+    SqlPlan get(String key) {
+        SqlPlan sqlPlan;
+        synchronized (this.cache) {
+            sqlPlan = this.cache.get(key);
+        }
+        if (sqlPlan != null) {
+            this.hits.incrementAndGet();
+        } else {
+            this.misses.incrementAndGet();
+        }
+        return sqlPlan;
+    }
+
+    /**
+     * @param key             The shape of the distinct query stack.
+     * @param sqlPlan         The generated sql and its alias maps.
+     * @param topologyVersion The topology's version when the sql generation started.
+     */
+    void put(String key, SqlPlan sqlPlan, long topologyVersion) {
+        synchronized (this.cache) {
+            //if the topology was changing or changed while generating the sql then the plan might be stale.
+            if (!Topology.isChanging(topologyVersion) && this.sqlgGraph.getTopology().getVersion() == topologyVersion) {
+                this.cache.put(key, sqlPlan);
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (this.cache) {
+            return this.cache.size();
+        }
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    public void clear() {
+        synchronized (this.cache) {
+            this.cache.clear();
+        }
+    }
+
+    @Override
+    public void change(TopologyInf topologyInf, String oldValue, TopologyChangeAction action) {
+        String schemaTable = null;
+        String schema = null;
+        if (topologyInf instanceof AbstractLabel) {
+            schemaTable = schemaTable((AbstractLabel) topologyInf);
+        } else if (topologyInf instanceof PropertyColumn) {
+            schemaTable = schemaTable(((PropertyColumn) topologyInf).getParentLabel());
+        } else if (topologyInf instanceof Index) {
+            schemaTable = schemaTable(((Index) topologyInf).getParentLabel());
+        } else if (topologyInf instanceof Partition) {
+            schemaTable = schemaTable(((Partition) topologyInf).getAbstractLabel());
+        } else if (topologyInf instanceof Schema) {
+            schema = topologyInf.getName();
+        }
+        synchronized (this.cache) {
+            if (schemaTable != null) {
+                String finalSchemaTable = schemaTable;
+                this.cache.values().removeIf(sqlPlan -> sqlPlan.getSchemaTables().contains(finalSchemaTable));
+            } else if (schema != null) {
+                String finalSchema = schema;
+                this.cache.values().removeIf(sqlPlan -> sqlPlan.getSchemas().contains(finalSchema));
+            } else {
+                this.cache.clear();
+            }
+        }
+    }
+
+    private static String schemaTable(AbstractLabel abstractLabel) {
+        return abstractLabel.getSchema().getName() + "." + abstractLabel.getPrefix() + abstractLabel.getLabel();
+    }
+
+    /**
+     * The cached result of {@link SchemaTableTree#constructSql(LinkedList)}.
+     * All fields are read only once the plan is in the cache.
+     */
+    public static class SqlPlan {
+
+        private final String sql;
+        private final Map<String, String> columnNameAliasMap;
+        private final Map<String, String> aliasColumnNameMap;
+        private final List<ColumnList> columnListStack;
+        private final int rootAliasCounter;
+        //The labels of the query's SchemaTableTrees after generating the sql, in the order of the query stack.
+        private final List<Set<String>> labels = new ArrayList<>();
+        private final List<String> reducedLabels;
+        private final Set<String> schemaTables = new HashSet<>();
+        private final Set<String> schemas = new HashSet<>();
+
+        SqlPlan(
+                String sql,
+                Map<String, String> columnNameAliasMap,
+                Map<String, String> aliasColumnNameMap,
+                List<ColumnList> columnListStack,
+                int rootAliasCounter,
+                List<SchemaTableTree> schemaTableTrees,
+                List<Set<String>> labels,
+                List<String> reducedLabels) {
+
+            this.sql = sql;
+            this.columnNameAliasMap = new HashMap<>(columnNameAliasMap);
+            this.aliasColumnNameMap = new HashMap<>(aliasColumnNameMap);
+            this.columnListStack = new ArrayList<>(columnListStack);
+            this.rootAliasCounter = rootAliasCounter;
+            for (Set<String> label : labels) {
+                this.labels.add(Collections.unmodifiableSet(new LinkedHashSet<>(label)));
+            }
+            this.reducedLabels = new ArrayList<>(reducedLabels);
+            for (SchemaTableTree schemaTableTree : schemaTableTrees) {
+                SchemaTable schemaTable = schemaTableTree.getSchemaTable();
+                this.schemaTables.add(schemaTable.getSchema() + "." + schemaTable.getTable());
+                this.schemas.add(schemaTable.getSchema());
+            }
+        }
+
+        public String getSql() {
+            return this.sql;
+        }
+
+        Map<String, String> getColumnNameAliasMap() {
+            return this.columnNameAliasMap;
+        }
+
+        Map<String, String> getAliasColumnNameMap() {
+            return this.aliasColumnNameMap;
+        }
+
+        List<ColumnList> getColumnListStack() {
+            return this.columnListStack;
+        }
+
+        int getRootAliasCounter() {
+            return this.rootAliasCounter;
+        }
+
+        List<Set<String>> getLabels() {
+            return this.labels;
+        }
+
+        List<String> getReducedLabels() {
+            return this.reducedLabels;
+        }
+
+        Set<String> getSchemaTables() {
+            return this.schemaTables;
+        }
+
+        Set<String> getSchemas() {
+            return this.schemas;
+        }
+    }
+}
@@ -2,23 +2,30 @@ package org.umlg.sqlg.sql.parse;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Multimap;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.tinkerpop.gremlin.process.traversal.Compare;
 import org.apache.tinkerpop.gremlin.process.traversal.Contains;
 import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.process.traversal.util.AndP;
+import org.apache.tinkerpop.gremlin.process.traversal.util.ConnectiveP;
 import org.apache.tinkerpop.gremlin.process.traversal.util.OrP;
 import org.apache.tinkerpop.gremlin.structure.T;
 import org.umlg.sqlg.predicate.PropertyReference;
 import org.umlg.sqlg.predicate.Existence;
 import org.umlg.sqlg.predicate.FullText;
+import org.umlg.sqlg.predicate.Seek;
 import org.umlg.sqlg.predicate.Text;
+import org.umlg.sqlg.sql.dialect.BaseSqlDialect;
 import org.umlg.sqlg.sql.dialect.SqlDialect;
 import org.umlg.sqlg.structure.RecordId;
 import org.umlg.sqlg.structure.SqlgGraph;
 import org.umlg.sqlg.util.SqlgUtil;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Created by pieter on 2015/08/03.
@@ -47,18 +54,18 @@ public class WhereClause {
         if (p.getValue() instanceof PropertyReference && p.getBiPredicate() instanceof Compare) {
             result += prefix + "." + sqlgGraph.getSqlDialect().maybeWrapInQoutes(hasContainer.getKey());
             String column = prefix + "." + sqlgGraph.getSqlDialect().maybeWrapInQoutes(((PropertyReference) p.getValue()).getColumnName());
-            result += compareToSql((Compare) p.getBiPredicate(), column);
+            result += BaseSqlDialect.compareToSql((Compare) p.getBiPredicate(), column);
             return result;
         } else if (p.getBiPredicate() instanceof Compare) {
             if (hasContainer.getKey().equals(T.id.getAccessor())) {
                 if (schemaTableTree.isHasIDPrimaryKey()) {
                     result += prefix + "." + sqlgGraph.getSqlDialect().maybeWrapInQoutes("ID");
-                    result += compareToSql((Compare) p.getBiPredicate());
+                    result += BaseSqlDialect.compareToSql((Compare) p.getBiPredicate());
                 } else {
                     int i = 1;
                     for (String identifier : schemaTableTree.getIdentifiers()) {
                         result += prefix + "." + sqlgGraph.getSqlDialect().maybeWrapInQoutes(identifier);
-                        result += compareToSql((Compare) p.getBiPredicate());
+                        result += BaseSqlDialect.compareToSql((Compare) p.getBiPredicate());
                         if (i++ < schemaTableTree.getIdentifiers().size()) {
                             result += " AND ";
                         }
@@ -66,7 +73,7 @@ public class WhereClause {
                 }
             } else {
                 result += prefix + "." + sqlgGraph.getSqlDialect().maybeWrapInQoutes(hasContainer.getKey());
-                result += compareToSql((Compare) p.getBiPredicate());
+                result += BaseSqlDialect.compareToSql((Compare) p.getBiPredicate());
             }
             return result;
         } else if ((!sqlgGraph.getSqlDialect().supportsBulkWithinOut() || (!SqlgUtil.isBulkWithinAndOut(sqlgGraph, hasContainer))) && p.getBiPredicate() instanceof Contains) {
@@ -103,9 +110,9 @@ public class WhereClause {
             } else {
                 key = result + "." + sqlgGraph.getSqlDialect().maybeWrapInQoutes(hasContainer.getKey());
             }
-            result += prefix + key + compareToSql((Compare) p1.getBiPredicate());
+            result += prefix + key + BaseSqlDialect.compareToSql((Compare) p1.getBiPredicate());
             P<?> p2 = andP.getPredicates().get(1);
-            result += " and " + prefix + key + compareToSql((Compare) p2.getBiPredicate());
+            result += " and " + prefix + key + BaseSqlDialect.compareToSql((Compare) p2.getBiPredicate());
             return result;
         } else if (p instanceof OrP) {
             OrP<?> orP = (OrP<?>) p;
@@ -117,9 +124,9 @@ public class WhereClause {
             } else {
                 key = result + "." + sqlgGraph.getSqlDialect().maybeWrapInQoutes(hasContainer.getKey());
             }
-            result += prefix + key + compareToSql((Compare) p1.getBiPredicate());
+            result += prefix + key + BaseSqlDialect.compareToSql((Compare) p1.getBiPredicate());
             P<?> p2 = orP.getPredicates().get(1);
-            result += " or " + prefix + key + compareToSql((Compare) p2.getBiPredicate());
+            result += " or " + prefix + key + BaseSqlDialect.compareToSql((Compare) p2.getBiPredicate());
             return result;
         } else if (p.getBiPredicate() instanceof Text) {
             prefix += "." + sqlgGraph.getSqlDialect().maybeWrapInQoutes(hasContainer.getKey());
@@ -134,49 +141,58 @@ public class WhereClause {
             result += prefix + "." + sqlgGraph.getSqlDialect().maybeWrapInQoutes(hasContainer.getKey());
             result += " " + p.getBiPredicate().toString();
             return result;
+        } else if (p.getBiPredicate() instanceof Seek) {
+            List<String> columns = new ArrayList<>();
+            columns.add(prefix + "." + sqlgGraph.getSqlDialect().maybeWrapInQoutes(hasContainer.getKey()));
+            if (schemaTableTree.isHasIDPrimaryKey()) {
+                columns.add(prefix + "." + sqlgGraph.getSqlDialect().maybeWrapInQoutes("ID"));
+            } else {
+                for (String identifier : schemaTableTree.getIdentifiers()) {
+                    columns.add(prefix + "." + sqlgGraph.getSqlDialect().maybeWrapInQoutes(identifier));
+                }
+            }
+            return seekToSql(sqlgGraph.getSqlDialect(), (Seek) p.getBiPredicate(), columns);
         }
         throw new IllegalStateException("Unhandled BiPredicate " + p.getBiPredicate().toString());
     }
 
-    private static String compareToSql(Compare compare) {
-        switch (compare) {
-            case eq:
-                return " = ?";
-            case neq:
-                return " <> ?";
-            case gt:
-                return " > ?";
-            case gte:
-                return " >= ?";
-            case lt:
-                return " < ?";
-            case lte:
-                return " <= ?";
-            default:
-                throw new RuntimeException("Unknown Compare " + compare.name());
-        }
-    }
-
-    private static String compareToSql(Compare compare, String column) {
-        switch (compare) {
-            case eq:
-                return " = " + column;
-            case neq:
-                return " <> " + column;
-            case gt:
-                return " > " + column;
-            case gte:
-                return " >= " + column;
-            case lt:
-                return " < " + column;
-            case lte:
-                return " <= " + column;
-            default:
-                throw new RuntimeException("Unknown Compare " + compare.name());
+    /**
+     * Appends the part of the predicate that determines the sql text, i.e. everything but the bound values.
+     *
+     * @return false if the predicate is not known, in which case its sql can not be cached.
+     */
+    static boolean appendShape(P<?> p, StringBuilder shape) {
+        if (p instanceof ConnectiveP) {
+            shape.append(p instanceof AndP ? "and(" : "or(");
+            for (P<?> predicate : ((ConnectiveP<?>) p).getPredicates()) {
+                if (!appendShape(predicate, shape)) {
+                    return false;
+                }
+                shape.append(",");
+            }
+            shape.append(")");
+            return true;
+        } else if (p.getValue() instanceof PropertyReference && p.getBiPredicate() instanceof Compare) {
+            shape.append(p.getBiPredicate()).append("(ref:").append(((PropertyReference) p.getValue()).getColumnName()).append(")");
+            return true;
+        } else if (p.getBiPredicate() instanceof Compare || p.getBiPredicate() instanceof Text || p.getBiPredicate() instanceof Existence) {
+            shape.append(p.getBiPredicate()).append("(?)");
+            return true;
+        } else if (p.getBiPredicate() instanceof Contains) {
+            //the number of bind parameters depends on the size of the collection.
+            shape.append(p.getBiPredicate()).append("(").append(((Collection<?>) p.getValue()).size()).append(")");
+            return true;
+        } else if (p.getBiPredicate() instanceof Seek) {
+            shape.append("seek(").append(((Seek) p.getBiPredicate()).isAscending()).append(")");
+            return true;
+        } else if (p.getBiPredicate() instanceof FullText) {
+            FullText fullText = (FullText) p.getBiPredicate();
+            shape.append("fullText(").append(fullText.getConfiguration()).append(",").append(fullText.isPlain()).append(",").append(fullText.getQuery()).append(")");
+            return true;
         }
+        return false;
     }
 
-
     private static String containsToSql(Contains contains, int size) {
         String result;
         if (size == 1) {
@@ -213,6 +229,35 @@ public class WhereClause {
         return result;
     }
 
+    /**
+     * The columns are compared as a row, the sort key first and then the id's columns.
+     * If the rdbms does not support row value comparisons it is expanded, i.e. <code>(a &gt; ? OR (a = ? AND b &gt; ?))</code>.
+     * {@link #putKeyValueMap} puts the values in the same order.
+     */
+    private static String seekToSql(SqlDialect sqlDialect, Seek seek, List<String> columns) {
+        String compare = seek.isAscending() ? " > " : " < ";
+        StringBuilder result = new StringBuilder("(");
+        if (sqlDialect.supportsRowValueComparison()) {
+            result.append(String.join(", ", columns));
+            result.append(")").append(compare).append("(");
+            result.append(columns.stream().map(c -> "?").collect(Collectors.joining(", ")));
+        } else {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    result.append(" OR ");
+                }
+                result.append("(");
+                for (int j = 0; j < i; j++) {
+                    result.append(columns.get(j)).append(" = ? AND ");
+                }
+                result.append(columns.get(i)).append(compare).append("?");
+                result.append(")");
+            }
+        }
+        result.append(")");
+        return result.toString();
+    }
+
     private static String textToSql(SqlDialect sqlDialect, String prefix, Text text) {
         String result;
         switch (text) {
@@ -319,6 +364,27 @@ public class WhereClause {
             keyValueMap.put(hasContainer.getKey(), "%" + hasContainer.getValue());
         } else if (p.getBiPredicate() instanceof Existence) {
             // no value
+        } else if (p.getBiPredicate() instanceof Seek) {
+            List<Pair<String, Object>> keyValues = new ArrayList<>();
+            keyValues.add(Pair.of(hasContainer.getKey(), hasContainer.getValue()));
+            RecordId recordId = ((Seek) p.getBiPredicate()).getId();
+            if (schemaTableTree.isHasIDPrimaryKey()) {
+                keyValues.add(Pair.of("ID", recordId.sequenceId()));
+            } else {
+                int i = 0;
+                for (Object identifier : recordId.getIdentifiers()) {
+                    keyValues.add(Pair.of(schemaTableTree.getIdentifiers().get(i++), identifier));
+                }
+            }
+            if (schemaTableTree.getSqlgGraph().getSqlDialect().supportsRowValueComparison()) {
+                keyValues.forEach(keyValue -> keyValueMap.put(keyValue.getKey(), keyValue.getValue()));
+            } else {
+                for (int i = 0; i < keyValues.size(); i++) {
+                    for (Pair<String, Object> keyValue : keyValues.subList(0, i + 1)) {
+                        keyValueMap.put(keyValue.getKey(), keyValue.getValue());
+                    }
+                }
+            }
         } else if (hasContainer.getKey().equals(T.id.getAccessor()) &&
                 hasContainer.getValue() instanceof RecordId &&
                 !((RecordId) hasContainer.getValue()).hasSequenceId()) {
@@ -1,6 +1,8 @@
 package org.umlg.sqlg.step;
 
 import com.google.common.base.Preconditions;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
 import org.apache.tinkerpop.gremlin.process.traversal.step.TraversalParent;
@@ -9,11 +11,13 @@ import org.apache.tinkerpop.gremlin.process.traversal.step.map.SackStep;
 import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
 import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
 import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.structure.util.CloseableIterator;
 import org.umlg.sqlg.sql.parse.ReplacedStep;
 import org.umlg.sqlg.sql.parse.ReplacedStepTree;
 import org.umlg.sqlg.sql.parse.SchemaTableTree;
 import org.umlg.sqlg.strategy.Emit;
 import org.umlg.sqlg.strategy.SqlgComparatorHolder;
+import org.umlg.sqlg.strategy.SqlgSqlExecutor;
 import org.umlg.sqlg.structure.SqlgCompiledResultIterator;
 import org.umlg.sqlg.structure.SqlgElement;
 import org.umlg.sqlg.structure.SqlgGraph;
@@ -27,7 +31,7 @@ import java.util.*;
  * Time: 9:54 PM
  */
 @SuppressWarnings("unchecked")
-public class SqlgGraphStep<S, E extends SqlgElement> extends GraphStep implements SqlgStep, TraversalParent {
+public class SqlgGraphStep<S, E extends SqlgElement> extends GraphStep implements SqlgStep, TraversalParent, AutoCloseable {
 
     private final SqlgGraph sqlgGraph;
 
@@ -46,6 +50,14 @@ public class SqlgGraphStep<S, E extends SqlgElement> extends GraphStep implement
     private long rangeCount = 0;
     private boolean eagerLoad = false;
     private boolean isForMultipleQueries = false;
+    //If true the step emits the count of its elements instead of the elements.
+    private boolean count = false;
+    //If not null the step emits the aggregate of the aggregatePropertyKey instead of the elements.
+    private SqlgSqlExecutor.AGGREGATE aggregate;
+    private String aggregatePropertyKey;
+    private Iterator<Traverser.Admin<E>> aggregateTraversers;
+    //If not null the step emits the groupCount() or group() map of the groupByKey instead of the elements.
+    private String groupByKey;
 
     /**
      * This is a jippo of sorts.
@@ -67,6 +79,30 @@ public class SqlgGraphStep<S, E extends SqlgElement> extends GraphStep implement
     @SuppressWarnings("unchecked")
     @Override
     protected Traverser.Admin<E> processNextStart() {
+        if (this.count) {
+            if (this.done) {
+                throw FastNoSuchElementException.instance();
+            }
+            this.done = true;
+            return SqlgTraverserGenerator.instance().generate(count(), this, 1L, this.requiresSack, this.requiresOneBulk);
+        }
+        if (this.groupByKey != null) {
+            if (this.done) {
+                throw FastNoSuchElementException.instance();
+            }
+            this.done = true;
+            return SqlgTraverserGenerator.instance().generate((E) groupBy(), this, 1L, this.requiresSack, this.requiresOneBulk);
+        }
+        if (this.aggregate != null) {
+            if (!this.done) {
+                this.done = true;
+                this.aggregateTraversers = aggregate().iterator();
+            }
+            if (this.aggregateTraversers.hasNext()) {
+                return this.aggregateTraversers.next();
+            }
+            throw FastNoSuchElementException.instance();
+        }
         while (true) {
             if (this.traversersLstIter != null && this.traversersLstIter.hasNext()) {
                 Emit<E> emit = this.traversersLstIter.next();
@@ -99,6 +135,7 @@ public class SqlgGraphStep<S, E extends SqlgElement> extends GraphStep implement
                     }
                     this.done = true;
                 }
+                closeElementIter();
                 this.elementIter = elements();
                 if (this.eagerLoad) {
                     eagerLoad();
@@ -183,7 +220,22 @@ public class SqlgGraphStep<S, E extends SqlgElement> extends GraphStep implement
     @Override
     public void reset() {
         super.reset();
+        closeElementIter();
         this.previousHead = null;
+        this.aggregateTraversers = null;
+    }
+
+    /**
+     * Closes the query results that are not iterated yet, see {@link SqlgCompiledResultIterator#close()}.
+     */
+    @Override
+    public void close() {
+        closeElementIter();
+    }
+
+    private void closeElementIter() {
+        CloseableIterator.closeIterator(this.elementIter);
+        this.elementIter = null;
     }
 
     @Override
@@ -202,6 +254,72 @@ public class SqlgGraphStep<S, E extends SqlgElement> extends GraphStep implement
         return new SqlgCompiledResultIterator<>(this.sqlgGraph, rootSchemaTableTrees);
     }
 
+    /**
+     * Sums the count of every distinct query, the counting is done in the db.
+     */
+    private long count() {
+        this.sqlgGraph.tx().readWrite();
+        if (this.sqlgGraph.getSqlDialect().supportsBatchMode() && this.sqlgGraph.tx().getBatchManager().isStreaming()) {
+            throw new IllegalStateException("streaming is in progress, first flush or commit before querying.");
+        }
+        Preconditions.checkState(this.replacedSteps.size() > 0, "There must be at least one replacedStep");
+        Preconditions.checkState(this.replacedSteps.get(0).isGraphStep(), "The first step must a SqlgGraphStep");
+        long result = 0;
+        for (SchemaTableTree rootSchemaTableTree : parseForStrategy()) {
+            for (LinkedList<SchemaTableTree> distinctQueryStack : rootSchemaTableTree.constructDistinctQueries()) {
+                rootSchemaTableTree.resetColumnAliasMaps();
+                result += SqlgSqlExecutor.executeCountQuery(this.sqlgGraph, rootSchemaTableTree, distinctQueryStack);
+            }
+            rootSchemaTableTree.resetColumnAliasMaps();
+        }
+        return result;
+    }
+
+    /**
+     * Emits the aggregate of every distinct query, the TinkerPop aggregate step that follows combines them.
+     */
+    private List<Traverser.Admin<E>> aggregate() {
+        this.sqlgGraph.tx().readWrite();
+        if (this.sqlgGraph.getSqlDialect().supportsBatchMode() && this.sqlgGraph.tx().getBatchManager().isStreaming()) {
+            throw new IllegalStateException("streaming is in progress, first flush or commit before querying.");
+        }
+        Preconditions.checkState(this.replacedSteps.size() > 0, "There must be at least one replacedStep");
+        Preconditions.checkState(this.replacedSteps.get(0).isGraphStep(), "The first step must a SqlgGraphStep");
+        List<Traverser.Admin<E>> result = new ArrayList<>();
+        for (SchemaTableTree rootSchemaTableTree : parseForStrategy()) {
+            for (LinkedList<SchemaTableTree> distinctQueryStack : rootSchemaTableTree.constructDistinctQueries()) {
+                rootSchemaTableTree.resetColumnAliasMaps();
+                Pair<Number, Long> valueAndBulk = SqlgSqlExecutor.executeAggregateQuery(this.sqlgGraph, rootSchemaTableTree, distinctQueryStack, this.aggregate, this.aggregatePropertyKey, null);
+                if (valueAndBulk != null) {
+                    result.add(SqlgTraverserGenerator.instance().generate(valueAndBulk.getLeft(), this, valueAndBulk.getRight(), this.requiresSack, false));
+                }
+            }
+            rootSchemaTableTree.resetColumnAliasMaps();
+        }
+        return result;
+    }
+
+    /**
+     * Merges the groups of every distinct query, the grouping is done in the db.
+     */
+    private Map<Object, Object> groupBy() {
+        this.sqlgGraph.tx().readWrite();
+        if (this.sqlgGraph.getSqlDialect().supportsBatchMode() && this.sqlgGraph.tx().getBatchManager().isStreaming()) {
+            throw new IllegalStateException("streaming is in progress, first flush or commit before querying.");
+        }
+        Preconditions.checkState(this.replacedSteps.size() > 0, "There must be at least one replacedStep");
+        Preconditions.checkState(this.replacedSteps.get(0).isGraphStep(), "The first step must a SqlgGraphStep");
+        Map<Object, MutablePair<Number, Long>> groups = new HashMap<>();
+        for (SchemaTableTree rootSchemaTableTree : parseForStrategy()) {
+            for (LinkedList<SchemaTableTree> distinctQueryStack : rootSchemaTableTree.constructDistinctQueries()) {
+                rootSchemaTableTree.resetColumnAliasMaps();
+                SqlgSqlExecutor.executeGroupByQuery(this.sqlgGraph, rootSchemaTableTree, distinctQueryStack, this.groupByKey, this.aggregate, this.aggregatePropertyKey, null, groups);
+            }
+            rootSchemaTableTree.resetColumnAliasMaps();
+        }
+        return SqlgSqlExecutor.groupByResult(groups, this.aggregate);
+    }
+
     private Set<SchemaTableTree> prepare() {
         this.replacedStepTree.maybeAddLabelToLeafNodes();
         Set<SchemaTableTree> rootSchemaTableTrees = parseForStrategy();
@@ -241,6 +359,24 @@ public class SqlgGraphStep<S, E extends SqlgElement> extends GraphStep implement
         return rootSchemaTableTrees;
     }
 
+    @Override
+    public void markAsCount() {
+        this.count = true;
+    }
+
+    @Override
+    public void markAsAggregate(SqlgSqlExecutor.AGGREGATE aggregate, String propertyKey) {
+        this.aggregate = aggregate;
+        this.aggregatePropertyKey = propertyKey;
+    }
+
+    @Override
+    public void markAsGroupBy(String groupByKey, SqlgSqlExecutor.AGGREGATE aggregate, String aggregatePropertyKey) {
+        this.groupByKey = groupByKey;
+        this.aggregate = aggregate;
+        this.aggregatePropertyKey = aggregatePropertyKey;
+    }
+
     @Override
     public List<ReplacedStep<?, ?>> getReplacedSteps() {
         return this.replacedSteps;
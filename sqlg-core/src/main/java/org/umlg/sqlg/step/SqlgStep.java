@@ -3,6 +3,7 @@ package org.umlg.sqlg.step;
 import org.apache.tinkerpop.gremlin.process.traversal.Step;
 import org.umlg.sqlg.sql.parse.ReplacedStep;
 import org.umlg.sqlg.sql.parse.ReplacedStepTree;
+import org.umlg.sqlg.strategy.SqlgSqlExecutor;
 
 import java.util.List;
 
@@ -17,4 +18,21 @@ public interface SqlgStep extends Step {
     void setEagerLoad(boolean eager);
 
     boolean isEargerLoad();
+
+    /**
+     * Instead of the elements the step emits their count, calculated in the db.
+     */
+    void markAsCount();
+
+    /**
+     * Instead of the elements the step emits the aggregate of their property, calculated in the db per distinct query.
+     * The partial aggregates are combined by the TinkerPop aggregate step that follows.
+     */
+    void markAsAggregate(SqlgSqlExecutor.AGGREGATE aggregate, String propertyKey);
+
+    /**
+     * Instead of the elements the step emits the map of groupCount() or group(), grouped in the db on the groupByKey property.
+     * A null aggregate counts the group's elements, else the group's aggregatePropertyKey property is aggregated.
+     */
+    void markAsGroupBy(String groupByKey, SqlgSqlExecutor.AGGREGATE aggregate, String aggregatePropertyKey);
 }
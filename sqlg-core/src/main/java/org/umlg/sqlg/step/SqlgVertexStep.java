@@ -2,7 +2,9 @@ package org.umlg.sqlg.step;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.LinkedListMultimap;
+import org.apache.commons.lang3.tuple.MutablePair;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
 import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
@@ -12,10 +14,16 @@ import org.slf4j.LoggerFactory;
 import org.umlg.sqlg.sql.parse.ReplacedStep;
 import org.umlg.sqlg.sql.parse.ReplacedStepTree;
 import org.umlg.sqlg.sql.parse.SchemaTableTree;
+import org.umlg.sqlg.step.barrier.SqlgLocalStepBarrier;
 import org.umlg.sqlg.strategy.Emit;
 import org.umlg.sqlg.strategy.SqlgComparatorHolder;
+import org.umlg.sqlg.strategy.SqlgSqlExecutor;
 import org.umlg.sqlg.structure.*;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.util.*;
 
 /**
@@ -25,7 +33,10 @@ import java.util.*;
 public class SqlgVertexStep<E extends SqlgElement> extends SqlgAbstractStep implements SqlgStep {
 
     private static final Logger logger = LoggerFactory.getLogger(SqlgVertexStep.class);
+    private static final int VERTEX_STEP_BARRIER_SIZE = 100000;
     private final SqlgGraph sqlgGraph;
+    //The maximum number of starts that are queried for at a time.
+    private final int barrierSize;
 
     //This holds the head/start traversers per SchemaTable.
     //A query is executed per SchemaTable
@@ -57,17 +68,70 @@ public class SqlgVertexStep<E extends SqlgElement> extends SqlgAbstractStep impl
 
     private ReplacedStep<?, ?> lastReplacedStep;
     private long rangeCount = 0;
+    //The start whose elements the rangeCount is counting if the range applies per start.
+    private long rangeParentIndex = 0;
     private boolean eagerLoad = false;
     private boolean isForMultipleQueries = false;
+    //If true the step emits the count of its elements instead of the elements.
+    private boolean count = false;
+    private boolean countDone = false;
+    //If not null the step emits the aggregate of the aggregatePropertyKey instead of the elements.
+    private SqlgSqlExecutor.AGGREGATE aggregate;
+    private String aggregatePropertyKey;
+    private Iterator<Traverser.Admin<E>> aggregateTraversers;
+    //If not null the step emits the groupCount() or group() map of the groupByKey instead of the elements.
+    private String groupByKey;
+    private boolean groupByDone = false;
 
     public SqlgVertexStep(final Traversal.Admin traversal) {
         super(traversal);
         this.sqlgGraph = (SqlgGraph) traversal.getGraph().get();
+        this.barrierSize = this.sqlgGraph.configuration().getInt(SqlgGraph.VERTEX_STEP_BARRIER_SIZE, VERTEX_STEP_BARRIER_SIZE);
     }
 
     @Override
     protected Traverser.Admin<E> processNextStart() {
-        if (this.starts.hasNext()) {
+        if (this.count) {
+            if (this.countDone) {
+                throw FastNoSuchElementException.instance();
+            }
+            this.countDone = true;
+            long result = 0;
+            while (this.starts.hasNext()) {
+                barrierTheHeads();
+                result += count();
+            }
+            //noinspection unchecked
+            return SqlgTraverserGenerator.instance().generate(result, this, 1L, false, false);
+        }
+        if (this.groupByKey != null) {
+            if (this.groupByDone) {
+                throw FastNoSuchElementException.instance();
+            }
+            this.groupByDone = true;
+            Map<Object, Object> result = new HashMap<>();
+            if (this.starts.hasNext()) {
+                barrierTheHeads();
+                result = groupBy();
+            }
+            //noinspection unchecked
+            return SqlgTraverserGenerator.instance().generate((E) result, this, 1L, false, false);
+        }
+        if (this.aggregate != null) {
+            if (this.aggregateTraversers == null) {
+                List<Traverser.Admin<E>> result = new ArrayList<>();
+                if (this.starts.hasNext()) {
+                    barrierTheHeads();
+                    result = aggregate();
+                }
+                this.aggregateTraversers = result.iterator();
+            }
+            if (this.aggregateTraversers.hasNext()) {
+                return this.aggregateTraversers.next();
+            }
+            throw FastNoSuchElementException.instance();
+        }
+        if (this.starts.hasNext() && (chunkSize() == 0 || isChunkDone())) {
             barrierTheHeads();
             constructQueryPerSchemaTable();
         }
@@ -103,10 +167,19 @@ public class SqlgVertexStep<E extends SqlgElement> extends SqlgAbstractStep impl
                             logger.debug("eager load is true");
                         }
                         eagerLoad();
-                        Collections.sort(this.traversers);
+                        if (isRangePerStart()) {
+                            //keep each start's elements together so that the range can be applied per start.
+                            this.traversers.sort(Comparator.<Emit<E>>comparingLong(Emit::getParentIndex).thenComparing(Comparator.naturalOrder()));
+                        } else {
+                            Collections.sort(this.traversers);
+                        }
                         this.traversersLstIterator = this.traversers.listIterator();
                     }
                     this.lastReplacedStep = this.replacedSteps.get(this.replacedSteps.size() - 1);
+                } else if (this.starts.hasNext() && chunkSize() > 0) {
+                    //the previous chunk is done, query for the next one.
+                    barrierTheHeads();
+                    constructQueryPerSchemaTable();
                 } else {
 //                    if (!this.sqlgStarts.hasNext()) {
                     if (!this.starts.hasNext()) {
@@ -119,11 +192,21 @@ public class SqlgVertexStep<E extends SqlgElement> extends SqlgAbstractStep impl
         }
     }
 
+    /**
+     * Pulls the starts in chunks of {@link #barrierSize} if {@link #chunkSize()} allows it, else all of them.
+     */
     private void barrierTheHeads() {
         //these collections are only used for the current starts.
         this.heads.clear();
         this.schemaTableParentIds.clear();
-        while (this.starts.hasNext()) {
+        int chunkSize = chunkSize();
+        if (chunkSize > 0) {
+            //the previous chunk's elements have all been emitted.
+            this.startIndexTraverserAdminMap.clear();
+        }
+        this.sqlgGraph.getQueryMetrics().vertexStepBarrier();
+        int pulled = 0;
+        while (this.starts.hasNext() && (chunkSize == 0 || pulled++ < chunkSize)) {
             @SuppressWarnings("unchecked") Traverser.Admin<E> h = this.starts.next();
             E value = h.get();
             SchemaTable schemaTable = value.getSchemaTablePrefixed();
@@ -145,6 +228,26 @@ public class SqlgVertexStep<E extends SqlgElement> extends SqlgAbstractStep impl
         }
     }
 
+    /**
+     * The starts can only be queried for in chunks if every chunk's elements can be emitted before the next chunk is pulled.
+     * Orders and ranges apply over all the starts, as do aggregates and groups that are not simply additive.
+     *
+     * @return the chunk size or 0 if all the starts must be queried for at once.
+     */
+    private int chunkSize() {
+        if (this.barrierSize < 1 || this.eagerLoad || this.aggregate != null || this.groupByKey != null ||
+                this.replacedStepTree.hasOrderBy() || this.replacedStepTree.hasRange()) {
+            return 0;
+        }
+        return this.barrierSize;
+    }
+
+    private boolean isChunkDone() {
+        return (this.traversersLstIterator == null || !this.traversersLstIterator.hasNext()) &&
+                (this.elementIterator == null || !this.elementIterator.hasNext()) &&
+                this.schemaTableElements.isEmpty();
+    }
+
     //B_LP_O_P_S_SE_SL_Traverser
     private void eagerLoad() {
         this.traversers.clear();
@@ -217,7 +320,18 @@ public class SqlgVertexStep<E extends SqlgElement> extends SqlgAbstractStep impl
             //If a range follows an order that needs to be done in memory then do not apply the range on the db.
             //range is always the last step as sqlg does not optimize beyond a range step.
             if (this.replacedStepTree.hasRange()) {
-                if (this.replacedStepTree.hasOrderBy()) {
+                if (isRangePerStart()) {
+                    if (!this.eagerLoad && !isForMultipleQueries() && this.sqlgGraph.getSqlDialect().supportsWindowFunctions()) {
+                        //The range is applied per start in the db with a window function.
+                        this.replacedStepTree.applyRangePerStart();
+                        this.replacedStepTree.doNotApplyInStep();
+                    } else {
+                        //The range is applied per start in memory, see applyRange.
+                        this.replacedSteps.get(this.replacedSteps.size() - 1).getSqlgRangeHolder().setApplyInStep(true);
+                        this.replacedStepTree.doNotApplyRangeOnDb();
+                        setEagerLoad(true);
+                    }
+                } else if (this.replacedStepTree.hasOrderBy()) {
                     this.replacedStepTree.doNotApplyRangeOnDb();
                     setEagerLoad(true);
                 } else {
@@ -231,6 +345,108 @@ public class SqlgVertexStep<E extends SqlgElement> extends SqlgAbstractStep impl
         }
     }
 
+    /**
+     * Counts the elements per SchemaTable in the db.
+     * If any incoming traverser has a bulk other than 1 the rows are counted so that their parent's bulk can be added.
+     */
+    private long count() {
+        this.sqlgGraph.tx().readWrite();
+        if (this.sqlgGraph.getSqlDialect().supportsBatchMode() && this.sqlgGraph.tx().getBatchManager().isStreaming()) {
+            throw new IllegalStateException("streaming is in progress, first flush or commit before querying.");
+        }
+        long result = 0;
+        for (SchemaTable schemaTable : this.heads.keySet()) {
+            boolean oneBulk = this.heads.get(schemaTable).stream().allMatch(t -> t.bulk() == 1L);
+            SchemaTableTree rootSchemaTableTree = parseForStrategy(schemaTable);
+            rootSchemaTableTree.setParentIdsAndIndexes(this.schemaTableParentIds.get(schemaTable));
+            for (LinkedList<SchemaTableTree> distinctQueryStack : rootSchemaTableTree.constructDistinctQueries()) {
+                rootSchemaTableTree.resetColumnAliasMaps();
+                if (oneBulk) {
+                    result += SqlgSqlExecutor.executeCountQuery(this.sqlgGraph, rootSchemaTableTree, distinctQueryStack);
+                } else {
+                    Triple<ResultSet, ResultSetMetaData, PreparedStatement> queryResult = SqlgSqlExecutor.executeRegularQuery(this.sqlgGraph, rootSchemaTableTree, distinctQueryStack);
+                    PreparedStatement preparedStatement = queryResult.getRight();
+                    try (ResultSet resultSet = queryResult.getLeft()) {
+                        while (resultSet.next()) {
+                            result += this.startIndexTraverserAdminMap.get(resultSet.getLong(1)).bulk();
+                        }
+                        this.sqlgGraph.tx().release(preparedStatement);
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+            rootSchemaTableTree.resetColumnAliasMaps();
+        }
+        return result;
+    }
+
+    /**
+     * Emits the aggregate per SchemaTable and distinct query, the TinkerPop aggregate step that follows combines them.
+     * If any incoming traverser has a bulk other than 1 the values are weighted by their parent's bulk.
+     */
+    private List<Traverser.Admin<E>> aggregate() {
+        this.sqlgGraph.tx().readWrite();
+        if (this.sqlgGraph.getSqlDialect().supportsBatchMode() && this.sqlgGraph.tx().getBatchManager().isStreaming()) {
+            throw new IllegalStateException("streaming is in progress, first flush or commit before querying.");
+        }
+        List<Traverser.Admin<E>> result = new ArrayList<>();
+        for (SchemaTable schemaTable : this.heads.keySet()) {
+            boolean oneBulk = this.heads.get(schemaTable).stream().allMatch(t -> t.bulk() == 1L);
+            SchemaTableTree rootSchemaTableTree = parseForStrategy(schemaTable);
+            rootSchemaTableTree.setParentIdsAndIndexes(this.schemaTableParentIds.get(schemaTable));
+            for (LinkedList<SchemaTableTree> distinctQueryStack : rootSchemaTableTree.constructDistinctQueries()) {
+                rootSchemaTableTree.resetColumnAliasMaps();
+                Pair<Number, Long> valueAndBulk = SqlgSqlExecutor.executeAggregateQuery(
+                        this.sqlgGraph,
+                        rootSchemaTableTree,
+                        distinctQueryStack,
+                        this.aggregate,
+                        this.aggregatePropertyKey,
+                        oneBulk ? null : index -> this.startIndexTraverserAdminMap.get(index).bulk()
+                );
+                if (valueAndBulk != null) {
+                    //noinspection unchecked
+                    result.add(SqlgTraverserGenerator.instance().generate(valueAndBulk.getLeft(), this, valueAndBulk.getRight(), false, false));
+                }
+            }
+            rootSchemaTableTree.resetColumnAliasMaps();
+        }
+        return result;
+    }
+
+    /**
+     * Merges the groups per SchemaTable and distinct query, the grouping is done in the db.
+     * If any incoming traverser has a bulk other than 1 the groups are calculated from the rows weighted by their parent's bulk.
+     */
+    private Map<Object, Object> groupBy() {
+        this.sqlgGraph.tx().readWrite();
+        if (this.sqlgGraph.getSqlDialect().supportsBatchMode() && this.sqlgGraph.tx().getBatchManager().isStreaming()) {
+            throw new IllegalStateException("streaming is in progress, first flush or commit before querying.");
+        }
+        Map<Object, MutablePair<Number, Long>> groups = new HashMap<>();
+        for (SchemaTable schemaTable : this.heads.keySet()) {
+            boolean oneBulk = this.heads.get(schemaTable).stream().allMatch(t -> t.bulk() == 1L);
+            SchemaTableTree rootSchemaTableTree = parseForStrategy(schemaTable);
+            rootSchemaTableTree.setParentIdsAndIndexes(this.schemaTableParentIds.get(schemaTable));
+            for (LinkedList<SchemaTableTree> distinctQueryStack : rootSchemaTableTree.constructDistinctQueries()) {
+                rootSchemaTableTree.resetColumnAliasMaps();
+                SqlgSqlExecutor.executeGroupByQuery(
+                        this.sqlgGraph,
+                        rootSchemaTableTree,
+                        distinctQueryStack,
+                        this.groupByKey,
+                        this.aggregate,
+                        this.aggregatePropertyKey,
+                        oneBulk ? null : index -> this.startIndexTraverserAdminMap.get(index).bulk(),
+                        groups
+                );
+            }
+            rootSchemaTableTree.resetColumnAliasMaps();
+        }
+        return SqlgSqlExecutor.groupByResult(groups, this.aggregate);
+    }
+
     /**
      * Called from SqlgVertexStepCompiler which compiled VertexStep and HasSteps.
      * This is only called when not in BatchMode
@@ -293,8 +509,12 @@ public class SqlgVertexStep<E extends SqlgElement> extends SqlgAbstractStep impl
         this.traversersLstIterator = null;
         this.lastReplacedStep = null;
         this.rangeCount = 0;
+        this.rangeParentIndex = 0;
         this.eagerLoad = false;
         this.isForMultipleQueries = false;
+        this.countDone = false;
+        this.aggregateTraversers = null;
+        this.groupByDone = false;
         this.replacedStepTree.reset();
     }
 
@@ -346,9 +566,45 @@ public class SqlgVertexStep<E extends SqlgElement> extends SqlgAbstractStep impl
         return this.eagerLoad;
     }
 
+    @Override
+    public void markAsCount() {
+        this.count = true;
+    }
+
+    @Override
+    public void markAsAggregate(SqlgSqlExecutor.AGGREGATE aggregate, String propertyKey) {
+        this.aggregate = aggregate;
+        this.aggregatePropertyKey = propertyKey;
+    }
+
+    @Override
+    public void markAsGroupBy(String groupByKey, SqlgSqlExecutor.AGGREGATE aggregate, String aggregatePropertyKey) {
+        this.groupByKey = groupByKey;
+        this.aggregate = aggregate;
+        this.aggregatePropertyKey = aggregatePropertyKey;
+    }
+
+    /**
+     * A range in a local traversal, i.e. local(out().order().by("x").limit(5)), applies to each incoming start's elements.
+     * The SqlgLocalStepBarrier hands all the starts to this step at once so the range can not simply count all the elements.
+     */
+    private boolean isRangePerStart() {
+        return this.replacedStepTree.hasRange() && this.getTraversal().getParent() instanceof SqlgLocalStepBarrier &&
+                this.getTraversal().getStartStep() == this;
+    }
+
     private boolean applyRange(Emit<E> emit) {
         if (this.lastReplacedStep.hasRange() && this.lastReplacedStep.applyInStep() && this.lastReplacedStep.getDepth() == emit.getReplacedStepDepth()) {
+            boolean rangePerStart = isRangePerStart();
+            if (rangePerStart && this.rangeParentIndex != emit.getParentIndex()) {
+                this.rangeParentIndex = emit.getParentIndex();
+                this.rangeCount = 0;
+            }
             if (this.lastReplacedStep.getSqlgRangeHolder().getRange().isBefore(this.rangeCount + 1)) {
+                if (rangePerStart) {
+                    //the next start's elements might still be in range.
+                    return true;
+                }
                 throw FastNoSuchElementException.instance();
             }
             if (this.lastReplacedStep.getSqlgRangeHolder().getRange().isAfter(this.rangeCount)) {
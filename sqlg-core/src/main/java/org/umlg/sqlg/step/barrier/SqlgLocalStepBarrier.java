@@ -5,10 +5,14 @@ import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
 import org.apache.tinkerpop.gremlin.process.traversal.step.TraversalParent;
 import org.apache.tinkerpop.gremlin.process.traversal.step.branch.LocalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.RangeGlobalStep;
 import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
 import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
 import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.umlg.sqlg.sql.parse.ReplacedStep;
 import org.umlg.sqlg.step.SqlgAbstractStep;
+import org.umlg.sqlg.step.SqlgVertexStep;
 import org.umlg.sqlg.structure.SqlgTraverser;
 
 import java.util.*;
@@ -23,10 +27,13 @@ public class SqlgLocalStepBarrier<S, E> extends SqlgAbstractStep<S, E> implement
     private Traversal.Admin<S, E> localTraversal;
     private final List<Traverser.Admin<E>> results = new ArrayList<>();
     private Iterator<Traverser.Admin<E>> resultIterator;
+    //If true the local traversal has a range that must be applied per start.
+    private final boolean hasRange;
 
     public SqlgLocalStepBarrier(final Traversal.Admin traversal, LocalStep<S, E> localStep) {
         super(traversal);
         this.localTraversal = localStep.getLocalChildren().get(0);
+        this.hasRange = !TraversalHelper.getStepsOfAssignableClassRecursively(RangeGlobalStep.class, this.localTraversal).isEmpty();
     }
 
     @SuppressWarnings("unchecked")
@@ -44,11 +51,22 @@ public class SqlgLocalStepBarrier<S, E> extends SqlgAbstractStep<S, E> implement
     protected Traverser.Admin<E> processNextStart() throws NoSuchElementException {
         if (this.first) {
             this.first = false;
-            while (this.starts.hasNext()) {
-                this.localTraversal.addStart(this.starts.next());
-            }
-            while (this.localTraversal.hasNext()) {
-                this.results.add(this.localTraversal.nextTraverser());
+            if (!this.hasRange || isRangeInStartStep()) {
+                while (this.starts.hasNext()) {
+                    this.localTraversal.addStart(this.starts.next());
+                }
+                while (this.localTraversal.hasNext()) {
+                    this.results.add(this.localTraversal.nextTraverser());
+                }
+            } else {
+                //The range was not optimized into the SqlgVertexStep so the local traversal is executed per start.
+                while (this.starts.hasNext()) {
+                    this.localTraversal.reset();
+                    this.localTraversal.addStart(this.starts.next());
+                    while (this.localTraversal.hasNext()) {
+                        this.results.add(this.localTraversal.nextTraverser());
+                    }
+                }
             }
             this.results.sort((o1, o2) -> {
                 SqlgTraverser x = (SqlgTraverser) o1;
@@ -64,6 +82,24 @@ public class SqlgLocalStepBarrier<S, E> extends SqlgAbstractStep<S, E> implement
         }
     }
 
+    /**
+     * The range can only be applied per start if the local traversal's first step, a SqlgVertexStep, optimized it.
+     * That step applies it per start, see SqlgVertexStep#isRangePerStart.
+     */
+    private boolean isRangeInStartStep() {
+        if (!(this.localTraversal.getStartStep() instanceof SqlgVertexStep) ||
+                !TraversalHelper.getStepsOfAssignableClassRecursively(RangeGlobalStep.class, this.localTraversal).isEmpty()) {
+            return false;
+        }
+        for (Step<?, ?> step : this.localTraversal.getSteps()) {
+            if (step != this.localTraversal.getStartStep() && step instanceof SqlgVertexStep &&
+                    ((SqlgVertexStep<?>) step).getReplacedSteps().stream().anyMatch(ReplacedStep::hasRange)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void reset() {
         super.reset();
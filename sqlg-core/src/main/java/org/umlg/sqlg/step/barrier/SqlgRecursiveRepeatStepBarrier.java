@@ -0,0 +1,346 @@
+package org.umlg.sqlg.step.barrier;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.tinkerpop.gremlin.process.traversal.Compare;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.TraversalParent;
+import org.apache.tinkerpop.gremlin.process.traversal.step.branch.RepeatStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalUtil;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.umlg.sqlg.sql.dialect.BaseSqlDialect;
+import org.umlg.sqlg.sql.dialect.SqlDialect;
+import org.umlg.sqlg.step.SqlgAbstractStep;
+import org.umlg.sqlg.structure.PropertyType;
+import org.umlg.sqlg.structure.RecordId;
+import org.umlg.sqlg.structure.SchemaTable;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.structure.topology.EdgeLabel;
+import org.umlg.sqlg.structure.topology.Topology;
+import org.umlg.sqlg.structure.topology.VertexLabel;
+import org.umlg.sqlg.util.SqlgUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Executes a repeat(out(label)) or repeat(in(label)) with an until(has(...)) and/or emit() as one recursive common table
+ * expression per batch of starts instead of one query per loop.
+ * The edge label must have one vertex label on both sides, i.e. a hierarchy.
+ * Paths that revisit a vertex are not followed further, so a cycle in the data ends the walk instead of repeating forever.
+ * The path of the returned traversers does not contain the intermediate vertices.
+ */
+public class SqlgRecursiveRepeatStepBarrier<S> extends SqlgAbstractStep<S, S> implements TraversalParent {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlgRecursiveRepeatStepBarrier.class);
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final String WALK = "sqlg_walk";
+    private static final String START = "sqlg_start";
+    private static final String ID = "sqlg_id";
+    private static final String PATH = "sqlg_path";
+    private static final String UNTIL = "sqlg_until";
+    private static final String CYCLE = "sqlg_cycle";
+
+    private final SqlgGraph sqlgGraph;
+    private final SchemaTable edgeSchemaTable;
+    private final SchemaTable vertexSchemaTable;
+    private final Direction direction;
+    //The until's has containers, calculated in the db. null if there is no until.
+    private final List<HasContainer> untilHasContainers;
+    private Traversal.Admin<S, ?> untilTraversal;
+    private Traversal.Admin<S, ?> emitTraversal;
+    private final boolean untilFirst;
+    private final boolean emitFirst;
+    private boolean first = true;
+    private final List<Traverser.Admin<S>> results = new ArrayList<>();
+    private Iterator<Traverser.Admin<S>> resultIterator;
+
+    public SqlgRecursiveRepeatStepBarrier(
+            final Traversal.Admin traversal,
+            RepeatStep<S> repeatStep,
+            EdgeLabel edgeLabel,
+            Direction direction,
+            List<HasContainer> untilHasContainers) {
+
+        super(traversal);
+        this.sqlgGraph = (SqlgGraph) traversal.getGraph().get();
+        VertexLabel vertexLabel = edgeLabel.getOutVertexLabels().iterator().next();
+        this.edgeSchemaTable = SchemaTable.of(edgeLabel.getSchema().getName(), edgeLabel.getLabel());
+        this.vertexSchemaTable = SchemaTable.of(vertexLabel.getSchema().getName(), vertexLabel.getLabel());
+        this.direction = direction;
+        this.untilHasContainers = untilHasContainers;
+        this.untilTraversal = repeatStep.getUntilTraversal();
+        this.emitTraversal = repeatStep.getEmitTraversal();
+        this.untilFirst = repeatStep.untilFirst;
+        this.emitFirst = repeatStep.emitFirst;
+    }
+
+    @Override
+    public Set<TraverserRequirement> getRequirements() {
+        return this.getSelfAndChildRequirements(TraverserRequirement.BULK);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<Traversal.Admin<S, ?>> getLocalChildren() {
+        final List<Traversal.Admin<S, ?>> list = new ArrayList<>(2);
+        if (null != this.untilTraversal)
+            list.add(this.untilTraversal);
+        if (null != this.emitTraversal)
+            list.add(this.emitTraversal);
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected Traverser.Admin<S> processNextStart() throws NoSuchElementException {
+        if (this.first) {
+            this.first = false;
+            //The starts to walk from by their vertex's id.
+            Map<Long, List<Traverser.Admin<S>>> seeds = new LinkedHashMap<>();
+            while (this.starts.hasNext()) {
+                Traverser.Admin<S> start = this.starts.next();
+                if (this.untilFirst && null != this.untilTraversal && TraversalUtil.test(start, this.untilTraversal)) {
+                    start.resetLoops();
+                    this.results.add(start);
+                    continue;
+                }
+                if (this.emitFirst && null != this.emitTraversal && TraversalUtil.test(start, this.emitTraversal)) {
+                    Traverser.Admin<S> emitSplit = start.split();
+                    emitSplit.resetLoops();
+                    this.results.add(emitSplit);
+                }
+                RecordId recordId = (RecordId) ((Vertex) start.get()).id();
+                //Vertices of other labels have no edges of this edge label.
+                if (recordId.getSchemaTable().equals(this.vertexSchemaTable)) {
+                    seeds.computeIfAbsent(recordId.sequenceId(), k -> new ArrayList<>()).add(start);
+                }
+            }
+            if (!seeds.isEmpty()) {
+                walk(seeds);
+            }
+            this.resultIterator = this.results.iterator();
+        }
+        if (this.resultIterator.hasNext()) {
+            return this.resultIterator.next();
+        } else {
+            throw FastNoSuchElementException.instance();
+        }
+    }
+
+    private void walk(Map<Long, List<Traverser.Admin<S>>> seeds) {
+        this.sqlgGraph.tx().readWrite();
+        if (this.sqlgGraph.getSqlDialect().supportsBatchMode() && this.sqlgGraph.tx().getBatchManager().isStreaming()) {
+            throw new IllegalStateException("streaming is in progress, first flush or commit before querying.");
+        }
+        VertexLabel vertexLabel = this.sqlgGraph.getTopology().getVertexLabel(this.vertexSchemaTable.getSchema(), this.vertexSchemaTable.getTable())
+                .orElseThrow(() -> new IllegalStateException(String.format("VertexLabel %s not found", this.vertexSchemaTable)));
+        EdgeLabel edgeLabel = this.sqlgGraph.getTopology().getEdgeLabel(this.edgeSchemaTable.getSchema(), this.edgeSchemaTable.getTable())
+                .orElseThrow(() -> new IllegalStateException(String.format("EdgeLabel %s not found", this.edgeSchemaTable)));
+        Preconditions.checkState(
+                edgeLabel.getOutVertexLabels().equals(Collections.singleton(vertexLabel)) && edgeLabel.getInVertexLabels().equals(Collections.singleton(vertexLabel)),
+                "EdgeLabel %s no longer only connects %s to itself", this.edgeSchemaTable, this.vertexSchemaTable);
+
+        //Every row is a path from a start to a vertex that is returned.
+        List<ImmutablePair<Long, Long>> startAndIds = new ArrayList<>();
+        Set<RecordId> recordIds = new LinkedHashSet<>();
+        Connection conn = this.sqlgGraph.tx().getConnection();
+        for (List<Long> seedIds : Lists.partition(new ArrayList<>(seeds.keySet()), SEED_BATCH_SIZE)) {
+            String sql = walkSql(vertexLabel, seedIds.size());
+            if (logger.isDebugEnabled()) {
+                logger.debug(sql);
+            }
+            try {
+                PreparedStatement preparedStatement = this.sqlgGraph.getStatementCache().prepareStatement(conn, sql);
+                try {
+                    int parameterIndex = setUntilParameters(vertexLabel, preparedStatement, 1);
+                    for (Long seedId : seedIds) {
+                        preparedStatement.setLong(parameterIndex++, seedId);
+                    }
+                    setUntilParameters(vertexLabel, preparedStatement, parameterIndex);
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        while (resultSet.next()) {
+                            long id = resultSet.getLong(2);
+                            startAndIds.add(ImmutablePair.of(resultSet.getLong(1), id));
+                            recordIds.add(RecordId.from(this.vertexSchemaTable, id));
+                        }
+                    }
+                } finally {
+                    this.sqlgGraph.getStatementCache().release(preparedStatement);
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        if (startAndIds.isEmpty()) {
+            return;
+        }
+        //Load the vertices with one query.
+        Map<Long, Vertex> vertices = new HashMap<>();
+        for (Vertex vertex : this.sqlgGraph.traversal().V(recordIds.toArray()).toList()) {
+            vertices.put(((RecordId) vertex.id()).sequenceId(), vertex);
+        }
+        for (ImmutablePair<Long, Long> startAndId : startAndIds) {
+            Vertex vertex = vertices.get(startAndId.getRight());
+            for (Traverser.Admin<S> start : seeds.get(startAndId.getLeft())) {
+                Traverser.Admin<S> split = start.split((S) vertex, this);
+                split.resetLoops();
+                this.results.add(split);
+            }
+        }
+    }
+
+    /**
+     * The walk's rows are (start, id, path, until, cycle).
+     * A row whose vertex passes the until or that closes a cycle is not followed further.
+     */
+    private String walkSql(VertexLabel vertexLabel, int seedCount) {
+        SqlDialect sqlDialect = this.sqlgGraph.getSqlDialect();
+        String edgeTable = sqlDialect.maybeWrapInQoutes(this.edgeSchemaTable.getSchema()) + "." +
+                sqlDialect.maybeWrapInQoutes(Topology.EDGE_PREFIX + this.edgeSchemaTable.getTable());
+        String vertexTable = sqlDialect.maybeWrapInQoutes(this.vertexSchemaTable.getSchema()) + "." +
+                sqlDialect.maybeWrapInQoutes(Topology.VERTEX_PREFIX + this.vertexSchemaTable.getTable());
+        String outColumn = "e." + sqlDialect.maybeWrapInQoutes(vertexLabel.getFullName() + Topology.OUT_VERTEX_COLUMN_END);
+        String inColumn = "e." + sqlDialect.maybeWrapInQoutes(vertexLabel.getFullName() + Topology.IN_VERTEX_COLUMN_END);
+        String from = this.direction == Direction.OUT ? outColumn : inColumn;
+        String to = this.direction == Direction.OUT ? inColumn : outColumn;
+        String walk = sqlDialect.maybeWrapInQoutes(WALK);
+        String start = sqlDialect.maybeWrapInQoutes(START);
+        String id = sqlDialect.maybeWrapInQoutes(ID);
+        String path = sqlDialect.maybeWrapInQoutes(PATH);
+        String until = sqlDialect.maybeWrapInQoutes(UNTIL);
+        String cycle = sqlDialect.maybeWrapInQoutes(CYCLE);
+        String untilSql = untilSql(vertexLabel);
+        String joinVertex = this.untilHasContainers != null ?
+                "\n\tJOIN " + vertexTable + " v ON v." + sqlDialect.maybeWrapInQoutes(Topology.ID) + " = " + to :
+                "";
+
+        StringBuilder sql = new StringBuilder(sqlDialect.withRecursive());
+        sql.append(" ").append(walk).append("(").append(start).append(", ").append(id).append(", ").append(path).append(", ")
+                .append(until).append(", ").append(cycle).append(") AS (\n");
+        //anchor
+        sql.append("SELECT\n\t").append(from).append(", ").append(to)
+                .append(",\n\t").append(sqlDialect.recursiveCtePathStart(from, to))
+                .append(",\n\t").append(untilSql)
+                .append(",\n\tCASE WHEN ").append(from).append(" = ").append(to).append(" THEN 1 ELSE 0 END")
+                .append("\nFROM\n\t").append(edgeTable).append(" e").append(joinVertex)
+                .append("\nWHERE\n\t").append(from).append(" IN (");
+        for (int i = 0; i < seedCount; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")\nUNION ALL\n");
+        //recursive part
+        sql.append("SELECT\n\tw.").append(start).append(", ").append(to)
+                .append(",\n\t").append(sqlDialect.recursiveCtePathAppend("w." + path, to))
+                .append(",\n\t").append(untilSql)
+                .append(",\n\tCASE WHEN ").append(sqlDialect.recursiveCtePathContains("w." + path, to)).append(" THEN 1 ELSE 0 END")
+                .append("\nFROM\n\t").append(walk).append(" w")
+                .append("\n\tJOIN ").append(edgeTable).append(" e ON ").append(from).append(" = w.").append(id).append(joinVertex)
+                .append("\nWHERE\n\tw.").append(until).append(" = 0 AND w.").append(cycle).append(" = 0\n)\n");
+        sql.append("SELECT\n\tw.").append(start).append(", w.").append(id).append("\nFROM\n\t").append(walk).append(" w");
+        //without an emit only the vertices that pass the until are returned.
+        if (this.emitTraversal == null) {
+            sql.append("\nWHERE\n\tw.").append(until).append(" = 1");
+        }
+        if (sqlDialect.needsSemicolon()) {
+            sql.append(";");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * A property the vertex label does not have is null, the until can then never pass.
+     */
+    private String untilSql(VertexLabel vertexLabel) {
+        if (this.untilHasContainers == null) {
+            return "0";
+        }
+        StringBuilder sql = new StringBuilder("CASE WHEN ");
+        int count = 1;
+        for (HasContainer hasContainer : this.untilHasContainers) {
+            if (!vertexLabel.getProperties().containsKey(hasContainer.getKey())) {
+                return "0";
+            }
+            sql.append("v.").append(this.sqlgGraph.getSqlDialect().maybeWrapInQoutes(hasContainer.getKey()));
+            sql.append(BaseSqlDialect.compareToSql((Compare) hasContainer.getBiPredicate()));
+            if (count++ < this.untilHasContainers.size()) {
+                sql.append(" AND ");
+            }
+        }
+        sql.append(" THEN 1 ELSE 0 END");
+        return sql.toString();
+    }
+
+    private int setUntilParameters(VertexLabel vertexLabel, PreparedStatement preparedStatement, int parameterIndex) throws SQLException {
+        if (this.untilHasContainers == null) {
+            return parameterIndex;
+        }
+        for (HasContainer hasContainer : this.untilHasContainers) {
+            if (!vertexLabel.getProperties().containsKey(hasContainer.getKey())) {
+                return parameterIndex;
+            }
+        }
+        for (HasContainer hasContainer : this.untilHasContainers) {
+            Object value = hasContainer.getValue();
+            parameterIndex = SqlgUtil.setKeyValueAsParameter(this.sqlgGraph, false, parameterIndex, preparedStatement, ImmutablePair.of(PropertyType.from(value), value));
+        }
+        return parameterIndex;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.first = true;
+        this.results.clear();
+        if (null != this.untilTraversal)
+            this.untilTraversal.reset();
+        if (null != this.emitTraversal)
+            this.emitTraversal.reset();
+    }
+
+    @Override
+    public SqlgRecursiveRepeatStepBarrier<S> clone() {
+        final SqlgRecursiveRepeatStepBarrier<S> clone = (SqlgRecursiveRepeatStepBarrier<S>) super.clone();
+        if (null != this.untilTraversal)
+            clone.untilTraversal = this.untilTraversal.clone();
+        if (null != this.emitTraversal)
+            clone.emitTraversal = this.emitTraversal.clone();
+        return clone;
+    }
+
+    @Override
+    public void setTraversal(final Traversal.Admin<?, ?> parentTraversal) {
+        super.setTraversal(parentTraversal);
+        this.integrateChild(this.untilTraversal);
+        this.integrateChild(this.emitTraversal);
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, this.direction.name().toLowerCase() + "(" + this.edgeSchemaTable + ")", this.untilHasContainers, this.emitTraversal);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode() ^ this.edgeSchemaTable.hashCode() ^ this.direction.hashCode();
+        result ^= Boolean.hashCode(this.untilFirst);
+        result ^= Boolean.hashCode(this.emitFirst) << 1;
+        if (this.untilTraversal != null)
+            result ^= this.untilTraversal.hashCode();
+        if (this.emitTraversal != null)
+            result ^= this.emitTraversal.hashCode();
+        return result;
+    }
+}
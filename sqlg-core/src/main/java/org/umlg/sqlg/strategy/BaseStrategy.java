@@ -4,8 +4,10 @@ import com.google.common.base.Preconditions;
 import org.apache.commons.lang3.Range;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.tinkerpop.gremlin.process.traversal.*;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.ElementValueTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.lambda.LoopTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.step.HasContainerHolder;
+import org.apache.tinkerpop.gremlin.process.traversal.step.TraversalParent;
 import org.apache.tinkerpop.gremlin.process.traversal.step.branch.ChooseStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.branch.LocalStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.branch.OptionalStep;
@@ -17,6 +19,7 @@ import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.SackValueS
 import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.TreeSideEffectStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.ComputerAwareStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.decoration.EventStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.util.AndP;
@@ -28,8 +31,11 @@ import org.apache.tinkerpop.gremlin.structure.T;
 import org.javatuples.Pair;
 import org.umlg.sqlg.predicate.Existence;
 import org.umlg.sqlg.predicate.FullText;
+import org.umlg.sqlg.predicate.Seek;
+import org.umlg.sqlg.predicate.PropertyReference;
 import org.umlg.sqlg.predicate.Text;
 import org.umlg.sqlg.sql.parse.AndOrHasContainer;
+import org.umlg.sqlg.sql.parse.ExistsContainer;
 import org.umlg.sqlg.sql.parse.ReplacedStep;
 import org.umlg.sqlg.sql.parse.ReplacedStepTree;
 import org.umlg.sqlg.step.SqlgGraphStep;
@@ -37,6 +43,7 @@ import org.umlg.sqlg.step.SqlgPropertyMapStep;
 import org.umlg.sqlg.step.SqlgStep;
 import org.umlg.sqlg.step.SqlgVertexStep;
 import org.umlg.sqlg.step.barrier.SqlgLocalStepBarrier;
+import org.umlg.sqlg.structure.PropertyType;
 import org.umlg.sqlg.structure.SqlgGraph;
 import org.umlg.sqlg.util.SqlgTraversalUtil;
 import org.umlg.sqlg.util.SqlgUtil;
@@ -328,6 +335,7 @@ public abstract class BaseStrategy {
         handleOrderGlobalSteps(stepIterator, pathCount);
         handleRangeGlobalSteps(stepIterator, pathCount);
         handleConnectiveSteps(stepIterator);
+        handleExistsSteps(stepIterator);
         //if called from ChooseStep then the VertexStep is nested inside the ChooseStep and not one of the traversal's direct steps.
         int index = TraversalHelper.stepIndex(step, this.traversal);
         if (index != -1) {
@@ -529,6 +537,7 @@ public abstract class BaseStrategy {
                     toRemoveHasContainers.addAll(optimizeInside(this.currentReplacedStep, hasContainers));
                     toRemoveHasContainers.addAll(optimizeOutside(this.currentReplacedStep, hasContainers));
                     toRemoveHasContainers.addAll(optimizeTextContains(this.currentReplacedStep, hasContainers));
+                    toRemoveHasContainers.addAll(optimizeSeek(this.currentReplacedStep, hasContainers));
                     if (toRemoveHasContainers.size() == hasContainers.size()) {
                         if (!currentStep.getLabels().isEmpty()) {
                             final IdentityStep identityStep = new IdentityStep<>(this.traversal);
@@ -821,6 +830,167 @@ public abstract class BaseStrategy {
         return Optional.of(outerAndOrHasContainer);
     }
 
+    /**
+     * Collects the where(), not(), and() and or() steps whose traversals are vertex steps and has steps only.
+     * They are printed as [NOT] EXISTS sub selects in the where clause of the current {@link ReplacedStep}.
+     */
+    void handleExistsSteps(ListIterator<Step<?, ?>> iterator) {
+        if (!existsApplies(this.currentReplacedStep)) {
+            return;
+        }
+        int countToGoPrevious = 0;
+        while (iterator.hasNext()) {
+            Step<?, ?> currentStep = iterator.next();
+            countToGoPrevious++;
+            Optional<List<ExistsContainer>> existsContainers = Optional.empty();
+            if (currentStep.getLabels().isEmpty()) {
+                existsContainers = handleExistsStepInternal(currentStep);
+            }
+            if (existsContainers.isPresent()) {
+                existsContainers.get().forEach(this.currentReplacedStep::addExistsContainer);
+                if (this.traversal.getSteps().contains(currentStep)) {
+                    this.traversal.removeStep(currentStep);
+                }
+                iterator.remove();
+                countToGoPrevious--;
+            } else if (currentStep instanceof IdentityStep) {
+                // do nothing
+            } else {
+                for (int i = 0; i < countToGoPrevious; i++) {
+                    iterator.previous();
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * The filter must apply to a vertex and must not be moved in front of a range or into an optional or emit.
+     */
+    private static boolean existsApplies(ReplacedStep<?, ?> replacedStep) {
+        if (replacedStep.hasRange() || replacedStep.isEmit() || replacedStep.isUntilFirst() || replacedStep.isLeftJoin() ||
+                replacedStep.isForSqlgSchema() || replacedStep.isForGuiSchema()) {
+            return false;
+        }
+        Step<?, ?> step = replacedStep.getStep();
+        if (step instanceof GraphStep) {
+            return ((GraphStep<?, ?>) step).returnsVertex();
+        } else if (step instanceof VertexStep) {
+            return ((VertexStep<?>) step).returnsVertex();
+        } else {
+            return step instanceof EdgeVertexStep || step instanceof EdgeOtherVertexStep;
+        }
+    }
+
+    private Optional<List<ExistsContainer>> handleExistsStepInternal(Step<?, ?> step) {
+        List<ExistsContainer> result = new ArrayList<>();
+        if (step instanceof NotStep || step instanceof TraversalFilterStep) {
+            List<? extends Traversal.Admin<?, ?>> localTraversals = ((TraversalParent) step).getLocalChildren();
+            if (localTraversals.size() != 1) {
+                return Optional.empty();
+            }
+            Optional<List<ExistsContainer.Hop>> hops = existsHops(localTraversals.get(0));
+            if (!hops.isPresent()) {
+                return Optional.empty();
+            }
+            ExistsContainer existsContainer = new ExistsContainer(step instanceof NotStep);
+            existsContainer.addTraversal(hops.get());
+            result.add(existsContainer);
+        } else if (step instanceof AndStep || step instanceof OrStep) {
+            @SuppressWarnings("unchecked")
+            List<Traversal.Admin<?, ?>> localTraversals = ((ConnectiveStep) step).getLocalChildren();
+            ExistsContainer orExistsContainer = new ExistsContainer(false);
+            for (Traversal.Admin<?, ?> localTraversal : localTraversals) {
+                Optional<List<ExistsContainer.Hop>> hops = existsHops(localTraversal);
+                if (!hops.isPresent()) {
+                    return Optional.empty();
+                }
+                if (step instanceof AndStep) {
+                    ExistsContainer existsContainer = new ExistsContainer(false);
+                    existsContainer.addTraversal(hops.get());
+                    result.add(existsContainer);
+                } else {
+                    orExistsContainer.addTraversal(hops.get());
+                }
+            }
+            if (step instanceof OrStep) {
+                result.add(orExistsContainer);
+            }
+        } else {
+            return Optional.empty();
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * @return The traversal's vertex steps, each with the has steps that follow it, or empty if the traversal has any other step.
+     */
+    private Optional<List<ExistsContainer.Hop>> existsHops(Traversal.Admin<?, ?> traversal) {
+        List<ExistsContainer.Hop> hops = new ArrayList<>();
+        ExistsContainer.Hop hop = null;
+        for (Step<?, ?> step : traversal.getSteps()) {
+            if (!step.getLabels().isEmpty()) {
+                return Optional.empty();
+            }
+            if (step instanceof VertexStep) {
+                VertexStep<?> vertexStep = (VertexStep<?>) step;
+                //a vertex step returning edges is only allowed at the end of the traversal, i.e. __.out() replaced with __.outE()
+                if (hop != null && !hop.isToVertex()) {
+                    return Optional.empty();
+                }
+                hop = new ExistsContainer.Hop(vertexStep.getDirection(), vertexStep.getEdgeLabels(), vertexStep.returnsVertex());
+                hops.add(hop);
+            } else if (step instanceof HasStep && hop != null && hop.isToVertex()) {
+                for (HasContainer hasContainer : ((HasStep<?>) step).getHasContainers()) {
+                    if (!addExistsHasContainer(hop, hasContainer)) {
+                        return Optional.empty();
+                    }
+                }
+            } else {
+                return Optional.empty();
+            }
+        }
+        if (hops.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(hops);
+    }
+
+    private static boolean addExistsHasContainer(ExistsContainer.Hop hop, HasContainer hasContainer) {
+        if (hasContainer.getPredicate() instanceof ConnectiveP) {
+            return false;
+        }
+        if (hasContainer.getKey().equals(T.label.getAccessor())) {
+            if (!hop.getVertexLabels().isEmpty()) {
+                return false;
+            }
+            if (hasContainer.getBiPredicate() == Compare.eq && hasContainer.getValue() instanceof String) {
+                hop.getVertexLabels().add((String) hasContainer.getValue());
+                return true;
+            } else if (hasContainer.getBiPredicate() == Contains.within && hasContainer.getValue() instanceof Collection) {
+                for (Object label : (Collection<?>) hasContainer.getValue()) {
+                    if (!(label instanceof String)) {
+                        return false;
+                    }
+                    hop.getVertexLabels().add((String) label);
+                }
+                return !hop.getVertexLabels().isEmpty();
+            } else {
+                return false;
+            }
+        } else if (hasContainer.getKey().equals(T.id.getAccessor()) ||
+                hasContainer.getKey().equals(TopologyStrategy.TOPOLOGY_SELECTION_SQLG_SCHEMA) ||
+                hasContainer.getKey().equals(TopologyStrategy.TOPOLOGY_SELECTION_GLOBAL_UNIQUE_INDEX)) {
+            return false;
+        } else if (hasContainer.getBiPredicate() instanceof Compare && hasContainer.getValue() != null && !(hasContainer.getValue() instanceof Collection) &&
+                !(hasContainer.getValue() instanceof PropertyReference)) {
+            hop.addHasContainer(hasContainer);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
     private boolean optimizableOrderGlobalStep(OrderGlobalStep step) {
         @SuppressWarnings("unchecked")
         List<Pair<Traversal.Admin<?, ?>, Comparator<?>>> comparators = step.getComparators();
@@ -877,6 +1047,206 @@ public abstract class BaseStrategy {
         }
     }
 
+    /**
+     * If the sqlgStep is directly followed by a count() in the root traversal then the count is calculated in the db.
+     * Emits, optionals, ranges and drops need the elements so for them the count stays in memory.
+     *
+     * @param step The first step that could not be replaced.
+     */
+    void handleCountGlobalStep(Step<?, ?> step) {
+        if (!canAggregateInDb()) {
+            return;
+        }
+        Step<?, ?> countStep = skipIdentitySteps(step);
+        if (!(countStep instanceof CountGlobalStep) || !countStep.getLabels().isEmpty() || !directlyFollowsSqlgStep(countStep)) {
+            return;
+        }
+        this.sqlgStep.markAsCount();
+        this.traversal.removeStep(countStep);
+    }
+
+    /**
+     * If the sqlgStep is directly followed by values(key) and a sum(), min(), max() or mean() in the root traversal then
+     * the aggregate is calculated in the db.
+     * The values step is removed, the aggregate step stays to combine the aggregates of the distinct queries.
+     *
+     * @param step The first step that could not be replaced.
+     */
+    void handleAggregateGlobalStep(Step<?, ?> step) {
+        if (!canAggregateInDb()) {
+            return;
+        }
+        Step<?, ?> aggregateStep = skipIdentitySteps(step);
+        SqlgSqlExecutor.AGGREGATE aggregate;
+        if (aggregateStep instanceof SumGlobalStep) {
+            aggregate = SqlgSqlExecutor.AGGREGATE.SUM;
+        } else if (aggregateStep instanceof MinGlobalStep) {
+            aggregate = SqlgSqlExecutor.AGGREGATE.MIN;
+        } else if (aggregateStep instanceof MaxGlobalStep) {
+            aggregate = SqlgSqlExecutor.AGGREGATE.MAX;
+        } else if (aggregateStep instanceof MeanGlobalStep) {
+            aggregate = SqlgSqlExecutor.AGGREGATE.MEAN;
+        } else {
+            return;
+        }
+        if (!aggregateStep.getLabels().isEmpty() || !this.traversal.getSteps().contains(aggregateStep)) {
+            return;
+        }
+        Step<?, ?> previous = aggregateStep.getPreviousStep();
+        while (previous instanceof IdentityStep || previous instanceof NoOpBarrierStep) {
+            previous = previous.getPreviousStep();
+        }
+        if (!(previous instanceof PropertiesStep) || !previous.getLabels().isEmpty()) {
+            return;
+        }
+        PropertiesStep<?> propertiesStep = (PropertiesStep<?>) previous;
+        if (propertiesStep.getReturnType() != org.apache.tinkerpop.gremlin.structure.PropertyType.VALUE ||
+                propertiesStep.getPropertyKeys().length != 1 ||
+                !directlyFollowsSqlgStep(propertiesStep) ||
+                !isNumberProperty(propertiesStep.getPropertyKeys()[0])) {
+            return;
+        }
+        this.sqlgStep.markAsAggregate(aggregate, propertiesStep.getPropertyKeys()[0]);
+        this.traversal.removeStep(propertiesStep);
+    }
+
+    /**
+     * If the sqlgStep is directly followed by a groupCount().by(key), group().by(key).by(count()) or
+     * group().by(key).by(values(key).sum()) (or min, max, mean) in the root traversal then the grouping is done in the db.
+     * The group step is removed, the sqlgStep emits the merged map of its distinct queries.
+     *
+     * @param step The first step that could not be replaced.
+     */
+    void handleGroupStep(Step<?, ?> step) {
+        if (!canAggregateInDb()) {
+            return;
+        }
+        Step<?, ?> groupStep = skipIdentitySteps(step);
+        List<Traversal.Admin<?, ?>> localChildren;
+        if (groupStep instanceof GroupCountStep) {
+            localChildren = ((GroupCountStep<?, ?>) groupStep).getLocalChildren();
+            if (localChildren.size() != 1) {
+                return;
+            }
+        } else if (groupStep instanceof GroupStep) {
+            localChildren = ((GroupStep<?, ?, ?>) groupStep).getLocalChildren();
+            if (localChildren.size() != 2) {
+                return;
+            }
+        } else {
+            return;
+        }
+        if (!groupStep.getLabels().isEmpty() || !directlyFollowsSqlgStep(groupStep) || !(localChildren.get(0) instanceof ElementValueTraversal)) {
+            return;
+        }
+        String groupByKey = ((ElementValueTraversal<?>) localChildren.get(0)).getPropertyKey();
+        if (!isGroupByProperty(groupByKey)) {
+            return;
+        }
+        SqlgSqlExecutor.AGGREGATE aggregate = null;
+        String aggregatePropertyKey = null;
+        if (groupStep instanceof GroupStep) {
+            List<Step> valueSteps = localChildren.get(1).getSteps();
+            if (valueSteps.size() == 1 && valueSteps.get(0) instanceof CountGlobalStep) {
+                aggregate = null;
+            } else if (valueSteps.size() == 2 && valueSteps.get(0) instanceof PropertiesStep) {
+                PropertiesStep<?> propertiesStep = (PropertiesStep<?>) valueSteps.get(0);
+                Step<?, ?> aggregateStep = valueSteps.get(1);
+                if (aggregateStep instanceof SumGlobalStep) {
+                    aggregate = SqlgSqlExecutor.AGGREGATE.SUM;
+                } else if (aggregateStep instanceof MinGlobalStep) {
+                    aggregate = SqlgSqlExecutor.AGGREGATE.MIN;
+                } else if (aggregateStep instanceof MaxGlobalStep) {
+                    aggregate = SqlgSqlExecutor.AGGREGATE.MAX;
+                } else if (aggregateStep instanceof MeanGlobalStep) {
+                    aggregate = SqlgSqlExecutor.AGGREGATE.MEAN;
+                } else {
+                    return;
+                }
+                if (propertiesStep.getReturnType() != org.apache.tinkerpop.gremlin.structure.PropertyType.VALUE ||
+                        propertiesStep.getPropertyKeys().length != 1 ||
+                        !isNumberProperty(propertiesStep.getPropertyKeys()[0])) {
+                    return;
+                }
+                aggregatePropertyKey = propertiesStep.getPropertyKeys()[0];
+            } else {
+                return;
+            }
+        }
+        ReplacedStep<?, ?> lastReplacedStep = this.sqlgStep.getReplacedSteps().get(this.sqlgStep.getReplacedSteps().size() - 1);
+        if (lastReplacedStep.getRestrictedProperties() != null) {
+            lastReplacedStep.getRestrictedProperties().add(groupByKey);
+            if (aggregatePropertyKey != null) {
+                lastReplacedStep.getRestrictedProperties().add(aggregatePropertyKey);
+            }
+        }
+        this.sqlgStep.markAsGroupBy(groupByKey, aggregate, aggregatePropertyKey);
+        this.traversal.removeStep(groupStep);
+    }
+
+    private boolean canAggregateInDb() {
+        if (this.sqlgStep == null || this.reset || !(this.traversal.getParent() instanceof EmptyStep)) {
+            return false;
+        }
+        if (this.sqlgStep instanceof SqlgGraphStep && !((SqlgGraphStep) this.sqlgStep).isStartStep()) {
+            return false;
+        }
+        for (ReplacedStep<?, ?> replacedStep : this.sqlgStep.getReplacedSteps()) {
+            if (replacedStep.isEmit() || replacedStep.isLeftJoin() || replacedStep.isJoinToLeftJoin() || replacedStep.hasRange() || replacedStep.isDrop()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Step<?, ?> skipIdentitySteps(Step<?, ?> step) {
+        while ((step instanceof IdentityStep || step instanceof NoOpBarrierStep) && step.getLabels().isEmpty()) {
+            step = step.getNextStep();
+        }
+        return step;
+    }
+
+    private boolean directlyFollowsSqlgStep(Step<?, ?> step) {
+        if (!this.traversal.getSteps().contains(step)) {
+            return false;
+        }
+        Step<?, ?> previous = step.getPreviousStep();
+        while (previous != this.sqlgStep) {
+            if (!(previous instanceof IdentityStep || previous instanceof NoOpBarrierStep)) {
+                return false;
+            }
+            previous = previous.getPreviousStep();
+        }
+        return true;
+    }
+
+    /**
+     * @return false if any label has the property with a type that is not a number.
+     */
+    private boolean isNumberProperty(String propertyKey) {
+        for (Map<String, PropertyType> properties : this.sqlgGraph.getTopology().getAllTables().values()) {
+            PropertyType propertyType = properties.get(propertyKey);
+            if (propertyType != null && (propertyType.ordinal() < PropertyType.BYTE_ORDINAL || propertyType.ordinal() > PropertyType.DOUBLE_ORDINAL)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false if any label has the property with a type that can not be grouped on in the db.
+     */
+    private boolean isGroupByProperty(String propertyKey) {
+        for (Map<String, PropertyType> properties : this.sqlgGraph.getTopology().getAllTables().values()) {
+            PropertyType propertyType = properties.get(propertyKey);
+            //BOOLEAN up to STRING, the number types lie in between.
+            if (propertyType != null && propertyType.ordinal() > PropertyType.STRING_ORDINAL) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     static boolean precedesPathOrTreeStep(Traversal.Admin<?, ?> traversal) {
         if (traversal.getParent() != null && traversal.getParent() instanceof SqlgLocalStepBarrier) {
             SqlgLocalStepBarrier sqlgLocalStepBarrier = (SqlgLocalStepBarrier) traversal.getParent();
@@ -1030,6 +1400,17 @@ public abstract class BaseStrategy {
         return result;
     }
 
+    private List<HasContainer> optimizeSeek(ReplacedStep<?, ?> replacedStep, List<HasContainer> hasContainers) {
+        List<HasContainer> result = new ArrayList<>();
+        for (HasContainer hasContainer : hasContainers) {
+            if (hasContainerKeyNotIdOrLabel(hasContainer) && hasContainer.getBiPredicate() instanceof Seek) {
+                replacedStep.addHasContainer(hasContainer);
+                result.add(hasContainer);
+            }
+        }
+        return result;
+    }
+
     private boolean containsWithMultipleColumnValue(List<Object> values) {
         for (Object value : values) {
             if (value instanceof ZonedDateTime ||
@@ -79,6 +79,9 @@ public class GraphStrategy extends BaseStrategy {
                 }
             } else {
                 //If a step can not be replaced then its the end of optimizationinging.
+                handleCountGlobalStep(step);
+                handleAggregateGlobalStep(step);
+                handleGroupStep(step);
                 break;
             }
         }
@@ -103,6 +106,7 @@ public class GraphStrategy extends BaseStrategy {
         handleOrderGlobalSteps(stepIterator, pathCount);
         handleRangeGlobalSteps(stepIterator, pathCount);
         handleConnectiveSteps(stepIterator);
+        handleExistsSteps(stepIterator);
         this.sqlgStep = constructSqlgStep(step);
         this.currentTreeNodeNode = this.sqlgStep.addReplacedStep(this.currentReplacedStep);
         replaceStepInTraversal(step, this.sqlgStep);
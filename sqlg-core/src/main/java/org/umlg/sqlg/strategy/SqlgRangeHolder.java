@@ -12,6 +12,8 @@ public class SqlgRangeHolder {
     private Range<Long> range;
     private boolean applyOnDb = true;
     private boolean applyInStep = true;
+    //If true the range is applied to each incoming start's elements, i.e. the range is inside a local traversal.
+    private boolean applyPerStart = false;
 
     private SqlgRangeHolder(Range<Long> range) {
         this.range = range;
@@ -41,9 +43,14 @@ public class SqlgRangeHolder {
         this.applyInStep = false;
     }
 
+    public void applyPerStart() {
+        this.applyPerStart = true;
+    }
+
     public void reset() {
         this.applyOnDb = true;
         this.applyInStep = true;
+        this.applyPerStart = false;
     }
 
     public boolean isApplyOnDb() {
@@ -51,6 +58,10 @@ public class SqlgRangeHolder {
     }
 
 
+    public boolean isApplyPerStart() {
+        return applyPerStart;
+    }
+
     public boolean hasRange() {
         return this.range != null;
     }
@@ -1,13 +1,16 @@
 package org.umlg.sqlg.strategy;
 
 import com.google.common.base.Preconditions;
+import org.apache.commons.lang3.tuple.MutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.event.Event;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.event.EventCallback;
+import org.apache.tinkerpop.gremlin.util.NumberHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.umlg.sqlg.sql.parse.SchemaTableTree;
+import org.umlg.sqlg.structure.PropertyType;
 import org.umlg.sqlg.structure.SchemaTable;
 import org.umlg.sqlg.structure.SqlgEdge;
 import org.umlg.sqlg.structure.SqlgGraph;
@@ -15,9 +18,13 @@ import org.umlg.sqlg.structure.topology.EdgeLabel;
 import org.umlg.sqlg.util.SqlgUtil;
 
 import java.sql.*;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.LongUnaryOperator;
 
 /**
  * Date: 2016/05/04
@@ -26,6 +33,8 @@ import java.util.Set;
 public class SqlgSqlExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(SqlgSqlExecutor.class);
+    //The rows a snapshot query fetches at a time if the transaction has no fetch size.
+    private static final int SNAPSHOT_FETCH_SIZE = 1000;
 
     private SqlgSqlExecutor() {
     }
@@ -37,6 +46,13 @@ public class SqlgSqlExecutor {
         TRUNCATE
     }
 
+    public enum AGGREGATE {
+        SUM,
+        MIN,
+        MAX,
+        MEAN
+    }
+
     public static void executeDropQuery(
             SqlgGraph sqlgGraph,
             SchemaTableTree rootSchemaTableTree,
@@ -77,6 +93,283 @@ public class SqlgSqlExecutor {
         return executeQuery(sqlgGraph, sql, distinctQueryStack);
     }
 
+    /**
+     * Counts the rows of the distinct query stack.
+     * If the stack has no duplicates the db does the counting, else the rows are counted without loading them.
+     */
+    public static long executeCountQuery(
+            SqlgGraph sqlgGraph,
+            SchemaTableTree rootSchemaTableTree,
+            LinkedList<SchemaTableTree> distinctQueryStack) {
+
+        boolean duplicatesInStack = rootSchemaTableTree.duplicatesInStack(distinctQueryStack);
+        String sql;
+        if (duplicatesInStack) {
+            sql = rootSchemaTableTree.constructSql(distinctQueryStack);
+        } else {
+            sql = rootSchemaTableTree.constructCountSql(distinctQueryStack);
+        }
+        Triple<ResultSet, ResultSetMetaData, PreparedStatement> queryResult = executeQuery(sqlgGraph, sql, distinctQueryStack);
+        PreparedStatement preparedStatement = queryResult.getRight();
+        try (ResultSet resultSet = queryResult.getLeft()) {
+            long count = 0;
+            if (duplicatesInStack) {
+                while (resultSet.next()) {
+                    count++;
+                }
+            } else if (resultSet.next()) {
+                count = resultSet.getLong(1);
+            }
+            sqlgGraph.tx().release(preparedStatement);
+            return count;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Aggregates the property of the last element of the distinct query stack.
+     * If the stack has no duplicates and every incoming bulk is 1 the db does the aggregation,
+     * else the property's values are aggregated from the rows without loading the elements.
+     *
+     * @param parentBulk The bulk of the incoming traverser for the 'index' of a row, null if every bulk is 1.
+     * @return The value to emit and its bulk, null if there are no values. The mean is emitted with the count as its bulk
+     * so that the means of the distinct queries are combined correctly.
+     */
+    public static Pair<Number, Long> executeAggregateQuery(
+            SqlgGraph sqlgGraph,
+            SchemaTableTree rootSchemaTableTree,
+            LinkedList<SchemaTableTree> distinctQueryStack,
+            AGGREGATE aggregate,
+            String propertyKey,
+            LongUnaryOperator parentBulk) {
+
+        PropertyType propertyType = distinctQueryStack.getLast().getPropertyType(propertyKey);
+        if (propertyType == null) {
+            //the label does not have the property so there is nothing to aggregate.
+            return null;
+        }
+        boolean aggregateInDb = parentBulk == null && !rootSchemaTableTree.duplicatesInStack(distinctQueryStack);
+        String sql;
+        if (aggregateInDb) {
+            sql = rootSchemaTableTree.constructAggregateSql(distinctQueryStack, aggregate, propertyKey);
+        } else {
+            sql = rootSchemaTableTree.constructSql(distinctQueryStack);
+        }
+        Triple<ResultSet, ResultSetMetaData, PreparedStatement> queryResult = executeQuery(sqlgGraph, sql, distinctQueryStack);
+        PreparedStatement preparedStatement = queryResult.getRight();
+        try (ResultSet resultSet = queryResult.getLeft()) {
+            Number value = null;
+            long count = 0;
+            if (aggregateInDb) {
+                if (resultSet.next()) {
+                    value = (Number) resultSet.getObject(1);
+                    count = resultSet.getLong(2);
+                }
+            } else {
+                while (resultSet.next()) {
+                    Number rowValue = (Number) distinctQueryStack.getLast().loadPropertyValue(resultSet, propertyKey);
+                    if (rowValue == null) {
+                        continue;
+                    }
+                    long bulk = parentBulk == null ? 1L : parentBulk.applyAsLong(resultSet.getLong(1));
+                    switch (aggregate) {
+                        case SUM:
+                        case MEAN:
+                            value = value == null ? NumberHelper.mul(rowValue, bulk) : NumberHelper.add(value, NumberHelper.mul(rowValue, bulk));
+                            break;
+                        case MIN:
+                            value = value == null ? rowValue : NumberHelper.min(value, rowValue);
+                            break;
+                        case MAX:
+                            value = value == null ? rowValue : NumberHelper.max(value, rowValue);
+                            break;
+                        default:
+                            throw new IllegalStateException("Unknown AGGREGATE " + aggregate.name());
+                    }
+                    count += bulk;
+                }
+            }
+            sqlgGraph.tx().release(preparedStatement);
+            if (count == 0) {
+                return null;
+            }
+            if (aggregate == AGGREGATE.MEAN) {
+                return Pair.of(value.doubleValue() / count, count);
+            } else {
+                return Pair.of(aggregateValue(value, propertyType, aggregate), 1L);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Groups the last element of the distinct query stack by its groupByKey property and counts the group's elements or,
+     * if aggregate is not null, aggregates the group's aggregateKey property.
+     * If the stack has no duplicates and every incoming bulk is 1 the db does the grouping,
+     * else the groups are calculated from the rows without loading the elements.
+     *
+     * @param parentBulk The bulk of the incoming traverser for the 'index' of a row, null if every bulk is 1.
+     * @param groups     The groups of the previous distinct queries, this query's groups are merged into it.
+     *                   The left of a group is its count or aggregate, the right the number of values the aggregate is calculated from.
+     */
+    public static void executeGroupByQuery(
+            SqlgGraph sqlgGraph,
+            SchemaTableTree rootSchemaTableTree,
+            LinkedList<SchemaTableTree> distinctQueryStack,
+            String groupByKey,
+            AGGREGATE aggregate,
+            String aggregateKey,
+            LongUnaryOperator parentBulk,
+            Map<Object, MutablePair<Number, Long>> groups) {
+
+        SchemaTableTree lastSchemaTableTree = distinctQueryStack.getLast();
+        PropertyType groupByPropertyType = lastSchemaTableTree.getPropertyType(groupByKey);
+        if (groupByPropertyType == null) {
+            //by(key) fails on an element that does not have the property.
+            if (executeCountQuery(sqlgGraph, rootSchemaTableTree, distinctQueryStack) > 0) {
+                throw propertyDoesNotExist(lastSchemaTableTree, groupByKey);
+            }
+            return;
+        }
+        PropertyType aggregatePropertyType = aggregate != null ? lastSchemaTableTree.getPropertyType(aggregateKey) : null;
+        boolean groupByInDb = parentBulk == null && !rootSchemaTableTree.duplicatesInStack(distinctQueryStack);
+        String sql;
+        if (groupByInDb) {
+            sql = rootSchemaTableTree.constructGroupBySql(distinctQueryStack, groupByKey, aggregatePropertyType != null ? aggregate : null, aggregateKey);
+        } else {
+            sql = rootSchemaTableTree.constructSql(distinctQueryStack);
+        }
+        Triple<ResultSet, ResultSetMetaData, PreparedStatement> queryResult = executeQuery(sqlgGraph, sql, distinctQueryStack);
+        PreparedStatement preparedStatement = queryResult.getRight();
+        try (ResultSet resultSet = queryResult.getLeft()) {
+            while (resultSet.next()) {
+                Object key;
+                long count;
+                Number value = null;
+                long valueCount = 0;
+                if (groupByInDb) {
+                    key = resultSet.getObject(1);
+                    count = resultSet.getLong(2);
+                    if (aggregatePropertyType != null) {
+                        value = (Number) resultSet.getObject(3);
+                        valueCount = resultSet.getLong(4);
+                    }
+                } else {
+                    key = lastSchemaTableTree.loadPropertyValue(resultSet, groupByKey);
+                    count = parentBulk == null ? 1L : parentBulk.applyAsLong(resultSet.getLong(1));
+                    if (aggregatePropertyType != null) {
+                        Number rowValue = (Number) lastSchemaTableTree.loadPropertyValue(resultSet, aggregateKey);
+                        if (rowValue != null) {
+                            value = aggregate == AGGREGATE.SUM || aggregate == AGGREGATE.MEAN ? NumberHelper.mul(rowValue, count) : rowValue;
+                            valueCount = count;
+                        }
+                    }
+                }
+                if (key == null) {
+                    throw propertyDoesNotExist(lastSchemaTableTree, groupByKey);
+                }
+                MutablePair<Number, Long> group = groups.computeIfAbsent(groupByValue(key, groupByPropertyType), k -> MutablePair.of(null, 0L));
+                if (aggregate == null) {
+                    group.setLeft(group.getLeft() == null ? count : group.getLeft().longValue() + count);
+                } else if (value != null) {
+                    if (aggregate == AGGREGATE.MEAN) {
+                        value = value.doubleValue();
+                    } else {
+                        value = aggregateValue(value, aggregatePropertyType, aggregate);
+                    }
+                    if (group.getLeft() == null) {
+                        group.setLeft(value);
+                    } else if (aggregate == AGGREGATE.MIN) {
+                        group.setLeft(NumberHelper.min(group.getLeft(), value));
+                    } else if (aggregate == AGGREGATE.MAX) {
+                        group.setLeft(NumberHelper.max(group.getLeft(), value));
+                    } else {
+                        group.setLeft(NumberHelper.add(group.getLeft(), value));
+                    }
+                    group.setRight(group.getRight() + valueCount);
+                }
+            }
+            sqlgGraph.tx().release(preparedStatement);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Converts the merged groups of {@link #executeGroupByQuery} to the map TinkerPop's groupCount() or group() returns.
+     * A group without values gets the value TinkerPop's aggregate step returns for no values.
+     */
+    public static Map<Object, Object> groupByResult(Map<Object, MutablePair<Number, Long>> groups, AGGREGATE aggregate) {
+        Map<Object, Object> result = new HashMap<>();
+        for (Map.Entry<Object, MutablePair<Number, Long>> groupEntry : groups.entrySet()) {
+            MutablePair<Number, Long> group = groupEntry.getValue();
+            if (aggregate == null) {
+                result.put(groupEntry.getKey(), group.getLeft().longValue());
+            } else if (group.getRight() == 0) {
+                result.put(groupEntry.getKey(), aggregate == AGGREGATE.SUM ? (Number) 0 : (Number) Double.NaN);
+            } else if (aggregate == AGGREGATE.MEAN) {
+                result.put(groupEntry.getKey(), group.getLeft().doubleValue() / group.getRight());
+            } else {
+                result.put(groupEntry.getKey(), group.getLeft());
+            }
+        }
+        return result;
+    }
+
+    private static IllegalStateException propertyDoesNotExist(SchemaTableTree schemaTableTree, String propertyKey) {
+        return new IllegalStateException("The property does not exist as the key has no associated value for the provided element: " + schemaTableTree.getSchemaTable().toString() + ":" + propertyKey);
+    }
+
+    /**
+     * The drivers return the smaller number types as an Integer, convert the group's key to the property's type.
+     */
+    private static Object groupByValue(Object value, PropertyType propertyType) {
+        switch (propertyType.ordinal()) {
+            case PropertyType.BOOLEAN_ORDINAL:
+                return value instanceof Boolean ? value : ((Number) value).intValue() != 0;
+            case PropertyType.BYTE_ORDINAL:
+                return ((Number) value).byteValue();
+            case PropertyType.SHORT_ORDINAL:
+                return ((Number) value).shortValue();
+            case PropertyType.INTEGER_ORDINAL:
+                return ((Number) value).intValue();
+            case PropertyType.LONG_ORDINAL:
+                return ((Number) value).longValue();
+            case PropertyType.FLOAT_ORDINAL:
+                return ((Number) value).floatValue();
+            case PropertyType.DOUBLE_ORDINAL:
+                return ((Number) value).doubleValue();
+            case PropertyType.STRING_ORDINAL:
+                return value.toString();
+            default:
+                throw new IllegalStateException("Can not group by a property of type " + propertyType.name());
+        }
+    }
+
+    /**
+     * The db widens the sum's type, convert it back to the type TinkerPop's sum and min/max would have returned.
+     */
+    private static Number aggregateValue(Number value, PropertyType propertyType, AGGREGATE aggregate) {
+        switch (propertyType.ordinal()) {
+            case PropertyType.BYTE_ORDINAL:
+                return aggregate == AGGREGATE.SUM ? Integer.valueOf(value.intValue()) : Byte.valueOf(value.byteValue());
+            case PropertyType.SHORT_ORDINAL:
+                return aggregate == AGGREGATE.SUM ? Integer.valueOf(value.intValue()) : Short.valueOf(value.shortValue());
+            case PropertyType.INTEGER_ORDINAL:
+                return value.intValue();
+            case PropertyType.LONG_ORDINAL:
+                return value.longValue();
+            case PropertyType.FLOAT_ORDINAL:
+                return value.floatValue();
+            case PropertyType.DOUBLE_ORDINAL:
+                return value.doubleValue();
+            default:
+                throw new IllegalStateException(String.format("%s can not be calculated on a property of type %s", aggregate.name(), propertyType.name()));
+        }
+    }
+
     public static Triple<ResultSet, ResultSetMetaData, PreparedStatement> executeOptionalQuery(
             SqlgGraph sqlgGraph, SchemaTableTree rootSchemaTableTree,
             Pair<LinkedList<SchemaTableTree>, Set<SchemaTableTree>> leftJoinQuery) {
@@ -94,6 +387,126 @@ public class SqlgSqlExecutor {
         return executeQuery(sqlgGraph, sql, leftJoinQuery);
     }
 
+    /**
+     * Executes the distinct query on a pooled connection that sees the snapshot exported by the traversal's transaction.
+     * This is called from {@link SqlgGraph#getQueryExecutor()}'s threads, the rows are read lazily on the traversal's thread.
+     * The returned {@link SnapshotQuery} holds the pooled connection until it is closed.
+     *
+     * @param fetchSize The traversal's transaction's fetch size, if null {@link #SNAPSHOT_FETCH_SIZE} rows are fetched at a time.
+     */
+    public static SnapshotQuery executeSnapshotQuery(
+            SqlgGraph sqlgGraph,
+            String sql,
+            LinkedList<SchemaTableTree> distinctQueryStack,
+            String snapshot,
+            Integer fetchSize) {
+
+        try {
+            SnapshotQuery snapshotQuery = new SnapshotQuery(sqlgGraph.getConnection());
+            try {
+                sqlgGraph.getSqlDialect().importSnapshot(snapshotQuery.connection, snapshot);
+                sqlgGraph.getQueryMetrics().snapshotQuery();
+                if (logger.isDebugEnabled()) {
+                    logger.debug(sql);
+                }
+                snapshotQuery.preparedStatement = snapshotQuery.connection.prepareStatement(sql);
+                SqlgUtil.setParametersOnStatement(sqlgGraph, distinctQueryStack, snapshotQuery.preparedStatement, 1);
+                //the snapshot's transaction is open so the rows are read through a cursor.
+                snapshotQuery.preparedStatement.setFetchSize(fetchSize != null ? fetchSize : SNAPSHOT_FETCH_SIZE);
+                snapshotQuery.resultSet = snapshotQuery.preparedStatement.executeQuery();
+                snapshotQuery.resultSetMetaData = snapshotQuery.resultSet.getMetaData();
+                return snapshotQuery;
+            } catch (SQLException | RuntimeException e) {
+                snapshotQuery.close();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The open result set of a distinct query executed by {@link #executeSnapshotQuery}.
+     * Closing it closes the result set, ends the snapshot's transaction and returns the connection to the pool.
+     */
+    public static final class SnapshotQuery implements AutoCloseable {
+
+        private final Connection connection;
+        private final boolean autoCommit;
+        private final int transactionIsolation;
+        private PreparedStatement preparedStatement;
+        private ResultSet resultSet;
+        private ResultSetMetaData resultSetMetaData;
+
+        private SnapshotQuery(Connection connection) throws SQLException {
+            this.connection = connection;
+            this.autoCommit = connection.getAutoCommit();
+            this.transactionIsolation = connection.getTransactionIsolation();
+        }
+
+        public ResultSet getResultSet() {
+            return this.resultSet;
+        }
+
+        public ResultSetMetaData getResultSetMetaData() {
+            return this.resultSetMetaData;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (this.resultSet != null) {
+                    this.resultSet.close();
+                }
+                if (this.preparedStatement != null) {
+                    this.preparedStatement.close();
+                }
+                this.connection.rollback();
+                this.connection.setTransactionIsolation(this.transactionIsolation);
+                this.connection.setAutoCommit(this.autoCommit);
+            } finally {
+                this.connection.close();
+            }
+        }
+    }
+
+    /**
+     * Executes a batch of root only trees as one UNION ALL statement.
+     * Each tree's parameters are set in the order of the batch's branches.
+     */
+    public static Triple<ResultSet, ResultSetMetaData, PreparedStatement> executeUnionAllQuery(
+            SqlgGraph sqlgGraph,
+            List<SchemaTableTree> batch,
+            List<LinkedHashMap<String, PropertyType>> batchColumns) {
+
+        if (sqlgGraph.tx().isInBatchMode()) {
+            sqlgGraph.tx().flush();
+        }
+        String sql = SchemaTableTree.constructUnionAllSql(sqlgGraph, batch, batchColumns);
+        try {
+            Connection conn = sqlgGraph.tx().getConnection();
+            if (logger.isDebugEnabled()) {
+                logger.debug(sql);
+            }
+            PreparedStatement preparedStatement = sqlgGraph.getStatementCache().prepareStatement(conn, sql);
+            sqlgGraph.tx().add(preparedStatement);
+            int parameterCount = 1;
+            for (SchemaTableTree schemaTableTree : batch) {
+                LinkedList<SchemaTableTree> stack = new LinkedList<>();
+                stack.add(schemaTableTree);
+                parameterCount = SqlgUtil.setParametersOnStatement(sqlgGraph, stack, preparedStatement, parameterCount);
+            }
+            if (sqlgGraph.tx().getFetchSize() != null) {
+                preparedStatement.setFetchSize(sqlgGraph.tx().getFetchSize());
+            }
+            ResultSet resultSet = preparedStatement.executeQuery();
+            ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+            return Triple.of(resultSet, resultSetMetaData, preparedStatement);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private static Triple<ResultSet, ResultSetMetaData, PreparedStatement> executeQuery(SqlgGraph sqlgGraph, String sql, LinkedList<SchemaTableTree> distinctQueryStack) {
         if (sqlgGraph.tx().isInBatchMode()) {
             sqlgGraph.tx().flush();
@@ -130,7 +543,7 @@ public class SqlgSqlExecutor {
 //            		logger.warn(sqle.getMessage());
 //            	}
 //            }
-            PreparedStatement preparedStatement = conn.prepareStatement(sql);
+            PreparedStatement preparedStatement = sqlgGraph.getStatementCache().prepareStatement(conn, sql);
             sqlgGraph.tx().add(preparedStatement);
             int parameterCount = 1;
             SqlgUtil.setParametersOnStatement(sqlgGraph, distinctQueryStack, preparedStatement, parameterCount);
@@ -159,10 +572,10 @@ public class SqlgSqlExecutor {
             if (logger.isDebugEnabled()) {
                 logger.debug(sql);
             }
-            PreparedStatement preparedStatement = conn.prepareStatement(sql);
+            PreparedStatement preparedStatement = sqlgGraph.getStatementCache().prepareStatement(conn, sql);
             sqlgGraph.tx().add(preparedStatement);
             int parameterCount = 1;
-            SqlgUtil.setParametersOnStatement(sqlgGraph, distinctQueryStack, preparedStatement, parameterCount);
+            SqlgUtil.setParametersOnStatement(sqlgGraph, distinctQueryStack, preparedStatement, parameterCount, false);
             if (distinctQueryStack.isEmpty()) {
                 preparedStatement.execute();
             } else {
@@ -75,6 +75,9 @@ public class VertexStrategy extends BaseStrategy {
                     break;
                 }
             } else {
+                handleCountGlobalStep(step);
+                handleAggregateGlobalStep(step);
+                handleGroupStep(step);
                 //restart
                 this.sqlgStep = null;
             }
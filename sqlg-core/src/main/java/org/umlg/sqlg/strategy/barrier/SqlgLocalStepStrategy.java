@@ -4,8 +4,12 @@ import org.apache.tinkerpop.gremlin.process.traversal.Step;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.step.branch.LocalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.filter.RangeGlobalStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.filter.SampleGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.EdgeVertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.OrderGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.ReducingBarrierStep;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
@@ -53,11 +57,11 @@ public class SqlgLocalStepStrategy extends AbstractTraversalStrategy<TraversalSt
                         return;
                     }
                 }
-                //Any traversal with a range can not be optimized. As of yet...
+                //Only a range at the end of vertex, has and order steps can be optimized, the SqlgVertexStep applies it per start.
                 localChildren = localStep.getLocalChildren();
                 for (Traversal.Admin<?, ?> localChild : localChildren) {
                     List<RangeGlobalStep> rangeGlobalSteps = TraversalHelper.getStepsOfAssignableClassRecursively(RangeGlobalStep.class, localChild);
-                    if (!rangeGlobalSteps.isEmpty()) {
+                    if (!rangeGlobalSteps.isEmpty() && !isRangeAfterVertexSteps(localChild)) {
                         return;
                     }
                 }
@@ -83,6 +87,27 @@ public class SqlgLocalStepStrategy extends AbstractTraversalStrategy<TraversalSt
         }
     }
 
+    /**
+     * i.e. local(outE().order().by("ts", Order.desc).limit(5))
+     */
+    private static boolean isRangeAfterVertexSteps(Traversal.Admin<?, ?> localChild) {
+        List<Step> steps = localChild.getSteps();
+        if (steps.size() < 2 || !(steps.get(0) instanceof VertexStep) || !(steps.get(steps.size() - 1) instanceof RangeGlobalStep)) {
+            return false;
+        }
+        for (Step<?, ?> step : steps) {
+            if (!step.getLabels().isEmpty()) {
+                return false;
+            }
+        }
+        for (Step<?, ?> step : steps.subList(1, steps.size() - 1)) {
+            if (!(step instanceof VertexStep || step instanceof EdgeVertexStep || step instanceof HasStep || step instanceof OrderGlobalStep)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public Set<Class<? extends OptimizationStrategy>> applyPost() {
         return Stream.of(
@@ -1,25 +1,38 @@
 package org.umlg.sqlg.strategy.barrier;
 
 import org.apache.commons.lang3.Range;
+import org.apache.tinkerpop.gremlin.process.traversal.Compare;
 import org.apache.tinkerpop.gremlin.process.traversal.Step;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.TrueTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.step.branch.RepeatStep;
-import org.apache.tinkerpop.gremlin.process.traversal.step.filter.RangeGlobalStep;
-import org.apache.tinkerpop.gremlin.process.traversal.step.filter.SampleGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.*;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.*;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.TreeSideEffectStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.ReducingBarrierStep;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.CountStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.umlg.sqlg.step.barrier.SqlgRecursiveRepeatStepBarrier;
 import org.umlg.sqlg.step.barrier.SqlgRepeatStepBarrier;
 import org.umlg.sqlg.strategy.SqlgGraphStepStrategy;
 import org.umlg.sqlg.strategy.SqlgRangeHolder;
+import org.umlg.sqlg.structure.PropertyType;
 import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.structure.topology.EdgeLabel;
+import org.umlg.sqlg.structure.topology.PropertyColumn;
+import org.umlg.sqlg.structure.topology.Schema;
+import org.umlg.sqlg.structure.topology.VertexLabel;
 import org.umlg.sqlg.util.SqlgTraversalUtil;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -74,6 +87,16 @@ public class SqlgRepeatStepStrategy extends AbstractTraversalStrategy<TraversalS
                     }
                 }
 
+                SqlgRecursiveRepeatStepBarrier<?> sqlgRecursiveRepeatStepBarrier = recursiveRepeatStepBarrier(traversal, repeatStep);
+                if (sqlgRecursiveRepeatStepBarrier != null) {
+                    for (String label : repeatStep.getLabels()) {
+                        sqlgRecursiveRepeatStepBarrier.addLabel(label);
+                    }
+                    //noinspection unchecked
+                    TraversalHelper.replaceStep((Step) repeatStep, sqlgRecursiveRepeatStepBarrier, traversal);
+                    continue;
+                }
+
                 SqlgRepeatStepBarrier<?> sqlgRepeatStepBarrier = new SqlgRepeatStepBarrier<>(traversal, repeatStep);
                 for (String label : repeatStep.getLabels()) {
                     sqlgRepeatStepBarrier.addLabel(label);
@@ -102,6 +125,106 @@ public class SqlgRepeatStepStrategy extends AbstractTraversalStrategy<TraversalS
         }
     }
 
+    /**
+     * A repeat(out(label)) or repeat(in(label)) with an until(has(...)) and/or emit() is executed as a recursive common
+     * table expression if the edge label only connects one vertex label to itself.
+     * The until may only hold has(key, compare) conditions on properties and nothing may need the path.
+     *
+     * @return null if the repeat can not be executed as a recursive common table expression.
+     */
+    private SqlgRecursiveRepeatStepBarrier<?> recursiveRepeatStepBarrier(Traversal.Admin<?, ?> traversal, RepeatStep<?> repeatStep) {
+        SqlgGraph sqlgGraph = (SqlgGraph) traversal.getGraph().orElseThrow(IllegalStateException::new);
+        if (!sqlgGraph.getSqlDialect().supportsRecursiveCte()) {
+            return null;
+        }
+        if (repeatStep.getUntilTraversal() == null && repeatStep.getEmitTraversal() == null) {
+            return null;
+        }
+        if (repeatStep.getEmitTraversal() != null && !(repeatStep.getEmitTraversal() instanceof TrueTraversal)) {
+            return null;
+        }
+        List<Step> repeatSteps = repeatStep.getRepeatTraversal().getSteps();
+        if (repeatSteps.size() != 2 || !(repeatSteps.get(0) instanceof VertexStep) || !(repeatSteps.get(1) instanceof RepeatStep.RepeatEndStep)) {
+            return null;
+        }
+        VertexStep<?> vertexStep = (VertexStep<?>) repeatSteps.get(0);
+        if (!vertexStep.returnsVertex() || vertexStep.getDirection() == Direction.BOTH ||
+                vertexStep.getEdgeLabels().length != 1 || !vertexStep.getLabels().isEmpty()) {
+            return null;
+        }
+        //The path of the returned traversers does not hold the intermediate vertices.
+        Traversal.Admin<?, ?> rootTraversal = TraversalHelper.getRootTraversal(traversal);
+        if (SqlgTraversalUtil.anyStepRecursively(PATH_STEP::test, rootTraversal)) {
+            return null;
+        }
+        EdgeLabel edgeLabel = null;
+        for (Schema schema : sqlgGraph.getTopology().getSchemas()) {
+            Optional<EdgeLabel> edgeLabelOptional = schema.getEdgeLabel(vertexStep.getEdgeLabels()[0]);
+            if (edgeLabelOptional.isPresent()) {
+                if (edgeLabel != null) {
+                    return null;
+                }
+                edgeLabel = edgeLabelOptional.get();
+            }
+        }
+        if (edgeLabel == null || edgeLabel.getOutVertexLabels().size() != 1 || !edgeLabel.getOutVertexLabels().equals(edgeLabel.getInVertexLabels())) {
+            return null;
+        }
+        VertexLabel vertexLabel = edgeLabel.getOutVertexLabels().iterator().next();
+        if (!vertexLabel.hasIDPrimaryKey()) {
+            return null;
+        }
+        List<HasContainer> untilHasContainers = null;
+        if (repeatStep.getUntilTraversal() != null) {
+            List<Step> untilSteps = repeatStep.getUntilTraversal().getSteps();
+            if (untilSteps.size() != 1 || !(untilSteps.get(0) instanceof HasStep) || !untilSteps.get(0).getLabels().isEmpty()) {
+                return null;
+            }
+            untilHasContainers = new ArrayList<>(((HasStep<?>) untilSteps.get(0)).getHasContainers());
+            for (HasContainer hasContainer : untilHasContainers) {
+                if (!isRecursiveUntil(vertexLabel, hasContainer)) {
+                    return null;
+                }
+            }
+        }
+        //noinspection unchecked
+        return new SqlgRecursiveRepeatStepBarrier<>(traversal, (RepeatStep) repeatStep, edgeLabel, vertexStep.getDirection(), untilHasContainers);
+    }
+
+    private static boolean isRecursiveUntil(VertexLabel vertexLabel, HasContainer hasContainer) {
+        if (hasContainer.getKey().startsWith("~") || !(hasContainer.getBiPredicate() instanceof Compare) || hasContainer.getValue() == null) {
+            return false;
+        }
+        Object value = hasContainer.getValue();
+        if (!(value instanceof String || value instanceof Boolean || value instanceof Number)) {
+            return false;
+        }
+        PropertyType valueType = PropertyType.from(value);
+        if (valueType.ordinal() > PropertyType.STRING_ORDINAL) {
+            return false;
+        }
+        PropertyColumn propertyColumn = vertexLabel.getProperties().get(hasContainer.getKey());
+        if (propertyColumn == null) {
+            return true;
+        }
+        PropertyType columnType = propertyColumn.getPropertyType();
+        return columnType == valueType || (isNumber(columnType) && isNumber(valueType));
+    }
+
+    private static boolean isNumber(PropertyType propertyType) {
+        return propertyType.ordinal() >= PropertyType.BYTE_ORDINAL && propertyType.ordinal() <= PropertyType.DOUBLE_ORDINAL;
+    }
+
+    private static final Predicate<Step> PATH_STEP = s -> s instanceof PathStep ||
+            s instanceof TreeStep ||
+            s instanceof TreeSideEffectStep ||
+            s instanceof PathFilterStep ||
+            s instanceof SelectStep ||
+            s instanceof SelectOneStep ||
+            s instanceof MatchStep ||
+            s instanceof WhereTraversalStep ||
+            s instanceof WherePredicateStep;
+
     @Override
     public Set<Class<? extends OptimizationStrategy>> applyPost() {
         return Stream.of(
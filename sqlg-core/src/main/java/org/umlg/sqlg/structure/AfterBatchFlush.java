@@ -0,0 +1,12 @@
+package org.umlg.sqlg.structure;
+
+/**
+ * Called after every flush of a batch mode transaction, including the automatic flushes of {@link SqlgGraph#BATCH_FLUSH_ROWS}
+ * and {@link SqlgGraph#BATCH_FLUSH_BYTES}.
+ */
+@FunctionalInterface
+public interface AfterBatchFlush {
+
+    void doAfterBatchFlush(BatchFlushStatistics batchFlushStatistics);
+
+}
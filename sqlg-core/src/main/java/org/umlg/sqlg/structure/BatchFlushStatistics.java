@@ -0,0 +1,135 @@
+package org.umlg.sqlg.structure;
+
+/**
+ * The size of the {@link BatchManager}'s caches when they were flushed and how long the flush took.
+ */
+public final class BatchFlushStatistics {
+
+    private final boolean automatic;
+    private final int vertices;
+    private final int edges;
+    private final int upsertedVertices;
+    private final int updatedVertices;
+    private final int updatedEdges;
+    private final int removedVertices;
+    private final int removedEdges;
+    private final long estimatedBytes;
+    private final long millis;
+
+    BatchFlushStatistics(
+            boolean automatic,
+            int vertices,
+            int edges,
+            int upsertedVertices,
+            int updatedVertices,
+            int updatedEdges,
+            int removedVertices,
+            int removedEdges,
+            long estimatedBytes,
+            long millis) {
+
+        this.automatic = automatic;
+        this.vertices = vertices;
+        this.edges = edges;
+        this.upsertedVertices = upsertedVertices;
+        this.updatedVertices = updatedVertices;
+        this.updatedEdges = updatedEdges;
+        this.removedVertices = removedVertices;
+        this.removedEdges = removedEdges;
+        this.estimatedBytes = estimatedBytes;
+        this.millis = millis;
+    }
+
+    BatchFlushStatistics withMillis(long millis) {
+        return new BatchFlushStatistics(
+                this.automatic,
+                this.vertices,
+                this.edges,
+                this.upsertedVertices,
+                this.updatedVertices,
+                this.updatedEdges,
+                this.removedVertices,
+                this.removedEdges,
+                this.estimatedBytes,
+                millis
+        );
+    }
+
+    /**
+     * @return true if the flush was triggered by {@link SqlgGraph#BATCH_FLUSH_ROWS} or {@link SqlgGraph#BATCH_FLUSH_BYTES},
+     * false for an explicit flush or commit.
+     */
+    public boolean isAutomatic() {
+        return this.automatic;
+    }
+
+    /**
+     * @return The number of new vertices that were flushed.
+     */
+    public int getVertices() {
+        return this.vertices;
+    }
+
+    /**
+     * @return The number of new edges that were flushed.
+     */
+    public int getEdges() {
+        return this.edges;
+    }
+
+    /**
+     * @return The number of upserted vertices that were flushed, an upsert of unique values already cached counts once.
+     */
+    public int getUpsertedVertices() {
+        return this.upsertedVertices;
+    }
+
+    /**
+     * @return The number of existing vertices whose properties were updated.
+     */
+    public int getUpdatedVertices() {
+        return this.updatedVertices;
+    }
+
+    /**
+     * @return The number of existing edges whose properties were updated.
+     */
+    public int getUpdatedEdges() {
+        return this.updatedEdges;
+    }
+
+    public int getRemovedVertices() {
+        return this.removedVertices;
+    }
+
+    public int getRemovedEdges() {
+        return this.removedEdges;
+    }
+
+    /**
+     * @return A rough estimate of the heap held by the flushed rows' values.
+     */
+    public long getEstimatedBytes() {
+        return this.estimatedBytes;
+    }
+
+    public long getMillis() {
+        return this.millis;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchFlushStatistics{" +
+                "automatic=" + this.automatic +
+                ", vertices=" + this.vertices +
+                ", edges=" + this.edges +
+                ", upsertedVertices=" + this.upsertedVertices +
+                ", updatedVertices=" + this.updatedVertices +
+                ", updatedEdges=" + this.updatedEdges +
+                ", removedVertices=" + this.removedVertices +
+                ", removedEdges=" + this.removedEdges +
+                ", estimatedBytes=" + this.estimatedBytes +
+                ", millis=" + this.millis +
+                '}';
+    }
+}
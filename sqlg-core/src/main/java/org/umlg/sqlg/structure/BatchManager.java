@@ -3,12 +3,19 @@ package org.umlg.sqlg.structure;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.umlg.sqlg.sql.dialect.SqlBulkDialect;
 import org.umlg.sqlg.structure.topology.EdgeLabel;
+import org.umlg.sqlg.structure.topology.Topology;
 import org.umlg.sqlg.structure.topology.VertexLabel;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.Writer;
+import java.lang.reflect.Array;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static org.umlg.sqlg.structure.topology.Topology.EDGE_PREFIX;
 import static org.umlg.sqlg.structure.topology.Topology.VERTEX_PREFIX;
@@ -19,6 +26,16 @@ import static org.umlg.sqlg.structure.topology.Topology.VERTEX_PREFIX;
  */
 public class BatchManager {
 
+    private static final Logger logger = LoggerFactory.getLogger(BatchManager.class);
+    //rough heap sizes, with 8 byte references and 16 byte headers, used to estimate the cache's size. The values themselves
+    //are estimated by estimateSize.
+    //A cached element with its row: the element (~40), its entry in the label's LinkedHashMap (40) and table slot (8)
+    //and the BatchRow (24).
+    private static final int ROW_BYTES = 112;
+    //A property of a row: its slot in the column's array (8) and bitmaps, doubled for the arrays' spare capacity.
+    //The values are estimated boxed, which overestimates the primitive columns.
+    private static final int ENTRY_BYTES = 16;
+
     private final SqlgGraph sqlgGraph;
     private final SqlBulkDialect sqlDialect;
 
@@ -32,13 +49,30 @@ public class BatchManager {
     private final Map<SchemaTable, Pair<SortedSet<String>, Map<SqlgEdge, Map<String, Object>>>> edgePropertyCache = new LinkedHashMap<>();
     private final Map<SchemaTable, Pair<SortedSet<String>, Map<SqlgVertex, Map<String, Object>>>> vertexPropertyCache = new LinkedHashMap<>();
 
+    //the column names of the vertexCache's and edgeCache's rows, per label
+    private final Map<SchemaTable, BatchRow.Columns> vertexColumns = new HashMap<>();
+    private final Map<MetaEdge, BatchRow.Columns> edgeColumns = new HashMap<>();
+
+    //identity indexes of the vertexCache and edgeCache. A cached vertex maps to its cached incident edges, a cached edge to
+    //its MetaEdge, so that removing or updating a cached element does not scan the caches.
+    //The edge lists are not cleaned up when an edge is removed, only edges still in cachedEdges are incident.
+    private final Map<SqlgVertex, List<SqlgEdge>> cachedVertexEdges = new IdentityHashMap<>();
+    private final Map<SqlgEdge, MetaEdge> cachedEdges = new IdentityHashMap<>();
+
+    //map per label, unique keys and columns of the vertices to insert or update. The upserted vertices map to their
+    //VertexUpserts, a vertex that is upserted again with the same unique values before the flush is cached once.
+    private final Map<Pair<SchemaTable, List<String>>, VertexUpserts> vertexUpsertCache = new LinkedHashMap<>();
+    private final Map<SqlgVertex, VertexUpserts> upsertedVertices = new IdentityHashMap<>();
+
     //map per label's vertices to delete
     private final Map<SchemaTable, List<SqlgVertex>> removeVertexCache = new LinkedHashMap<>();
     //map per label's edges to delete
     private final Map<SchemaTable, List<SqlgEdge>> removeEdgeCache = new LinkedHashMap<>();
 
-    private final Map<SchemaTable, Writer> streamingVertexOutputStreamCache = new LinkedHashMap<>();
-    private final Map<SchemaTable, Writer> streamingEdgeOutputStreamCache = new LinkedHashMap<>();
+    private final Map<SchemaTable, RowSink> streamingVertexOutputStreamCache = new LinkedHashMap<>();
+    private final Map<SchemaTable, RowSink> streamingEdgeOutputStreamCache = new LinkedHashMap<>();
+    //encodes and writes the streamed rows on a background thread, null if not configured
+    private final StreamingPipeline streamingPipeline;
 
     //indicates what is being streamed
     private SchemaTable streamingBatchModeVertexSchemaTable;
@@ -50,15 +84,75 @@ public class BatchManager {
     private long batchIndex;
     private boolean isBusyFlushing;
 
+    //the thresholds at which normal batch mode flushes automatically, 0 to disable.
+    private final int batchFlushRows;
+    private final long batchFlushBytes;
+    private int cachedRows;
+    private long cachedBytes;
+
     public enum BatchModeType {
         NONE, NORMAL, STREAMING, STREAMING_WITH_LOCK
     }
 
     private BatchModeType batchModeType = BatchModeType.NONE;
 
+    /**
+     * Where the streamed rows of one label are written, a dialect's copy command or a jdbc batch of a prepared statement,
+     * see {@link SqlBulkDialect#streamRowSink(SqlgGraph, String, List)}. Closing the sink ends the stream.
+     */
+    public interface RowSink extends Closeable {
+
+        /**
+         * @param vertexLabel The vertex's label, null for a temporary vertex.
+         */
+        void writeVertex(Map<String, Object> keyValueMap, VertexLabel vertexLabel);
+
+        void writeEdge(
+                SqlgEdge sqlgEdge,
+                VertexLabel outVertexLabel,
+                VertexLabel inVertexLabel,
+                SqlgVertex outVertex,
+                SqlgVertex inVertex,
+                Map<String, Object> keyValueMap,
+                EdgeLabel edgeLabel);
+    }
+
+    /**
+     * @return A sink that has the dialect write the rows to the copy command's writer.
+     */
+    public static RowSink writerRowSink(SqlBulkDialect sqlDialect, Writer writer) {
+        return new RowSink() {
+            @Override
+            public void writeVertex(Map<String, Object> keyValueMap, VertexLabel vertexLabel) {
+                if (vertexLabel == null) {
+                    sqlDialect.writeTemporaryStreamingVertex(writer, keyValueMap);
+                } else {
+                    sqlDialect.writeStreamingVertex(writer, keyValueMap, vertexLabel);
+                }
+            }
+
+            @Override
+            public void writeEdge(SqlgEdge sqlgEdge, VertexLabel outVertexLabel, VertexLabel inVertexLabel, SqlgVertex outVertex, SqlgVertex inVertex, Map<String, Object> keyValueMap, EdgeLabel edgeLabel) {
+                sqlDialect.writeStreamingEdge(writer, sqlgEdge, outVertexLabel, inVertexLabel, outVertex, inVertex, keyValueMap, edgeLabel);
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
     BatchManager(SqlgGraph sqlgGraph, SqlBulkDialect sqlDialect) {
         this.sqlgGraph = sqlgGraph;
         this.sqlDialect = sqlDialect;
+        this.batchFlushRows = sqlgGraph.getBatchFlushRows();
+        this.batchFlushBytes = sqlgGraph.getBatchFlushBytes();
+        if (sqlgGraph.getStreamingExecutor() != null) {
+            this.streamingPipeline = new StreamingPipeline(sqlgGraph.getStreamingExecutor(), sqlgGraph.getStreamingPipelineSize());
+        } else {
+            this.streamingPipeline = null;
+        }
     }
 
     public boolean isInNormalMode() {
@@ -87,27 +181,36 @@ public class BatchManager {
 
     void addTemporaryVertex(SqlgVertex sqlgVertex, Map<String, Object> keyValueMap) {
         SchemaTable schemaTable = SchemaTable.of(sqlgVertex.getSchema(), sqlgVertex.getTable());
-        Writer writer = this.streamingVertexOutputStreamCache.get(schemaTable);
-        if (writer == null) {
+        RowSink rowSink = this.streamingVertexOutputStreamCache.get(schemaTable);
+        if (rowSink == null) {
+            drainStreamingPipeline();
             String sql = this.sqlDialect.constructCompleteCopyCommandTemporarySqlVertex(sqlgGraph, sqlgVertex, keyValueMap);
-            writer = this.sqlDialect.streamSql(this.sqlgGraph, sql);
-            this.streamingVertexOutputStreamCache.put(schemaTable, writer);
+            rowSink = this.sqlDialect.streamRowSink(this.sqlgGraph, sql, new ArrayList<>(keyValueMap.keySet()));
+            this.streamingVertexOutputStreamCache.put(schemaTable, rowSink);
         }
-        this.sqlDialect.writeTemporaryStreamingVertex(writer, keyValueMap);
+        rowSink.writeVertex(keyValueMap, null);
 
     }
 
     void addVertex(boolean temporary, boolean streaming, SqlgVertex sqlgVertex, Map<String, Object> keyValueMap) {
         SchemaTable schemaTable = SchemaTable.of(sqlgVertex.getSchema(), sqlgVertex.getTable(), temporary);
         if (!streaming) {
+            autoFlush();
+            this.cachedRows++;
+            this.cachedBytes += ROW_BYTES + estimateRowSize(keyValueMap);
             Pair<SortedSet<String>, Map<SqlgVertex, Map<String, Object>>> pairs = this.vertexCache.get(schemaTable);
             if (pairs == null) {
+                BatchRow.Columns columns = new BatchRow.Columns();
+                this.vertexColumns.put(schemaTable, columns);
                 pairs = Pair.of(new TreeSet<>(keyValueMap.keySet()), new LinkedHashMap<>());
-                pairs.getRight().put(sqlgVertex, keyValueMap);
+                pairs.getRight().put(sqlgVertex, new BatchRow(columns, keyValueMap));
                 this.vertexCache.put(schemaTable, pairs);
             } else {
                 pairs.getLeft().addAll(keyValueMap.keySet());
-                pairs.getRight().put(sqlgVertex, keyValueMap);
+                pairs.getRight().put(sqlgVertex, new BatchRow(this.vertexColumns.get(schemaTable), keyValueMap));
+            }
+            if (!temporary) {
+                this.cachedVertexEdges.put(sqlgVertex, new ArrayList<>());
             }
         } else {
             if (this.streamingBatchModeVertexSchemaTable == null) {
@@ -119,32 +222,133 @@ public class BatchManager {
             if (this.isStreamingEdges()) {
                 throw new IllegalStateException("streaming edge is in progress, first flush or commit before streaming vertices.");
             }
-            if (this.isInStreamingModeWithLock() && this.batchCount == 0) {
+            VertexLabel vertexLabel = null;
+            if (!schemaTable.isTemporary()) {
+                vertexLabel = sqlgGraph.getTopology().getVertexLabel(schemaTable.getSchema(), schemaTable.getTable()).orElseThrow(
+                        () -> new IllegalStateException(String.format("VertexLabel %s not found.", schemaTable.toString())));
+            }
+            //with the SequenceIdAllocator the streamed vertices get their ids without locking the table.
+            boolean allocateId = vertexLabel != null && vertexLabel.hasIDPrimaryKey() && this.sqlgGraph.getSequenceIdAllocator().isEnabled();
+            if (this.isInStreamingModeWithLock() && this.batchCount == 0 && !allocateId) {
+                if (!this.sqlgGraph.getSqlDialect().supportsTableLocking()) {
+                    throw SqlgExceptions.invalidMode(String.format(
+                            "Streaming with lock batch mode needs table locking on %s, it is not supported by %s.",
+                            schemaTable.toString(), this.sqlgGraph.getSqlDialect().dialectName()));
+                }
+                drainStreamingPipeline();
                 //lock the table,
                 this.sqlDialect.lockTable(sqlgGraph, schemaTable, VERTEX_PREFIX);
                 this.batchIndex = this.sqlDialect.nextSequenceVal(sqlgGraph, schemaTable, VERTEX_PREFIX);
             }
-            if (this.isInStreamingModeWithLock()) {
+            Map<String, Object> row = keyValueMap;
+            if (allocateId) {
+                long id = this.sqlgGraph.getSequenceIdAllocator().nextIds(schemaTable, VERTEX_PREFIX, 1)[0];
+                sqlgVertex.setInternalPrimaryKey(RecordId.from(schemaTable, id));
+                row = withId(id, keyValueMap);
+            } else if (this.isInStreamingModeWithLock()) {
                 sqlgVertex.setInternalPrimaryKey(RecordId.from(schemaTable, ++this.batchIndex));
             }
-            Writer writer = this.streamingVertexOutputStreamCache.get(schemaTable);
-            if (writer == null) {
-                String sql = this.sqlDialect.constructCompleteCopyCommandSqlVertex(sqlgGraph, sqlgVertex, keyValueMap);
-                writer = this.sqlDialect.streamSql(this.sqlgGraph, sql);
-                this.streamingVertexOutputStreamCache.put(schemaTable, writer);
+            RowSink rowSink = this.streamingVertexOutputStreamCache.get(schemaTable);
+            if (rowSink == null) {
+                drainStreamingPipeline();
+                String sql = this.sqlDialect.constructCompleteCopyCommandSqlVertex(sqlgGraph, sqlgVertex, row);
+                rowSink = this.sqlDialect.streamRowSink(this.sqlgGraph, sql, streamingKeys(allocateId, this.streamingBatchModeVertexKeys));
+                this.streamingVertexOutputStreamCache.put(schemaTable, rowSink);
             }
-            VertexLabel vertexLabel = null;
-            if (!schemaTable.isTemporary()) {
-                vertexLabel = sqlgGraph.getTopology().getVertexLabel(schemaTable.getSchema(), schemaTable.getTable()).orElseThrow(
-                        () -> new IllegalStateException(String.format("VertexLabel %s not found.", schemaTable.toString())));
+            if (this.streamingPipeline != null) {
+                final RowSink pipelineSink = rowSink;
+                final VertexLabel rowVertexLabel = vertexLabel;
+                final Map<String, Object> pipelineRow = copyRow(row);
+                this.streamingPipeline.submit(() -> pipelineSink.writeVertex(pipelineRow, rowVertexLabel));
+            } else {
+                rowSink.writeVertex(row, vertexLabel);
             }
-            this.sqlDialect.writeStreamingVertex(writer, keyValueMap, vertexLabel);
             if (this.isInStreamingModeWithLock()) {
                 this.batchCount++;
             }
         }
     }
 
+    /**
+     * The keys of the streamed rows in the order of the statement's columns, the allocated id first as in {@link #withId}.
+     */
+    private static List<String> streamingKeys(boolean allocateId, List<String> keys) {
+        List<String> result = new ArrayList<>(keys.size() + 1);
+        if (allocateId) {
+            result.add(Topology.ID);
+        }
+        result.addAll(keys);
+        return result;
+    }
+
+    private static Map<String, Object> withId(long id, Map<String, Object> keyValueMap) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put(Topology.ID, id);
+        row.putAll(keyValueMap);
+        return row;
+    }
+
+    /**
+     * A row handed to the {@link StreamingPipeline} is written after the caller has moved on, and the caller may
+     * reuse its map and arrays. The map and its array values are copied, the arrays' elements are immutable.
+     */
+    private static Map<String, Object> copyRow(Map<String, Object> keyValueMap) {
+        Map<String, Object> row = new LinkedHashMap<>(keyValueMap);
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            Object value = entry.getValue();
+            if (value != null && value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+                //noinspection SuspiciousSystemArraycopy
+                System.arraycopy(value, 0, copy, 0, length);
+                entry.setValue(copy);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * @return The vertex already cached with the same unique values, with its row updated, else sqlgVertex.
+     */
+    SqlgVertex upsertVertex(SqlgVertex sqlgVertex, List<String> uniqueKeys, Map<String, Object> keyValueMap) {
+        SchemaTable schemaTable = SchemaTable.of(sqlgVertex.getSchema(), sqlgVertex.getTable());
+        Pair<SchemaTable, List<String>> cacheKey = Pair.of(schemaTable, uniqueKeys);
+        List<Object> uniqueValues = new ArrayList<>(uniqueKeys.size());
+        for (String uniqueKey : uniqueKeys) {
+            uniqueValues.add(keyValueMap.get(uniqueKey));
+        }
+        VertexUpserts vertexUpserts = this.vertexUpsertCache.get(cacheKey);
+        SqlgVertex cachedVertex = vertexUpserts != null ? vertexUpserts.vertices.get(uniqueValues) : null;
+        if (cachedVertex != null) {
+            //the merged row's bytes replace those of the values it overwrites.
+            Map<String, Object> row = vertexUpserts.rows.get(cachedVertex);
+            for (Map.Entry<String, Object> entry : keyValueMap.entrySet()) {
+                if (row.containsKey(entry.getKey())) {
+                    this.cachedBytes -= estimateSize(row.get(entry.getKey()));
+                } else {
+                    this.cachedBytes += ENTRY_BYTES;
+                }
+                this.cachedBytes += estimateSize(entry.getValue());
+                row.put(entry.getKey(), entry.getValue());
+            }
+            vertexUpserts.columns.addAll(keyValueMap.keySet());
+            return cachedVertex;
+        }
+        //only a new row flushes, a merged row stays with the cached vertex it was merged into.
+        autoFlush();
+        vertexUpserts = this.vertexUpsertCache.computeIfAbsent(
+                cacheKey,
+                k -> new VertexUpserts(schemaTable, uniqueKeys)
+        );
+        this.cachedRows++;
+        this.cachedBytes += ROW_BYTES + estimateRowSize(keyValueMap);
+        vertexUpserts.columns.addAll(keyValueMap.keySet());
+        vertexUpserts.vertices.put(uniqueValues, sqlgVertex);
+        vertexUpserts.rows.put(sqlgVertex, new LinkedHashMap<>(keyValueMap));
+        this.upsertedVertices.put(sqlgVertex, vertexUpserts);
+        return sqlgVertex;
+    }
+
     void addEdge(boolean streaming, SqlgEdge sqlgEdge, SqlgVertex outVertex, SqlgVertex inVertex, Map<String, Object> keyValueMap) {
         SchemaTable outSchemaTable = SchemaTable.of(outVertex.getSchema(), sqlgEdge.getTable());
         SchemaTable outVertexLabelSchemaTable = SchemaTable.of(outVertex.getSchema(), outVertex.getTable());
@@ -154,14 +358,30 @@ public class BatchManager {
         EdgeLabel edgeLabel = sqlgGraph.getTopology().getEdgeLabel(outSchemaTable.getSchema(), sqlgEdge.getTable()).orElseThrow(() -> new IllegalStateException(String.format("EdgeLabel not found for %s.%s", outSchemaTable.getSchema(), sqlgEdge.getTable())));
         MetaEdge metaEdge = MetaEdge.from(outSchemaTable, outVertex, inVertex);
         if (!streaming) {
+            autoFlush();
+            this.cachedRows++;
+            this.cachedBytes += ROW_BYTES + estimateRowSize(keyValueMap);
             Pair<SortedSet<String>, Map<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>>> triples = this.edgeCache.get(metaEdge);
             if (triples == null) {
+                BatchRow.Columns columns = new BatchRow.Columns();
+                this.edgeColumns.put(metaEdge, columns);
                 triples = Pair.of(new TreeSet<>(keyValueMap.keySet()), new LinkedHashMap<>());
-                triples.getRight().put(sqlgEdge, Triple.of(outVertex, inVertex, keyValueMap));
+                triples.getRight().put(sqlgEdge, Triple.of(outVertex, inVertex, new BatchRow(columns, keyValueMap)));
                 this.edgeCache.put(metaEdge, triples);
             } else {
                 triples.getLeft().addAll(keyValueMap.keySet());
-                triples.getRight().put(sqlgEdge, Triple.of(outVertex, inVertex, keyValueMap));
+                triples.getRight().put(sqlgEdge, Triple.of(outVertex, inVertex, new BatchRow(this.edgeColumns.get(metaEdge), keyValueMap)));
+            }
+            this.cachedEdges.put(sqlgEdge, metaEdge);
+            List<SqlgEdge> outEdges = this.cachedVertexEdges.get(outVertex);
+            if (outEdges != null) {
+                outEdges.add(sqlgEdge);
+            }
+            if (inVertex != outVertex) {
+                List<SqlgEdge> inEdges = this.cachedVertexEdges.get(inVertex);
+                if (inEdges != null) {
+                    inEdges.add(sqlgEdge);
+                }
             }
         } else {
             if (this.streamingBatchModeEdgeSchemaTable == null) {
@@ -173,29 +393,54 @@ public class BatchManager {
             if (this.isStreamingVertices()) {
                 throw new IllegalStateException("streaming vertex is in progress, first flush or commit before streaming edges.");
             }
-            if (this.isInStreamingModeWithLock() && this.batchCount == 0) {
+            boolean allocateId = edgeLabel.hasIDPrimaryKey() && this.sqlgGraph.getSequenceIdAllocator().isEnabled();
+            if (this.isInStreamingModeWithLock() && this.batchCount == 0 && !allocateId) {
+                if (!this.sqlgGraph.getSqlDialect().supportsTableLocking()) {
+                    throw SqlgExceptions.invalidMode(String.format(
+                            "Streaming with lock batch mode needs table locking on %s, it is not supported by %s.",
+                            outSchemaTable.toString(), this.sqlgGraph.getSqlDialect().dialectName()));
+                }
+                drainStreamingPipeline();
                 //lock the table,
                 this.sqlDialect.lockTable(sqlgGraph, outSchemaTable, EDGE_PREFIX);
                 this.batchIndex = this.sqlDialect.nextSequenceVal(sqlgGraph, outSchemaTable, EDGE_PREFIX);
             }
-            if (this.isInStreamingModeWithLock()) {
+            Map<String, Object> row = keyValueMap;
+            if (allocateId) {
+                long id = this.sqlgGraph.getSequenceIdAllocator().nextIds(outSchemaTable, EDGE_PREFIX, 1)[0];
+                sqlgEdge.setInternalPrimaryKey(RecordId.from(outSchemaTable, id));
+                row = withId(id, keyValueMap);
+            } else if (this.isInStreamingModeWithLock()) {
                 sqlgEdge.setInternalPrimaryKey(RecordId.from(outSchemaTable, ++this.batchIndex));
             }
-            Writer writer = this.streamingEdgeOutputStreamCache.get(outSchemaTable);
-            if (writer == null) {
-                String sql = this.sqlDialect.constructCompleteCopyCommandSqlEdge(sqlgGraph, sqlgEdge, outVertexLabel, inVertexLabel, outVertex, inVertex, keyValueMap);
-                writer = this.sqlDialect.streamSql(this.sqlgGraph, sql);
-                this.streamingEdgeOutputStreamCache.put(outSchemaTable, writer);
-            }
-            this.sqlDialect.writeStreamingEdge(
-                    writer,
-                    sqlgEdge,
-                    outVertexLabel,
-                    inVertexLabel,
-                    outVertex,
-                    inVertex,
-                    keyValueMap,
-                    edgeLabel);
+            RowSink rowSink = this.streamingEdgeOutputStreamCache.get(outSchemaTable);
+            if (rowSink == null) {
+                drainStreamingPipeline();
+                String sql = this.sqlDialect.constructCompleteCopyCommandSqlEdge(sqlgGraph, sqlgEdge, outVertexLabel, inVertexLabel, outVertex, inVertex, row);
+                rowSink = this.sqlDialect.streamRowSink(this.sqlgGraph, sql, streamingKeys(allocateId, this.streamingBatchModeEdgeKeys));
+                this.streamingEdgeOutputStreamCache.put(outSchemaTable, rowSink);
+            }
+            if (this.streamingPipeline != null) {
+                final RowSink pipelineSink = rowSink;
+                final Map<String, Object> pipelineRow = copyRow(row);
+                this.streamingPipeline.submit(() -> pipelineSink.writeEdge(
+                        sqlgEdge,
+                        outVertexLabel,
+                        inVertexLabel,
+                        outVertex,
+                        inVertex,
+                        pipelineRow,
+                        edgeLabel));
+            } else {
+                rowSink.writeEdge(
+                        sqlgEdge,
+                        outVertexLabel,
+                        inVertexLabel,
+                        outVertex,
+                        inVertex,
+                        row,
+                        edgeLabel);
+            }
 
             if (this.isInStreamingModeWithLock()) {
                 this.batchCount++;
@@ -204,8 +449,34 @@ public class BatchManager {
     }
 
     public void flush() {
+        flush(false);
+    }
+
+    private void flush(boolean automatic) {
+        AfterBatchFlush afterBatchFlush = this.sqlgGraph.tx().getAfterBatchFlushFunction();
+        BatchFlushStatistics batchFlushStatistics = null;
+        long start = System.nanoTime();
         this.isBusyFlushing = true;
+        finishStreamingPipeline();
+        if (afterBatchFlush != null) {
+            batchFlushStatistics = new BatchFlushStatistics(
+                    automatic,
+                    this.vertexCache.values().stream().mapToInt(p -> p.getRight().size()).sum(),
+                    this.edgeCache.values().stream().mapToInt(p -> p.getRight().size()).sum(),
+                    this.vertexUpsertCache.values().stream().mapToInt(v -> v.rows.size()).sum(),
+                    this.vertexPropertyCache.values().stream().mapToInt(p -> p.getRight().size()).sum(),
+                    this.edgePropertyCache.values().stream().mapToInt(p -> p.getRight().size()).sum(),
+                    this.removeVertexCache.values().stream().mapToInt(List::size).sum(),
+                    this.removeEdgeCache.values().stream().mapToInt(List::size).sum(),
+                    this.cachedBytes,
+                    0L
+            );
+        }
         this.sqlDialect.flushVertexCache(this.sqlgGraph, this.vertexCache);
+        //the upserted vertices' ids are needed by the edges and property updates.
+        for (VertexUpserts vertexUpserts : this.vertexUpsertCache.values()) {
+            this.sqlDialect.flushVertexUpserts(this.sqlgGraph, vertexUpserts.schemaTable, vertexUpserts.uniqueKeys, vertexUpserts.columns, vertexUpserts.rows);
+        }
         this.sqlDialect.flushEdgeCache(this.sqlgGraph, this.edgeCache);
         this.sqlDialect.flushVertexPropertyCache(this.sqlgGraph, this.vertexPropertyCache);
         this.sqlDialect.flushEdgePropertyCache(this.sqlgGraph, this.edgePropertyCache);
@@ -219,9 +490,55 @@ public class BatchManager {
         this.sqlDialect.flushEdgeGlobalUniqueIndexPropertyCache(this.sqlgGraph, this.edgePropertyCache);
         this.sqlDialect.flushRemovedGlobalUniqueIndexVertices(this.sqlgGraph, this.removeVertexCache);
         this.clear();
+        if (afterBatchFlush != null) {
+            afterBatchFlush.doAfterBatchFlush(batchFlushStatistics.withMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        }
+    }
+
+    /**
+     * Flushes a normal batch mode transaction once the cached rows reach {@link SqlgGraph#BATCH_FLUSH_ROWS} or
+     * {@link SqlgGraph#BATCH_FLUSH_BYTES}. It is called before a row is cached so that the row's element is never half way
+     * through being added when the cache is flushed.
+     */
+    private void autoFlush() {
+        if (this.isInNormalMode() && !this.isBusyFlushing &&
+                ((this.batchFlushRows > 0 && this.cachedRows >= this.batchFlushRows) ||
+                        (this.batchFlushBytes > 0 && this.cachedBytes >= this.batchFlushBytes))) {
+
+            flush(true);
+        }
+    }
+
+    private static long estimateRowSize(Map<String, Object> keyValueMap) {
+        long size = 0;
+        for (Object value : keyValueMap.values()) {
+            size += ENTRY_BYTES + estimateSize(value);
+        }
+        return size;
+    }
+
+    private static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            if (value.getClass().getComponentType().isPrimitive()) {
+                return 16 + 8L * length;
+            }
+            long size = 16 + 8L * length;
+            for (int i = 0; i < length; i++) {
+                size += estimateSize(Array.get(value, i));
+            }
+            return size;
+        } else {
+            return 24;
+        }
     }
 
     public void close() {
+        finishStreamingPipeline();
         this.streamingVertexOutputStreamCache.values().forEach(o -> {
             try {
                 o.close();
@@ -242,18 +559,62 @@ public class BatchManager {
         }
         this.streamingEdgeOutputStreamCache.clear();
         this.streamingBatchModeVertexSchemaTable = null;
-        if (this.streamingBatchModeVertexKeys != null)
-            this.streamingBatchModeVertexKeys.clear();
+        //the next stream's keys are those of its first row.
+        this.streamingBatchModeVertexKeys = null;
 
         this.streamingBatchModeEdgeSchemaTable = null;
-        if (this.streamingBatchModeEdgeKeys != null)
-            this.streamingBatchModeEdgeKeys.clear();
+        this.streamingBatchModeEdgeKeys = null;
+
+    }
 
+    private void drainStreamingPipeline() {
+        if (this.streamingPipeline != null) {
+            this.streamingPipeline.drain();
+        }
+    }
+
+    /**
+     * Waits for the streamed rows to be written, the connection is then free to be used by this thread.
+     */
+    private void finishStreamingPipeline() {
+        try {
+            drainStreamingPipeline();
+        } catch (RuntimeException e) {
+            //the copy commands are incomplete, end them so that the connection can be rolled back.
+            closeStreamsQuietly();
+            throw e;
+        }
+    }
+
+    private void closeStreamsQuietly() {
+        for (RowSink rowSink : this.streamingVertexOutputStreamCache.values()) {
+            try {
+                rowSink.close();
+            } catch (Exception e) {
+                logger.debug("exception closing stream after a streaming failure", e);
+            }
+        }
+        for (RowSink rowSink : this.streamingEdgeOutputStreamCache.values()) {
+            try {
+                rowSink.close();
+            } catch (Exception e) {
+                logger.debug("exception closing stream after a streaming failure", e);
+            }
+        }
+        this.streamingVertexOutputStreamCache.clear();
+        this.streamingEdgeOutputStreamCache.clear();
     }
 
     boolean updateProperty(SqlgElement sqlgElement, String key, Object value) {
+        autoFlush();
+        this.cachedBytes += ENTRY_BYTES + estimateSize(value);
         SchemaTable schemaTable = SchemaTable.of(sqlgElement.getSchema(), sqlgElement.getTable());
         if (Vertex.class.isAssignableFrom(sqlgElement.getClass())) {
+            //an upserted vertex is updated once it is flushed and has its id.
+            if (this.upsertedVertices.containsKey(sqlgElement)) {
+                cacheVertexProperty(schemaTable, (SqlgVertex) sqlgElement, key, value);
+                return true;
+            }
             Pair<SortedSet<String>, Map<SqlgVertex, Map<String, Object>>> triples = this.vertexCache.get(schemaTable);
             if (triples != null) {
                 Map<String, Object> triple = triples.getRight().get(sqlgElement);
@@ -262,36 +623,28 @@ public class BatchManager {
                     triples.getLeft().add(key);
                     return true;
                 }
-            } else {
+                //a vertex with cached updates must keep on being cached, an immediate update would be overwritten by the flush.
                 Pair<SortedSet<String>, Map<SqlgVertex, Map<String, Object>>> schemaVertices = this.vertexPropertyCache.get(schemaTable);
-                //noinspection Java8ReplaceMapGet
-                if (schemaVertices == null) {
-                    schemaVertices = Pair.of(new TreeSet<>(), new LinkedHashMap<>());
-                    this.vertexPropertyCache.put(schemaTable, schemaVertices);
-                }
-                SortedSet<String> keys = schemaVertices.getLeft();
-                keys.add(key);
-                Map<String, Object> properties = schemaVertices.getRight().get(sqlgElement);
-                if (properties == null) {
-                    properties = new LinkedHashMap<>();
-                    schemaVertices.getRight().put((SqlgVertex) sqlgElement, properties);
+                if (schemaVertices != null && schemaVertices.getRight().containsKey(sqlgElement)) {
+                    cacheVertexProperty(schemaTable, (SqlgVertex) sqlgElement, key, value);
+                    return true;
                 }
-                properties.put(key, value);
+            } else {
+                cacheVertexProperty(schemaTable, (SqlgVertex) sqlgElement, key, value);
                 return true;
             }
         } else {
             SqlgEdge sqlgEdge = (SqlgEdge)sqlgElement;
+            MetaEdge cachedMetaEdge = this.cachedEdges.get(sqlgEdge);
+            if (cachedMetaEdge != null) {
+                Pair<SortedSet<String>, Map<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>>> triples = this.edgeCache.get(cachedMetaEdge);
+                triples.getRight().get(sqlgEdge).getRight().put(key, value);
+                triples.getLeft().add(key);
+                return true;
+            }
             MetaEdge metaEdge = MetaEdge.from(schemaTable, sqlgEdge.getOutVertex(), sqlgEdge.getInVertex());
-            Pair<SortedSet<String>, Map<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>>> triples = this.edgeCache.get(metaEdge);
-            if (triples != null) {
-                Triple<SqlgVertex, SqlgVertex, Map<String, Object>> triple = triples.getRight().get(sqlgElement);
-                if (triple != null) {
-                    triple.getRight().put(key, value);
-                    triples.getLeft().add(key);
-                    return true;
-                }
-            } else {
-                Pair<SortedSet<String>, Map<SqlgEdge, Map<String, Object>>> schemaEdges = this.edgePropertyCache.get(schemaTable);
+            Pair<SortedSet<String>, Map<SqlgEdge, Map<String, Object>>> schemaEdges = this.edgePropertyCache.get(schemaTable);
+            if (this.edgeCache.get(metaEdge) == null || (schemaEdges != null && schemaEdges.getRight().containsKey(sqlgEdge))) {
                 if (schemaEdges == null) {
                     schemaEdges = Pair.of(new TreeSet<>(), new LinkedHashMap<>());
                     this.edgePropertyCache.put(schemaTable, schemaEdges);
@@ -300,6 +653,7 @@ public class BatchManager {
                 keys.add(key);
                 Map<String, Object> properties = schemaEdges.getRight().get(sqlgElement);
                 if (properties == null) {
+                    this.cachedRows++;
                     properties = new LinkedHashMap<>();
                     schemaEdges.getRight().put((SqlgEdge) sqlgElement, properties);
                 }
@@ -310,10 +664,32 @@ public class BatchManager {
         return false;
     }
 
+    private void cacheVertexProperty(SchemaTable schemaTable, SqlgVertex sqlgVertex, String key, Object value) {
+        Pair<SortedSet<String>, Map<SqlgVertex, Map<String, Object>>> schemaVertices = this.vertexPropertyCache.get(schemaTable);
+        //noinspection Java8ReplaceMapGet
+        if (schemaVertices == null) {
+            schemaVertices = Pair.of(new TreeSet<>(), new LinkedHashMap<>());
+            this.vertexPropertyCache.put(schemaTable, schemaVertices);
+        }
+        SortedSet<String> keys = schemaVertices.getLeft();
+        keys.add(key);
+        Map<String, Object> properties = schemaVertices.getRight().get(sqlgVertex);
+        if (properties == null) {
+            this.cachedRows++;
+            properties = new LinkedHashMap<>();
+            schemaVertices.getRight().put(sqlgVertex, properties);
+        }
+        properties.put(key, value);
+    }
+
     boolean removeProperty(SqlgProperty sqlgProperty, String key) {
         SqlgElement sqlgElement = (SqlgElement) sqlgProperty.element();
         SchemaTable schemaTable = SchemaTable.of(sqlgElement.getSchema(), sqlgElement.getTable());
         if (Vertex.class.isAssignableFrom(sqlgElement.getClass())) {
+            if (this.upsertedVertices.containsKey(sqlgElement)) {
+                cacheVertexProperty(schemaTable, (SqlgVertex) sqlgElement, key, null);
+                return true;
+            }
             Pair<SortedSet<String>, Map<SqlgVertex, Map<String, Object>>> triples = this.vertexCache.get(schemaTable);
             if (triples != null) {
                 Map<String, Object> triple = triples.getRight().get(sqlgElement);
@@ -323,23 +699,17 @@ public class BatchManager {
                 }
             }
         } else {
-            SqlgEdge sqlgEdge = (SqlgEdge)sqlgElement;
-            MetaEdge metaEdge = MetaEdge.from(schemaTable, sqlgEdge.getOutVertex(), sqlgEdge.getInVertex());
-            Pair<SortedSet<String>, Map<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>>> triples = this.edgeCache.get(metaEdge);
-            if (triples != null) {
-                Triple<SqlgVertex, SqlgVertex, Map<String, Object>> triple = triples.getRight().get(sqlgElement);
-                if (triple != null) {
-                    triple.getRight().remove(key);
-                    return true;
-                }
+            MetaEdge metaEdge = this.cachedEdges.get(sqlgElement);
+            if (metaEdge != null) {
+                this.edgeCache.get(metaEdge).getRight().get(sqlgElement).getRight().remove(key);
+                return true;
             }
         }
         return false;
     }
 
     boolean vertexIsCached(SqlgVertex vertex) {
-        Pair<SortedSet<String>, Map<SqlgVertex, Map<String, Object>>> map = this.vertexCache.get(SchemaTable.of(vertex.getSchema(), vertex.getTable()));
-        return map != null && map.getRight().containsKey(vertex);
+        return this.cachedVertexEdges.containsKey(vertex);
     }
 
     public void clear() {
@@ -349,36 +719,26 @@ public class BatchManager {
         this.removeVertexCache.clear();
         this.edgePropertyCache.clear();
         this.vertexPropertyCache.clear();
+        this.vertexColumns.clear();
+        this.edgeColumns.clear();
+        this.cachedVertexEdges.clear();
+        this.cachedEdges.clear();
+        this.vertexUpsertCache.clear();
+        this.upsertedVertices.clear();
+        this.cachedRows = 0;
+        this.cachedBytes = 0;
     }
 
     void removeVertex(String schema, String table, SqlgVertex vertex) {
+        autoFlush();
         SchemaTable schemaTable = SchemaTable.of(schema, table);
         //check if the vertex is in the newly inserted cache
-        Pair<SortedSet<String>, Map<SqlgVertex, Map<String, Object>>> vertexSortedSetMapPair = this.vertexCache.get(schemaTable);
-        if (vertexSortedSetMapPair != null && vertexSortedSetMapPair.getRight().containsKey(vertex)) {
-            vertexSortedSetMapPair.getRight().remove(vertex);
+        List<SqlgEdge> incidentEdges = this.cachedVertexEdges.remove(vertex);
+        if (incidentEdges != null) {
+            this.vertexCache.get(schemaTable).getRight().remove(vertex);
             //all the edges of a new vertex must also be new
-            Set<MetaEdge> toRemoveMetaEdges = new HashSet<>();
-            for (Map.Entry<MetaEdge, Pair<SortedSet<String>, Map<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>>>> metaEdgePairEntry : this.edgeCache.entrySet()) {
-                MetaEdge metaEdge = metaEdgePairEntry.getKey();
-                Pair<SortedSet<String>, Map<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>>> edges = metaEdgePairEntry.getValue();
-                Set<SqlgEdge> toRemove = new HashSet<>();
-                for (Map.Entry<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>> sqlgEdgeTripleEntry : edges.getRight().entrySet()) {
-                    SqlgEdge sqlgEdge = sqlgEdgeTripleEntry.getKey();
-                    Triple<SqlgVertex, SqlgVertex, Map<String, Object>> inOutVertices = sqlgEdgeTripleEntry.getValue();
-                    if (inOutVertices.getLeft().equals(vertex) || inOutVertices.getMiddle().equals(vertex)) {
-                        toRemove.add(sqlgEdge);
-                    }
-                }
-                for (SqlgEdge sqlgEdge : toRemove) {
-                    edges.getRight().remove(sqlgEdge);
-                }
-                if (edges.getRight().isEmpty()) {
-                    toRemoveMetaEdges.add(metaEdge);
-                }
-            }
-            for (MetaEdge toRemoveMetaEdge : toRemoveMetaEdges) {
-                this.edgeCache.remove(toRemoveMetaEdge);
+            for (SqlgEdge sqlgEdge : incidentEdges) {
+                removeCachedEdge(sqlgEdge);
             }
         } else {
             List<SqlgVertex> vertices = this.removeVertexCache.get(schemaTable);
@@ -387,26 +747,40 @@ public class BatchManager {
                 this.removeVertexCache.put(schemaTable, vertices);
             }
             vertices.add(vertex);
+            this.cachedRows++;
         }
     }
 
     void removeEdge(String schema, String table, SqlgEdge edge) {
+        autoFlush();
         SchemaTable schemaTable = SchemaTable.of(schema, table);
         //check it the edge is in the newly inserted cache
-
-        MetaEdge metaEdge = MetaEdge.from(schemaTable, edge.getOutVertex(), edge.getInVertex());
-
-        Pair<SortedSet<String>, Map<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>>> sqlgEdgeTripleMap = this.edgeCache.get(metaEdge);
-        if (sqlgEdgeTripleMap != null && sqlgEdgeTripleMap.getRight().containsKey(edge)) {
-            sqlgEdgeTripleMap.getRight().remove(edge);
-        } else {
+        if (!removeCachedEdge(edge)) {
             List<SqlgEdge> edges = this.removeEdgeCache.get(schemaTable);
             if (edges == null) {
                 edges = new ArrayList<>();
                 this.removeEdgeCache.put(schemaTable, edges);
             }
             edges.add(edge);
+            this.cachedRows++;
+        }
+    }
+
+    /**
+     * @return false if the edge is not in the edgeCache.
+     */
+    private boolean removeCachedEdge(SqlgEdge sqlgEdge) {
+        MetaEdge metaEdge = this.cachedEdges.remove(sqlgEdge);
+        if (metaEdge == null) {
+            return false;
         }
+        Map<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>> edges = this.edgeCache.get(metaEdge).getRight();
+        edges.remove(sqlgEdge);
+        if (edges.isEmpty()) {
+            this.edgeCache.remove(metaEdge);
+            this.edgeColumns.remove(metaEdge);
+        }
+        return true;
     }
 
     SchemaTable getStreamingBatchModeVertexSchemaTable() {
@@ -441,4 +815,19 @@ public class BatchManager {
         return isBusyFlushing;
     }
 
+    private static final class VertexUpserts {
+        private final SchemaTable schemaTable;
+        private final List<String> uniqueKeys;
+        //the columns of all the rows, a row without one of them upserts it as null, as the vertexCache's rows are.
+        private final SortedSet<String> columns = new TreeSet<>();
+        private final Map<SqlgVertex, Map<String, Object>> rows = new LinkedHashMap<>();
+        //the cached vertex per unique values
+        private final Map<List<Object>, SqlgVertex> vertices = new HashMap<>();
+
+        private VertexUpserts(SchemaTable schemaTable, List<String> uniqueKeys) {
+            this.schemaTable = schemaTable;
+            this.uniqueKeys = uniqueKeys;
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,339 @@
+package org.umlg.sqlg.structure;
+
+import java.lang.reflect.Array;
+import java.util.*;
+
+/**
+ * A row of the {@link BatchManager}'s vertex and edge caches.
+ * The values are held per label in {@link Columns}, one {@link Column} per property, the row itself is only its index in
+ * the label's columns. This replaces a {@link LinkedHashMap} per row, i.e. a hash table and an entry object per property.
+ * <p>
+ * The row is a {@link Map} view over the columns for the dialects' flushers.
+ * A key that is not present in the row, as opposed to present with a null value, is not in the map.
+ */
+final class BatchRow extends AbstractMap<String, Object> {
+
+    private final Columns columns;
+    private final int row;
+
+    BatchRow(Columns columns, Map<String, Object> keyValueMap) {
+        this.columns = columns;
+        this.row = columns.newRow();
+        for (Entry<String, Object> entry : keyValueMap.entrySet()) {
+            columns.add(entry.getKey()).set(this.row, entry.getValue());
+        }
+    }
+
+    @Override
+    public Object get(Object key) {
+        Column column = this.columns.get(key);
+        return column == null ? null : column.get(this.row);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Column column = this.columns.get(key);
+        return column != null && column.isPresent(this.row);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return this.columns.add(key).set(this.row, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        Column column = this.columns.get(key);
+        return column == null ? null : column.remove(this.row);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                int size = 0;
+                for (Column column : BatchRow.this.columns.columns) {
+                    if (column.isPresent(BatchRow.this.row)) {
+                        size++;
+                    }
+                }
+                return size;
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private final List<Column> columns = BatchRow.this.columns.columns;
+        private int next = -1;
+        private Column current;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            do {
+                this.next++;
+            } while (this.next < this.columns.size() && !this.columns.get(this.next).isPresent(BatchRow.this.row));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next < this.columns.size();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Column column = this.columns.get(this.next);
+            this.current = column;
+            advance();
+            return new SimpleEntry<String, Object>(column.name, column.get(BatchRow.this.row)) {
+                @Override
+                public Object setValue(Object value) {
+                    column.set(BatchRow.this.row, value);
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (this.current == null) {
+                throw new IllegalStateException();
+            }
+            this.current.remove(BatchRow.this.row);
+            this.current = null;
+        }
+    }
+
+    /**
+     * The columns of a label's cached rows, in the order they were first seen.
+     */
+    static final class Columns {
+
+        private final Map<String, Column> byName = new HashMap<>();
+        private final List<Column> columns = new ArrayList<>();
+        private int rows;
+
+        int newRow() {
+            return this.rows++;
+        }
+
+        Column get(Object key) {
+            return this.byName.get(key);
+        }
+
+        Column add(String key) {
+            Column column = this.byName.get(key);
+            if (column == null) {
+                column = new Column(key);
+                this.byName.put(key, column);
+                this.columns.add(column);
+            }
+            return column;
+        }
+    }
+
+    /**
+     * The values of one property of a label's cached rows.
+     * Long, Integer and Double values are held in primitive arrays and Boolean values in a bitmap, any other value, or a
+     * column whose values are of mixed types, in an Object array. Which rows have the property and which of those are null
+     * is held in bitmaps.
+     * <p>
+     * The value array is allocated on the first non-null value and only spans the rows from the first to the last one that
+     * has a value, so a property that only a few rows of the label have does not take a slot in every row.
+     */
+    static final class Column {
+
+        private enum Kind {
+            LONG, INTEGER, DOUBLE, BOOLEAN, OBJECT;
+
+            static Kind of(Object value) {
+                if (value instanceof Long) {
+                    return LONG;
+                } else if (value instanceof Integer) {
+                    return INTEGER;
+                } else if (value instanceof Double) {
+                    return DOUBLE;
+                } else if (value instanceof Boolean) {
+                    return BOOLEAN;
+                } else {
+                    return OBJECT;
+                }
+            }
+
+            Object newArray(int length) {
+                switch (this) {
+                    case LONG:
+                        return new long[length];
+                    case INTEGER:
+                        return new int[length];
+                    case DOUBLE:
+                        return new double[length];
+                    case OBJECT:
+                        return new Object[length];
+                    default:
+                        throw new IllegalStateException("Unhandled kind " + this.name());
+                }
+            }
+        }
+
+        private static final int INITIAL_CAPACITY = 8;
+
+        private final String name;
+        private final BitSet present = new BitSet();
+        private final BitSet nulls = new BitSet();
+        //null until the column's first non-null value
+        private Kind kind;
+        //the primitive or Object array of a non BOOLEAN column, values[i] is the value of row first + i
+        private Object values;
+        private int first = -1;
+        //the values of a BOOLEAN column, by row
+        private BitSet booleans;
+
+        Column(String name) {
+            this.name = name;
+        }
+
+        boolean isPresent(int row) {
+            return this.present.get(row);
+        }
+
+        Object get(int row) {
+            if (!this.present.get(row) || this.nulls.get(row)) {
+                return null;
+            }
+            switch (this.kind) {
+                case LONG:
+                    return ((long[]) this.values)[row - this.first];
+                case INTEGER:
+                    return ((int[]) this.values)[row - this.first];
+                case DOUBLE:
+                    return ((double[]) this.values)[row - this.first];
+                case BOOLEAN:
+                    return this.booleans.get(row);
+                case OBJECT:
+                    return ((Object[]) this.values)[row - this.first];
+                default:
+                    throw new IllegalStateException("Unhandled kind " + this.kind.name());
+            }
+        }
+
+        /**
+         * @return The row's previous value, null if it had none.
+         */
+        Object set(int row, Object value) {
+            Object old = get(row);
+            this.present.set(row);
+            if (value == null) {
+                if (this.kind == Kind.OBJECT && old != null) {
+                    ((Object[]) this.values)[row - this.first] = null;
+                }
+                this.nulls.set(row);
+                return old;
+            }
+            this.nulls.clear(row);
+            Kind kind = Kind.of(value);
+            if (this.kind == null) {
+                this.kind = kind;
+            } else if (this.kind != kind && this.kind != Kind.OBJECT) {
+                toObjects();
+            }
+            if (this.kind == Kind.BOOLEAN) {
+                if (this.booleans == null) {
+                    this.booleans = new BitSet();
+                }
+                this.booleans.set(row, (Boolean) value);
+                return old;
+            }
+            ensureCapacity(row);
+            int index = row - this.first;
+            switch (this.kind) {
+                case LONG:
+                    ((long[]) this.values)[index] = (Long) value;
+                    break;
+                case INTEGER:
+                    ((int[]) this.values)[index] = (Integer) value;
+                    break;
+                case DOUBLE:
+                    ((double[]) this.values)[index] = (Double) value;
+                    break;
+                case OBJECT:
+                    ((Object[]) this.values)[index] = value;
+                    break;
+                default:
+                    throw new IllegalStateException("Unhandled kind " + this.kind.name());
+            }
+            return old;
+        }
+
+        /**
+         * @return The row's previous value, null if it had none.
+         */
+        Object remove(int row) {
+            Object old = get(row);
+            if (this.kind == Kind.OBJECT && this.present.get(row) && !this.nulls.get(row)) {
+                //let go of the value
+                ((Object[]) this.values)[row - this.first] = null;
+            }
+            this.present.clear(row);
+            this.nulls.clear(row);
+            return old;
+        }
+
+        private void ensureCapacity(int row) {
+            if (this.values == null) {
+                this.first = row;
+                this.values = this.kind.newArray(INITIAL_CAPACITY);
+                return;
+            }
+            int capacity = Array.getLength(this.values);
+            if (row < this.first) {
+                //an earlier row than any before it got a value, the array is extended at its front.
+                int shift = this.first - row;
+                resize(shift, capacity + shift);
+                this.first = row;
+            } else if (row - this.first >= capacity) {
+                resize(0, Math.max(row - this.first + 1, capacity + (capacity >> 1)));
+            }
+        }
+
+        private void resize(int offset, int capacity) {
+            Object resized = this.kind.newArray(capacity);
+            System.arraycopy(this.values, 0, resized, offset, Array.getLength(this.values));
+            this.values = resized;
+        }
+
+        /**
+         * A value of another type than the column's, the values are boxed into an Object array.
+         */
+        private void toObjects() {
+            int last = this.present.length() - 1;
+            Object[] objects = null;
+            int objectsFirst = -1;
+            for (int row = this.present.nextSetBit(0); row >= 0; row = this.present.nextSetBit(row + 1)) {
+                if (!this.nulls.get(row)) {
+                    if (objects == null) {
+                        objectsFirst = row;
+                        objects = new Object[Math.max(INITIAL_CAPACITY, last - row + 1)];
+                    }
+                    objects[row - objectsFirst] = get(row);
+                }
+            }
+            this.kind = Kind.OBJECT;
+            this.values = objects;
+            this.first = objectsFirst;
+            this.booleans = null;
+        }
+    }
+}
@@ -6,13 +6,19 @@ import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
- * Cache all statements to close them when iteration is done
+ * Cache all statements to close them when iteration is done.
+ * Statements that came from the {@link StatementCache} are released to it instead of being closed.
  * Date: 2016/05/15
  * Time: 2:24 PM
  */
 public class PreparedStatementCache {
 
     private final Map<PreparedStatement,Boolean> cache = new IdentityHashMap<>();
+    private final StatementCache statementCache;
+
+    PreparedStatementCache(StatementCache statementCache) {
+        this.statementCache = statementCache;
+    }
 
     void add(PreparedStatement preparedStatement) {
         this.cache.put(preparedStatement,Boolean.TRUE);
@@ -24,7 +30,7 @@ public class PreparedStatementCache {
     
     public void close() throws SQLException {
         for (PreparedStatement preparedStatement : this.cache.keySet()) {
-            preparedStatement.close();
+            this.statementCache.release(preparedStatement);
         }
         this.cache.clear();
     }
@@ -0,0 +1,63 @@
+package org.umlg.sqlg.structure;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the distinct queries that are executed in the background, see {@link SqlgGraph#QUERY_PREFETCH_DEPTH},
+ * of the queries that execute on a shared snapshot, see {@link SqlgGraph#QUERY_PARALLEL_THREADS},
+ * and of the chunks the vertex steps query their starts in, see {@link SqlgGraph#VERTEX_STEP_BARRIER_SIZE}.
+ */
+public class QueryMetrics {
+
+    private final AtomicInteger prefetchDepth = new AtomicInteger();
+    private final AtomicLong prefetched = new AtomicLong();
+    private final AtomicLong vertexStepBarriers = new AtomicLong();
+    private final AtomicLong snapshotQueries = new AtomicLong();
+
+    void prefetchSubmitted() {
+        this.prefetchDepth.incrementAndGet();
+        this.prefetched.incrementAndGet();
+    }
+
+    void prefetchConsumed() {
+        this.prefetchDepth.decrementAndGet();
+    }
+
+    public void vertexStepBarrier() {
+        this.vertexStepBarriers.incrementAndGet();
+    }
+
+    public void snapshotQuery() {
+        this.snapshotQueries.incrementAndGet();
+    }
+
+    /**
+     * @return The number of prefetched queries, over all traversals, that are submitted but not yet consumed.
+     */
+    public int getPrefetchDepth() {
+        return this.prefetchDepth.get();
+    }
+
+    /**
+     * @return The number of queries that have been prefetched since the graph was opened.
+     */
+    public long getPrefetched() {
+        return this.prefetched.get();
+    }
+
+    /**
+     * @return The number of times a vertex step pulled a chunk of its starts to query for, since the graph was opened.
+     */
+    public long getVertexStepBarriers() {
+        return this.vertexStepBarriers.get();
+    }
+
+    /**
+     * @return The number of distinct queries that executed on a pooled connection that imported a transaction's snapshot,
+     * since the graph was opened.
+     */
+    public long getSnapshotQueries() {
+        return this.snapshotQueries.get();
+    }
+}
@@ -0,0 +1,149 @@
+package org.umlg.sqlg.structure;
+
+import org.umlg.sqlg.structure.topology.Topology;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.umlg.sqlg.structure.topology.Topology.VERTEX_PREFIX;
+
+/**
+ * Hands out the ids of the ID primary key sequences to the batch flushes and to the streamed vertices and edges.
+ * A streaming batch mode with the allocator knows the ids of the streamed elements without locking the table.
+ * The ids are reserved from a label's sequence in blocks of at least {@link #ID_BLOCK_SIZE} with one round trip,
+ * the ids left over after a flush are handed out to the next flush, of any transaction, on the same label.
+ * <p>
+ * The block is reserved with the sequence's nextval, not by moving the sequence with setval, so a concurrent insert
+ * that takes its id from the column's default never collides with a reserved id. The ids of a block need not be contiguous.
+ * A reserved id that is not used before the graph is closed leaves a gap in the sequence, just as a rolled back insert does.
+ * <p>
+ * The blocks of a label are discarded when a label or schema is deleted as the sequence is dropped with it.
+ * The blocks of a label created by the current transaction are kept by the transaction's thread, on rollback they are
+ * discarded with the label's sequence, on commit they are shared.
+ * <p>
+ * The allocator is disabled by default, see {@link #ID_BLOCK_SIZE}, and only used by dialects that
+ * {@link org.umlg.sqlg.sql.dialect.SqlDialect#supportsSequenceIdAllocation()}.
+ */
+public class SequenceIdAllocator implements TopologyListener {
+
+    /**
+     * The minimum number of ids reserved from a label's sequence at a time.
+     * 0, the default, reserves exactly the number of ids a flush needs.
+     */
+    public static final String ID_BLOCK_SIZE = "id.block.size";
+
+    private final SqlgGraph sqlgGraph;
+    private final int blockSize;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+    //the blocks of the labels that are not yet committed, per transaction
+    private final ThreadLocal<Map<String, Block>> uncommittedBlocks = ThreadLocal.withInitial(HashMap::new);
+
+    SequenceIdAllocator(SqlgGraph sqlgGraph) {
+        this.sqlgGraph = sqlgGraph;
+        this.blockSize = sqlgGraph.configuration().getInt(ID_BLOCK_SIZE, 0);
+    }
+
+    public boolean isEnabled() {
+        return this.blockSize > 0 && this.sqlgGraph.getSqlDialect().supportsSequenceIdAllocation();
+    }
+
+    /**
+     * @param schemaTable The label, without its prefix.
+     * @param prefix      {@link org.umlg.sqlg.structure.topology.Topology#VERTEX_PREFIX} or {@link org.umlg.sqlg.structure.topology.Topology#EDGE_PREFIX}
+     * @param count       The number of ids needed.
+     * @return count unique ids of the label's sequence.
+     */
+    public long[] nextIds(SchemaTable schemaTable, String prefix, int count) {
+        if (!isEnabled()) {
+            return this.sqlgGraph.getSqlDialect().nextSequenceValues(this.sqlgGraph, schemaTable, prefix, count);
+        }
+        String key = prefix + schemaTable.toString();
+        Block block;
+        if (isUncommitted(schemaTable, prefix)) {
+            block = this.uncommittedBlocks.get().computeIfAbsent(key, k -> new Block());
+        } else {
+            block = this.blocks.computeIfAbsent(key, k -> new Block());
+        }
+        long[] result = new long[count];
+        synchronized (block) {
+            int available = block.ids.length - block.cursor;
+            if (available < count) {
+                long[] reserved = this.sqlgGraph.getSqlDialect().nextSequenceValues(this.sqlgGraph, schemaTable, prefix, Math.max(count - available, this.blockSize));
+                long[] ids = new long[available + reserved.length];
+                System.arraycopy(block.ids, block.cursor, ids, 0, available);
+                System.arraycopy(reserved, 0, ids, available, reserved.length);
+                block.ids = ids;
+                block.cursor = 0;
+            }
+            System.arraycopy(block.ids, block.cursor, result, 0, count);
+            block.cursor += count;
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of reserved ids of the label that are not yet handed out.
+     */
+    public int available(SchemaTable schemaTable, String prefix) {
+        String key = prefix + schemaTable.toString();
+        Block block = this.blocks.get(key);
+        if (block == null) {
+            block = this.uncommittedBlocks.get().get(key);
+        }
+        if (block == null) {
+            return 0;
+        }
+        synchronized (block) {
+            return block.ids.length - block.cursor;
+        }
+    }
+
+    /**
+     * Shares the blocks of the labels the transaction created.
+     */
+    void afterCommit() {
+        Map<String, Block> uncommitted = this.uncommittedBlocks.get();
+        if (!uncommitted.isEmpty()) {
+            this.blocks.putAll(uncommitted);
+            uncommitted.clear();
+        }
+    }
+
+    /**
+     * Discards the blocks of the labels the transaction created, their sequences are rolled back with them.
+     * The dialects without a transactional schema keep the labels, their blocks are shared as on commit.
+     */
+    void afterRollback() {
+        if (this.sqlgGraph.getSqlDialect().supportsTransactionalSchema()) {
+            this.uncommittedBlocks.get().clear();
+        } else {
+            afterCommit();
+        }
+    }
+
+    private boolean isUncommitted(SchemaTable schemaTable, String prefix) {
+        Topology topology = this.sqlgGraph.getTopology();
+        Optional<? extends TopologyInf> label;
+        if (prefix.equals(VERTEX_PREFIX)) {
+            label = topology.getVertexLabel(schemaTable.getSchema(), schemaTable.getTable());
+        } else {
+            label = topology.getEdgeLabel(schemaTable.getSchema(), schemaTable.getTable());
+        }
+        return label.map(TopologyInf::isUncommitted).orElse(true);
+    }
+
+    @Override
+    public void change(TopologyInf topologyInf, String oldValue, TopologyChangeAction action) {
+        if (action == TopologyChangeAction.DELETE) {
+            this.blocks.clear();
+            this.uncommittedBlocks.get().clear();
+        }
+    }
+
+    private static final class Block {
+        private long[] ids = new long[0];
+        private int cursor;
+    }
+}
@@ -1,9 +1,14 @@
 package org.umlg.sqlg.structure;
 
+import com.google.common.base.Preconditions;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
+import org.apache.tinkerpop.gremlin.structure.util.CloseableIterator;
 import org.apache.tinkerpop.gremlin.util.iterator.EmptyIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.umlg.sqlg.sql.parse.SchemaTableTree;
+import org.umlg.sqlg.sql.parse.SqlPlanCache;
 import org.umlg.sqlg.strategy.Emit;
 import org.umlg.sqlg.strategy.SqlgSqlExecutor;
 import org.umlg.sqlg.util.SqlgUtil;
@@ -13,12 +18,16 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Date: 2015/07/01
  * Time: 2:03 PM
  */
-public class SqlgCompiledResultIterator<E> implements Iterator<E> {
+public class SqlgCompiledResultIterator<E> implements CloseableIterator<E> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlgCompiledResultIterator.class);
 
     private final SqlgGraph sqlgGraph;
     private final Set<SchemaTableTree> rootSchemaTableTrees;
@@ -37,7 +46,27 @@ public class SqlgCompiledResultIterator<E> implements Iterator<E> {
 
     private List<LinkedList<SchemaTableTree>> subQueryStacks;
 
+    private Set<SchemaTableTree> regularSchemaTableTrees;
+    private boolean submitChecked = false;
+    //The distinct queries of the regular root trees, if they are executed in the background.
+    private Map<SchemaTableTree, List<LinkedList<SchemaTableTree>>> submittedDistinctQueries;
+    //The submitted distinct queries that have not been consumed yet, with the sql plan to load their rows.
+    private Map<LinkedList<SchemaTableTree>, Pair<SqlPlanCache.SqlPlan, Future<SqlgSqlExecutor.SnapshotQuery>>> submittedResults;
+    //For prefetching, the distinct queries not yet submitted, in the order of the sequential execution.
+    private LinkedList<Pair<SchemaTableTree, LinkedList<SchemaTableTree>>> unsubmittedDistinctQueries;
+    private int prefetchDepth;
+    private String prefetchSnapshot;
+    //The background queries that have executed but are not consumed yet, closed if the iterator is closed first.
+    private final Set<SqlgSqlExecutor.SnapshotQuery> openSnapshotQueries = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile boolean closed = false;
+
+    private Iterator<List<SchemaTableTree>> unionAllBatchIterator = EmptyIterator.instance();
+    private List<SchemaTableTree> currentUnionAllBatch;
+    private List<LinkedHashMap<String, PropertyType>> currentUnionAllColumns;
+
     private Triple<ResultSet, ResultSetMetaData, PreparedStatement> queryResult;
+    //The background query whose result set is the queryResult, closed with it.
+    private SqlgSqlExecutor.SnapshotQuery snapshotQuery;
 
     private List<Emit<SqlgElement>> elements = null;
 
@@ -55,6 +84,7 @@ public class SqlgCompiledResultIterator<E> implements Iterator<E> {
     private QUERY queryState = QUERY.REGULAR;
 
     private enum QUERY {
+        UNION_ALL,
         REGULAR,
         OPTIONAL,
         EMIT
@@ -70,10 +100,28 @@ public class SqlgCompiledResultIterator<E> implements Iterator<E> {
         this.rootSchemaTableTreeIterator = rootSchemaTableTrees.iterator();
         this.lazy = sqlgGraph.tx().isLazyQueries();
         this.forParent = forParent;
+        this.regularSchemaTableTrees = rootSchemaTableTrees;
+        if (!forParent) {
+            //label-less scans are batched, the remaining trees are executed one by one.
+            List<List<SchemaTableTree>> unionAllBatches = SchemaTableTree.unionAllBatches(sqlgGraph, rootSchemaTableTrees);
+            if (!unionAllBatches.isEmpty()) {
+                Set<SchemaTableTree> regularSchemaTableTrees = new LinkedHashSet<>(rootSchemaTableTrees);
+                for (List<SchemaTableTree> unionAllBatch : unionAllBatches) {
+                    regularSchemaTableTrees.removeAll(unionAllBatch);
+                }
+                this.regularSchemaTableTrees = regularSchemaTableTrees;
+                this.rootSchemaTableTreeIterator = regularSchemaTableTrees.iterator();
+                this.unionAllBatchIterator = unionAllBatches.iterator();
+                this.queryState = QUERY.UNION_ALL;
+            }
+        }
     }
 
     @Override
     public boolean hasNext() {
+        if (this.closed) {
+            return false;
+        }
         if (this.lazy) {
             return hasNextLazy();
         }
@@ -98,7 +146,35 @@ public class SqlgCompiledResultIterator<E> implements Iterator<E> {
         try {
             while (true) {
                 switch (this.queryState) {
+                    case UNION_ALL:
+                        if (this.elements != null) {
+                            return true;
+                        } else {
+                            if (this.queryResult != null) {
+                                iterateUnionAllQueries();
+                            }
+                            if (this.elements == null) {
+                                closePreparedStatement();
+                                if (this.unionAllBatchIterator.hasNext()) {
+                                    this.currentUnionAllBatch = this.unionAllBatchIterator.next();
+                                    this.currentUnionAllColumns = new ArrayList<>();
+                                    for (SchemaTableTree schemaTableTree : this.currentUnionAllBatch) {
+                                        this.currentUnionAllColumns.add(schemaTableTree.unionAllColumns());
+                                    }
+                                    executeUnionAllQuery();
+                                } else {
+                                    this.queryState = QUERY.REGULAR;
+                                }
+                            }
+                        }
+                        break;
                     case REGULAR:
+                        if (!this.submitChecked) {
+                            this.submitChecked = true;
+                            if (!executeParallelQueries()) {
+                                prefetchQueries();
+                            }
+                        }
                         if (this.elements != null) {
                             return true;
                         } else {
@@ -125,7 +201,11 @@ public class SqlgCompiledResultIterator<E> implements Iterator<E> {
                                     //try the next rootSchemaTableTree
                                     if (this.rootSchemaTableTreeIterator.hasNext()) {
                                         this.currentRootSchemaTableTree = this.rootSchemaTableTreeIterator.next();
-                                        this.distinctQueriesIterator = this.currentRootSchemaTableTree.constructDistinctQueries().iterator();
+                                        if (this.submittedDistinctQueries != null) {
+                                            this.distinctQueriesIterator = this.submittedDistinctQueries.get(this.currentRootSchemaTableTree).iterator();
+                                        } else {
+                                            this.distinctQueriesIterator = this.currentRootSchemaTableTree.constructDistinctQueries().iterator();
+                                        }
                                     } else {
                                         if (this.currentRootSchemaTableTree != null) {
                                             this.currentRootSchemaTableTree.resetColumnAliasMaps();
@@ -243,12 +323,169 @@ public class SqlgCompiledResultIterator<E> implements Iterator<E> {
         return (E) result;
     }
 
+    private void executeUnionAllQuery() {
+        this.queryResult = SqlgSqlExecutor.executeUnionAllQuery(this.sqlgGraph, this.currentUnionAllBatch, this.currentUnionAllColumns);
+    }
+
     private void executeDropQuery() {
         SqlgSqlExecutor.executeDropQuery(this.sqlgGraph, this.currentRootSchemaTableTree, this.currentDistinctQueryStack);
     }
 
     private void executeRegularQuery() {
-        this.queryResult = SqlgSqlExecutor.executeRegularQuery(this.sqlgGraph, this.currentRootSchemaTableTree, this.currentDistinctQueryStack);
+        if (this.submittedResults != null) {
+            submitPrefetchQueries();
+            Pair<SqlPlanCache.SqlPlan, Future<SqlgSqlExecutor.SnapshotQuery>> result = this.submittedResults.remove(this.currentDistinctQueryStack);
+            Preconditions.checkState(result != null, "The distinct query must have been submitted.");
+            //restore the alias maps needed to load the rows.
+            this.currentRootSchemaTableTree.restoreSqlPlan(result.getLeft(), this.currentDistinctQueryStack);
+            try {
+                this.snapshotQuery = result.getRight().get();
+                synchronized (this.openSnapshotQueries) {
+                    this.openSnapshotQueries.remove(this.snapshotQuery);
+                }
+                this.queryResult = Triple.of(this.snapshotQuery.getResultSet(), this.snapshotQuery.getResultSetMetaData(), null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e);
+            } finally {
+                if (this.prefetchDepth > 0) {
+                    this.sqlgGraph.getQueryMetrics().prefetchConsumed();
+                }
+            }
+        } else {
+            this.queryResult = SqlgSqlExecutor.executeRegularQuery(this.sqlgGraph, this.currentRootSchemaTableTree, this.currentDistinctQueryStack);
+        }
+    }
+
+    /**
+     * Constructs the distinct queries of the regular root trees up front, if they are to be executed in the background.
+     *
+     * @return The distinct queries per root tree or null if a query is a drop, joins on the incoming ids' temporary table
+     * or there are less than 2 queries.
+     */
+    private Map<SchemaTableTree, List<LinkedList<SchemaTableTree>>> constructDistinctQueriesToSubmit() {
+        if (this.sqlgGraph.getQueryExecutor() == null || this.sqlgGraph.tx().isInBatchMode()) {
+            return null;
+        }
+        Map<SchemaTableTree, List<LinkedList<SchemaTableTree>>> distinctQueries = new HashMap<>();
+        int count = 0;
+        for (SchemaTableTree rootSchemaTableTree : this.regularSchemaTableTrees) {
+            if (rootSchemaTableTree.hasParentIdsInTempTable()) {
+                return null;
+            }
+            List<LinkedList<SchemaTableTree>> distinctQueryStacks = rootSchemaTableTree.constructDistinctQueries();
+            for (LinkedList<SchemaTableTree> distinctQueryStack : distinctQueryStacks) {
+                if (distinctQueryStack.getLast().isDrop()) {
+                    return null;
+                }
+            }
+            distinctQueries.put(rootSchemaTableTree, distinctQueryStacks);
+            count += distinctQueryStacks.size();
+        }
+        return count < 2 ? null : distinctQueries;
+    }
+
+    /**
+     * If {@link SqlgGraph#QUERY_PARALLEL_THREADS} is configured the distinct queries of a read only traversal are
+     * submitted to the graph's query executor, on connections that share the transaction's snapshot.
+     * The sql is constructed on this thread, the results are consumed in the same order as the sequential execution.
+     * A root tree's alias maps are shared by its distinct queries so they are restored from the query's sql plan before its rows are loaded.
+     */
+    private boolean executeParallelQueries() {
+        if (this.forParent || !this.sqlgGraph.isParallelQueries()) {
+            return false;
+        }
+        Map<SchemaTableTree, List<LinkedList<SchemaTableTree>>> distinctQueries = constructDistinctQueriesToSubmit();
+        if (distinctQueries == null) {
+            return false;
+        }
+        String snapshot = this.sqlgGraph.getSqlDialect().exportSnapshot(this.sqlgGraph.tx().getConnection());
+        if (snapshot == null) {
+            return false;
+        }
+        Map<LinkedList<SchemaTableTree>, Pair<SqlPlanCache.SqlPlan, Future<SqlgSqlExecutor.SnapshotQuery>>> results = new IdentityHashMap<>();
+        for (SchemaTableTree rootSchemaTableTree : this.regularSchemaTableTrees) {
+            for (LinkedList<SchemaTableTree> distinctQueryStack : distinctQueries.get(rootSchemaTableTree)) {
+                results.put(distinctQueryStack, submitSnapshotQuery(rootSchemaTableTree, distinctQueryStack, snapshot));
+            }
+        }
+        this.submittedDistinctQueries = distinctQueries;
+        this.submittedResults = results;
+        return true;
+    }
+
+    /**
+     * Constructs the sql on this thread and executes it on the query executor, on a pooled connection that imports the snapshot.
+     */
+    private Pair<SqlPlanCache.SqlPlan, Future<SqlgSqlExecutor.SnapshotQuery>> submitSnapshotQuery(
+            SchemaTableTree rootSchemaTableTree,
+            LinkedList<SchemaTableTree> distinctQueryStack,
+            String snapshot) {
+
+        SqlPlanCache.SqlPlan sqlPlan = rootSchemaTableTree.constructSqlPlan(distinctQueryStack);
+        String sql = sqlPlan.getSql();
+        Integer fetchSize = this.sqlgGraph.tx().getFetchSize();
+        return Pair.of(sqlPlan, this.sqlgGraph.getQueryExecutor().submit(() -> {
+            SqlgSqlExecutor.SnapshotQuery snapshotQuery = SqlgSqlExecutor.executeSnapshotQuery(this.sqlgGraph, sql, distinctQueryStack, snapshot, fetchSize);
+            synchronized (this.openSnapshotQueries) {
+                if (!this.closed) {
+                    this.openSnapshotQueries.add(snapshotQuery);
+                    return snapshotQuery;
+                }
+            }
+            //the iterator was closed while the query executed.
+            snapshotQuery.close();
+            return null;
+        }));
+    }
+
+    /**
+     * If 'query.prefetch.depth' is configured the next distinct queries are executed in the background while the
+     * current query's rows are loaded.
+     * The transaction's connection is bound to this thread so, as for {@link SqlgGraph#QUERY_PARALLEL_THREADS}, the
+     * queries execute on pooled connections that share the transaction's snapshot.
+     * If the dialect can not share the snapshot, e.g. the transaction has written, the queries execute sequentially.
+     */
+    private void prefetchQueries() {
+        int depth = this.sqlgGraph.getQueryPrefetchDepth();
+        if (depth < 1 || !this.sqlgGraph.getSqlDialect().supportsSharedSnapshot()) {
+            return;
+        }
+        Map<SchemaTableTree, List<LinkedList<SchemaTableTree>>> distinctQueries = constructDistinctQueriesToSubmit();
+        if (distinctQueries == null) {
+            return;
+        }
+        String snapshot = this.sqlgGraph.getSqlDialect().exportSnapshot(this.sqlgGraph.tx().getConnection());
+        if (snapshot == null) {
+            return;
+        }
+        this.prefetchSnapshot = snapshot;
+        this.unsubmittedDistinctQueries = new LinkedList<>();
+        for (SchemaTableTree rootSchemaTableTree : this.regularSchemaTableTrees) {
+            for (LinkedList<SchemaTableTree> distinctQueryStack : distinctQueries.get(rootSchemaTableTree)) {
+                this.unsubmittedDistinctQueries.add(Pair.of(rootSchemaTableTree, distinctQueryStack));
+            }
+        }
+        this.prefetchDepth = depth;
+        this.submittedDistinctQueries = distinctQueries;
+        this.submittedResults = new IdentityHashMap<>();
+    }
+
+    /**
+     * Submits the current and up to prefetchDepth following distinct queries.
+     */
+    private void submitPrefetchQueries() {
+        if (this.unsubmittedDistinctQueries == null) {
+            return;
+        }
+        while (this.submittedResults.size() <= this.prefetchDepth && !this.unsubmittedDistinctQueries.isEmpty()) {
+            Pair<SchemaTableTree, LinkedList<SchemaTableTree>> distinctQuery = this.unsubmittedDistinctQueries.removeFirst();
+            LinkedList<SchemaTableTree> distinctQueryStack = distinctQuery.getRight();
+            this.submittedResults.put(distinctQueryStack, submitSnapshotQuery(distinctQuery.getLeft(), distinctQueryStack, this.prefetchSnapshot));
+            this.sqlgGraph.getQueryMetrics().prefetchSubmitted();
+        }
     }
 
     private void executeOptionalQuery() {
@@ -259,6 +496,18 @@ public class SqlgCompiledResultIterator<E> implements Iterator<E> {
         this.queryResult = SqlgSqlExecutor.executeEmitQuery(this.sqlgGraph, this.currentRootSchemaTableTree, this.emitCurrentLeftJoinResult);
     }
 
+    private void iterateUnionAllQueries() throws SQLException {
+        List<Emit<SqlgElement>> result = SqlgUtil.loadUnionAllResultSetIntoResultIterator(
+                this.sqlgGraph,
+                this.queryResult.getLeft(),
+                this.currentUnionAllBatch,
+                this.currentUnionAllColumns
+        );
+        if (!result.isEmpty()) {
+            this.elements = result;
+        }
+    }
+
     private void iterateRegularQueries() throws SQLException {
         List<Emit<SqlgElement>> result;
         if (!this.forParent) {
@@ -347,11 +596,62 @@ public class SqlgCompiledResultIterator<E> implements Iterator<E> {
         }
     }
 
+    /**
+     * Closes the current query's result set and cancels the background queries that are not consumed yet.
+     * A traversal that is not iterated to the end, i.e. a limit() or an exception, must be closed to return the background
+     * queries' connections to the pool.
+     */
+    @Override
+    public void close() {
+        List<SqlgSqlExecutor.SnapshotQuery> snapshotQueries;
+        synchronized (this.openSnapshotQueries) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            snapshotQueries = new ArrayList<>(this.openSnapshotQueries);
+            this.openSnapshotQueries.clear();
+        }
+        try {
+            closePreparedStatement();
+            if (this.submittedResults != null) {
+                for (Pair<SqlPlanCache.SqlPlan, Future<SqlgSqlExecutor.SnapshotQuery>> submittedResult : this.submittedResults.values()) {
+                    try {
+                        submittedResult.getRight().cancel(false);
+                    } finally {
+                        if (this.prefetchDepth > 0) {
+                            this.sqlgGraph.getQueryMetrics().prefetchConsumed();
+                        }
+                    }
+                }
+                this.submittedResults.clear();
+            }
+            if (this.unsubmittedDistinctQueries != null) {
+                this.unsubmittedDistinctQueries.clear();
+            }
+        } finally {
+            for (SqlgSqlExecutor.SnapshotQuery snapshotQuery : snapshotQueries) {
+                try {
+                    snapshotQuery.close();
+                } catch (SQLException e) {
+                    logger.warn("Failed to close a background query", e);
+                }
+            }
+        }
+    }
+
     private void closePreparedStatement() {
         if (this.queryResult != null) {
             try {
-                this.queryResult.getRight().close();
-                this.sqlgGraph.tx().getPreparedStatementCache().remove(this.queryResult.getRight());
+                if (this.queryResult.getRight() != null) {
+                    this.queryResult.getLeft().close();
+                    this.sqlgGraph.tx().release(this.queryResult.getRight());
+                } else if (this.snapshotQuery != null) {
+                    this.snapshotQuery.close();
+                    this.snapshotQuery = null;
+                } else {
+                    this.queryResult.getLeft().close();
+                }
                 this.queryResult = null;
             } catch (SQLException e) {
                 throw new RuntimeException(e);
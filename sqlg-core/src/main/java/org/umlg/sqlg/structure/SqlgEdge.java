@@ -410,18 +410,25 @@ public class SqlgEdge extends SqlgElement implements Edge {
             if (logger.isDebugEnabled()) {
                 logger.debug(sql.toString());
             }
-            try (PreparedStatement preparedStatement = conn.prepareStatement(sql.toString())) {
-                if (edgeLabel.hasIDPrimaryKey()) {
-                    preparedStatement.setLong(1, this.recordId.sequenceId());
-                } else {
-                    int count = 1;
-                    for (Comparable identifierValue : this.recordId.getIdentifiers()) {
-                        preparedStatement.setObject(count++, identifierValue);
+            StatementCache statementCache = this.sqlgGraph.getStatementCache();
+            try {
+                PreparedStatement preparedStatement = statementCache.prepareStatement(conn, sql.toString());
+                try {
+                    if (edgeLabel.hasIDPrimaryKey()) {
+                        preparedStatement.setLong(1, this.recordId.sequenceId());
+                    } else {
+                        int count = 1;
+                        for (Comparable identifierValue : this.recordId.getIdentifiers()) {
+                            preparedStatement.setObject(count++, identifierValue);
+                        }
                     }
-                }
-                ResultSet resultSet = preparedStatement.executeQuery();
-                if (resultSet.next()) {
-                    loadResultSet(resultSet, inForeignKeys, outForeignKeys);
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        if (resultSet.next()) {
+                            loadResultSet(resultSet, inForeignKeys, outForeignKeys);
+                        }
+                    }
+                } finally {
+                    statementCache.release(preparedStatement);
                 }
             } catch (SQLException e) {
                 throw new RuntimeException(e);
@@ -145,16 +145,22 @@ public abstract class SqlgElement implements Element {
             logger.debug(sql.toString());
         }
         Connection conn = this.sqlgGraph.tx().getConnection();
-        try (PreparedStatement preparedStatement = conn.prepareStatement(sql.toString())) {
-            if (this.recordId.hasSequenceId()) {
-                preparedStatement.setLong(1, this.recordId.sequenceId());
-            } else {
-                int count = 1;
-                for (Comparable identifier : this.recordId.getIdentifiers()) {
-                    preparedStatement.setObject(count++, identifier);
+        StatementCache statementCache = this.sqlgGraph.getStatementCache();
+        try {
+            PreparedStatement preparedStatement = statementCache.prepareStatement(conn, sql.toString());
+            try {
+                if (this.recordId.hasSequenceId()) {
+                    preparedStatement.setLong(1, this.recordId.sequenceId());
+                } else {
+                    int count = 1;
+                    for (Comparable identifier : this.recordId.getIdentifiers()) {
+                        preparedStatement.setObject(count++, identifier);
+                    }
                 }
+                preparedStatement.executeUpdate();
+            } finally {
+                statementCache.release(preparedStatement);
             }
-            preparedStatement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -556,6 +562,25 @@ public abstract class SqlgElement implements Element {
                 ) {
             return;
         }
+        String[] postFixes = propertyType.getPostFixes();
+        int[] postFixColumnIndexes = new int[postFixes.length];
+        for (int i = 0; i < postFixes.length; i++) {
+            String postFixColumn = stepDepth + ALIAS_SEPARATOR + getSchemaTablePrefixed().toString().replace(".", ALIAS_SEPARATOR) + ALIAS_SEPARATOR + propertyName + postFixes[i];
+            String aliasedPostFixColumn = columnNameAliasMap.get(postFixColumn);
+            if (aliasedPostFixColumn == null) {
+                aliasedPostFixColumn = propertyName + postFixes[i];
+            }
+            postFixColumnIndexes[i] = resultSet.findColumn(aliasedPostFixColumn);
+        }
+        loadProperty(resultSet, propertyName, columnIndex, postFixColumnIndexes, propertyType);
+    }
+
+    /**
+     * Loads the property from its column and the columns of its type's postfixes, all by index.
+     *
+     * @param postFixColumnIndexes The column indexes of the propertyType's {@link PropertyType#getPostFixes()}, in the same order.
+     */
+    public void loadProperty(ResultSet resultSet, String propertyName, int columnIndex, int[] postFixColumnIndexes, PropertyType propertyType) throws SQLException {
         switch (propertyType.ordinal()) {
             case BOOLEAN_ORDINAL:
                 boolean aBoolean = resultSet.getBoolean(columnIndex);
@@ -626,12 +651,7 @@ public abstract class SqlgElement implements Element {
             case ZONEDDATETIME_ORDINAL:
                 Timestamp timestamp1 = resultSet.getTimestamp(columnIndex);
                 if (timestamp1 != null) {
-                    String zoneIdColumn = stepDepth + ALIAS_SEPARATOR + getSchemaTablePrefixed().toString().replace(".", ALIAS_SEPARATOR) + ALIAS_SEPARATOR + propertyName + propertyType.getPostFixes()[0];
-                    String zonedId = columnNameAliasMap.get(zoneIdColumn);
-                    if (zonedId == null) {
-                        zonedId = propertyName + propertyType.getPostFixes()[0];
-                    }
-                    String zoneId = resultSet.getString(zonedId);
+                    String zoneId = resultSet.getString(postFixColumnIndexes[0]);
                     ZoneId zoneId1 = ZoneId.of(zoneId);
                     ZonedDateTime zonedDateTimeAGT = ZonedDateTime.of(timestamp1.toLocalDateTime(), zoneId1);
                     this.properties.put(propertyName, zonedDateTimeAGT);
@@ -646,31 +666,15 @@ public abstract class SqlgElement implements Element {
             case PERIOD_ORDINAL:
                 int years = resultSet.getInt(columnIndex);
                 if (!resultSet.wasNull()) {
-                    String monthColumn = stepDepth + ALIAS_SEPARATOR + getSchemaTablePrefixed().toString().replace(".", ALIAS_SEPARATOR) + ALIAS_SEPARATOR + propertyName + propertyType.getPostFixes()[0];
-                    String aliasedMonth = columnNameAliasMap.get(monthColumn);
-                    if (aliasedMonth == null) {
-                        aliasedMonth = propertyName + propertyType.getPostFixes()[0];
-                    }
-                    int months = resultSet.getInt(aliasedMonth);
-                    String dayColumn = stepDepth + ALIAS_SEPARATOR + getSchemaTablePrefixed().toString().replace(".", ALIAS_SEPARATOR) + ALIAS_SEPARATOR + propertyName + propertyType.getPostFixes()[1];
-                    String aliasedDay = columnNameAliasMap.get(dayColumn);
-                    if (aliasedDay == null) {
-                        aliasedDay = propertyName + propertyType.getPostFixes()[1];
-                    }
-                    int days = resultSet.getInt(aliasedDay);
+                    int months = resultSet.getInt(postFixColumnIndexes[0]);
+                    int days = resultSet.getInt(postFixColumnIndexes[1]);
                     this.properties.put(propertyName, Period.of(years, months, days));
                 }
                 break;
             case DURATION_ORDINAL:
                 long seconds = resultSet.getLong(columnIndex);
                 if (!resultSet.wasNull()) {
-                    //load the months and days as its needed to construct the Period
-                    String nanosColumn = stepDepth + ALIAS_SEPARATOR + getSchemaTablePrefixed().toString().replace(".", ALIAS_SEPARATOR) + ALIAS_SEPARATOR + propertyName + propertyType.getPostFixes()[0];
-                    String aliasedNanos = columnNameAliasMap.get(nanosColumn);
-                    if (aliasedNanos == null) {
-                        aliasedNanos = propertyName + propertyType.getPostFixes()[0];
-                    }
-                    int nanos = resultSet.getInt(aliasedNanos);
+                    int nanos = resultSet.getInt(postFixColumnIndexes[0]);
                     this.properties.put(propertyName, Duration.ofSeconds(seconds, nanos));
                 }
                 break;
@@ -821,12 +825,7 @@ public abstract class SqlgElement implements Element {
             case ZONEDDATETIME_ARRAY_ORDINAL:
                 array = resultSet.getArray(columnIndex);
                 if (array != null) {
-                    String zoneIdColumn = stepDepth + ALIAS_SEPARATOR + getSchemaTablePrefixed().toString().replace(".", ALIAS_SEPARATOR) + ALIAS_SEPARATOR + propertyName + propertyType.getPostFixes()[0];
-                    String zonedId = columnNameAliasMap.get(zoneIdColumn);
-                    if (zonedId == null) {
-                        zonedId = propertyName + propertyType.getPostFixes()[0];
-                    }
-                    java.sql.Array zoneIdArray = resultSet.getArray(zonedId);
+                    java.sql.Array zoneIdArray = resultSet.getArray(postFixColumnIndexes[0]);
                     String[] objectZoneIdArray = (String[]) this.sqlgGraph.getSqlDialect().convertArray(PropertyType.STRING_ARRAY, zoneIdArray);
                     LocalDateTime[] localDateTimes = (LocalDateTime[]) this.sqlgGraph.getSqlDialect().convertArray(PropertyType.LOCALDATETIME_ARRAY, array);
                     ZonedDateTime[] zonedDateTimes = new ZonedDateTime[localDateTimes.length];
@@ -842,13 +841,8 @@ public abstract class SqlgElement implements Element {
             case DURATION_ARRAY_ORDINAL:
                 array = resultSet.getArray(columnIndex);
                 if (array != null) {
-                    String nanosColumn = stepDepth + ALIAS_SEPARATOR + getSchemaTablePrefixed().toString().replace(".", ALIAS_SEPARATOR) + ALIAS_SEPARATOR + propertyName + propertyType.getPostFixes()[0];
-                    String aliasedNanos = columnNameAliasMap.get(nanosColumn);
-                    if (aliasedNanos == null) {
-                        aliasedNanos = propertyName + propertyType.getPostFixes()[0];
-                    }
                     long[] secondsArray = (long[]) this.sqlgGraph.getSqlDialect().convertArray(PropertyType.long_ARRAY, array);
-                    java.sql.Array nanosArray = resultSet.getArray(aliasedNanos);
+                    java.sql.Array nanosArray = resultSet.getArray(postFixColumnIndexes[0]);
                     int[] nanoArray = (int[]) this.sqlgGraph.getSqlDialect().convertArray(PropertyType.int_ARRAY, nanosArray);
                     Duration[] durations = new Duration[secondsArray.length];
                     int count = 0;
@@ -861,20 +855,10 @@ public abstract class SqlgElement implements Element {
             case PERIOD_ARRAY_ORDINAL:
                 array = resultSet.getArray(columnIndex);
                 if (array != null) {
-                    String monthsColumn = stepDepth + ALIAS_SEPARATOR + getSchemaTablePrefixed().toString().replace(".", ALIAS_SEPARATOR) + ALIAS_SEPARATOR + propertyName + propertyType.getPostFixes()[0];
-                    String aliasedMonths = columnNameAliasMap.get(monthsColumn);
-                    if (aliasedMonths == null) {
-                        aliasedMonths = propertyName + propertyType.getPostFixes()[0];
-                    }
-                    String daysColumn = stepDepth + ALIAS_SEPARATOR + getSchemaTablePrefixed().toString().replace(".", ALIAS_SEPARATOR) + ALIAS_SEPARATOR + propertyName + propertyType.getPostFixes()[1];
-                    String aliasedDays = columnNameAliasMap.get(daysColumn);
-                    if (aliasedDays == null) {
-                        aliasedDays = propertyName + propertyType.getPostFixes()[1];
-                    }
                     Integer[] yearsIntegers = (Integer[]) this.sqlgGraph.getSqlDialect().convertArray(PropertyType.INTEGER_ARRAY, array);
-                    java.sql.Array monthsArray = resultSet.getArray(aliasedMonths);
+                    java.sql.Array monthsArray = resultSet.getArray(postFixColumnIndexes[0]);
                     Integer[] monthsIntegers = (Integer[]) this.sqlgGraph.getSqlDialect().convertArray(PropertyType.INTEGER_ARRAY, monthsArray);
-                    java.sql.Array daysArray = resultSet.getArray(aliasedDays);
+                    java.sql.Array daysArray = resultSet.getArray(postFixColumnIndexes[1]);
                     Integer[] daysIntegers = (Integer[]) this.sqlgGraph.getSqlDialect().convertArray(PropertyType.INTEGER_ARRAY, daysArray);
                     Period[] periods = new Period[yearsIntegers.length];
                     int count = 0;
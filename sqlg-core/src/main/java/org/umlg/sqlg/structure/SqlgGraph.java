@@ -25,8 +25,10 @@ import org.slf4j.LoggerFactory;
 import org.umlg.sqlg.sql.dialect.SqlBulkDialect;
 import org.umlg.sqlg.sql.dialect.SqlDialect;
 import org.umlg.sqlg.sql.parse.GremlinParser;
+import org.umlg.sqlg.sql.parse.SqlPlanCache;
 import org.umlg.sqlg.strategy.*;
 import org.umlg.sqlg.strategy.barrier.*;
+import org.umlg.sqlg.structure.topology.Index;
 import org.umlg.sqlg.structure.topology.IndexType;
 import org.umlg.sqlg.structure.topology.PropertyColumn;
 import org.umlg.sqlg.structure.topology.Topology;
@@ -35,6 +37,8 @@ import org.umlg.sqlg.util.SqlgUtil;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
 
 import static org.apache.tinkerpop.gremlin.structure.Graph.OptIn;
@@ -188,6 +192,52 @@ public class SqlgGraph implements Graph {
     public static final String DATA_SOURCE = "sqlg.dataSource";
     public static final String JDBC_URL = "jdbc.url";
     public static final String DISTRIBUTED = "distributed";
+    /**
+     * The number of threads that execute a read only traversal's distinct queries concurrently.
+     * 0, the default, executes them one after the other on the transaction's connection.
+     */
+    public static final String QUERY_PARALLEL_THREADS = "query.parallel.threads";
+    /**
+     * The number of distinct queries that are executed in the background ahead of the one being loaded.
+     * 0, the default, executes the next query only once the current one's rows are loaded.
+     * Like {@link #QUERY_PARALLEL_THREADS} this is only done for a read only traversal, if the dialect can share the snapshot.
+     */
+    public static final String QUERY_PREFETCH_DEPTH = "query.prefetch.depth";
+    /**
+     * The number of streamed rows that are queued for a background thread to encode and write to the copy stream.
+     * 0, the default, encodes and writes the rows on the streaming thread.
+     */
+    public static final String STREAMING_PIPELINE_SIZE = "streaming.pipeline.size";
+    /**
+     * The number of writer threads shared by the streaming transactions' pipelines, defaults to the number of processors.
+     * A transaction that starts streaming while all of them are busy queues its rows until one is freed by a flush or commit.
+     */
+    public static final String STREAMING_PIPELINE_THREADS = "streaming.pipeline.threads";
+    /**
+     * The number of streamed rows per jdbc batch on the dialects that stream through a prepared statement
+     * instead of a copy command, defaults to 1000.
+     */
+    public static final String STREAMING_BATCH_SIZE = "streaming.batch.size";
+    /**
+     * The number of cached rows at which a normal batch mode transaction is flushed automatically.
+     * 0, the default, only flushes on an explicit flush or commit.
+     */
+    public static final String BATCH_FLUSH_ROWS = "batch.flush.rows";
+    /**
+     * The estimated size in bytes of the cached rows' values at which a normal batch mode transaction is flushed automatically.
+     * 0, the default, only flushes on an explicit flush or commit.
+     */
+    public static final String BATCH_FLUSH_BYTES = "batch.flush.bytes";
+    /**
+     * The maximum number of incoming traversers a vertex step queries for at a time, defaults to 100000.
+     * A value less than 1 queries for all of them at once.
+     */
+    public static final String VERTEX_STEP_BARRIER_SIZE = "vertex.step.barrier.size";
+    /**
+     * The number of a vertex step's incoming ids above which they are copied into a temporary table instead of being
+     * bound as array parameters, defaults to 50000. Only applies to the dialects that bind arrays.
+     */
+    public static final String PARENT_IDS_TEMP_TABLE_THRESHOLD = "parent.ids.temp.table.threshold";
     private static final String MODE_FOR_STREAM_VERTEX = " mode for streamVertex";
     private static final String TRANSACTION_MUST_BE_IN = "Transaction must be in ";
     private final SqlgDataSource sqlgDataSource;
@@ -195,6 +245,18 @@ public class SqlgGraph implements Graph {
     private final SqlgTransaction sqlgTransaction;
     private Topology topology;
     private GremlinParser gremlinParser;
+    private SqlPlanCache sqlPlanCache;
+    private StatementCache statementCache;
+    private SequenceIdAllocator sequenceIdAllocator;
+    private ExecutorService queryExecutor;
+    private ExecutorService streamingExecutor;
+    private int streamingPipelineSize;
+    private int streamingBatchSize;
+    private int batchFlushRows;
+    private long batchFlushBytes;
+    private boolean parallelQueries;
+    private int queryPrefetchDepth;
+    private final QueryMetrics queryMetrics = new QueryMetrics();
     private SqlDialect sqlDialect;
     private String jdbcUrl;
     private final ObjectMapper mapper = new ObjectMapper();
@@ -293,10 +355,38 @@ public class SqlgGraph implements Graph {
         // so if there are massive queries, setting the fetch size will avoid out of memory errors
         this.sqlgTransaction.setDefaultFetchSize(this.configuration.getInteger("fetch.size", this.sqlDialect.getDefaultFetchSize()));
 
+        this.sqlPlanCache = new SqlPlanCache(this);
+        this.statementCache = new StatementCache(this);
+        this.sequenceIdAllocator = new SequenceIdAllocator(this);
+        int queryParallelThreads = this.configuration.getInt(QUERY_PARALLEL_THREADS, 0);
+        this.parallelQueries = queryParallelThreads > 0 && this.sqlDialect.supportsSharedSnapshot();
+        this.queryPrefetchDepth = this.configuration.getInt(QUERY_PREFETCH_DEPTH, 0);
+        if (this.parallelQueries || this.queryPrefetchDepth > 0) {
+            this.queryExecutor = Executors.newFixedThreadPool(Math.max(this.parallelQueries ? queryParallelThreads : 0, this.queryPrefetchDepth), r -> {
+                Thread thread = new Thread(r, "sqlg-query");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.batchFlushRows = this.configuration.getInt(BATCH_FLUSH_ROWS, 0);
+        this.batchFlushBytes = this.configuration.getLong(BATCH_FLUSH_BYTES, 0L);
+        this.streamingPipelineSize = this.configuration.getInt(STREAMING_PIPELINE_SIZE, 0);
+        this.streamingBatchSize = Math.max(1, this.configuration.getInt(STREAMING_BATCH_SIZE, 1000));
+        if (this.streamingPipelineSize > 0 && this.sqlDialect.supportsStreamingBatchMode()) {
+            int streamingPipelineThreads = Math.max(1, this.configuration.getInt(STREAMING_PIPELINE_THREADS, Runtime.getRuntime().availableProcessors()));
+            this.streamingExecutor = Executors.newFixedThreadPool(streamingPipelineThreads, r -> {
+                Thread thread = new Thread(r, "sqlg-streaming");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
         this.tx().readWrite();
         //Instantiating Topology will create the 'public' schema if it does not exist.
         this.topology = new Topology(this);
         this.topology.setLOCK_TIMEOUT_MINUTES(configuration.getInt("lock.timeout.minutes", 2));
+        this.topology.registerListener(this.sqlPlanCache);
+        this.topology.registerListener(this.sequenceIdAllocator);
         this.gremlinParser = new GremlinParser(this);
         if (!this.sqlDialect.supportsSchemas() && !this.getTopology().getSchema(this.sqlDialect.getPublicSchema()).isPresent()) {
             //This is for mariadb. Need to make sure a db called public exist
@@ -322,12 +412,70 @@ public class SqlgGraph implements Graph {
         return gremlinParser;
     }
 
+    public SqlPlanCache getSqlPlanCache() {
+        return sqlPlanCache;
+    }
+
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    public SequenceIdAllocator getSequenceIdAllocator() {
+        return sequenceIdAllocator;
+    }
+
+    /**
+     * @return The executor for concurrent and prefetched distinct queries, null if neither {@link #QUERY_PARALLEL_THREADS}
+     * nor {@link #QUERY_PREFETCH_DEPTH} is configured.
+     */
+    public ExecutorService getQueryExecutor() {
+        return queryExecutor;
+    }
+
+    /**
+     * @return true if {@link #QUERY_PARALLEL_THREADS} is configured and the dialect can share a snapshot between connections.
+     */
+    public boolean isParallelQueries() {
+        return parallelQueries;
+    }
+
+    /**
+     * @return The executor of the streaming writer threads, null if {@link #STREAMING_PIPELINE_SIZE} is not configured.
+     */
+    ExecutorService getStreamingExecutor() {
+        return streamingExecutor;
+    }
+
+    int getStreamingPipelineSize() {
+        return streamingPipelineSize;
+    }
+
+    public int getStreamingBatchSize() {
+        return streamingBatchSize;
+    }
+
+    int getBatchFlushRows() {
+        return batchFlushRows;
+    }
+
+    long getBatchFlushBytes() {
+        return batchFlushBytes;
+    }
+
+    public int getQueryPrefetchDepth() {
+        return queryPrefetchDepth;
+    }
+
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
     public SqlDialect getSqlDialect() {
         return sqlDialect;
     }
 
     @Override
-    public GraphTraversalSource traversal() {
+    public SqlgGraphTraversalSource traversal() {
         return this.traversal(SqlgGraphTraversalSource.class);
     }
 
@@ -373,6 +521,86 @@ public class SqlgGraph implements Graph {
         }
     }
 
+    /**
+     * Inserts the vertex, or updates the existing vertex with the same identifiers.
+     * The label must have user supplied identifiers, see {@link VertexLabel#getIdentifiers()}.
+     * In normal batch mode the upserts are cached and flushed together, else the vertex is upserted immediately.
+     * The cached upserts of a label are flushed with all their properties, a property that an upsert does not give is set to null.
+     *
+     * @param keyValues The vertex's label and properties, they must include the label's identifiers.
+     * @return The upserted vertex. In normal batch mode its id is set once the transaction is flushed.
+     */
+    public Vertex upsertVertex(Object... keyValues) {
+        return internalUpsertVertex(null, keyValues);
+    }
+
+    /**
+     * Inserts the vertex, or updates the existing vertex with the same values for the uniqueKeys.
+     * The uniqueKeys must be the properties of a unique index, or the identifiers, of the label.
+     * In normal batch mode the upserts are cached and flushed together, else the vertex is upserted immediately.
+     * The cached upserts of a label are flushed with all their properties, a property that an upsert does not give is set to null.
+     *
+     * @param uniqueKeys The properties that identify an existing vertex.
+     * @param keyValues  The vertex's label and properties, they must include the uniqueKeys.
+     * @return The upserted vertex. In normal batch mode its id is set once the transaction is flushed.
+     */
+    public Vertex upsertVertex(List<String> uniqueKeys, Object... keyValues) {
+        Preconditions.checkArgument(uniqueKeys != null && !uniqueKeys.isEmpty(), "uniqueKeys may not be empty");
+        return internalUpsertVertex(uniqueKeys, keyValues);
+    }
+
+    private Vertex internalUpsertVertex(List<String> uniqueKeys, Object... keyValues) {
+        if (!this.sqlDialect.supportsUpsert()) {
+            throw new UnsupportedOperationException(String.format("Upsert is not supported for %s", this.sqlDialect.dialectName()));
+        }
+        if (this.tx().isInStreamingBatchMode() || this.tx().isInStreamingWithLockBatchMode()) {
+            throw SqlgExceptions.invalidMode(TRANSACTION_MUST_BE_IN + BatchManager.BatchModeType.NORMAL + " or " + BatchManager.BatchModeType.NONE + " mode for upsertVertex");
+        }
+        Triple<Map<String, PropertyType>, Map<String, Object>, Map<String, Object>> keyValueMapTriple = SqlgUtil.validateVertexKeysValues(this.sqlDialect, keyValues);
+        final Pair<Map<String, Object>, Map<String, Object>> keyValueMapPair = Pair.of(keyValueMapTriple.getMiddle(), keyValueMapTriple.getRight());
+        final Map<String, PropertyType> columns = keyValueMapTriple.getLeft();
+        final String label = ElementHelper.getLabelValue(keyValues).orElse(Vertex.DEFAULT_LABEL);
+        SchemaTable schemaTablePair = SchemaTable.from(this, label);
+        this.tx().readWrite();
+        this.getTopology().threadWriteLock();
+        VertexLabel vertexLabel = this.getTopology().ensureVertexLabelExist(schemaTablePair.getSchema(), schemaTablePair.getTable(), columns);
+        if (uniqueKeys == null) {
+            Preconditions.checkArgument(!vertexLabel.hasIDPrimaryKey(), "upsertVertex without uniqueKeys needs a label with identifiers, %s has none", label);
+            uniqueKeys = vertexLabel.getIdentifiers().asList();
+        }
+        if (!vertexLabel.hasIDPrimaryKey()) {
+            Preconditions.checkArgument(columns.keySet().containsAll(vertexLabel.getIdentifiers()), "identifiers must be present %s", vertexLabel.getIdentifiers());
+        }
+        Preconditions.checkArgument(isUniqueKey(vertexLabel, uniqueKeys), "uniqueKeys %s must be the identifiers or the properties of a unique index of %s", uniqueKeys, label);
+        Preconditions.checkArgument(columns.keySet().containsAll(uniqueKeys), "uniqueKeys must be present %s", uniqueKeys);
+        for (String uniqueKey : uniqueKeys) {
+            Preconditions.checkArgument(keyValueMapPair.getLeft().get(uniqueKey) != null, "uniqueKey %s may not be null", uniqueKey);
+        }
+        return SqlgVertex.upsert(this, schemaTablePair.getSchema(), schemaTablePair.getTable(), uniqueKeys, keyValueMapPair);
+    }
+
+    /**
+     * The upsert statements find the existing vertex by a unique constraint, the uniqueKeys must be one.
+     */
+    private static boolean isUniqueKey(VertexLabel vertexLabel, List<String> uniqueKeys) {
+        Set<String> keys = new HashSet<>(uniqueKeys);
+        if (!vertexLabel.hasIDPrimaryKey() && keys.equals(new HashSet<>(vertexLabel.getIdentifiers()))) {
+            return true;
+        }
+        for (Index index : vertexLabel.getIndexes().values()) {
+            if (IndexType.UNIQUE.equals(index.getIndexType())) {
+                Set<String> indexKeys = new HashSet<>();
+                for (PropertyColumn propertyColumn : index.getProperties()) {
+                    indexKeys.add(propertyColumn.getName());
+                }
+                if (keys.equals(indexKeys)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public void addTemporaryVertex(Object... keyValues) {
         if (this.tx().isInStreamingBatchMode()) {
             throw SqlgExceptions.invalidMode(String.format("Transaction is in %s, use streamVertex(Object ... keyValues)", this.tx().getBatchModeType().toString()));
@@ -443,7 +671,7 @@ public class SqlgGraph implements Graph {
     }
 
     private SqlgVertex internalStreamVertex(Object... keyValues) {
-        Preconditions.checkState(this.sqlDialect.supportsStreamingBatchMode(), "Streaming batch mode is not supported.");
+        Preconditions.checkState(this.sqlDialect.supportsStreamingBatchMode() || this.sqlDialect.supportsJdbcStreamingBatchMode(), "Streaming batch mode is not supported.");
         final String label = ElementHelper.getLabelValue(keyValues).orElse(Vertex.DEFAULT_LABEL);
         SchemaTable schemaTablePair = SchemaTable.from(this, label);
 
@@ -545,6 +773,12 @@ public class SqlgGraph implements Graph {
         if (this.tx().isOpen())
             this.tx().close();
         this.topology.close();
+        if (this.queryExecutor != null) {
+            this.queryExecutor.shutdownNow();
+        }
+        if (this.streamingExecutor != null) {
+            this.streamingExecutor.shutdownNow();
+        }
         this.sqlgDataSource.close();
     }
 
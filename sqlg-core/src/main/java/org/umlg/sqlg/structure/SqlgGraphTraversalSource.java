@@ -1,8 +1,13 @@
 package org.umlg.sqlg.structure;
 
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategies;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
 import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.umlg.sqlg.predicate.Seek;
 
 /**
  * Date: 2016/05/16
@@ -18,4 +23,35 @@ public class SqlgGraphTraversalSource extends GraphTraversalSource {
     public SqlgGraphTraversalSource(Graph graph, TraversalStrategies traversalStrategies) {
         super(graph, traversalStrategies);
     }
+
+    /**
+     * The first page of the label's vertices ordered by the sortKey and then the id.
+     *
+     * @see #page(String, String, Order, int, Vertex)
+     */
+    public GraphTraversal<Vertex, Vertex> page(String label, String sortKey, Order order, int pageSize) {
+        return page(label, sortKey, order, pageSize, null);
+    }
+
+    /**
+     * The page of the label's vertices that follows the after vertex, i.e. the last vertex of the previous page.
+     * The vertices are ordered by the sortKey and then the id so that the after vertex is an exact cursor.
+     * Instead of skipping the previous pages with an OFFSET the db seeks to the cursor,
+     * i.e. <code>WHERE ("sortKey", "ID") &gt; (?, ?) ORDER BY "sortKey", "ID" LIMIT pageSize</code>,
+     * with an index on the sortKey every page costs the same.
+     *
+     * @param label    The vertex label.
+     * @param sortKey  The property to order by, it may not be null.
+     * @param order    The order of the sortKey and the id.
+     * @param pageSize The maximum number of vertices in the page.
+     * @param after    The last vertex of the previous page or null for the first page.
+     * @return the page's traversal.
+     */
+    public GraphTraversal<Vertex, Vertex> page(String label, String sortKey, Order order, int pageSize, Vertex after) {
+        GraphTraversal<Vertex, Vertex> traversal = this.V().hasLabel(label);
+        if (after != null) {
+            traversal = traversal.has(sortKey, Seek.after(after.value(sortKey), (RecordId) after.id(), order));
+        }
+        return traversal.order().by(sortKey, order).by(T.id, order).limit(pageSize);
+    }
 }
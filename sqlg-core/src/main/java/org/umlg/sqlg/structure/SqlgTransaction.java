@@ -30,12 +30,13 @@ public class SqlgTransaction extends AbstractThreadLocalTransaction {
     private BeforeCommit beforeCommitFunction;
     private AfterCommit afterCommitFunction;
     private AfterRollback afterRollbackFunction;
+    private AfterBatchFlush afterBatchFlushFunction;
     private static final Logger logger = LoggerFactory.getLogger(SqlgTransaction.class);
     private boolean cacheVertices = false;
 
     private final ThreadLocal<TransactionCache> threadLocalTx = ThreadLocal.withInitial(() -> null);
 
-    private final ThreadLocal<PreparedStatementCache> threadLocalPreparedStatementTx = ThreadLocal.withInitial(PreparedStatementCache::new);
+    private final ThreadLocal<PreparedStatementCache> threadLocalPreparedStatementTx;
 
     /**
      * default fetch size
@@ -47,6 +48,7 @@ public class SqlgTransaction extends AbstractThreadLocalTransaction {
         super(sqlgGraph);
         this.sqlgGraph = (SqlgGraph) sqlgGraph;
         this.cacheVertices = cacheVertices;
+        this.threadLocalPreparedStatementTx = ThreadLocal.withInitial(() -> new PreparedStatementCache(this.sqlgGraph.getStatementCache()));
     }
 
     @Override
@@ -91,6 +93,7 @@ public class SqlgTransaction extends AbstractThreadLocalTransaction {
             }
             connection.commit();
             connection.setAutoCommit(true);
+            this.sqlgGraph.getSequenceIdAllocator().afterCommit();
             if (this.afterCommitFunction != null) {
                 this.afterCommitFunction.doAfterCommit();
             }
@@ -129,6 +132,7 @@ public class SqlgTransaction extends AbstractThreadLocalTransaction {
             Connection connection = threadLocalTx.get().getConnection();
             connection.setAutoCommit(false);
             connection.rollback();
+            this.sqlgGraph.getSequenceIdAllocator().afterRollback();
             if (this.afterRollbackFunction != null) {
                 this.afterRollbackFunction.doAfterRollback();
             }
@@ -151,6 +155,11 @@ public class SqlgTransaction extends AbstractThreadLocalTransaction {
 
     public void streamingWithLockBatchModeOn() {
         if (supportsBatchMode()) {
+            if (!this.sqlgGraph.getSqlDialect().supportsTableLocking() && !this.sqlgGraph.getSequenceIdAllocator().isEnabled()) {
+                throw SqlgExceptions.invalidMode(String.format(
+                        "Streaming with lock batch mode is not supported by %s without table locking, configure %s to take the ids from the sequence instead.",
+                        this.sqlgGraph.getSqlDialect().dialectName(), SequenceIdAllocator.ID_BLOCK_SIZE));
+            }
             readWrite();
             this.threadLocalTx.get().getBatchManager().batchModeOn(BatchManager.BatchModeType.STREAMING_WITH_LOCK);
         } else {
@@ -268,6 +277,14 @@ public class SqlgTransaction extends AbstractThreadLocalTransaction {
         this.afterRollbackFunction = afterCommitFunction;
     }
 
+    public void afterBatchFlush(AfterBatchFlush afterBatchFlushFunction) {
+        this.afterBatchFlushFunction = afterBatchFlushFunction;
+    }
+
+    AfterBatchFlush getAfterBatchFlushFunction() {
+        return this.afterBatchFlushFunction;
+    }
+
     @Override
     public boolean isOpen() {
         return this.threadLocalTx.get() != null;
@@ -295,6 +312,14 @@ public class SqlgTransaction extends AbstractThreadLocalTransaction {
         this.threadLocalPreparedStatementTx.get().add(preparedStatement);
     }
 
+    /**
+     * Removes the statement from the transaction and releases it to the {@link StatementCache}.
+     */
+    public void release(PreparedStatement preparedStatement) throws SQLException {
+        this.threadLocalPreparedStatementTx.get().remove(preparedStatement);
+        this.sqlgGraph.getStatementCache().release(preparedStatement);
+    }
+
     // only used for tests
     public PreparedStatementCache getPreparedStatementCache() {
         return threadLocalPreparedStatementTx.get();
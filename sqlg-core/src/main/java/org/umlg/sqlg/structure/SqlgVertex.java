@@ -10,6 +10,7 @@ import org.apache.tinkerpop.gremlin.structure.util.ElementHelper;
 import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.umlg.sqlg.sql.dialect.SqlBulkDialect;
 import org.umlg.sqlg.structure.topology.*;
 import org.umlg.sqlg.util.SqlgUtil;
 
@@ -87,6 +88,36 @@ public class SqlgVertex extends SqlgElement implements Vertex {
         super(sqlgGraph, identifiers, schema, table);
     }
 
+    private SqlgVertex(SqlgGraph sqlgGraph, String schema, String table) {
+        super(sqlgGraph, schema, table);
+    }
+
+    /**
+     * Inserts the vertex or updates the vertex with the same uniqueKeys' values.
+     * In normal batch mode the upsert is cached until the flush, the same vertex is returned for the same unique values.
+     * An upsert of cached unique values is merged into the cached row.
+     */
+    static SqlgVertex upsert(SqlgGraph sqlgGraph, String schema, String table, List<String> uniqueKeys, Pair<Map<String, Object>, Map<String, Object>> keyValueMapPair) {
+        Map<String, Object> keyAllValueMap = keyValueMapPair.getLeft();
+        Map<String, Object> keyNotNullValueMap = keyValueMapPair.getRight();
+        SqlgVertex sqlgVertex = new SqlgVertex(sqlgGraph, schema, table);
+        if (sqlgGraph.getSqlDialect().supportsBatchMode() && sqlgGraph.tx().isInNormalBatchMode()) {
+            sqlgVertex = sqlgGraph.tx().getBatchManager().upsertVertex(sqlgVertex, uniqueKeys, keyAllValueMap);
+        } else {
+            Map<SqlgVertex, Map<String, Object>> rows = new LinkedHashMap<>();
+            rows.put(sqlgVertex, keyAllValueMap);
+            ((SqlBulkDialect) sqlgGraph.getSqlDialect()).flushVertexUpserts(sqlgGraph, SchemaTable.of(schema, table), uniqueKeys, new TreeSet<>(keyAllValueMap.keySet()), rows);
+            sqlgGraph.tx().add(sqlgVertex);
+        }
+        for (Map.Entry<String, Object> entry : keyAllValueMap.entrySet()) {
+            if (entry.getValue() == null) {
+                sqlgVertex.properties.remove(entry.getKey());
+            }
+        }
+        sqlgVertex.properties.putAll(keyNotNullValueMap);
+        return sqlgVertex;
+    }
+
     @Override
     public String label() {
         if (this.schema != null && this.schema.length() > 0 && !schema.equals(sqlgGraph.getSqlDialect().getPublicSchema())) {
@@ -318,16 +349,22 @@ public class SqlgVertex extends SqlgElement implements Vertex {
             logger.debug(sql.toString());
         }
         Connection conn = this.sqlgGraph.tx().getConnection();
-        try (PreparedStatement preparedStatement = conn.prepareStatement(sql.toString())) {
-            if (this.recordId.hasSequenceId()) {
-                preparedStatement.setLong(1, this.recordId.sequenceId());
-            } else {
-                int count = 1;
-                for (Comparable identifierValue : this.recordId.getIdentifiers()) {
-                    preparedStatement.setObject(count++, identifierValue);
+        StatementCache statementCache = this.sqlgGraph.getStatementCache();
+        try {
+            PreparedStatement preparedStatement = statementCache.prepareStatement(conn, sql.toString());
+            try {
+                if (this.recordId.hasSequenceId()) {
+                    preparedStatement.setLong(1, this.recordId.sequenceId());
+                } else {
+                    int count = 1;
+                    for (Comparable identifierValue : this.recordId.getIdentifiers()) {
+                        preparedStatement.setObject(count++, identifierValue);
+                    }
                 }
+                preparedStatement.executeUpdate();
+            } finally {
+                statementCache.release(preparedStatement);
             }
-            preparedStatement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -478,20 +515,27 @@ public class SqlgVertex extends SqlgElement implements Vertex {
             if (logger.isDebugEnabled()) {
                 logger.debug(sql.toString());
             }
-            try (PreparedStatement preparedStatement = conn.prepareStatement(sql.toString())) {
-                if (vertexLabel.hasIDPrimaryKey()) {
-                    preparedStatement.setLong(1, this.recordId.sequenceId());
-                } else {
-                    int count = 1;
-                    for (Comparable identifierValue : this.recordId.getIdentifiers()) {
-                        preparedStatement.setObject(count++, identifierValue);
+            StatementCache statementCache = this.sqlgGraph.getStatementCache();
+            try {
+                PreparedStatement preparedStatement = statementCache.prepareStatement(conn, sql.toString());
+                try {
+                    if (vertexLabel.hasIDPrimaryKey()) {
+                        preparedStatement.setLong(1, this.recordId.sequenceId());
+                    } else {
+                        int count = 1;
+                        for (Comparable identifierValue : this.recordId.getIdentifiers()) {
+                            preparedStatement.setObject(count++, identifierValue);
+                        }
                     }
-                }
-                ResultSet resultSet = preparedStatement.executeQuery();
-                if (resultSet.next()) {
-                    loadResultSet(resultSet);
-                } else {
-                    throw new IllegalStateException(String.format("Vertex with label %s and id %s does not exist.", this.schema + "." + this.table, this.recordId.getID().toString()));
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        if (resultSet.next()) {
+                            loadResultSet(resultSet);
+                        } else {
+                            throw new IllegalStateException(String.format("Vertex with label %s and id %s does not exist.", this.schema + "." + this.table, this.recordId.getID().toString()));
+                        }
+                    }
+                } finally {
+                    statementCache.release(preparedStatement);
                 }
             } catch (SQLException e) {
                 throw new RuntimeException(e);
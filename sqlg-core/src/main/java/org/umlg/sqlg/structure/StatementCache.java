@@ -0,0 +1,198 @@
+package org.umlg.sqlg.structure;
+
+import org.umlg.sqlg.structure.topology.Topology;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded LRU cache of {@link PreparedStatement}s per physical connection, keyed by the sql.
+ * The statements are prepared on the connection underneath the pool's proxy so that they survive the proxy being
+ * closed at the end of a transaction and are reused by the next transaction that checks out the same connection.
+ * For Postgresql this means a hot query is parsed and planned once per connection instead of once per transaction.
+ * <p>
+ * A statement handed out by {@link #prepareStatement(Connection, String)} must be given back with {@link #release(PreparedStatement)}
+ * instead of being closed. A cached statement that is still in use when its sql is prepared again, e.g. by a nested iteration,
+ * is not shared, a new uncached statement is prepared.
+ * <p>
+ * The cache of a connection is discarded when the topology changes. While a topology change is in flight nothing is cached.
+ * The cache is disabled by default, see {@link #STATEMENT_CACHE_SIZE}.
+ */
+public class StatementCache {
+
+    /**
+     * The maximum number of statements cached per physical connection. 0, the default, disables the cache.
+     */
+    public static final String STATEMENT_CACHE_SIZE = "statement.cache.size";
+
+    private final SqlgGraph sqlgGraph;
+    private final int maxSize;
+    private final Map<Connection, ConnectionStatements> connectionStatements = new IdentityHashMap<>();
+    private final Map<PreparedStatement, ConnectionStatements> inUse = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    StatementCache(SqlgGraph sqlgGraph) {
+        this.sqlgGraph = sqlgGraph;
+        this.maxSize = sqlgGraph.configuration().getInt(STATEMENT_CACHE_SIZE, 0);
+    }
+
+    public boolean isEnabled() {
+        return this.maxSize > 0;
+    }
+
+    public PreparedStatement prepareStatement(Connection conn, String sql) throws SQLException {
+        return prepareStatement(conn, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * @param conn              The transaction's connection.
+     * @param sql               The sql to prepare.
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or {@link Statement#NO_GENERATED_KEYS}
+     * @return A cached statement if one is available, else a newly prepared one.
+     */
+    public PreparedStatement prepareStatement(Connection conn, String sql, int autoGeneratedKeys) throws SQLException {
+        if (!isEnabled()) {
+            return conn.prepareStatement(sql, autoGeneratedKeys);
+        }
+        Topology topology = this.sqlgGraph.getTopology();
+        //the version is read once, a topology change that starts after this changes the version and evicts the statement.
+        long topologyVersion = topology == null ? 1 : topology.getVersion();
+        if (Topology.isChanging(topologyVersion)) {
+            this.misses.incrementAndGet();
+            return conn.prepareStatement(sql, autoGeneratedKeys);
+        }
+        Connection physicalConnection = conn.unwrap(Connection.class);
+        ConnectionStatements statements = connectionStatements(physicalConnection);
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "keys:" + sql : sql;
+        synchronized (statements) {
+            statements.evictIfStale(topologyVersion);
+            PreparedStatement preparedStatement = statements.cache.get(key);
+            if (preparedStatement != null && !this.inUse.containsKey(preparedStatement)) {
+                if (!preparedStatement.isClosed()) {
+                    this.hits.incrementAndGet();
+                    this.inUse.put(preparedStatement, statements);
+                    return preparedStatement;
+                }
+                statements.cache.remove(key);
+            }
+            this.misses.incrementAndGet();
+            if (preparedStatement != null) {
+                //the cached statement is in use, do not share it.
+                return conn.prepareStatement(sql, autoGeneratedKeys);
+            }
+            preparedStatement = physicalConnection.prepareStatement(sql, autoGeneratedKeys);
+            statements.cache.put(key, preparedStatement);
+            this.inUse.put(preparedStatement, statements);
+            return preparedStatement;
+        }
+    }
+
+    private ConnectionStatements connectionStatements(Connection physicalConnection) throws SQLException {
+        synchronized (this.connectionStatements) {
+            ConnectionStatements statements = this.connectionStatements.get(physicalConnection);
+            if (statements == null) {
+                //a new physical connection, forget the ones the pool has closed since.
+                Iterator<Connection> connections = this.connectionStatements.keySet().iterator();
+                while (connections.hasNext()) {
+                    if (connections.next().isClosed()) {
+                        connections.remove();
+                    }
+                }
+                statements = new ConnectionStatements();
+                this.connectionStatements.put(physicalConnection, statements);
+            }
+            return statements;
+        }
+    }
+
+    /**
+     * Gives the statement back to the cache, statements that are not cached are closed.
+     * The statement's {@link ResultSet} is closed.
+     */
+    public void release(PreparedStatement preparedStatement) throws SQLException {
+        ConnectionStatements statements = this.inUse.remove(preparedStatement);
+        if (statements == null) {
+            preparedStatement.close();
+            return;
+        }
+        synchronized (statements) {
+            if (statements.cache.containsValue(preparedStatement) && !preparedStatement.isClosed()) {
+                ResultSet resultSet = preparedStatement.getResultSet();
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                preparedStatement.clearParameters();
+            } else {
+                preparedStatement.close();
+            }
+        }
+    }
+
+    /**
+     * @return The number of statements cached over all connections.
+     */
+    public int size() {
+        synchronized (this.connectionStatements) {
+            int size = 0;
+            for (ConnectionStatements statements : this.connectionStatements.values()) {
+                synchronized (statements) {
+                    size += statements.cache.size();
+                }
+            }
+            return size;
+        }
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * The statements of one physical connection, only accessed while holding its monitor.
+     */
+    private class ConnectionStatements {
+
+        private long topologyVersion = -1;
+        private final LinkedHashMap<String, PreparedStatement> cache = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    closeIfIdle(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        private void evictIfStale(long topologyVersion) {
+            if (this.topologyVersion != topologyVersion) {
+                for (PreparedStatement preparedStatement : this.cache.values()) {
+                    closeIfIdle(preparedStatement);
+                }
+                this.cache.clear();
+                this.topologyVersion = topologyVersion;
+            }
+        }
+
+        //statements in use are closed when they are released.
+        private void closeIfIdle(PreparedStatement preparedStatement) {
+            if (!StatementCache.this.inUse.containsKey(preparedStatement)) {
+                try {
+                    preparedStatement.close();
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+}
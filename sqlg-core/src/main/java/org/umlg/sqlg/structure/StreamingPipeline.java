@@ -0,0 +1,112 @@
+package org.umlg.sqlg.structure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+
+/**
+ * Hands streamed rows from the user's thread to a writer thread that encodes them and writes them to the copy stream.
+ * The user's thread only blocks when the bounded queue is full, i.e. when the database can not keep up.
+ * <p>
+ * The writer thread is started on the first row and stopped by {@link #drain()}, which waits for all queued rows to be
+ * written. The {@link BatchManager} drains the pipeline before it uses the connection itself, i.e. when it starts a new copy
+ * command, locks a table or closes the streams on flush or commit.
+ * A failure on the writer thread discards the rows still queued and is rethrown to the user's thread on the next row or
+ * on {@link #drain()}.
+ */
+final class StreamingPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingPipeline.class);
+    private static final Runnable END = () -> {
+    };
+    private static final long POLL_MILLIS = 100;
+
+    private final ExecutorService executor;
+    private final BlockingQueue<Runnable> queue;
+    private Future<?> consumer;
+    private volatile Throwable failure;
+
+    StreamingPipeline(ExecutorService executor, int size) {
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(size);
+    }
+
+    /**
+     * Queues the encoding and writing of a row. Blocks while the queue is full.
+     * The row is read on the writer thread after this returns, the caller must not mutate what the task references.
+     */
+    void submit(Runnable row) {
+        checkFailure();
+        if (this.consumer == null) {
+            this.consumer = this.executor.submit(this::consume);
+        }
+        try {
+            while (!this.queue.offer(row, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Waits for the queued rows to be written and stops the writer thread.
+     * Rethrows the writer thread's failure, if any.
+     */
+    void drain() {
+        if (this.consumer == null) {
+            checkFailure();
+            return;
+        }
+        Future<?> future = this.consumer;
+        this.consumer = null;
+        try {
+            if (this.failure == null) {
+                this.queue.put(END);
+            }
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            //consume already recorded the failure
+            logger.debug("streaming pipeline failed", e.getCause());
+        }
+        checkFailure();
+    }
+
+    private void consume() {
+        try {
+            Runnable row;
+            while ((row = this.queue.take()) != END) {
+                row.run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.failure = e;
+        } catch (Throwable e) {
+            //unblock the user's thread, the remaining rows are not written.
+            this.queue.clear();
+            this.failure = e;
+        }
+    }
+
+    /**
+     * Rethrows the writer thread's failure once, the pipeline can be used again afterwards.
+     */
+    private void checkFailure() {
+        Throwable throwable = this.failure;
+        if (throwable != null) {
+            this.failure = null;
+            this.consumer = null;
+            this.queue.clear();
+            if (throwable instanceof RuntimeException) {
+                throw (RuntimeException) throwable;
+            } else {
+                throw new RuntimeException(throwable);
+            }
+        }
+    }
+}
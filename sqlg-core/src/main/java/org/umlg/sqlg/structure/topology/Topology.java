@@ -25,6 +25,7 @@ import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -112,6 +113,9 @@ public class Topology {
 
     private final List<TopologyValidationError> validationErrors = new ArrayList<>();
     private final List<TopologyListener> topologyListeners = new ArrayList<>();
+    //Incremented when the topology write lock is taken and released, so it is odd while a topology change is in flight,
+    //and by 2 on every topology change.
+    private final AtomicLong version = new AtomicLong();
 
     private int LOCK_TIMEOUT_MINUTES = 2;
 
@@ -691,6 +695,7 @@ public class Topology {
             if (!this.topologySqlWriteLock.tryLock(LOCK_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
                 throw new RuntimeException("Timeout lapsed to acquire write lock for notification.");
             }
+            this.version.incrementAndGet();
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
         }
@@ -702,6 +707,7 @@ public class Topology {
      */
     private void z_internalSqlWriteUnlock() {
         Preconditions.checkState(isSqlWriteLockHeldByCurrentThread());
+        this.version.incrementAndGet();
         this.topologySqlWriteLock.unlock();
         this.topologyWriteUpDownLatch.countDown();
         this.sqlgGraph.tx().setWriteTransaction(false);
@@ -746,6 +752,31 @@ public class Topology {
         return this.topologySqlWriteLock.isHeldByCurrentThread();
     }
 
+    /**
+     * @return true if any thread owns the sql write lock, i.e. a topology change is in flight.
+     */
+    public boolean isSqlWriteLocked() {
+        return this.topologySqlWriteLock.isLocked();
+    }
+
+    /**
+     * The version is safe to read from any thread without holding a lock.
+     *
+     * @return a number that changes whenever the topology changes, it is odd while a topology change is in flight.
+     * @see #isChanging(long)
+     */
+    public long getVersion() {
+        return this.version.get();
+    }
+
+    /**
+     * @param version A version returned by {@link #getVersion()}.
+     * @return true if a topology change was in flight when the version was read.
+     */
+    public static boolean isChanging(long version) {
+        return (version & 1) == 1;
+    }
+
     private boolean isTopologyMapWriteLockHeldByCurrentThread() {
         return this.topologyMapLock.writeLock().isHeldByCurrentThread();
     }
@@ -1971,6 +2002,7 @@ public class Topology {
     }
 
     void fire(TopologyInf topologyInf, String oldValue, TopologyChangeAction action) {
+        this.version.addAndGet(2);
         for (TopologyListener topologyListener : this.topologyListeners) {
             topologyListener.change(topologyInf, oldValue, action);
         }
@@ -19,6 +19,8 @@ import org.umlg.sqlg.predicate.PropertyReference;
 import org.umlg.sqlg.sql.dialect.SqlDialect;
 import org.umlg.sqlg.sql.parse.AndOrHasContainer;
 import org.umlg.sqlg.sql.parse.ColumnList;
+import org.umlg.sqlg.sql.parse.ExistsContainer;
+import org.umlg.sqlg.sql.parse.RowDecoder;
 import org.umlg.sqlg.sql.parse.SchemaTableTree;
 import org.umlg.sqlg.sql.parse.WhereClause;
 import org.umlg.sqlg.strategy.BaseStrategy;
@@ -97,7 +99,7 @@ public class SqlgUtil {
             if (first) {
                 for (LinkedList<SchemaTableTree> subQueryStack : subQueryStacks) {
                     for (SchemaTableTree schemaTableTree : subQueryStack) {
-                        schemaTableTree.clearColumnNamePropertyNameMap();
+                        schemaTableTree.clearRowDecoder();
                     }
                 }
                 populateIdCountMap(resultSetMetaData, rootSchemaTableTree, idColumnCountMap);
@@ -117,21 +119,6 @@ public class SqlgUtil {
                 if (subQueryDepth == subQueryStacks.size()) {
                     SchemaTableTree lastSchemaTableTree = subQueryStack.getLast();
                     Preconditions.checkState(!labeledElements.isEmpty());
-//                    if (labeledElements.isEmpty()) {
-//                        SqlgElement e = SqlgUtil.loadElement(
-//                                sqlgGraph, idColumnCountMap, resultSet, lastSchemaTableTree
-//                        );
-//                        Emit<SqlgElement> emit;
-//                        if (!forParent) {
-//                            emit = new Emit<>(e, Collections.emptySet(), lastSchemaTableTree.getStepDepth(), lastSchemaTableTree.getSqlgComparatorHolder());
-//                        } else {
-//                            emit = new Emit<>(resultSet.getLong(1), e, Collections.emptySet(), lastSchemaTableTree.getStepDepth(), lastSchemaTableTree.getSqlgComparatorHolder());
-//                        }
-//                        if (lastSchemaTableTree.isLocalStep() && lastSchemaTableTree.isOptionalLeftJoin()) {
-//                            emit.setIncomingOnlyLocalOptionalStep(true);
-//                        }
-//                        result.add(emit);
-//                    }
                     if (lastSchemaTableTree.getReplacedStepDepth() == lastSchemaTableTree.getStepDepth() &&
                             lastSchemaTableTree.isEmit() &&
                             lastSchemaTableTree.isUntilFirst()) {
@@ -146,6 +133,66 @@ public class SqlgUtil {
         return result;
     }
 
+    /**
+     * Loads the next row of a UNION ALL batch, see {@link SchemaTableTree#constructUnionAllSql(SqlgGraph, List, List)}.
+     * The first column is the index of the row's tree in the batch, the tree's columns follow the columns of the trees before it.
+     */
+    public static List<Emit<SqlgElement>> loadUnionAllResultSetIntoResultIterator(
+            SqlgGraph sqlgGraph,
+            ResultSet resultSet,
+            List<SchemaTableTree> batch,
+            List<LinkedHashMap<String, PropertyType>> batchColumns
+    ) throws SQLException {
+
+        List<Emit<SqlgElement>> result = new ArrayList<>();
+        if (resultSet.next()) {
+            int index = resultSet.getInt(1);
+            int columnIndex = 2;
+            for (int i = 0; i < index; i++) {
+                columnIndex += batchColumns.get(i).size();
+            }
+            SchemaTableTree schemaTableTree = batch.get(index);
+            SchemaTable schemaTable = schemaTableTree.getSchemaTable();
+            Long id = resultSet.getLong(columnIndex++);
+            SqlgElement sqlgElement;
+            if (schemaTable.isVertexTable()) {
+                String rawLabel = schemaTable.getTable().substring(VERTEX_PREFIX.length());
+                sqlgElement = SqlgVertex.of(sqlgGraph, id, schemaTable.getSchema(), rawLabel);
+            } else {
+                String rawLabel = schemaTable.getTable().substring(EDGE_PREFIX.length());
+                sqlgElement = new SqlgEdge(sqlgGraph, id, schemaTable.getSchema(), rawLabel);
+            }
+            boolean first = true;
+            for (Map.Entry<String, PropertyType> column : batchColumns.get(index).entrySet()) {
+                if (first) {
+                    //the ID
+                    first = false;
+                    continue;
+                }
+                String columnName = column.getKey();
+                if (schemaTable.isEdgeTable() && columnName.endsWith(Topology.IN_VERTEX_COLUMN_END)) {
+                    ((SqlgEdge) sqlgElement).loadInVertex(resultSet, foreignKeySchemaTable(columnName), columnIndex);
+                } else if (schemaTable.isEdgeTable() && columnName.endsWith(Topology.OUT_VERTEX_COLUMN_END)) {
+                    ((SqlgEdge) sqlgElement).loadOutVertex(resultSet, foreignKeySchemaTable(columnName), columnIndex);
+                } else {
+                    sqlgElement.loadProperty(resultSet, columnName, columnIndex, Collections.emptyMap(), -1, column.getValue());
+                }
+                columnIndex++;
+            }
+            result.add(new Emit<>(sqlgElement, schemaTableTree.getRealLabels(), schemaTableTree.getStepDepth(), schemaTableTree.getSqlgComparatorHolder()));
+        }
+        return result;
+    }
+
+    /**
+     * @param foreignKey The edge's foreign key column, schema.table__I or schema.table__O
+     */
+    private static SchemaTable foreignKeySchemaTable(String foreignKey) {
+        String[] foreignKeyParts = foreignKey.split("\\.");
+        Preconditions.checkState(foreignKeyParts.length == 2, "Edge table foreign must be schema.table__I\\O. Found %s", foreignKey);
+        return SchemaTable.of(foreignKeyParts[0], foreignKeyParts[1].substring(0, foreignKeyParts[1].length() - Topology.IN_VERTEX_COLUMN_END.length()));
+    }
+
     //TODO the identifier logic here is very unoptimal
     private static void populateIdCountMap(ResultSetMetaData resultSetMetaData, SchemaTableTree rootSchemaTableTree, Map<String, Integer> lastElementIdCountMap) throws SQLException {
         lastElementIdCountMap.clear();
@@ -193,36 +240,35 @@ public class SqlgUtil {
             if (!schemaTableTree.getLabels().isEmpty()) {
                 E sqlgElement = null;
                 boolean resultSetWasNull;
+                RowDecoder rowDecoder = schemaTableTree.rowDecoder(idColumnCountMap);
                 if (schemaTableTree.isHasIDPrimaryKey()) {
-                    String idProperty = schemaTableTree.labeledAliasId();
-                    Integer columnCount = idColumnCountMap.get(idProperty);
-                    Long id = resultSet.getLong(columnCount);
+                    Long id = rowDecoder.loadId(resultSet);
                     resultSetWasNull = resultSet.wasNull();
                     if (!resultSetWasNull) {
                         if (schemaTableTree.getSchemaTable().isVertexTable()) {
                             String rawLabel = schemaTableTree.getSchemaTable().getTable().substring(VERTEX_PREFIX.length());
                             sqlgElement = (E) SqlgVertex.of(sqlgGraph, id, schemaTableTree.getSchemaTable().getSchema(), rawLabel);
-                            schemaTableTree.loadProperty(resultSet, sqlgElement);
+                            rowDecoder.loadProperties(resultSet, sqlgElement);
                         } else {
                             String rawLabel = schemaTableTree.getSchemaTable().getTable().substring(EDGE_PREFIX.length());
                             sqlgElement = (E) new SqlgEdge(sqlgGraph, id, schemaTableTree.getSchemaTable().getSchema(), rawLabel);
-                            schemaTableTree.loadProperty(resultSet, sqlgElement);
-                            schemaTableTree.loadEdgeInOutVertices(resultSet, (SqlgEdge) sqlgElement);
+                            rowDecoder.loadProperties(resultSet, sqlgElement);
+                            rowDecoder.loadEdgeInOutVertices(resultSet, (SqlgEdge) sqlgElement);
                         }
                     }
                 } else {
-                    List<Comparable> identifierObjects = schemaTableTree.loadIdentifierObjects(idColumnCountMap, resultSet);
+                    List<Comparable> identifierObjects = rowDecoder.loadIdentifierObjects(resultSet);
                     resultSetWasNull = resultSet.wasNull();
                     if (!resultSetWasNull) {
                         if (schemaTableTree.getSchemaTable().isVertexTable()) {
                             String rawLabel = schemaTableTree.getSchemaTable().getTable().substring(VERTEX_PREFIX.length());
                             sqlgElement = (E) SqlgVertex.of(sqlgGraph, identifierObjects, schemaTableTree.getSchemaTable().getSchema(), rawLabel);
-                            schemaTableTree.loadProperty(resultSet, sqlgElement);
+                            rowDecoder.loadProperties(resultSet, sqlgElement);
                         } else {
                             String rawLabel = schemaTableTree.getSchemaTable().getTable().substring(EDGE_PREFIX.length());
                             sqlgElement = (E) new SqlgEdge(sqlgGraph, identifierObjects, schemaTableTree.getSchemaTable().getSchema(), rawLabel);
-                            schemaTableTree.loadProperty(resultSet, sqlgElement);
-                            schemaTableTree.loadEdgeInOutVertices(resultSet, (SqlgEdge) sqlgElement);
+                            rowDecoder.loadProperties(resultSet, sqlgElement);
+                            rowDecoder.loadEdgeInOutVertices(resultSet, (SqlgEdge) sqlgElement);
                         }
                     }
                 }
@@ -264,31 +310,6 @@ public class SqlgUtil {
         return result;
     }
 
-    @SuppressWarnings("unchecked")
-    private static <E> E loadElement(
-            SqlgGraph sqlgGraph,
-            Map<String, Integer> columnMap,
-            ResultSet resultSet,
-            SchemaTableTree leafSchemaTableTree) throws SQLException {
-
-        SchemaTable schemaTable = leafSchemaTableTree.getSchemaTable();
-        String idProperty = leafSchemaTableTree.idProperty();
-        Integer columnCount = columnMap.get(idProperty);
-        Long id = resultSet.getLong(columnCount);
-        SqlgElement sqlgElement;
-        if (schemaTable.isVertexTable()) {
-            String rawLabel = schemaTable.getTable().substring(VERTEX_PREFIX.length());
-            sqlgElement = SqlgVertex.of(sqlgGraph, id, schemaTable.getSchema(), rawLabel);
-            leafSchemaTableTree.loadProperty(resultSet, sqlgElement);
-        } else {
-            String rawLabel = schemaTable.getTable().substring(EDGE_PREFIX.length());
-            sqlgElement = new SqlgEdge(sqlgGraph, id, schemaTable.getSchema(), rawLabel);
-            leafSchemaTableTree.loadProperty(resultSet, sqlgElement);
-            leafSchemaTableTree.loadEdgeInOutVertices(resultSet, (SqlgEdge) sqlgElement);
-        }
-        return (E) sqlgElement;
-    }
-
     public static boolean isBulkWithinAndOut(SqlgGraph sqlgGraph, HasContainer hasContainer) {
         BiPredicate p = hasContainer.getPredicate().getBiPredicate();
         return (p == Contains.within || p == Contains.without) && ((Collection) hasContainer.getPredicate().getValue()).size() > sqlgGraph.configuration().getInt("bulk.within.count", BULK_WITHIN_COUNT);
@@ -300,22 +321,71 @@ public class SqlgUtil {
         return p == Contains.within && ((Collection) hasContainer.getPredicate().getValue()).size() > sqlgGraph.configuration().getInt("bulk.within.count", BULK_WITHIN_COUNT);
     }
 
-    public static void setParametersOnStatement(SqlgGraph sqlgGraph, LinkedList<SchemaTableTree> schemaTableTreeStack, PreparedStatement preparedStatement, int parameterIndex) throws SQLException {
-        Multimap<String, Object> keyValueMap = LinkedListMultimap.create();
+    public static int setParametersOnStatement(SqlgGraph sqlgGraph, LinkedList<SchemaTableTree> schemaTableTreeStack, PreparedStatement preparedStatement, int parameterIndex) throws SQLException {
+        return setParametersOnStatement(sqlgGraph, schemaTableTreeStack, preparedStatement, parameterIndex, true);
+    }
+
+    /**
+     * @param bulkWithinOutArrays false for drop queries, they print the bulk within/without values into the sql.
+     * @return The index of the next parameter.
+     */
+    public static int setParametersOnStatement(SqlgGraph sqlgGraph, LinkedList<SchemaTableTree> schemaTableTreeStack, PreparedStatement preparedStatement, int parameterIndex, boolean bulkWithinOutArrays) throws SQLException {
+        //If the stack has duplicates the sql is a join of sub selects, each with its own bulk within joins and where clause.
+        boolean first = true;
+        for (LinkedList<SchemaTableTree> subStack : SchemaTableTree.splitIntoSubStacks(schemaTableTreeStack)) {
+            //The bulk within/without arrays are in the from clause, before the where clause's parameters.
+            if (bulkWithinOutArrays) {
+                parameterIndex = setBulkWithinOutArraysOnStatement(sqlgGraph, subStack, preparedStatement, parameterIndex);
+            }
+            //The SqlgVertexStep's incoming ids and indexes are joined on after the bulk within/without values of the first sub select.
+            if (first && bulkWithinOutArrays) {
+                SchemaTableTree rootSchemaTableTree = subStack.getFirst();
+                if (rootSchemaTableTree.getStepType() != SchemaTableTree.STEP_TYPE.GRAPH_STEP && rootSchemaTableTree.getParentIdsAndIndexesArrays() != null) {
+                    for (Pair<PropertyType, Object[]> parentIdsAndIndexesArray : rootSchemaTableTree.getParentIdsAndIndexesArrays()) {
+                        sqlgGraph.getSqlDialect().setArray(preparedStatement, parameterIndex++, parentIdsAndIndexesArray.getLeft(), parentIdsAndIndexesArray.getRight());
+                    }
+                }
+            }
+            first = false;
+            Multimap<String, Object> keyValueMap = LinkedListMultimap.create();
+            for (SchemaTableTree schemaTableTree : subStack) {
+                for (HasContainer hasContainer : schemaTableTree.getHasContainers()) {
+                    if (!sqlgGraph.getSqlDialect().supportsBulkWithinOut() || !isBulkWithinAndOut(sqlgGraph, hasContainer)) {
+                        WhereClause whereClause = WhereClause.from(hasContainer.getPredicate());
+                        whereClause.putKeyValueMap(hasContainer, keyValueMap, schemaTableTree);
+                    }
+                }
+                for (AndOrHasContainer andOrHasContainer : schemaTableTree.getAndOrHasContainers()) {
+                    andOrHasContainer.setParameterOnStatement(keyValueMap, schemaTableTree);
+                }
+                for (ExistsContainer existsContainer : schemaTableTree.getExistsContainers()) {
+                    existsContainer.setParameterOnStatement(sqlgGraph, keyValueMap, schemaTableTree);
+                }
+            }
+            List<ImmutablePair<PropertyType, Object>> typeAndValues = SqlgUtil.transformToTypeAndValue(keyValueMap);
+            //This is for selects
+            parameterIndex = setKeyValuesAsParameter(sqlgGraph, false, parameterIndex, preparedStatement, typeAndValues);
+        }
+        return parameterIndex;
+    }
+
+    private static int setBulkWithinOutArraysOnStatement(SqlgGraph sqlgGraph, LinkedList<SchemaTableTree> schemaTableTreeStack, PreparedStatement preparedStatement, int parameterIndex) throws SQLException {
+        if (!sqlgGraph.getSqlDialect().supportsBulkWithinOut() || !sqlgGraph.getSqlDialect().supportsBulkWithinOutArrayParameter()) {
+            return parameterIndex;
+        }
         for (SchemaTableTree schemaTableTree : schemaTableTreeStack) {
             for (HasContainer hasContainer : schemaTableTree.getHasContainers()) {
-                if (!sqlgGraph.getSqlDialect().supportsBulkWithinOut() || !isBulkWithinAndOut(sqlgGraph, hasContainer)) {
-                    WhereClause whereClause = WhereClause.from(hasContainer.getPredicate());
-                    whereClause.putKeyValueMap(hasContainer, keyValueMap, schemaTableTree);
+                if (isBulkWithinAndOut(sqlgGraph, hasContainer)) {
+                    List<Pair<PropertyType, Object[]>> bulkWithinOutArrays = schemaTableTree.bulkWithinOutArrays(hasContainer);
+                    if (bulkWithinOutArrays != null) {
+                        for (Pair<PropertyType, Object[]> bulkWithinOutArray : bulkWithinOutArrays) {
+                            sqlgGraph.getSqlDialect().setArray(preparedStatement, parameterIndex++, bulkWithinOutArray.getLeft(), bulkWithinOutArray.getRight());
+                        }
+                    }
                 }
             }
-            for (AndOrHasContainer andOrHasContainer : schemaTableTree.getAndOrHasContainers()) {
-                andOrHasContainer.setParameterOnStatement(keyValueMap, schemaTableTree);
-            }
         }
-        List<ImmutablePair<PropertyType, Object>> typeAndValues = SqlgUtil.transformToTypeAndValue(keyValueMap);
-        //This is for selects
-        setKeyValuesAsParameter(sqlgGraph, false, parameterIndex, preparedStatement, typeAndValues);
+        return parameterIndex;
     }
 
 
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import org.apache.commons.lang3.tuple.Triple;
 import org.apache.tinkerpop.gremlin.structure.Property;
@@ -12,6 +13,8 @@ import org.umlg.sqlg.sql.dialect.BaseSqlDialect;
 import org.umlg.sqlg.structure.PropertyType;
 import org.umlg.sqlg.structure.SchemaTable;
 import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.structure.topology.Topology;
+import org.umlg.sqlg.structure.topology.VertexLabel;
 import org.umlg.sqlg.util.SqlgUtil;
 
 import java.io.IOException;
@@ -42,6 +45,21 @@ public class H2Dialect extends BaseSqlDialect {
         return true;
     }
 
+    @Override
+    public boolean supportsJdbcStreamingBatchMode() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsUpsert() {
+        return true;
+    }
+
+    @Override
+    public String upsertVertexSql(SqlgGraph sqlgGraph, VertexLabel vertexLabel, List<String> uniqueKeys, SortedSet<String> columns) {
+        return mergeVertexSql(vertexLabel, uniqueKeys, columns, false);
+    }
+
     @Override
     public String dialectName() {
         return "H2Dialect";
@@ -545,7 +563,34 @@ public class H2Dialect extends BaseSqlDialect {
 
     @Override
     public long nextSequenceVal(SqlgGraph sqlgGraph, SchemaTable schemaTable, String prefix) {
-        throw new UnsupportedOperationException("H2 does not support batch mode!");
+        return nextSequenceValues(sqlgGraph, schemaTable, prefix, 1)[0];
+    }
+
+    /**
+     * The values are taken from the sequence of the label's IDENTITY column, so they never collide with the ids that
+     * the column's default gives to the other inserts.
+     */
+    @Override
+    public long[] nextSequenceValues(SqlgGraph sqlgGraph, SchemaTable schemaTable, String prefix, int count) {
+        String sql = "SELECT NEXT VALUE FOR " + sequenceName(sqlgGraph, schemaTable, prefix) + " FROM SYSTEM_RANGE(1, " + count + ")";
+        long[] result = new long[count];
+        Connection conn = sqlgGraph.tx().getConnection();
+        try (Statement statement = conn.createStatement()) {
+            ResultSet resultSet = statement.executeQuery(sql);
+            int i = 0;
+            while (resultSet.next()) {
+                result[i++] = resultSet.getLong(1);
+            }
+            resultSet.close();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supportsSequenceIdAllocation() {
+        return true;
     }
 
     @Override
@@ -553,9 +598,28 @@ public class H2Dialect extends BaseSqlDialect {
         throw new UnsupportedOperationException("H2 does not support batch mode!");
     }
 
+    /**
+     * @return The sequence that H2 created for the label's ID IDENTITY column.
+     */
     @Override
     public String sequenceName(SqlgGraph sqlgGraph, SchemaTable outSchemaTable, String prefix) {
-        throw new UnsupportedOperationException("H2 does not support sequenceName!");
+        Preconditions.checkArgument(prefix.equals(Topology.VERTEX_PREFIX) || prefix.equals(Topology.EDGE_PREFIX), "prefix must be " + Topology.VERTEX_PREFIX + " or " + Topology.EDGE_PREFIX);
+        Connection conn = sqlgGraph.tx().getConnection();
+        try (PreparedStatement preparedStatement = conn.prepareStatement(
+                "SELECT SEQUENCE_NAME FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? AND COLUMN_NAME = ?")) {
+            preparedStatement.setString(1, outSchemaTable.getSchema());
+            preparedStatement.setString(2, prefix + outSchemaTable.getTable());
+            preparedStatement.setString(3, Topology.ID);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            if (!resultSet.next() || resultSet.getString(1) == null) {
+                throw new IllegalStateException(String.format("The ID column of %s has no sequence.", outSchemaTable.getSchema() + "." + prefix + outSchemaTable.getTable()));
+            }
+            String sequenceName = resultSet.getString(1);
+            resultSet.close();
+            return maybeWrapInQoutes(outSchemaTable.getSchema()) + "." + maybeWrapInQoutes(sequenceName);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
@@ -1016,6 +1080,29 @@ public class H2Dialect extends BaseSqlDialect {
         }
     }
 
+    @Override
+    public boolean supportsRecursiveCte() {
+        return true;
+    }
+
+    /**
+     * H2 1.4.199 has no quantified comparison with an array, the path is searched with ARRAY_CONTAINS.
+     */
+    @Override
+    public String recursiveCtePathStart(String from, String to) {
+        return "ARRAY[" + from + ", " + to + "]";
+    }
+
+    @Override
+    public String recursiveCtePathAppend(String path, String to) {
+        return "ARRAY_APPEND(" + path + ", " + to + ")";
+    }
+
+    @Override
+    public String recursiveCtePathContains(String path, String id) {
+        return "ARRAY_CONTAINS(" + path + ", " + id + ")";
+    }
+
     @Override
     public void grantReadOnlyUserPrivilegesToSqlgSchemas(SqlgGraph sqlgGraph) {
         //Do nothing, we are not testing readOnly on H2
@@ -12,6 +12,7 @@ import org.umlg.sqlg.structure.PropertyType;
 import org.umlg.sqlg.structure.SchemaTable;
 import org.umlg.sqlg.structure.SqlgExceptions;
 import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.structure.topology.VertexLabel;
 import org.umlg.sqlg.util.SqlgUtil;
 
 import java.io.IOException;
@@ -711,6 +712,15 @@ public class HsqldbDialect extends BaseSqlDialect implements SqlBulkDialect {
         throw new UnsupportedOperationException("Hsqldb does not support nextSequenceVal!");
     }
 
+    /**
+     * The ID IDENTITY columns' generators are not sequences that NEXT VALUE FOR can take values from. Ids reserved from a
+     * separate sequence would collide with the ids the IDENTITY columns give to the other inserts.
+     */
+    @Override
+    public boolean supportsSequenceIdAllocation() {
+        return false;
+    }
+
     @Override
     public long currSequenceVal(SqlgGraph sqlgGraph, SchemaTable schemaTable, String prefix) {
         throw new UnsupportedOperationException("Hsqldb does not support currSequenceVal!");
@@ -721,11 +731,26 @@ public class HsqldbDialect extends BaseSqlDialect implements SqlBulkDialect {
         throw new UnsupportedOperationException("Hsqldb does not support sequenceName!");
     }
 
+    @Override
+    public boolean supportsUpsert() {
+        return true;
+    }
+
+    @Override
+    public String upsertVertexSql(SqlgGraph sqlgGraph, VertexLabel vertexLabel, List<String> uniqueKeys, SortedSet<String> columns) {
+        return mergeVertexSql(vertexLabel, uniqueKeys, columns, true);
+    }
+
     @Override
     public boolean supportsBatchMode() {
         return true;
     }
 
+    @Override
+    public boolean supportsJdbcStreamingBatchMode() {
+        return true;
+    }
+
     @Override
     public boolean supportsBulkWithinOut() {
         return true;
@@ -1250,6 +1275,26 @@ public class HsqldbDialect extends BaseSqlDialect implements SqlBulkDialect {
         }
     }
 
+    @Override
+    public boolean supportsRecursiveCte() {
+        return true;
+    }
+
+    @Override
+    public String recursiveCtePathStart(String from, String to) {
+        return "CAST(ARRAY[" + from + ", " + to + "] AS BIGINT ARRAY)";
+    }
+
+    @Override
+    public String recursiveCtePathAppend(String path, String to) {
+        return path + " || ARRAY[" + to + "]";
+    }
+
+    @Override
+    public String recursiveCtePathContains(String path, String id) {
+        return id + " = ANY(" + path + ")";
+    }
+
     @Override
     public void grantReadOnlyUserPrivilegesToSqlgSchemas(SqlgGraph sqlgGraph) {
         Connection conn = sqlgGraph.tx().getConnection();
@@ -7,7 +7,9 @@ import org.umlg.sqlg.structure.PropertyType;
 import org.umlg.sqlg.structure.SchemaTable;
 import org.umlg.sqlg.structure.SqlgExceptions;
 import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.structure.topology.PropertyColumn;
 import org.umlg.sqlg.structure.topology.Topology;
+import org.umlg.sqlg.structure.topology.VertexLabel;
 import org.umlg.sqlg.util.SqlgUtil;
 
 import java.sql.*;
@@ -23,6 +25,8 @@ import static org.umlg.sqlg.structure.PropertyType.*;
 @SuppressWarnings("unused")
 public class MariadbDialect extends BaseSqlDialect {
 
+    private boolean supportsRecursiveCte;
+
     @Override
     public int getMaximumSchemaNameLength() {
         return 63;
@@ -53,6 +57,52 @@ public class MariadbDialect extends BaseSqlDialect {
         return false;
     }
 
+    @Override
+    public boolean supportsUpsert() {
+        return true;
+    }
+
+    /**
+     * INSERT ... ON DUPLICATE KEY UPDATE. The update happens on a duplicate of any of the table's unique keys, not only of
+     * the uniqueKeys, the uniqueKeys are checked to be a unique index or the identifiers of the label.
+     */
+    @Override
+    public String upsertVertexSql(SqlgGraph sqlgGraph, VertexLabel vertexLabel, List<String> uniqueKeys, SortedSet<String> columns) {
+        Map<String, PropertyColumn> propertyColumns = vertexLabel.getProperties();
+        List<String> physicalColumns = new ArrayList<>();
+        for (String column : columns) {
+            PropertyType propertyType = propertyColumns.get(column).getPropertyType();
+            String[] sqlDefinitions = propertyTypeToSqlDefinition(propertyType);
+            for (int count = 1; count <= sqlDefinitions.length; count++) {
+                physicalColumns.add(maybeWrapInQoutes(count > 1 ? column + propertyType.getPostFixes()[count - 2] : column));
+            }
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO ");
+        sql.append(maybeWrapInQoutes(vertexLabel.getSchema().getName()));
+        sql.append(".");
+        sql.append(maybeWrapInQoutes(Topology.VERTEX_PREFIX + vertexLabel.getName()));
+        sql.append(" (");
+        sql.append(String.join(", ", physicalColumns));
+        sql.append(") VALUES (");
+        for (int i = 1; i <= physicalColumns.size(); i++) {
+            sql.append("?");
+            if (i < physicalColumns.size()) {
+                sql.append(", ");
+            }
+        }
+        sql.append(") ON DUPLICATE KEY UPDATE ");
+        for (int i = 0; i < physicalColumns.size(); i++) {
+            sql.append(physicalColumns.get(i)).append(" = VALUES(").append(physicalColumns.get(i)).append(")");
+            if (i < physicalColumns.size() - 1) {
+                sql.append(", ");
+            }
+        }
+        if (needsSemicolon()) {
+            sql.append(";");
+        }
+        return sql.toString();
+    }
+
     @Override
     public boolean supportsBatchMode() {
         return true;
@@ -1089,6 +1139,41 @@ public class MariadbDialect extends BaseSqlDialect {
         return " LIMIT " + skip + ", 1000000";
     }
 
+    /**
+     * Recursive common table expressions are only available from MariaDB 10.2.
+     */
+    @Override
+    public void prepareDB(Connection conn) {
+        try {
+            DatabaseMetaData metaData = conn.getMetaData();
+            int major = metaData.getDatabaseMajorVersion();
+            this.supportsRecursiveCte = major > 10 || (major == 10 && metaData.getDatabaseMinorVersion() >= 2);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean supportsRecursiveCte() {
+        return this.supportsRecursiveCte;
+    }
+
+    /**
+     * MariaDb does not CAST to VARCHAR.
+     */
+    @Override
+    public String recursiveCtePathType() {
+        return "CHAR(4000)";
+    }
+
+    /**
+     * MariaDb does not CAST to most of the column types, an untyped NULL takes the type of the other branches.
+     */
+    @Override
+    public String unionAllNull(PropertyType propertyType) {
+        return "NULL";
+    }
+
     @Override
     public void grantReadOnlyUserPrivilegesToSqlgSchemas(SqlgGraph sqlgGraph) {
         Connection conn = sqlgGraph.tx().getConnection();
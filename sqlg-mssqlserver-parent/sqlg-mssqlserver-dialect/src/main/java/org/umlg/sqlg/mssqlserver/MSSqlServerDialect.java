@@ -901,6 +901,19 @@ public class MSSqlServerDialect extends BaseSqlDialect {
         return "#";
     }
 
+    @Override
+    public boolean supportsUpsert() {
+        return true;
+    }
+
+    /**
+     * Sql Server requires a MERGE statement to be terminated by a semicolon.
+     */
+    @Override
+    public String upsertVertexSql(SqlgGraph sqlgGraph, VertexLabel vertexLabel, List<String> uniqueKeys, SortedSet<String> columns) {
+        return mergeVertexSql(vertexLabel, uniqueKeys, columns, false) + ";";
+    }
+
     @Override
     public boolean supportsBatchMode() {
         return true;
@@ -1728,6 +1741,21 @@ public class MSSqlServerDialect extends BaseSqlDialect {
         return sql.toString();
     }
 
+    @Override
+    public boolean supportsRecursiveCte() {
+        return true;
+    }
+
+    @Override
+    public String withRecursive() {
+        return "WITH";
+    }
+
+    @Override
+    public String recursiveCtePathType() {
+        return "VARCHAR(MAX)";
+    }
+
     @Override
     public void grantReadOnlyUserPrivilegesToSqlgSchemas(SqlgGraph sqlgGraph) {
         Connection conn = sqlgGraph.tx().getConnection();
@@ -0,0 +1,487 @@
+package org.umlg.sqlg.sql.dialect;
+
+import com.google.common.base.Preconditions;
+import org.umlg.sqlg.structure.BatchManager;
+import org.umlg.sqlg.structure.PropertyType;
+import org.umlg.sqlg.structure.RecordId;
+import org.umlg.sqlg.structure.SqlgEdge;
+import org.umlg.sqlg.structure.SqlgVertex;
+import org.umlg.sqlg.structure.topology.EdgeLabel;
+import org.umlg.sqlg.structure.topology.PropertyColumn;
+import org.umlg.sqlg.structure.topology.Topology;
+import org.umlg.sqlg.structure.topology.VertexLabel;
+import org.umlg.sqlg.util.SqlgUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.umlg.sqlg.structure.PropertyType.*;
+
+/**
+ * Encodes rows in Postgresql's binary COPY format, i.e. <code>COPY ... FROM STDIN (FORMAT binary)</code>.
+ * Numbers are written as is instead of being formatted as text and parsed again by the server.
+ * <p>
+ * It is the {@link BatchManager.RowSink} of a binary copy command, see {@link PostgresDialect#streamRowSink}.
+ * Only the {@link PropertyType}s for which {@link #supports(PropertyType)} is true can be written,
+ * a table with any other property falls back to csv.
+ * <p>
+ * Temporal values are encoded to the same values the csv copy stores. The csv copy sends local date times without an
+ * offset, the server reads them in the session's time zone, which the jdbc driver sets to the jvm's default time zone.
+ */
+final class PostgresBinaryCopyRowSink implements BatchManager.RowSink {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+    private static final int BUFFER_SIZE = 64 * 1024;
+    //days between 1970-01-01 and postgres' epoch 2000-01-01
+    private static final long POSTGRES_EPOCH_DAYS = 10957;
+    private static final long POSTGRES_EPOCH_SECONDS = POSTGRES_EPOCH_DAYS * 24 * 60 * 60;
+
+    private static final int BOOL_OID = 16;
+    private static final int INT2_OID = 21;
+    private static final int INT4_OID = 23;
+    private static final int INT8_OID = 20;
+    private static final int FLOAT4_OID = 700;
+    private static final int FLOAT8_OID = 701;
+    private static final int TEXT_OID = 25;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private boolean closed;
+
+    PostgresBinaryCopyRowSink(OutputStream out) throws IOException {
+        this.out = out;
+        writeBytes(SIGNATURE);
+        //flags and header extension length
+        writeInt(0);
+        writeInt(0);
+    }
+
+    static boolean supports(PropertyType propertyType) {
+        switch (propertyType.ordinal()) {
+            case BOOLEAN_ORDINAL:
+            case SHORT_ORDINAL:
+            case INTEGER_ORDINAL:
+            case LONG_ORDINAL:
+            case FLOAT_ORDINAL:
+            case DOUBLE_ORDINAL:
+            case STRING_ORDINAL:
+            case VARCHAR_ORDINAL:
+            case LOCALDATE_ORDINAL:
+            case LOCALDATETIME_ORDINAL:
+            case ZONEDDATETIME_ORDINAL:
+            case LOCALTIME_ORDINAL:
+            case DURATION_ORDINAL:
+            case PERIOD_ORDINAL:
+            case byte_ARRAY_ORDINAL:
+            case BYTE_ARRAY_ORDINAL:
+            case boolean_ARRAY_ORDINAL:
+            case BOOLEAN_ARRAY_ORDINAL:
+            case short_ARRAY_ORDINAL:
+            case SHORT_ARRAY_ORDINAL:
+            case int_ARRAY_ORDINAL:
+            case INTEGER_ARRAY_ORDINAL:
+            case long_ARRAY_ORDINAL:
+            case LONG_ARRAY_ORDINAL:
+            case float_ARRAY_ORDINAL:
+            case FLOAT_ARRAY_ORDINAL:
+            case double_ARRAY_ORDINAL:
+            case DOUBLE_ARRAY_ORDINAL:
+            case STRING_ARRAY_ORDINAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return The number of fields a value of the property type is written as, i.e. its number of columns.
+     */
+    static int fieldCount(PropertyType propertyType) {
+        return propertyType.getPostFixes().length + 1;
+    }
+
+    /**
+     * @param vertexLabel Temporary vertices are not copied in the binary format, it can not be null.
+     */
+    @Override
+    public void writeVertex(Map<String, Object> keyValueMap, VertexLabel vertexLabel) {
+        Preconditions.checkArgument(vertexLabel != null, "A temporary vertex can not be copied in the binary format.");
+        try {
+            startRow(fieldCount(keyValueMap, vertexLabel.getProperties()));
+            writeValues(keyValueMap, vertexLabel.getProperties());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void writeEdge(
+            SqlgEdge sqlgEdge,
+            VertexLabel outVertexLabel,
+            VertexLabel inVertexLabel,
+            SqlgVertex outVertex,
+            SqlgVertex inVertex,
+            Map<String, Object> keyValueMap,
+            EdgeLabel edgeLabel) {
+
+        List<PropertyType> outIdentifierTypes = PostgresDialect.identifierPropertyTypes(outVertexLabel);
+        List<PropertyType> inIdentifierTypes = PostgresDialect.identifierPropertyTypes(inVertexLabel);
+        try {
+            startRow(outIdentifierTypes.size() + inIdentifierTypes.size() + fieldCount(keyValueMap, edgeLabel.getProperties()));
+            writeVertexId(outIdentifierTypes, outVertexLabel, outVertex);
+            writeVertexId(inIdentifierTypes, inVertexLabel, inVertex);
+            writeValues(keyValueMap, edgeLabel.getProperties());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes a row of the temporary table a bulk update or within is joined on.
+     *
+     * @param propertyTypes The type of each of the row's values.
+     */
+    void writeRow(List<PropertyType> propertyTypes, Object[] row) {
+        int fieldCount = 0;
+        for (PropertyType propertyType : propertyTypes) {
+            fieldCount += fieldCount(propertyType);
+        }
+        try {
+            startRow(fieldCount);
+            for (int i = 0; i < row.length; i++) {
+                writeValue(propertyTypes.get(i), row[i]);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static int fieldCount(Map<String, Object> keyValueMap, Map<String, PropertyColumn> properties) {
+        int fieldCount = 0;
+        for (String key : keyValueMap.keySet()) {
+            fieldCount += key.equals(Topology.ID) ? 1 : fieldCount(properties.get(key).getPropertyType());
+        }
+        return fieldCount;
+    }
+
+    private void writeValues(Map<String, Object> keyValueMap, Map<String, PropertyColumn> properties) throws IOException {
+        for (Map.Entry<String, Object> entry : keyValueMap.entrySet()) {
+            if (entry.getKey().equals(Topology.ID)) {
+                writeValue(PropertyType.LONG, entry.getValue());
+            } else {
+                writeValue(properties.get(entry.getKey()).getPropertyType(), entry.getValue());
+            }
+        }
+    }
+
+    private void writeVertexId(List<PropertyType> identifierTypes, VertexLabel vertexLabel, SqlgVertex vertex) throws IOException {
+        RecordId.ID id = ((RecordId) vertex.id()).getID();
+        if (vertexLabel.hasIDPrimaryKey()) {
+            writeLong(id.getSequenceId());
+        } else {
+            int count = 0;
+            for (PropertyType propertyType : identifierTypes) {
+                writeValue(propertyType, id.getIdentifiers().get(count++));
+            }
+        }
+    }
+
+    private void startRow(int numberOfFields) throws IOException {
+        writeShort(numberOfFields);
+    }
+
+    private void writeLong(long value) throws IOException {
+        writeInt(8);
+        writeLongValue(value);
+    }
+
+    private void writeValue(PropertyType propertyType, Object value) throws IOException {
+        if (value == null) {
+            for (int i = 0; i < fieldCount(propertyType); i++) {
+                writeInt(-1);
+            }
+            return;
+        }
+        switch (propertyType.ordinal()) {
+            case BOOLEAN_ORDINAL:
+                writeInt(1);
+                writeByte((Boolean) value ? 1 : 0);
+                break;
+            case SHORT_ORDINAL:
+                writeInt(2);
+                writeShort(((Number) value).shortValue());
+                break;
+            case INTEGER_ORDINAL:
+                writeInt(4);
+                writeInt(((Number) value).intValue());
+                break;
+            case LONG_ORDINAL:
+                writeLong(((Number) value).longValue());
+                break;
+            case FLOAT_ORDINAL:
+                writeInt(4);
+                writeInt(Float.floatToIntBits(((Number) value).floatValue()));
+                break;
+            case DOUBLE_ORDINAL:
+                writeInt(8);
+                writeLongValue(Double.doubleToLongBits(((Number) value).doubleValue()));
+                break;
+            case STRING_ORDINAL:
+            case VARCHAR_ORDINAL:
+                writeText(value.toString());
+                break;
+            case LOCALDATE_ORDINAL:
+                writeInt(4);
+                writeInt((int) (((LocalDate) value).toEpochDay() - POSTGRES_EPOCH_DAYS));
+                break;
+            case LOCALDATETIME_ORDINAL:
+                writeTimestamp((LocalDateTime) value);
+                break;
+            case ZONEDDATETIME_ORDINAL:
+                ZonedDateTime zonedDateTime = (ZonedDateTime) value;
+                writeTimestamp(zonedDateTime.toLocalDateTime());
+                writeText(TimeZone.getTimeZone(zonedDateTime.getZone()).getID());
+                break;
+            case LOCALTIME_ORDINAL:
+                writeTimeWithTimeZone((LocalTime) value);
+                break;
+            case DURATION_ORDINAL:
+                Duration duration = (Duration) value;
+                writeLong(duration.getSeconds());
+                writeInt(4);
+                writeInt(duration.getNano());
+                break;
+            case PERIOD_ORDINAL:
+                Period period = (Period) value;
+                writeInt(4);
+                writeInt(period.getYears());
+                writeInt(4);
+                writeInt(period.getMonths());
+                writeInt(4);
+                writeInt(period.getDays());
+                break;
+            case byte_ARRAY_ORDINAL:
+                byte[] bytes = (byte[]) value;
+                writeInt(bytes.length);
+                writeBytes(bytes);
+                break;
+            case BYTE_ARRAY_ORDINAL:
+                bytes = (byte[]) SqlgUtil.convertByteArrayToPrimitiveArray((Byte[]) value);
+                writeInt(bytes.length);
+                writeBytes(bytes);
+                break;
+            case boolean_ARRAY_ORDINAL:
+            case BOOLEAN_ARRAY_ORDINAL:
+                writeArray(value, BOOL_OID, 1);
+                break;
+            case short_ARRAY_ORDINAL:
+            case SHORT_ARRAY_ORDINAL:
+                writeArray(value, INT2_OID, 2);
+                break;
+            case int_ARRAY_ORDINAL:
+            case INTEGER_ARRAY_ORDINAL:
+                writeArray(value, INT4_OID, 4);
+                break;
+            case long_ARRAY_ORDINAL:
+            case LONG_ARRAY_ORDINAL:
+                writeArray(value, INT8_OID, 8);
+                break;
+            case float_ARRAY_ORDINAL:
+            case FLOAT_ARRAY_ORDINAL:
+                writeArray(value, FLOAT4_OID, 4);
+                break;
+            case double_ARRAY_ORDINAL:
+            case DOUBLE_ARRAY_ORDINAL:
+                writeArray(value, FLOAT8_OID, 8);
+                break;
+            case STRING_ARRAY_ORDINAL:
+                writeStringArray((String[]) value);
+                break;
+            default:
+                throw new IllegalStateException("Binary copy does not support " + propertyType.name());
+        }
+    }
+
+    private void writeText(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        writeBytes(bytes);
+    }
+
+    /**
+     * A timestamp is the microseconds since 2000-01-01 00:00:00 UTC as an int64.
+     * The local date time is in the session's time zone, nanoseconds are rounded to microseconds as the server does.
+     */
+    private void writeTimestamp(LocalDateTime localDateTime) throws IOException {
+        Instant instant = localDateTime.atZone(ZoneId.systemDefault()).toInstant();
+        writeLong((instant.getEpochSecond() - POSTGRES_EPOCH_SECONDS) * 1_000_000L + (instant.getNano() + 500) / 1000);
+    }
+
+    /**
+     * A time with time zone is the microseconds since midnight as an int64 followed by the zone as an int32 of seconds
+     * west of UTC. The csv copy sends the time without the seconds' fraction, shifted by today's daylight saving, and
+     * the server takes today's offset of the session's time zone.
+     */
+    private void writeTimeWithTimeZone(LocalTime localTime) throws IOException {
+        Instant now = Instant.now();
+        ZoneId zoneId = ZoneId.systemDefault();
+        LocalTime shifted = localTime.withNano(0).plusSeconds(zoneId.getRules().getDaylightSavings(now).getSeconds());
+        writeInt(12);
+        writeLongValue(shifted.toNanoOfDay() / 1000);
+        writeInt(-zoneId.getRules().getOffset(now).getTotalSeconds());
+    }
+
+    /**
+     * A one dimensional array of fixed size elements, the element's java type follows the oid.
+     */
+    private void writeArray(Object array, int oid, int elementSize) throws IOException {
+        int length = java.lang.reflect.Array.getLength(array);
+        int nulls = 0;
+        for (int i = 0; i < length; i++) {
+            if (java.lang.reflect.Array.get(array, i) == null) {
+                nulls++;
+            }
+        }
+        writeArrayHeader(length, nulls > 0, oid, 4 * length + (length - nulls) * elementSize);
+        for (int i = 0; i < length; i++) {
+            Object element = java.lang.reflect.Array.get(array, i);
+            if (element == null) {
+                writeInt(-1);
+                continue;
+            }
+            writeInt(elementSize);
+            switch (oid) {
+                case BOOL_OID:
+                    writeByte((Boolean) element ? 1 : 0);
+                    break;
+                case INT2_OID:
+                    writeShort(((Number) element).shortValue());
+                    break;
+                case INT4_OID:
+                    writeInt(((Number) element).intValue());
+                    break;
+                case INT8_OID:
+                    writeLongValue(((Number) element).longValue());
+                    break;
+                case FLOAT4_OID:
+                    writeInt(Float.floatToIntBits(((Number) element).floatValue()));
+                    break;
+                case FLOAT8_OID:
+                    writeLongValue(Double.doubleToLongBits(((Number) element).doubleValue()));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown array element oid " + oid);
+            }
+        }
+    }
+
+    private void writeStringArray(String[] array) throws IOException {
+        byte[][] elements = new byte[array.length][];
+        boolean hasNull = false;
+        int dataLength = 0;
+        for (int i = 0; i < array.length; i++) {
+            dataLength += 4;
+            if (array[i] == null) {
+                hasNull = true;
+            } else {
+                elements[i] = array[i].getBytes(StandardCharsets.UTF_8);
+                dataLength += elements[i].length;
+            }
+        }
+        writeArrayHeader(array.length, hasNull, TEXT_OID, dataLength);
+        for (byte[] element : elements) {
+            if (element == null) {
+                writeInt(-1);
+            } else {
+                writeInt(element.length);
+                writeBytes(element);
+            }
+        }
+    }
+
+    private void writeArrayHeader(int length, boolean hasNull, int oid, int dataLength) throws IOException {
+        if (length == 0) {
+            writeInt(12);
+            writeInt(0);
+            writeInt(0);
+            writeInt(oid);
+        } else {
+            writeInt(20 + dataLength);
+            writeInt(1);
+            writeInt(hasNull ? 1 : 0);
+            writeInt(oid);
+            writeInt(length);
+            //lower bound
+            writeInt(1);
+        }
+    }
+
+    private void writeByte(int value) throws IOException {
+        ensureCapacity(1);
+        this.buffer[this.position++] = (byte) value;
+    }
+
+    private void writeShort(int value) throws IOException {
+        ensureCapacity(2);
+        this.buffer[this.position++] = (byte) (value >>> 8);
+        this.buffer[this.position++] = (byte) value;
+    }
+
+    private void writeInt(int value) throws IOException {
+        ensureCapacity(4);
+        this.buffer[this.position++] = (byte) (value >>> 24);
+        this.buffer[this.position++] = (byte) (value >>> 16);
+        this.buffer[this.position++] = (byte) (value >>> 8);
+        this.buffer[this.position++] = (byte) value;
+    }
+
+    private void writeLongValue(long value) throws IOException {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        if (bytes.length > this.buffer.length - this.position) {
+            flushBuffer();
+            if (bytes.length > this.buffer.length) {
+                this.out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+        this.position += bytes.length;
+    }
+
+    private void ensureCapacity(int size) throws IOException {
+        if (this.position + size > this.buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (this.position > 0) {
+            this.out.write(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+    }
+
+    /**
+     * Writes the trailer and ends the copy.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        writeShort(-1);
+        flushBuffer();
+        this.out.close();
+    }
+}
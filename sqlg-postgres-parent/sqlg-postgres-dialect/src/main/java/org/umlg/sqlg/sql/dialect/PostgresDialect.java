@@ -38,6 +38,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.umlg.sqlg.structure.PropertyType.*;
@@ -50,6 +51,20 @@ import static org.umlg.sqlg.structure.topology.Topology.*;
 @SuppressWarnings("unused")
 public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
 
+    /**
+     * If true vertices and edges are copied in postgres' binary format instead of csv, defaults to false.
+     * Labels with a property the binary encoder does not support are still copied as csv.
+     */
+    public static final String COPY_BINARY = "copy.binary";
+    /**
+     * The number of rows from which batched property updates and removals are copied into a temporary table
+     * and joined on, instead of being rendered into the statement as a VALUES list, defaults to 1000.
+     * A value less than 1 never copies.
+     */
+    public static final String COPY_UPDATE_THRESHOLD = "copy.update.threshold";
+    private static final int COPY_UPDATE_THRESHOLD_DEFAULT = 1000;
+    private static final String COPY_TEMP_TABLE_PREFIX = "sqlg_copy_";
+    private static final String COPY_BINARY_FROM_STDIN = " FROM stdin (FORMAT binary);";
     private static final String BATCH_NULL = "";
     private static final String COPY_COMMAND_DELIMITER = "\t";
     //this strange character is apparently an illegal json char so its good as a quote
@@ -59,6 +74,7 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
     private static final int PARAMETER_LIMIT = 32767;
     private static final String COPY_DUMMY = "_copy_dummy";
     private PropertyType postGisType;
+    private final AtomicLong binaryCopies = new AtomicLong();
 
     private ScheduledFuture<?> future;
     private ExecutorService executorService;
@@ -213,7 +229,6 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
     @SuppressWarnings("Duplicates")
     @Override
     public void flushVertexCache(SqlgGraph sqlgGraph, Map<SchemaTable, Pair<SortedSet<String>, Map<SqlgVertex, Map<String, Object>>>> vertexCache) {
-        Connection con = sqlgGraph.tx().getConnection();
         for (SchemaTable schemaTable : vertexCache.keySet()) {
             Pair<SortedSet<String>, Map<SqlgVertex, Map<String, Object>>> vertices = vertexCache.get(schemaTable);
             VertexLabel vertexLabel = null;
@@ -223,24 +238,10 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
             }
 
             //We pre-create the sequence ids and pass them through in the copy command.
-            List<Long> ids = new LinkedList<>();
+            long[] ids = null;
             if (vertexLabel != null && vertexLabel.hasIDPrimaryKey()) {
-                // get all ids from sequence first
-                String sql = "SELECT NEXTVAL('" + maybeWrapInQoutes(schemaTable.getSchema()) + "." + maybeWrapInQoutes(VERTEX_PREFIX + schemaTable.getTable() + "_ID_seq") + "') from generate_series(1," + vertices.getRight().values().size() + ") ;";
-                if (logger.isDebugEnabled()) {
-                    logger.debug(sql);
-                }
-                try (PreparedStatement preparedStatement = con.prepareStatement(sql)) {
-                    ResultSet resultSet = preparedStatement.executeQuery();
-                    while (resultSet.next()) {
-                        ids.add(resultSet.getLong(1));
-                    }
-                    resultSet.close();
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
-                }
+                ids = sqlgGraph.getSequenceIdAllocator().nextIds(schemaTable, VERTEX_PREFIX, vertices.getRight().size());
             }
-            Iterator<Long> it = ids.iterator();
 
             String sql = internalConstructCompleteCopyCommandSqlVertex(
                     sqlgGraph,
@@ -250,30 +251,25 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
                     vertexLabel != null && vertexLabel.hasIDPrimaryKey(),
                     vertices.getLeft());
             int numberInserted = 0;
-            try (Writer writer = streamSql(sqlgGraph, sql)) {
+            //The row must contain all the keys, the same view is reused for every row.
+            CopyRow values = new CopyRow(ids != null, vertices.getLeft());
+            try (BatchManager.RowSink rowSink = streamRowSink(sqlgGraph, sql)) {
                 for (Map.Entry<SqlgVertex, Map<String, Object>> sqlgVertexKeyValueMapEntry : vertices.getRight().entrySet()) {
                     SqlgVertex sqlgVertex = sqlgVertexKeyValueMapEntry.getKey();
                     Map<String, Object> keyValueMap = sqlgVertexKeyValueMapEntry.getValue();
-                    //The map must contain all the keys, so make a copy with it all.
-                    LinkedHashMap<String, Object> values = new LinkedHashMap<>();
-                    if (vertexLabel != null && vertexLabel.hasIDPrimaryKey()) {
-                        long id = it.next();
+                    if (ids != null) {
+                        long id = ids[numberInserted];
                         sqlgVertex.setInternalPrimaryKey(RecordId.from(schemaTable, id));
-                        values.put("ID", id);
-                    }
-                    for (String key : vertices.getLeft()) {
-                        values.put(key, keyValueMap.get(key));
-                    }
-                    if (schemaTable.isTemporary()) {
-                        writeTemporaryStreamingVertex(writer, values);
+                        values.set(id, keyValueMap);
                     } else {
-                        writeStreamingVertex(writer, values, vertexLabel);
+                        values.set(null, keyValueMap);
                     }
+                    rowSink.writeVertex(values, schemaTable.isTemporary() ? null : vertexLabel);
                     numberInserted++;
                     if (vertexLabel != null && !vertexLabel.hasIDPrimaryKey()) {
                         List<Comparable> identifiers = new ArrayList<>();
                         for (String identifier : vertexLabel.getIdentifiers()) {
-                            identifiers.add((Comparable) values.get(identifier));
+                            identifiers.add((Comparable) keyValueMap.get(identifier));
                         }
                         sqlgVertex.setInternalPrimaryKey(RecordId.from(SchemaTable.of(schemaTable.getSchema(), schemaTable.getTable()), identifiers));
                     }
@@ -304,7 +300,7 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
                             globalUniqueIndex.getName(),
                             new HashSet<>(Arrays.asList(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_VALUE, GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_RECORD_ID, GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_PROPERTY_NAME))
                     );
-                    try (Writer writer = streamSql(sqlgGraph, sql)) {
+                    try (BatchManager.RowSink rowSink = streamRowSink(sqlgGraph, sql)) {
                         for (Map.Entry<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>> sqlgEdgeTripleEntry : edgeMap.entrySet()) {
                             SqlgEdge sqlgEdge = sqlgEdgeTripleEntry.getKey();
                             Triple<SqlgVertex, SqlgVertex, Map<String, Object>> triple = sqlgEdgeTripleEntry.getValue();
@@ -315,12 +311,12 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
                                 globalUniqueIndexValues.put(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_VALUE, value);
                                 globalUniqueIndexValues.put(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_RECORD_ID, sqlgEdge.id().toString());
                                 globalUniqueIndexValues.put(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_PROPERTY_NAME, propertyColumn.getName());
-                                writeStreamingVertex(writer, globalUniqueIndexValues, vertexLabel);
+                                rowSink.writeVertex(globalUniqueIndexValues, vertexLabel);
                             } else {
                                 globalUniqueIndexValues.put(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_VALUE, null);
                                 globalUniqueIndexValues.put(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_RECORD_ID, sqlgEdge.id().toString());
                                 globalUniqueIndexValues.put(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_PROPERTY_NAME, propertyColumn.getName());
-                                writeStreamingVertex(writer, globalUniqueIndexValues, vertexLabel);
+                                rowSink.writeVertex(globalUniqueIndexValues, vertexLabel);
                             }
                         }
                     } catch (IOException e) {
@@ -349,7 +345,7 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
                             globalUniqueIndex.getName(),
                             new HashSet<>(Arrays.asList(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_VALUE, GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_RECORD_ID, GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_PROPERTY_NAME))
                     );
-                    try (Writer writer = streamSql(sqlgGraph, sql)) {
+                    try (BatchManager.RowSink rowSink = streamRowSink(sqlgGraph, sql)) {
                         Map<SqlgVertex, Map<String, Object>> a = vertices.getRight();
                         for (Map.Entry<SqlgVertex, Map<String, Object>> sqlgVertexMapEntry : a.entrySet()) {
                             SqlgVertex sqlgVertex = sqlgVertexMapEntry.getKey();
@@ -360,12 +356,12 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
                                 globalUniqueIndexValues.put(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_VALUE, value);
                                 globalUniqueIndexValues.put(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_RECORD_ID, sqlgVertex.id().toString());
                                 globalUniqueIndexValues.put(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_PROPERTY_NAME, propertyColumn.getName());
-                                writeStreamingVertex(writer, globalUniqueIndexValues, vertexLabel);
+                                rowSink.writeVertex(globalUniqueIndexValues, vertexLabel);
                             } else {
                                 globalUniqueIndexValues.put(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_VALUE, null);
                                 globalUniqueIndexValues.put(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_RECORD_ID, sqlgVertex.id().toString());
                                 globalUniqueIndexValues.put(GlobalUniqueIndex.GLOBAL_UNIQUE_INDEX_PROPERTY_NAME, propertyColumn.getName());
-                                writeStreamingVertex(writer, globalUniqueIndexValues, vertexLabel);
+                                rowSink.writeVertex(globalUniqueIndexValues, vertexLabel);
                             }
                         }
                     } catch (IOException e) {
@@ -379,7 +375,6 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
     @SuppressWarnings("Duplicates")
     @Override
     public void flushEdgeCache(SqlgGraph sqlgGraph, Map<MetaEdge, Pair<SortedSet<String>, Map<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>>>> edgeCache) {
-        Connection con = sqlgGraph.tx().getConnection();
         try {
             for (MetaEdge metaEdge : edgeCache.keySet()) {
 
@@ -392,24 +387,9 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
                 Pair<SortedSet<String>, Map<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>>> triples = edgeCache.get(metaEdge);
                 Map<String, PropertyType> propertyTypeMap = sqlgGraph.getTopology().getTableFor(metaEdge.getSchemaTable().withPrefix(EDGE_PREFIX));
 
-                Iterator<Long> it = null;
+                long[] ids = null;
                 if (edgeLabel.hasIDPrimaryKey()) {
-                    List<Long> ids = new LinkedList<>();
-                    // get all ids from sequence first
-                    String seqsql = "SELECT NEXTVAL('" + maybeWrapInQoutes(metaEdge.getSchemaTable().getSchema()) + "." + maybeWrapInQoutes(EDGE_PREFIX + metaEdge.getSchemaTable().getTable() + "_ID_seq") + "') from generate_series(1," + triples.getRight().values().size() + ") ;";
-                    if (logger.isDebugEnabled()) {
-                        logger.debug(seqsql);
-                    }
-                    try (PreparedStatement preparedStatement = con.prepareStatement(seqsql)) {
-                        ResultSet resultSet = preparedStatement.executeQuery();
-                        while (resultSet.next()) {
-                            ids.add(resultSet.getLong(1));
-                        }
-                        resultSet.close();
-                    } catch (SQLException e) {
-                        throw new RuntimeException(e);
-                    }
-                    it = ids.iterator();
+                    ids = sqlgGraph.getSequenceIdAllocator().nextIds(metaEdge.getSchemaTable(), EDGE_PREFIX, triples.getRight().size());
                 }
 
                 StringBuilder sql = new StringBuilder();
@@ -461,34 +441,45 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
                 }
                 sql.append(") ");
 
-                sql.append(" FROM stdin CSV DELIMITER '");
-                sql.append(COPY_COMMAND_DELIMITER);
-                sql.append("' ");
-                sql.append("QUOTE ");
-                sql.append(COPY_COMMAND_QUOTE);
-                sql.append(" ESCAPE '");
-                sql.append(ESCAPE);
-                sql.append("';");
+                List<PropertyType> propertyTypes = new ArrayList<>(identifierPropertyTypes(outVertexLabel));
+                propertyTypes.addAll(identifierPropertyTypes(inVertexLabel));
+                if (edgeLabel.hasIDPrimaryKey()) {
+                    propertyTypes.add(PropertyType.LONG);
+                }
+                for (String key : triples.getLeft()) {
+                    propertyTypes.add(propertyTypeMap.get(key));
+                }
+                if (isCopyBinary(sqlgGraph, propertyTypes)) {
+                    sql.append(COPY_BINARY_FROM_STDIN);
+                } else {
+                    sql.append(" FROM stdin CSV DELIMITER '");
+                    sql.append(COPY_COMMAND_DELIMITER);
+                    sql.append("' ");
+                    sql.append("QUOTE ");
+                    sql.append(COPY_COMMAND_QUOTE);
+                    sql.append(" ESCAPE '");
+                    sql.append(ESCAPE);
+                    sql.append("';");
+                }
                 if (logger.isDebugEnabled()) {
                     logger.debug(sql.toString());
                 }
-                long numberInserted = 0;
-                try (Writer writer = streamSql(sqlgGraph, sql.toString())) {
+                int numberInserted = 0;
+                //The row must contain all the keys, the same view is reused for every row.
+                CopyRow values = new CopyRow(ids != null, triples.getLeft());
+                try (BatchManager.RowSink rowSink = streamRowSink(sqlgGraph, sql.toString())) {
                     for (Map.Entry<SqlgEdge, Triple<SqlgVertex, SqlgVertex, Map<String, Object>>> sqlgEdgeTripleEntry : triples.getRight().entrySet()) {
                         SqlgEdge sqlgEdge = sqlgEdgeTripleEntry.getKey();
 
                         Triple<SqlgVertex, SqlgVertex, Map<String, Object>> outInVertexKeyValueMap = sqlgEdgeTripleEntry.getValue();
-                        LinkedHashMap<String, Object> values = new LinkedHashMap<>();
-                        if (edgeLabel.hasIDPrimaryKey()) {
-                            long id = Objects.requireNonNull(it).next();
+                        if (ids != null) {
+                            long id = ids[numberInserted];
                             sqlgEdge.setInternalPrimaryKey(RecordId.from(metaEdge.getSchemaTable(), id));
-                            values.put("ID", id);
-                        }
-                        for (String key : triples.getLeft()) {
-                            values.put(key, outInVertexKeyValueMap.getRight().get(key));
+                            values.set(id, outInVertexKeyValueMap.getRight());
+                        } else {
+                            values.set(null, outInVertexKeyValueMap.getRight());
                         }
-                        writeStreamingEdge(
-                                writer,
+                        rowSink.writeEdge(
                                 sqlgEdge,
                                 outVertexLabel,
                                 inVertexLabel,
@@ -501,7 +492,7 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
                         if (!edgeLabel.hasIDPrimaryKey()) {
                             List<Comparable> identifiers = new ArrayList<>();
                             for (String identifier : edgeLabel.getIdentifiers()) {
-                                identifiers.add((Comparable) values.get(identifier));
+                                identifiers.add((Comparable) outInVertexKeyValueMap.getRight().get(identifier));
                             }
                             sqlgEdge.setInternalPrimaryKey(RecordId.from(SchemaTable.of(metaEdge.getSchemaTable().getSchema(), metaEdge.getSchemaTable().getTable()), identifiers));
                         }
@@ -1275,8 +1266,7 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
                     sql.append(", ");
                 }
             }
-            sql.append(")\nFROM (\nVALUES\n\t");
-            count = 1;
+            sql.append(")\nFROM ");
 
             AbstractLabel abstractLabel;
             if (forVertices) {
@@ -1285,58 +1275,50 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
                 abstractLabel = sqlgGraph.getTopology().getSchema(schemaTable.getSchema()).get().getEdgeLabel(schemaTable.getTable()).get();
             }
 
-            for (SqlgElement sqlgElement : vertexPropertyCache.keySet()) {
-                Map<String, Object> properties = vertexPropertyCache.get(sqlgElement);
-                sql.append("(");
+            //many rows are copied into a temporary table instead of being rendered into the statement.
+            String tempTable = null;
+            if (isCopyUpdate(sqlgGraph, vertexPropertyCache.size())) {
+                LinkedHashMap<String, PropertyType> columns = new LinkedHashMap<>();
                 if (abstractLabel.hasIDPrimaryKey()) {
-                    sql.append(((RecordId) sqlgElement.id()).getID());
-                    sql.append(", ");
+                    columns.put("sqlg_special_reserved_id", PropertyType.LONG);
                 } else {
-                    int countIdentifiers = 0;
-                    for (Comparable identifier : ((RecordId) sqlgElement.id()).getID().getIdentifiers()) {
-                        String identifierProperty = abstractLabel.getIdentifiers().get(countIdentifiers++);
-                        appendSqlValue(sql, identifier, abstractLabel.getProperty(identifierProperty).get().getPropertyType());
-                        sql.append(",");
+                    for (String identifier : abstractLabel.getIdentifiers()) {
+                        columns.put(identifier, abstractLabel.getProperty(identifier).get().getPropertyType());
                     }
                 }
-                int countProperties = 1;
                 for (String key : keys) {
-                    Object value = properties.get(key);
-                    if (value == null) {
-                        if (sqlgElement.property(key).isPresent()) {
-                            value = sqlgElement.value(key);
+                    columns.put(key, keyPropertyTypeMap.get(key));
+                }
+                List<Object[]> rows = new ArrayList<>(vertexPropertyCache.size());
+                for (SqlgElement sqlgElement : vertexPropertyCache.keySet()) {
+                    Map<String, Object> properties = vertexPropertyCache.get(sqlgElement);
+                    Object[] row = new Object[columns.size()];
+                    int column = 0;
+                    if (abstractLabel.hasIDPrimaryKey()) {
+                        row[column++] = ((RecordId) sqlgElement.id()).getID().getSequenceId();
+                    } else {
+                        for (Comparable identifier : ((RecordId) sqlgElement.id()).getID().getIdentifiers()) {
+                            row[column++] = identifier;
                         }
                     }
-                    PropertyType propertyType = keyPropertyTypeMap.get(key);
-                    appendSqlValue(sql, value, propertyType);
-                    if (countProperties++ < keys.size()) {
-                        sql.append(", ");
+                    for (String key : keys) {
+                        Object value = properties.get(key);
+                        if (value == null) {
+                            if (sqlgElement.property(key).isPresent()) {
+                                value = sqlgElement.value(key);
+                            }
+                        }
+                        row[column++] = value;
                     }
+                    rows.add(row);
                 }
-                sql.append(")");
-                if (count++ < vertexPropertyCache.size()) {
-                    sql.append(",\n\t");
-                }
-            }
-
-            if (abstractLabel.hasIDPrimaryKey()) {
-                sql.append("\n) AS v(sqlg_special_reserved_id, ");
+                tempTable = copyToTempTable(sqlgGraph, columns, rows);
+                sql.append(tempTable);
+                sql.append(" AS v");
             } else {
-                sql.append("\n) AS v(");
-                for (String identifier : abstractLabel.getIdentifiers()) {
-                    sql.append(maybeWrapInQoutes(identifier));
-                    sql.append(", ");
-                }
+                sql.append("(\nVALUES\n\t");
+                appendPropertyCacheValues(sql, abstractLabel, keys, keyPropertyTypeMap, vertexPropertyCache);
             }
-            count = 1;
-            for (String key : keys) {
-                PropertyType propertyType = keyPropertyTypeMap.get(key);
-                appendKeyForBatchUpdate(propertyType, sql, key, false);
-                if (count++ < keys.size()) {
-                    sql.append(", ");
-                }
-            }
-            sql.append(")");
             sql.append("\nWHERE ");
             if (abstractLabel.hasIDPrimaryKey()) {
                 sql.append("a.\"ID\" = v.sqlg_special_reserved_id");
@@ -1360,8 +1342,67 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
+            if (tempTable != null) {
+                dropTempTable(sqlgGraph, tempTable);
+            }
+        }
+
+    }
+
+    private void appendPropertyCacheValues(StringBuilder sql, AbstractLabel abstractLabel, SortedSet<String> keys, Map<String, PropertyType> keyPropertyTypeMap, Map<? extends SqlgElement, Map<String, Object>> vertexPropertyCache) {
+        int count = 1;
+        for (SqlgElement sqlgElement : vertexPropertyCache.keySet()) {
+            Map<String, Object> properties = vertexPropertyCache.get(sqlgElement);
+            sql.append("(");
+            if (abstractLabel.hasIDPrimaryKey()) {
+                sql.append(((RecordId) sqlgElement.id()).getID());
+                sql.append(", ");
+            } else {
+                int countIdentifiers = 0;
+                for (Comparable identifier : ((RecordId) sqlgElement.id()).getID().getIdentifiers()) {
+                    String identifierProperty = abstractLabel.getIdentifiers().get(countIdentifiers++);
+                    appendSqlValue(sql, identifier, abstractLabel.getProperty(identifierProperty).get().getPropertyType());
+                    sql.append(",");
+                }
+            }
+            int countProperties = 1;
+            for (String key : keys) {
+                Object value = properties.get(key);
+                if (value == null) {
+                    if (sqlgElement.property(key).isPresent()) {
+                        value = sqlgElement.value(key);
+                    }
+                }
+                PropertyType propertyType = keyPropertyTypeMap.get(key);
+                appendSqlValue(sql, value, propertyType);
+                if (countProperties++ < keys.size()) {
+                    sql.append(", ");
+                }
+            }
+            sql.append(")");
+            if (count++ < vertexPropertyCache.size()) {
+                sql.append(",\n\t");
+            }
         }
 
+        if (abstractLabel.hasIDPrimaryKey()) {
+            sql.append("\n) AS v(sqlg_special_reserved_id, ");
+        } else {
+            sql.append("\n) AS v(");
+            for (String identifier : abstractLabel.getIdentifiers()) {
+                sql.append(maybeWrapInQoutes(identifier));
+                sql.append(", ");
+            }
+        }
+        count = 1;
+        for (String key : keys) {
+            PropertyType propertyType = keyPropertyTypeMap.get(key);
+            appendKeyForBatchUpdate(propertyType, sql, key, false);
+            if (count++ < keys.size()) {
+                sql.append(", ");
+            }
+        }
+        sql.append(")");
     }
 
     @Override
@@ -1425,27 +1466,196 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
                     sql.append(", ");
                 }
                 count++;
-                appendKeyForStream(propertyTypeMap.get(key), sql, key);
+                if (key.equals(Topology.ID)) {
+                    //a streamed row with an id reserved by the SequenceIdAllocator
+                    sql.append(maybeWrapInQoutes(Topology.ID));
+                } else {
+                    appendKeyForStream(propertyTypeMap.get(key), sql, key);
+                }
             }
         }
         sql.append(")");
-        sql.append(" FROM stdin CSV DELIMITER '");
-        sql.append(COPY_COMMAND_DELIMITER);
-        sql.append("' ");
-        sql.append("QUOTE ");
-        sql.append(COPY_COMMAND_QUOTE);
-        sql.append(" ESCAPE '");
-        sql.append(ESCAPE);
-        sql.append("'");
-        sql.append(" NULL'");
-        sql.append(BATCH_NULL);
-        sql.append("';");
+        List<PropertyType> propertyTypes = new ArrayList<>();
+        if (needID) {
+            propertyTypes.add(PropertyType.LONG);
+        }
+        for (String key : keys) {
+            propertyTypes.add(key.equals(Topology.ID) ? PropertyType.LONG : propertyTypeMap.get(key));
+        }
+        if (!isTemp && isCopyBinary(sqlgGraph, propertyTypes)) {
+            sql.append(COPY_BINARY_FROM_STDIN);
+        } else {
+            sql.append(" FROM stdin CSV DELIMITER '");
+            sql.append(COPY_COMMAND_DELIMITER);
+            sql.append("' ");
+            sql.append("QUOTE ");
+            sql.append(COPY_COMMAND_QUOTE);
+            sql.append(" ESCAPE '");
+            sql.append(ESCAPE);
+            sql.append("'");
+            sql.append(" NULL'");
+            sql.append(BATCH_NULL);
+            sql.append("';");
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(sql.toString());
         }
         return sql.toString();
     }
 
+    /**
+     * @return true if {@link #COPY_BINARY} is on and every column can be encoded by the {@link PostgresBinaryCopyRowSink}.
+     */
+    private boolean isCopyBinary(SqlgGraph sqlgGraph, List<PropertyType> propertyTypes) {
+        if (!sqlgGraph.configuration().getBoolean(COPY_BINARY, false) || propertyTypes.isEmpty()) {
+            return false;
+        }
+        for (PropertyType propertyType : propertyTypes) {
+            if (propertyType == null || !PostgresBinaryCopyRowSink.supports(propertyType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of copy commands that have been streamed in the binary format.
+     */
+    public long getBinaryCopies() {
+        return this.binaryCopies.get();
+    }
+
+    private boolean isCopyUpdate(SqlgGraph sqlgGraph, int rows) {
+        int threshold = sqlgGraph.configuration().getInt(COPY_UPDATE_THRESHOLD, COPY_UPDATE_THRESHOLD_DEFAULT);
+        return threshold > 0 && rows >= threshold;
+    }
+
+    /**
+     * Creates a temporary table for the columns and copies the rows into it.
+     * The table is dropped on commit, {@link #dropTempTable(SqlgGraph, String)} drops it as soon as it has been joined on.
+     *
+     * @param columns The column names and their types, every row has a value per column in the same order.
+     * @param rows    The rows to copy.
+     * @return The quoted name of the temporary table.
+     */
+    private String copyToTempTable(SqlgGraph sqlgGraph, LinkedHashMap<String, PropertyType> columns, Collection<Object[]> rows) {
+        String tempTable = maybeWrapInQoutes(COPY_TEMP_TABLE_PREFIX + UUID.randomUUID().toString().replace("-", ""));
+        StringBuilder sql = new StringBuilder();
+        sql.append(createTemporaryTableStatement());
+        sql.append(tempTable);
+        sql.append(" (");
+        StringBuilder copyColumns = new StringBuilder();
+        int count = 1;
+        for (Map.Entry<String, PropertyType> column : columns.entrySet()) {
+            PropertyType propertyType = column.getValue();
+            String[] sqlDefinitions = propertyTypeToSqlDefinition(propertyType);
+            int countPerKey = 1;
+            for (String sqlDefinition : sqlDefinitions) {
+                if (countPerKey > 1) {
+                    sql.append(maybeWrapInQoutes(column.getKey() + propertyType.getPostFixes()[countPerKey - 2]));
+                } else {
+                    sql.append(maybeWrapInQoutes(column.getKey()));
+                }
+                sql.append(" ");
+                sql.append(sqlDefinition);
+                if (countPerKey++ < sqlDefinitions.length) {
+                    sql.append(", ");
+                }
+            }
+            appendKeyForStream(propertyType, copyColumns, column.getKey());
+            if (count++ < columns.size()) {
+                sql.append(", ");
+                copyColumns.append(", ");
+            }
+        }
+        sql.append(") ");
+        sql.append(afterCreateTemporaryTableStatement());
+        if (logger.isDebugEnabled()) {
+            logger.debug(sql.toString());
+        }
+        Connection conn = sqlgGraph.tx().getConnection();
+        try (Statement statement = conn.createStatement()) {
+            statement.execute(sql.toString());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        List<PropertyType> propertyTypes = new ArrayList<>(columns.values());
+        boolean binary = isCopyBinary(sqlgGraph, propertyTypes);
+        StringBuilder copySql = new StringBuilder();
+        copySql.append("COPY ");
+        copySql.append(tempTable);
+        copySql.append(" (");
+        copySql.append(copyColumns);
+        copySql.append(")");
+        if (binary) {
+            copySql.append(COPY_BINARY_FROM_STDIN);
+        } else {
+            copySql.append(" FROM stdin CSV DELIMITER '");
+            copySql.append(COPY_COMMAND_DELIMITER);
+            copySql.append("' ");
+            copySql.append("QUOTE ");
+            copySql.append(COPY_COMMAND_QUOTE);
+            copySql.append(" ESCAPE '");
+            copySql.append(ESCAPE);
+            copySql.append("'");
+            copySql.append(" NULL'");
+            copySql.append(BATCH_NULL);
+            copySql.append("';");
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(copySql.toString());
+        }
+        if (binary) {
+            try (PostgresBinaryCopyRowSink rowSink = binaryCopyRowSink(sqlgGraph, copySql.toString())) {
+                for (Object[] row : rows) {
+                    rowSink.writeRow(propertyTypes, row);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        } else {
+            try (Writer writer = streamSql(sqlgGraph, copySql.toString())) {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        if (i > 0) {
+                            writer.write(COPY_COMMAND_DELIMITER);
+                        }
+                        valueToStreamBytes(writer, propertyTypes.get(i), row[i]);
+                    }
+                    writer.write("\n");
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return tempTable;
+    }
+
+    private void dropTempTable(SqlgGraph sqlgGraph, String tempTable) {
+        String sql = "DROP TABLE " + tempTable;
+        if (logger.isDebugEnabled()) {
+            logger.debug(sql);
+        }
+        Connection conn = sqlgGraph.tx().getConnection();
+        try (Statement statement = conn.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static List<PropertyType> identifierPropertyTypes(VertexLabel vertexLabel) {
+        if (vertexLabel.hasIDPrimaryKey()) {
+            return Collections.singletonList(PropertyType.LONG);
+        }
+        List<PropertyType> propertyTypes = new ArrayList<>();
+        for (String identifier : vertexLabel.getIdentifiers()) {
+            propertyTypes.add(vertexLabel.getProperty(identifier).map(PropertyColumn::getPropertyType).orElse(null));
+        }
+        return propertyTypes;
+    }
+
     @Override
     public String constructCompleteCopyCommandSqlEdge(SqlgGraph sqlgGraph, SqlgEdge sqlgEdge, VertexLabel outVertexLabel, VertexLabel inVertexLabel, SqlgVertex outVertex, SqlgVertex inVertex, Map<String, Object> keyValueMap) {
         Map<String, PropertyType> propertyTypeMap = sqlgGraph.getTopology().getTableFor(SchemaTable.of(sqlgEdge.getSchema(), EDGE_PREFIX + sqlgEdge.getTable()));
@@ -1480,21 +1690,34 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
 
         }
         int count = 1;
+        List<PropertyType> propertyTypes = new ArrayList<>(identifierPropertyTypes(outVertexLabel));
+        propertyTypes.addAll(identifierPropertyTypes(inVertexLabel));
         for (String key : keyValueMap.keySet()) {
             if (count <= keyValueMap.size()) {
                 sql.append(", ");
             }
             count++;
-            appendKeyForStream(propertyTypeMap.get(key), sql, key);
+            if (key.equals(Topology.ID)) {
+                //a streamed row with an id reserved by the SequenceIdAllocator
+                sql.append(maybeWrapInQoutes(Topology.ID));
+                propertyTypes.add(PropertyType.LONG);
+            } else {
+                appendKeyForStream(propertyTypeMap.get(key), sql, key);
+                propertyTypes.add(propertyTypeMap.get(key));
+            }
         }
         sql.append(") ");
 
-        sql.append(" FROM stdin CSV DELIMITER '");
-        sql.append(COPY_COMMAND_DELIMITER);
-        sql.append("' ");
-        sql.append("QUOTE ");
-        sql.append(COPY_COMMAND_QUOTE);
-        sql.append(";");
+        if (isCopyBinary(sqlgGraph, propertyTypes)) {
+            sql.append(COPY_BINARY_FROM_STDIN);
+        } else {
+            sql.append(" FROM stdin CSV DELIMITER '");
+            sql.append(COPY_COMMAND_DELIMITER);
+            sql.append("' ");
+            sql.append("QUOTE ");
+            sql.append(COPY_COMMAND_QUOTE);
+            sql.append(";");
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(sql.toString());
         }
@@ -2694,12 +2917,36 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
 
     @Override
     public Writer streamSql(SqlgGraph sqlgGraph, String sql) {
+        Preconditions.checkArgument(!sql.endsWith(COPY_BINARY_FROM_STDIN), "A binary copy is written by streamRowSink.");
+        return new OutputStreamWriter(copyOutputStream(sqlgGraph, sql), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A binary copy command's rows are encoded by a {@link PostgresBinaryCopyRowSink}, see {@link #COPY_BINARY}.
+     */
+    @Override
+    public BatchManager.RowSink streamRowSink(SqlgGraph sqlgGraph, String sql) {
+        if (sql.endsWith(COPY_BINARY_FROM_STDIN)) {
+            return binaryCopyRowSink(sqlgGraph, sql);
+        }
+        return super.streamRowSink(sqlgGraph, sql);
+    }
+
+    private PostgresBinaryCopyRowSink binaryCopyRowSink(SqlgGraph sqlgGraph, String sql) {
+        try {
+            PostgresBinaryCopyRowSink rowSink = new PostgresBinaryCopyRowSink(copyOutputStream(sqlgGraph, sql));
+            this.binaryCopies.incrementAndGet();
+            return rowSink;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private OutputStream copyOutputStream(SqlgGraph sqlgGraph, String sql) {
         Connection conn = sqlgGraph.tx().getConnection();
-        PGConnection pgConnection;
         try {
-            pgConnection = conn.unwrap(PGConnection.class);
-            OutputStream out = new PGCopyOutputStream(pgConnection, sql);
-            return new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            PGConnection pgConnection = conn.unwrap(PGConnection.class);
+            return new PGCopyOutputStream(pgConnection, sql);
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -2945,6 +3192,11 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
         }
     }
 
+    @Override
+    public boolean supportsTableLocking() {
+        return true;
+    }
+
     @SuppressWarnings("Duplicates")
     @Override
     public void lockTable(SqlgGraph sqlgGraph, SchemaTable schemaTable, String prefix) {
@@ -3013,6 +3265,33 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
         return result;
     }
 
+    @Override
+    public boolean supportsSequenceIdAllocation() {
+        return true;
+    }
+
+    @Override
+    public long[] nextSequenceValues(SqlgGraph sqlgGraph, SchemaTable schemaTable, String prefix, int count) {
+        Preconditions.checkArgument(prefix.equals(VERTEX_PREFIX) || prefix.equals(EDGE_PREFIX), "prefix must be " + VERTEX_PREFIX + " or " + EDGE_PREFIX);
+        long[] result = new long[count];
+        Connection conn = sqlgGraph.tx().getConnection();
+        String sql = "SELECT NEXTVAL('" + maybeWrapInQoutes(schemaTable.getSchema()) + "." + maybeWrapInQoutes(prefix + schemaTable.getTable() + "_ID_seq") + "') from generate_series(1," + count + ");";
+        if (logger.isDebugEnabled()) {
+            logger.debug(sql);
+        }
+        try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            int i = 0;
+            while (resultSet.next()) {
+                result[i++] = resultSet.getLong(1);
+            }
+            resultSet.close();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return result;
+    }
+
     @SuppressWarnings("Duplicates")
     @Override
     public long currSequenceVal(SqlgGraph sqlgGraph, SchemaTable schemaTable, String prefix) {
@@ -3066,6 +3345,35 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
         return true;
     }
 
+    @Override
+    public boolean supportsBulkWithinOutArrayParameter() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsWindowFunctions() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsRowValueComparison() {
+        return true;
+    }
+
+    @Override
+    public String bulkWithinOutArrayParameter(List<PropertyType> arrayPropertyTypes) {
+        StringBuilder sb = new StringBuilder("unnest(");
+        int count = 1;
+        for (PropertyType arrayPropertyType : arrayPropertyTypes) {
+            sb.append("?::").append(getArrayDriverType(arrayPropertyType)).append("[]");
+            if (count++ < arrayPropertyTypes.size()) {
+                sb.append(", ");
+            }
+        }
+        sb.append(")");
+        return sb.toString();
+    }
+
     @Override
     public boolean isPostgresql() {
         return true;
@@ -4378,6 +4686,135 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
         return sqls;
     }
 
+    @Override
+    public void flushRemovedVertices(SqlgGraph sqlgGraph, Map<SchemaTable, List<SqlgVertex>> removeVertexCache) {
+        //labels with many removed vertices are joined on a copied temporary table, the rest are dropped with a VALUES list.
+        Map<SchemaTable, List<SqlgVertex>> valuesRemoveVertexCache = new LinkedHashMap<>();
+        for (Map.Entry<SchemaTable, List<SqlgVertex>> schemaVertices : removeVertexCache.entrySet()) {
+            SchemaTable schemaTable = schemaVertices.getKey();
+            if (!isCopyUpdate(sqlgGraph, schemaVertices.getValue().size())) {
+                valuesRemoveVertexCache.put(schemaTable, schemaVertices.getValue());
+                continue;
+            }
+            VertexLabel vertexLabel = sqlgGraph.getTopology().getVertexLabel(schemaTable.getSchema(), schemaTable.getTable())
+                    .orElseThrow(() -> new IllegalStateException(String.format("VertexLabel not found for %s.%s", schemaTable.getSchema(), schemaTable.getTable())));
+            String tempTable = copyIdsToTempTable(sqlgGraph, vertexLabel, schemaVertices.getValue());
+            List<String> tempColumns = tempIdColumns(vertexLabel);
+            for (EdgeLabel outEdgeLabel : vertexLabel.getOutEdgeLabels().values()) {
+                dropUsing(sqlgGraph, outEdgeLabel.getSchema().getName(), EDGE_PREFIX + outEdgeLabel.getName(), tempTable, tempColumns, foreignKeyColumns(true, vertexLabel));
+            }
+            for (EdgeLabel inEdgeLabel : vertexLabel.getInEdgeLabels().values()) {
+                dropUsing(sqlgGraph, inEdgeLabel.getSchema().getName(), EDGE_PREFIX + inEdgeLabel.getName(), tempTable, tempColumns, foreignKeyColumns(false, vertexLabel));
+            }
+            dropUsing(sqlgGraph, vertexLabel.getSchema().getName(), VERTEX_PREFIX + vertexLabel.getName(), tempTable, tempColumns, idColumns(vertexLabel));
+            dropTempTable(sqlgGraph, tempTable);
+        }
+        super.flushRemovedVertices(sqlgGraph, valuesRemoveVertexCache);
+    }
+
+    @Override
+    public void flushRemovedEdges(SqlgGraph sqlgGraph, Map<SchemaTable, List<SqlgEdge>> removeEdgeCache) {
+        Map<SchemaTable, List<SqlgEdge>> valuesRemoveEdgeCache = new LinkedHashMap<>();
+        for (Map.Entry<SchemaTable, List<SqlgEdge>> schemaEdges : removeEdgeCache.entrySet()) {
+            SchemaTable schemaTable = schemaEdges.getKey();
+            if (!isCopyUpdate(sqlgGraph, schemaEdges.getValue().size())) {
+                valuesRemoveEdgeCache.put(schemaTable, schemaEdges.getValue());
+                continue;
+            }
+            EdgeLabel edgeLabel = sqlgGraph.getTopology().getEdgeLabel(schemaTable.getSchema(), schemaTable.getTable())
+                    .orElseThrow(() -> new IllegalStateException(String.format("EdgeLabel not found for %s.%s", schemaTable.getSchema(), schemaTable.getTable())));
+            String tempTable = copyIdsToTempTable(sqlgGraph, edgeLabel, schemaEdges.getValue());
+            dropUsing(sqlgGraph, edgeLabel.getSchema().getName(), EDGE_PREFIX + edgeLabel.getName(), tempTable, tempIdColumns(edgeLabel), idColumns(edgeLabel));
+            dropTempTable(sqlgGraph, tempTable);
+        }
+        super.flushRemovedEdges(sqlgGraph, valuesRemoveEdgeCache);
+    }
+
+    private String copyIdsToTempTable(SqlgGraph sqlgGraph, AbstractLabel abstractLabel, List<? extends SqlgElement> sqlgElements) {
+        LinkedHashMap<String, PropertyType> columns = new LinkedHashMap<>();
+        List<String> tempColumns = tempIdColumns(abstractLabel);
+        if (abstractLabel.hasIDPrimaryKey()) {
+            columns.put(tempColumns.get(0), PropertyType.LONG);
+        } else {
+            for (String identifier : abstractLabel.getIdentifiers()) {
+                PropertyColumn propertyColumn = abstractLabel.getProperty(identifier).orElseThrow(
+                        () -> new IllegalStateException(String.format("identifier %s column must be a property", identifier))
+                );
+                columns.put(identifier, propertyColumn.getPropertyType());
+            }
+        }
+        List<Object[]> rows = new ArrayList<>(sqlgElements.size());
+        for (SqlgElement sqlgElement : sqlgElements) {
+            RecordId.ID id = ((RecordId) sqlgElement.id()).getID();
+            if (abstractLabel.hasIDPrimaryKey()) {
+                rows.add(new Object[]{id.getSequenceId()});
+            } else {
+                rows.add(id.getIdentifiers().toArray());
+            }
+        }
+        return copyToTempTable(sqlgGraph, columns, rows);
+    }
+
+    private List<String> tempIdColumns(AbstractLabel abstractLabel) {
+        if (abstractLabel.hasIDPrimaryKey()) {
+            return Collections.singletonList("id");
+        } else {
+            return abstractLabel.getIdentifiers().asList();
+        }
+    }
+
+    private List<String> idColumns(AbstractLabel abstractLabel) {
+        if (abstractLabel.hasIDPrimaryKey()) {
+            return Collections.singletonList(Topology.ID);
+        } else {
+            return abstractLabel.getIdentifiers().asList();
+        }
+    }
+
+    private List<String> foreignKeyColumns(boolean out, VertexLabel vertexLabel) {
+        String columnEnd = out ? Topology.OUT_VERTEX_COLUMN_END : Topology.IN_VERTEX_COLUMN_END;
+        if (vertexLabel.hasIDPrimaryKey()) {
+            return Collections.singletonList(vertexLabel.getSchema().getName() + "." + vertexLabel.getName() + columnEnd);
+        }
+        List<String> columns = new ArrayList<>();
+        for (String identifier : vertexLabel.getIdentifiers()) {
+            columns.add(vertexLabel.getSchema().getName() + "." + vertexLabel.getName() + "." + identifier + columnEnd);
+        }
+        return columns;
+    }
+
+    /**
+     * Deletes the rows of the table that join on the temporary table, tempColumns and columns are matched by position.
+     */
+    private void dropUsing(SqlgGraph sqlgGraph, String schema, String table, String tempTable, List<String> tempColumns, List<String> columns) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("DELETE FROM\n\t");
+        sql.append(maybeWrapInQoutes(schema));
+        sql.append(".");
+        sql.append(maybeWrapInQoutes(table));
+        sql.append(" AS a USING\n\t");
+        sql.append(tempTable);
+        sql.append(" AS b\nWHERE\n\t");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append("b.");
+            sql.append(maybeWrapInQoutes(tempColumns.get(i)));
+            sql.append(" = a.");
+            sql.append(maybeWrapInQoutes(columns.get(i)));
+            if (i < columns.size() - 1) {
+                sql.append(" AND ");
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(sql.toString());
+        }
+        Connection conn = sqlgGraph.tx().getConnection();
+        try (Statement statement = conn.createStatement()) {
+            statement.executeUpdate(sql.toString());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @SuppressWarnings("Duplicates")
     @Override
     public String drop(VertexLabel vertexLabel, Collection<RecordId.ID> ids) {
@@ -4748,6 +5185,134 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
         }
     }
 
+    @Override
+    public boolean supportsRecursiveCte() {
+        return true;
+    }
+
+    @Override
+    public String recursiveCtePathStart(String from, String to) {
+        return "ARRAY[" + from + ", " + to + "]";
+    }
+
+    @Override
+    public String recursiveCtePathAppend(String path, String to) {
+        return path + " || " + to;
+    }
+
+    @Override
+    public String recursiveCtePathContains(String path, String id) {
+        return id + " = ANY(" + path + ")";
+    }
+
+    @Override
+    public boolean supportsSharedSnapshot() {
+        return true;
+    }
+
+    /**
+     * The transaction's own uncommitted writes are not visible to the transactions importing the snapshot,
+     * if the transaction has an xid, i.e. it has written, the snapshot is not shared.
+     * txid_current_if_assigned is only available from Postgres 10.
+     */
+    @Override
+    public String exportSnapshot(Connection connection) {
+        try {
+            if (connection.getMetaData().getDatabaseMajorVersion() < 10) {
+                return null;
+            }
+            try (Statement statement = connection.createStatement()) {
+                ResultSet resultSet = statement.executeQuery("SELECT txid_current_if_assigned() IS NULL, pg_export_snapshot()");
+                Preconditions.checkState(resultSet.next(), "pg_export_snapshot must return a row");
+                return resultSet.getBoolean(1) ? resultSet.getString(2) : null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void importSnapshot(Connection connection, String snapshot) {
+        try {
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean supportsUpsert() {
+        return true;
+    }
+
+    @Override
+    public boolean upsertReturnsIds() {
+        return true;
+    }
+
+    /**
+     * INSERT ... ON CONFLICT (uniqueKeys) DO UPDATE. The unique keys are set too so that an existing vertex without other
+     * columns to update is still returned with its ID.
+     */
+    @Override
+    public String upsertVertexSql(SqlgGraph sqlgGraph, VertexLabel vertexLabel, List<String> uniqueKeys, SortedSet<String> columns) {
+        Map<String, PropertyColumn> propertyColumns = vertexLabel.getProperties();
+        StringBuilder sql = new StringBuilder("INSERT INTO ");
+        sql.append(maybeWrapInQoutes(vertexLabel.getSchema().getName()));
+        sql.append(".");
+        sql.append(maybeWrapInQoutes(VERTEX_PREFIX + vertexLabel.getName()));
+        sql.append(" (");
+        int parameterCount = 0;
+        int i = 1;
+        for (String column : columns) {
+            PropertyType propertyType = propertyColumns.get(column).getPropertyType();
+            appendKeyForStream(propertyType, sql, column);
+            parameterCount += propertyTypeToSqlDefinition(propertyType).length;
+            if (i++ < columns.size()) {
+                sql.append(", ");
+            }
+        }
+        sql.append(") VALUES (");
+        for (int j = 1; j <= parameterCount; j++) {
+            sql.append("?");
+            if (j < parameterCount) {
+                sql.append(", ");
+            }
+        }
+        sql.append(") ON CONFLICT (");
+        i = 1;
+        for (String uniqueKey : uniqueKeys) {
+            appendKeyForStream(propertyColumns.get(uniqueKey).getPropertyType(), sql, uniqueKey);
+            if (i++ < uniqueKeys.size()) {
+                sql.append(", ");
+            }
+        }
+        sql.append(") DO UPDATE SET ");
+        i = 1;
+        for (String column : columns) {
+            PropertyType propertyType = propertyColumns.get(column).getPropertyType();
+            String[] sqlDefinitions = propertyTypeToSqlDefinition(propertyType);
+            for (int count = 1; count <= sqlDefinitions.length; count++) {
+                String physicalColumn = maybeWrapInQoutes(count > 1 ? column + propertyType.getPostFixes()[count - 2] : column);
+                sql.append(physicalColumn).append(" = EXCLUDED.").append(physicalColumn);
+                if (count < sqlDefinitions.length) {
+                    sql.append(", ");
+                }
+            }
+            if (i++ < columns.size()) {
+                sql.append(", ");
+            }
+        }
+        if (needsSemicolon()) {
+            sql.append(";");
+        }
+        return sql.toString();
+    }
+
     @Override
     public void grantReadOnlyUserPrivilegesToSqlgSchemas(SqlgGraph sqlgGraph) {
         Connection conn = sqlgGraph.tx().getConnection();
@@ -4763,4 +5328,71 @@ public class PostgresDialect extends BaseSqlDialect implements SqlBulkDialect {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * A cached row as the copy command's columns, i.e. the optional "ID" followed by every key of the label in order,
+     * with null for the keys the row does not have.
+     * One instance is reset for every row instead of copying each row into a new map.
+     */
+    private static final class CopyRow extends AbstractMap<String, Object> {
+
+        private final String[] keys;
+        private final Object[] values;
+        private final boolean hasId;
+
+        CopyRow(boolean hasId, SortedSet<String> columns) {
+            this.hasId = hasId;
+            int offset = hasId ? 1 : 0;
+            this.keys = new String[columns.size() + offset];
+            this.values = new Object[this.keys.length];
+            if (hasId) {
+                this.keys[0] = Topology.ID;
+            }
+            int i = offset;
+            for (String column : columns) {
+                this.keys[i++] = column;
+            }
+        }
+
+        void set(Long id, Map<String, Object> row) {
+            int i = 0;
+            if (this.hasId) {
+                this.values[i++] = id;
+            }
+            for (; i < this.keys.length; i++) {
+                this.values[i] = row.get(this.keys[i]);
+            }
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return this.index < CopyRow.this.keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int i = this.index++;
+                            return new SimpleImmutableEntry<>(CopyRow.this.keys[i], CopyRow.this.values[i]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return CopyRow.this.keys.length;
+                }
+            };
+        }
+    }
 }
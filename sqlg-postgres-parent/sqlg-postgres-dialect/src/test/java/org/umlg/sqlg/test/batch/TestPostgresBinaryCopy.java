@@ -0,0 +1,199 @@
+package org.umlg.sqlg.test.batch;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang3.time.StopWatch;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.umlg.sqlg.sql.dialect.PostgresDialect;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.structure.SqlgVertex;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.time.*;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+public class TestPostgresBinaryCopy extends BaseTest {
+
+    @Test
+    public void testNormalBatchBinaryCopy() {
+        try (SqlgGraph binaryGraph = openGraph(true)) {
+            long binaryCopies = binaryCopies(binaryGraph);
+            binaryGraph.tx().normalBatchModeOn();
+            for (int i = 0; i < 100; i++) {
+                Vertex a = binaryGraph.addVertex(T.label, "A",
+                        "name", "a" + i + "\t\n\\",
+                        "l", (long) i,
+                        "i", i,
+                        "s", (short) i,
+                        "d", i / 2D,
+                        "f", i / 2F,
+                        "b", i % 2 == 0,
+                        "date", LocalDate.of(1999, 12, 31).plusDays(i),
+                        "ints", new int[]{i, i + 1},
+                        "strings", new String[]{"x" + i, "y"},
+                        "bytes", new byte[]{1, 2, (byte) i}
+                );
+                Vertex b = binaryGraph.addVertex(T.label, "B", "name", "b" + i);
+                a.addEdge("ab", b, "weight", i / 4D);
+            }
+            //a null is sent as a null field.
+            binaryGraph.addVertex(T.label, "A", "name", "nulls");
+            binaryGraph.tx().commit();
+            Assert.assertTrue(binaryCopies(binaryGraph) > binaryCopies);
+
+            Assert.assertEquals(101L, binaryGraph.traversal().V().hasLabel("A").count().next().longValue());
+            Vertex a = binaryGraph.traversal().V().hasLabel("A").has("name", "a7\t\n\\").next();
+            Assert.assertEquals(7L, a.<Long>value("l").longValue());
+            Assert.assertEquals(7, a.<Integer>value("i").intValue());
+            Assert.assertEquals((short) 7, a.<Short>value("s").shortValue());
+            Assert.assertEquals(3.5D, a.<Double>value("d"), 0D);
+            Assert.assertEquals(3.5F, a.<Float>value("f"), 0F);
+            Assert.assertFalse(a.<Boolean>value("b"));
+            Assert.assertEquals(LocalDate.of(2000, 1, 7), a.value("date"));
+            Assert.assertArrayEquals(new int[]{7, 8}, a.value("ints"));
+            Assert.assertArrayEquals(new String[]{"x7", "y"}, a.value("strings"));
+            Assert.assertArrayEquals(new byte[]{1, 2, 7}, a.value("bytes"));
+            Edge edge = binaryGraph.traversal().V(a).outE("ab").next();
+            Assert.assertEquals(1.75D, edge.<Double>value("weight"), 0D);
+            Assert.assertEquals("b7", edge.inVertex().value("name"));
+            Vertex nulls = binaryGraph.traversal().V().hasLabel("A").has("name", "nulls").next();
+            Assert.assertFalse(nulls.property("l").isPresent());
+            Assert.assertFalse(nulls.property("ints").isPresent());
+        }
+    }
+
+    @Test
+    public void testTemporalBinaryCopy() {
+        LocalDateTime localDateTime = LocalDateTime.of(2019, 7, 1, 13, 14, 15, 123456000);
+        ZonedDateTime zonedDateTime = ZonedDateTime.of(LocalDateTime.of(1999, 1, 2, 3, 4, 5), ZoneId.of("Africa/Johannesburg"));
+        LocalTime localTime = LocalTime.of(8, 30, 45);
+        try (SqlgGraph binaryGraph = openGraph(true)) {
+            long binaryCopies = binaryCopies(binaryGraph);
+            binaryGraph.tx().normalBatchModeOn();
+            for (int i = 0; i < 10; i++) {
+                binaryGraph.addVertex(T.label, "A",
+                        "name", "a" + i,
+                        "created", localDateTime.plusDays(i),
+                        "zoned", zonedDateTime.plusHours(i),
+                        "time", localTime.plusMinutes(i),
+                        "duration", Duration.ofSeconds(i, 500),
+                        "period", Period.of(i, 2, 3)
+                );
+            }
+            binaryGraph.addVertex(T.label, "A", "name", "nulls");
+            binaryGraph.tx().commit();
+            Assert.assertTrue(binaryCopies(binaryGraph) > binaryCopies);
+
+            Vertex a = binaryGraph.traversal().V().hasLabel("A").has("name", "a7").next();
+            Assert.assertEquals(localDateTime.plusDays(7), a.value("created"));
+            Assert.assertEquals(zonedDateTime.plusHours(7), a.value("zoned"));
+            Assert.assertEquals(localTime.plusMinutes(7), a.value("time"));
+            Assert.assertEquals(Duration.ofSeconds(7, 500), a.value("duration"));
+            Assert.assertEquals(Period.of(7, 2, 3), a.value("period"));
+            //the timestamp is the same as the one the csv copy stores.
+            Assert.assertEquals(1L, binaryGraph.traversal().V().hasLabel("A").has("created", localDateTime.plusDays(7)).count().next().longValue());
+            Vertex nulls = binaryGraph.traversal().V().hasLabel("A").has("name", "nulls").next();
+            Assert.assertFalse(nulls.property("created").isPresent());
+            Assert.assertFalse(nulls.property("zoned").isPresent());
+            Assert.assertFalse(nulls.property("period").isPresent());
+        }
+    }
+
+    @Test
+    public void testStreamingBinaryCopy() {
+        try (SqlgGraph binaryGraph = openGraph(true)) {
+            binaryGraph.tx().streamingBatchModeOn();
+            for (int i = 0; i < 100; i++) {
+                LinkedHashMap<String, Object> values = new LinkedHashMap<>();
+                values.put("name", "a" + i);
+                values.put("l", (long) i);
+                binaryGraph.streamVertex("A", values);
+            }
+            binaryGraph.tx().commit();
+            List<Vertex> as = binaryGraph.traversal().V().hasLabel("A").toList();
+            Assert.assertEquals(100, as.size());
+            Vertex b = binaryGraph.addVertex(T.label, "B", "name", "b");
+            binaryGraph.tx().commit();
+
+            binaryGraph.tx().streamingBatchModeOn();
+            for (Vertex a : as) {
+                LinkedHashMap<String, Object> values = new LinkedHashMap<>();
+                values.put("weight", a.<Long>value("l") * 2);
+                ((SqlgVertex) a).streamEdge("ab", b, values);
+            }
+            binaryGraph.tx().commit();
+            Assert.assertEquals(100L, binaryGraph.traversal().V(b).inE("ab").count().next().longValue());
+            Assert.assertEquals(14L, binaryGraph.traversal().V().hasLabel("A").has("name", "a7").outE("ab").values("weight").next());
+        }
+    }
+
+    /**
+     * Compares the ingest time of numeric heavy vertices copied as csv, the format before binary copy, and as binary,
+     * in normal and in streaming batch mode.
+     */
+    @Test
+    public void testBinaryCopyVersusCsv() {
+        long csv = ingestNumericVertices(false);
+        long binary = ingestNumericVertices(true);
+        System.out.println(String.format("100000 numeric vertices, normal batch, csv copy %d ms, binary copy %d ms", csv, binary));
+        long streamingCsv = streamNumericVertices(false);
+        long streamingBinary = streamNumericVertices(true);
+        System.out.println(String.format("100000 numeric vertices, streaming batch, csv copy %d ms, binary copy %d ms", streamingCsv, streamingBinary));
+    }
+
+    private long ingestNumericVertices(boolean binary) {
+        String label = binary ? "Binary" : "Csv";
+        try (SqlgGraph graph = openGraph(binary)) {
+            long binaryCopies = binaryCopies(graph);
+            StopWatch stopWatch = new StopWatch();
+            stopWatch.start();
+            graph.tx().normalBatchModeOn();
+            for (int i = 0; i < 100_000; i++) {
+                graph.addVertex(T.label, label, "l1", (long) i, "l2", i * 31L, "d1", i / 3D, "d2", i * 1.5D, "i1", i, "ints", new int[]{i, i, i});
+            }
+            graph.tx().commit();
+            stopWatch.stop();
+            Assert.assertEquals(binary, binaryCopies(graph) > binaryCopies);
+            Assert.assertEquals(100_000L, graph.traversal().V().hasLabel(label).count().next().longValue());
+            return stopWatch.getTime();
+        }
+    }
+
+    private long streamNumericVertices(boolean binary) {
+        String label = binary ? "StreamBinary" : "StreamCsv";
+        try (SqlgGraph graph = openGraph(binary)) {
+            long binaryCopies = binaryCopies(graph);
+            StopWatch stopWatch = new StopWatch();
+            stopWatch.start();
+            graph.tx().streamingBatchModeOn();
+            for (int i = 0; i < 100_000; i++) {
+                LinkedHashMap<String, Object> values = new LinkedHashMap<>();
+                values.put("l1", (long) i);
+                values.put("l2", i * 31L);
+                values.put("d1", i / 3D);
+                values.put("d2", i * 1.5D);
+                values.put("i1", i);
+                graph.streamVertex(label, values);
+            }
+            graph.tx().commit();
+            stopWatch.stop();
+            Assert.assertEquals(binary, binaryCopies(graph) > binaryCopies);
+            Assert.assertEquals(100_000L, graph.traversal().V().hasLabel(label).count().next().longValue());
+            return stopWatch.getTime();
+        }
+    }
+
+    private static long binaryCopies(SqlgGraph graph) {
+        return ((PostgresDialect) graph.getSqlDialect()).getBinaryCopies();
+    }
+
+    private SqlgGraph openGraph(boolean binary) {
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(PostgresDialect.COPY_BINARY, binary);
+        return SqlgGraph.open(configuration);
+    }
+}
@@ -0,0 +1,135 @@
+package org.umlg.sqlg.test.batch;
+
+import org.apache.commons.collections4.set.ListOrderedSet;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang3.time.StopWatch;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.umlg.sqlg.sql.dialect.PostgresDialect;
+import org.umlg.sqlg.structure.PropertyType;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+public class TestPostgresCopyUpdate extends BaseTest {
+
+    @Test
+    public void testUpdateThroughTempTable() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        this.sqlgGraph.tx().normalBatchModeOn();
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            vertices.add(this.sqlgGraph.addVertex(T.label, "A", "name", "a" + i, "age", i, "other", "o" + i));
+        }
+        this.sqlgGraph.tx().commit();
+
+        this.sqlgGraph.tx().normalBatchModeOn();
+        for (Vertex vertex : vertices) {
+            int age = vertex.value("age");
+            vertex.property("name", "updated" + age);
+            vertex.property("created", now);
+            if (age % 2 == 0) {
+                vertex.property("names", new String[]{"x y", "z"});
+            }
+        }
+        this.sqlgGraph.tx().commit();
+
+        Assert.assertEquals(10_000L, this.sqlgGraph.traversal().V().hasLabel("A").count().next().longValue());
+        Assert.assertEquals(0L, this.sqlgGraph.traversal().V().hasLabel("A").has("name", "a1").count().next().longValue());
+        Vertex a = this.sqlgGraph.traversal().V(vertices.get(5000).id()).next();
+        Assert.assertEquals("updated5000", a.value("name"));
+        Assert.assertEquals("o5000", a.value("other"));
+        Assert.assertEquals(now, a.value("created"));
+        Assert.assertArrayEquals(new String[]{"x y", "z"}, a.value("names"));
+        Assert.assertFalse(this.sqlgGraph.traversal().V(vertices.get(5001).id()).next().property("names").isPresent());
+    }
+
+    @Test
+    public void testUpdateIdentifierLabelThroughTempTable() {
+        this.sqlgGraph.getTopology().getPublicSchema().ensureVertexLabelExist(
+                "Person",
+                new HashMap<String, PropertyType>() {{
+                    put("uid", PropertyType.varChar(100));
+                    put("name", PropertyType.STRING);
+                }},
+                ListOrderedSet.listOrderedSet(Arrays.asList("uid"))
+        );
+        this.sqlgGraph.tx().commit();
+        this.sqlgGraph.tx().normalBatchModeOn();
+        List<Vertex> persons = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            persons.add(this.sqlgGraph.addVertex(T.label, "Person", "uid", "u" + i, "name", "p" + i));
+        }
+        this.sqlgGraph.tx().commit();
+        this.sqlgGraph.tx().normalBatchModeOn();
+        for (Vertex person : persons) {
+            person.property("name", "updated_" + person.value("uid"));
+        }
+        this.sqlgGraph.tx().commit();
+        Assert.assertEquals("updated_u4321", this.sqlgGraph.traversal().V().hasLabel("Person").has("uid", "u4321").values("name").next());
+        Assert.assertEquals(5_000L, this.sqlgGraph.traversal().V().hasLabel("Person").count().next().longValue());
+    }
+
+    @Test
+    public void testRemoveThroughTempTable() {
+        this.sqlgGraph.tx().normalBatchModeOn();
+        List<Vertex> as = new ArrayList<>();
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            Vertex a = this.sqlgGraph.addVertex(T.label, "A", "name", "a" + i);
+            Vertex b = this.sqlgGraph.addVertex(T.label, "B", "name", "b" + i);
+            Vertex c = this.sqlgGraph.addVertex(T.label, "C", "name", "c" + i);
+            a.addEdge("ab", b);
+            edges.add(b.addEdge("bc", c));
+            as.add(a);
+        }
+        this.sqlgGraph.tx().commit();
+
+        this.sqlgGraph.tx().normalBatchModeOn();
+        for (int i = 0; i < 4_000; i++) {
+            as.get(i).remove();
+            edges.get(i).remove();
+        }
+        this.sqlgGraph.tx().commit();
+
+        Assert.assertEquals(1_000L, this.sqlgGraph.traversal().V().hasLabel("A").count().next().longValue());
+        Assert.assertEquals(5_000L, this.sqlgGraph.traversal().V().hasLabel("B").count().next().longValue());
+        Assert.assertEquals(1_000L, this.sqlgGraph.traversal().E().hasLabel("ab").count().next().longValue());
+        Assert.assertEquals(1_000L, this.sqlgGraph.traversal().E().hasLabel("bc").count().next().longValue());
+        Assert.assertEquals("b4500", this.sqlgGraph.traversal().V(as.get(4500).id()).out("ab").values("name").next());
+    }
+
+    @Test
+    public void testUpdatePerformance() {
+        for (int threshold : new int[]{0, 1000}) {
+            Configuration configuration = getConfigurationClone();
+            configuration.setProperty(PostgresDialect.COPY_UPDATE_THRESHOLD, threshold);
+            try (SqlgGraph copyGraph = SqlgGraph.open(configuration)) {
+                copyGraph.tx().normalBatchModeOn();
+                List<Vertex> vertices = new ArrayList<>();
+                for (int i = 0; i < 100_000; i++) {
+                    vertices.add(copyGraph.addVertex(T.label, "A" + threshold, "name", "a" + i));
+                }
+                copyGraph.tx().commit();
+                StopWatch stopWatch = new StopWatch();
+                stopWatch.start();
+                copyGraph.tx().normalBatchModeOn();
+                for (Vertex vertex : vertices) {
+                    vertex.property("name", "b");
+                }
+                copyGraph.tx().commit();
+                stopWatch.stop();
+                System.out.println("copy update threshold " + threshold + ": " + stopWatch.toString());
+                Assert.assertEquals(100_000L, copyGraph.traversal().V().hasLabel("A" + threshold).has("name", "b").count().next().longValue());
+            }
+        }
+    }
+}
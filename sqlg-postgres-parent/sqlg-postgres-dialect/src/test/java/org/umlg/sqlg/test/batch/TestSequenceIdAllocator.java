@@ -0,0 +1,202 @@
+package org.umlg.sqlg.test.batch;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang3.time.StopWatch;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.umlg.sqlg.structure.SchemaTable;
+import org.umlg.sqlg.structure.SequenceIdAllocator;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.structure.SqlgVertex;
+import org.umlg.sqlg.structure.topology.VertexLabel;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.umlg.sqlg.structure.topology.Topology.EDGE_PREFIX;
+import static org.umlg.sqlg.structure.topology.Topology.VERTEX_PREFIX;
+
+public class TestSequenceIdAllocator extends BaseTest {
+
+    @Test
+    public void testIdsAreReservedInBlocks() {
+        try (SqlgGraph blockGraph = openGraph(1000)) {
+            SchemaTable a = SchemaTable.of(blockGraph.getSqlDialect().getPublicSchema(), "A");
+            for (int i = 0; i < 3; i++) {
+                blockGraph.tx().normalBatchModeOn();
+                for (int j = 0; j < 100; j++) {
+                    Vertex vertex = blockGraph.addVertex(T.label, "A", "name", "a" + i + "_" + j);
+                    vertex.addEdge("aa", vertex);
+                }
+                blockGraph.tx().commit();
+                //one block serves every flush.
+                Assert.assertEquals(1000 - (i + 1) * 100, blockGraph.getSequenceIdAllocator().available(a, VERTEX_PREFIX));
+                Assert.assertEquals(1000 - (i + 1) * 100, blockGraph.getSequenceIdAllocator().available(a, EDGE_PREFIX));
+            }
+            //a flush larger than the block reserves what it needs.
+            blockGraph.tx().normalBatchModeOn();
+            for (int j = 0; j < 2000; j++) {
+                blockGraph.addVertex(T.label, "A", "name", "b" + j);
+            }
+            blockGraph.tx().commit();
+            Assert.assertEquals(0, blockGraph.getSequenceIdAllocator().available(a, VERTEX_PREFIX));
+
+            List<Vertex> vertices = blockGraph.traversal().V().hasLabel("A").toList();
+            Assert.assertEquals(2300, vertices.size());
+            Set<Object> ids = new HashSet<>();
+            for (Vertex vertex : vertices) {
+                Assert.assertTrue(ids.add(vertex.id()));
+            }
+            Assert.assertEquals(300L, blockGraph.traversal().E().hasLabel("aa").count().next().longValue());
+            Assert.assertEquals("a1_7", blockGraph.traversal().V().hasLabel("A").has("name", "a1_7").out("aa").values("name").next());
+        }
+    }
+
+    @Test
+    public void testReservedIdsDoNotCollideWithDefaultIds() {
+        try (SqlgGraph blockGraph = openGraph(1000)) {
+            blockGraph.tx().normalBatchModeOn();
+            for (int i = 0; i < 10; i++) {
+                blockGraph.addVertex(T.label, "A", "name", "batch" + i);
+            }
+            blockGraph.tx().commit();
+            //the other graph takes its ids from the column's default.
+            for (int i = 0; i < 10; i++) {
+                this.sqlgGraph.addVertex(T.label, "A", "name", "default" + i);
+            }
+            this.sqlgGraph.tx().commit();
+            blockGraph.tx().normalBatchModeOn();
+            for (int i = 10; i < 20; i++) {
+                blockGraph.addVertex(T.label, "A", "name", "batch" + i);
+            }
+            blockGraph.tx().commit();
+            Assert.assertEquals(30L, this.sqlgGraph.traversal().V().hasLabel("A").count().next().longValue());
+            Assert.assertEquals(30L, this.sqlgGraph.traversal().V().hasLabel("A").id().dedup().count().next().longValue());
+        }
+    }
+
+    @Test
+    public void testBlocksAreDiscardedWhenTheLabelIsDropped() {
+        try (SqlgGraph blockGraph = openGraph(1000)) {
+            SchemaTable a = SchemaTable.of(blockGraph.getSqlDialect().getPublicSchema(), "A");
+            blockGraph.tx().normalBatchModeOn();
+            blockGraph.addVertex(T.label, "A", "name", "a");
+            blockGraph.tx().commit();
+            Assert.assertEquals(999, blockGraph.getSequenceIdAllocator().available(a, VERTEX_PREFIX));
+
+            VertexLabel vertexLabel = blockGraph.getTopology().getPublicSchema().getVertexLabel("A").orElseThrow(IllegalStateException::new);
+            vertexLabel.remove(false);
+            blockGraph.tx().commit();
+            Assert.assertEquals(0, blockGraph.getSequenceIdAllocator().available(a, VERTEX_PREFIX));
+
+            //the recreated label's sequence starts over.
+            blockGraph.tx().normalBatchModeOn();
+            blockGraph.addVertex(T.label, "A", "name", "a");
+            blockGraph.tx().commit();
+            Assert.assertEquals(1L, blockGraph.traversal().V().hasLabel("A").count().next().longValue());
+        }
+    }
+
+    @Test
+    public void testBlocksAreDiscardedWhenTheLabelIsRolledBack() {
+        try (SqlgGraph blockGraph = openGraph(1000)) {
+            SchemaTable a = SchemaTable.of(blockGraph.getSqlDialect().getPublicSchema(), "A");
+            blockGraph.tx().normalBatchModeOn();
+            for (int i = 0; i < 10; i++) {
+                blockGraph.addVertex(T.label, "A", "name", "a" + i);
+            }
+            blockGraph.tx().flush();
+            Assert.assertEquals(990, blockGraph.getSequenceIdAllocator().available(a, VERTEX_PREFIX));
+            //the label and its sequence are rolled back, the block with them.
+            blockGraph.tx().rollback();
+            Assert.assertEquals(0, blockGraph.getSequenceIdAllocator().available(a, VERTEX_PREFIX));
+
+            blockGraph.tx().normalBatchModeOn();
+            for (int i = 0; i < 10; i++) {
+                blockGraph.addVertex(T.label, "A", "name", "a" + i);
+            }
+            blockGraph.tx().commit();
+            Assert.assertEquals(990, blockGraph.getSequenceIdAllocator().available(a, VERTEX_PREFIX));
+            //the committed label's block outlives a rolled back flush, its sequence is not rolled back.
+            blockGraph.tx().normalBatchModeOn();
+            blockGraph.addVertex(T.label, "A", "name", "rolledBack");
+            blockGraph.tx().flush();
+            blockGraph.tx().rollback();
+            Assert.assertEquals(989, blockGraph.getSequenceIdAllocator().available(a, VERTEX_PREFIX));
+            //the other graph takes its ids from the recreated sequence's default.
+            for (int i = 0; i < 20; i++) {
+                this.sqlgGraph.addVertex(T.label, "A", "name", "default" + i);
+            }
+            this.sqlgGraph.tx().commit();
+            Assert.assertEquals(30L, this.sqlgGraph.traversal().V().hasLabel("A").id().dedup().count().next().longValue());
+        }
+    }
+
+    @Test
+    public void testStreamedVerticesTakeTheirIdsFromTheBlocks() {
+        try (SqlgGraph blockGraph = openGraph(1000)) {
+            for (boolean withLock : new boolean[]{false, true}) {
+                String label = withLock ? "B" : "A";
+                SchemaTable schemaTable = SchemaTable.of(blockGraph.getSqlDialect().getPublicSchema(), label);
+                if (withLock) {
+                    blockGraph.tx().streamingWithLockBatchModeOn();
+                } else {
+                    blockGraph.tx().streamingBatchModeOn();
+                }
+                for (int i = 0; i < 100; i++) {
+                    blockGraph.streamVertex(T.label, label, "name", label + i);
+                }
+                blockGraph.tx().commit();
+                //the ids come from the block, not from the column's default or a table lock.
+                Assert.assertEquals(900, blockGraph.getSequenceIdAllocator().available(schemaTable, VERTEX_PREFIX));
+                for (int i = 0; i < 10; i++) {
+                    this.sqlgGraph.addVertex(T.label, label, "name", "default" + i);
+                }
+                this.sqlgGraph.tx().commit();
+                Assert.assertEquals(110L, this.sqlgGraph.traversal().V().hasLabel(label).id().dedup().count().next().longValue());
+            }
+
+            List<Vertex> as = blockGraph.traversal().V().hasLabel("A").has("name", P.within("A1", "A2", "A3")).toList();
+            Vertex b = blockGraph.traversal().V().hasLabel("B").has("name", "B1").next();
+            blockGraph.tx().streamingBatchModeOn();
+            for (Vertex a : as) {
+                ((SqlgVertex) a).streamEdge("ab", b);
+            }
+            blockGraph.tx().commit();
+            SchemaTable ab = SchemaTable.of(blockGraph.getSqlDialect().getPublicSchema(), "ab");
+            Assert.assertEquals(997, blockGraph.getSequenceIdAllocator().available(ab, EDGE_PREFIX));
+            Assert.assertEquals(3L, blockGraph.traversal().V(b).in("ab").count().next().longValue());
+        }
+    }
+
+    @Test
+    public void testSmallFlushesPerformance() {
+        for (int blockSize : new int[]{0, 10_000}) {
+            try (SqlgGraph blockGraph = openGraph(blockSize)) {
+                StopWatch stopWatch = new StopWatch();
+                stopWatch.start();
+                for (int i = 0; i < 1000; i++) {
+                    blockGraph.tx().normalBatchModeOn();
+                    for (int j = 0; j < 10; j++) {
+                        blockGraph.addVertex(T.label, "B" + blockSize, "name", "b" + j);
+                    }
+                    blockGraph.tx().commit();
+                }
+                stopWatch.stop();
+                System.out.println("block size " + blockSize + ": " + stopWatch.toString());
+                Assert.assertEquals(10_000L, blockGraph.traversal().V().hasLabel("B" + blockSize).count().next().longValue());
+            }
+        }
+    }
+
+    private SqlgGraph openGraph(int blockSize) {
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SequenceIdAllocator.ID_BLOCK_SIZE, blockSize);
+        return SqlgGraph.open(configuration);
+    }
+}
@@ -4,8 +4,11 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.umlg.sqlg.test.*;
 import org.umlg.sqlg.test.aggregate.TestAggregate;
+import org.umlg.sqlg.test.aggregate.TestCount;
+import org.umlg.sqlg.test.aggregate.TestGroupBy;
 import org.umlg.sqlg.test.aggregate.TestGroupCount;
 import org.umlg.sqlg.test.aggregate.TestMax;
+import org.umlg.sqlg.test.aggregate.TestNumberAggregate;
 import org.umlg.sqlg.test.batch.*;
 import org.umlg.sqlg.test.branchstep.TestSqlgBranchStep;
 import org.umlg.sqlg.test.complex.TestComplex;
@@ -44,12 +47,14 @@ import org.umlg.sqlg.test.localvertexstep.*;
 import org.umlg.sqlg.test.match.TestMatch;
 import org.umlg.sqlg.test.memory.TestMemoryUsage;
 import org.umlg.sqlg.test.mod.*;
+import org.umlg.sqlg.test.preparedStatement.TestStatementCache;
 import org.umlg.sqlg.test.process.dropstep.TestDropStep;
 import org.umlg.sqlg.test.process.dropstep.TestDropStepBarrier;
 import org.umlg.sqlg.test.process.dropstep.TestDropStepTruncate;
 import org.umlg.sqlg.test.properties.TestEscapedValues;
 import org.umlg.sqlg.test.properties.TestPropertyValues;
 import org.umlg.sqlg.test.remove.TestRemoveEdge;
+import org.umlg.sqlg.test.repeatstep.TestRecursiveRepeatStep;
 import org.umlg.sqlg.test.repeatstep.TestUnoptimizedRepeatStep;
 import org.umlg.sqlg.test.roles.TestReadOnlyRole;
 import org.umlg.sqlg.test.rollback.TestRollback;
@@ -265,6 +270,26 @@ import org.umlg.sqlg.test.where.TestTraversalFilterStepBarrier;
         TestTraversalAddV.class,
         TestDataSource.class,
         TestCustomDataSource.class,
+        TestSqlPlanCache.class,
+        TestCount.class,
+        TestNumberAggregate.class,
+        TestGroupBy.class,
+        TestRecursiveRepeatStep.class,
+        TestGraphStepUnionAll.class,
+        TestParallelQueries.class,
+        TestQueryPrefetch.class,
+        TestVertexStepBarrier.class,
+        TestVertexStepParentIdArrays.class,
+        TestExistsPushdown.class,
+        TestLocalStepTopK.class,
+        TestKeysetPagination.class,
+        TestStatementCache.class,
+        TestStreamingPipeline.class,
+        TestBatchAutoFlush.class,
+        TestBatchRemoveCachedElements.class,
+        TestBatchCachedRows.class,
+        TestBatchUpsert.class,
+        TestBatchJdbcStreaming.class,
 })
 public class AllTest {
 
@@ -0,0 +1,90 @@
+package org.umlg.sqlg.test.aggregate;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.umlg.sqlg.step.SqlgGraphStep;
+import org.umlg.sqlg.step.SqlgVertexStep;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.List;
+
+public class TestCount extends BaseTest {
+
+    @Test
+    public void testCountIsDoneInTheDb() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A");
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A");
+        for (int i = 0; i < 3; i++) {
+            Vertex b = this.sqlgGraph.addVertex(T.label, "B");
+            a1.addEdge("ab", b);
+            a2.addEdge("ab", b);
+            for (int j = 0; j < 2; j++) {
+                b.addEdge("bc", this.sqlgGraph.addVertex(T.label, "C"));
+            }
+        }
+        this.sqlgGraph.tx().commit();
+
+        DefaultGraphTraversal<Vertex, Long> traversal = (DefaultGraphTraversal<Vertex, Long>) this.sqlgGraph.traversal()
+                .V().hasLabel("A").out().out().count();
+        List<Long> counts = traversal.toList();
+        Assert.assertEquals(1, traversal.getSteps().size());
+        Assert.assertTrue(traversal.getSteps().get(0) instanceof SqlgGraphStep);
+        Assert.assertEquals(1, counts.size());
+        Assert.assertEquals(12L, counts.get(0).longValue());
+
+        Assert.assertEquals(11L, this.sqlgGraph.traversal().V().count().next().longValue());
+        Assert.assertEquals(12L, this.sqlgGraph.traversal().E().count().next().longValue());
+        Assert.assertEquals(0L, this.sqlgGraph.traversal().V().hasLabel("C").out().count().next().longValue());
+        Assert.assertEquals(0L, this.sqlgGraph.traversal().V().hasLabel("A").has(T.id, a1.id()).out().has(T.label, "C").count().next().longValue());
+    }
+
+    @Test
+    public void testCountWithDuplicatesInThePath() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A");
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A");
+        Vertex b1 = this.sqlgGraph.addVertex(T.label, "B");
+        a1.addEdge("ab", b1);
+        a2.addEdge("ab", b1);
+        this.sqlgGraph.tx().commit();
+
+        Assert.assertEquals(4L, this.sqlgGraph.traversal().V().hasLabel("A").out().in().count().next().longValue());
+    }
+
+    @Test
+    public void testCountOnVertexStep() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A", "name", "a1");
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A", "name", "a2");
+        for (int i = 0; i < 3; i++) {
+            a1.addEdge("ab", this.sqlgGraph.addVertex(T.label, "B"));
+            a2.addEdge("ab", this.sqlgGraph.addVertex(T.label, "B"));
+            a2.addEdge("ac", this.sqlgGraph.addVertex(T.label, "C"));
+        }
+        this.sqlgGraph.tx().commit();
+
+        DefaultGraphTraversal<Vertex, Long> traversal = (DefaultGraphTraversal<Vertex, Long>) this.sqlgGraph.traversal()
+                .V().hasLabel("A").filter(t -> true).out().count();
+        List<Long> counts = traversal.toList();
+        Assert.assertTrue(traversal.getSteps().get(traversal.getSteps().size() - 1) instanceof SqlgVertexStep);
+        Assert.assertEquals(1, counts.size());
+        Assert.assertEquals(9L, counts.get(0).longValue());
+
+        Assert.assertEquals(0L, this.sqlgGraph.traversal().V().hasLabel("A").has("name", "x").filter(t -> true).out().count().next().longValue());
+        Assert.assertEquals(3L, this.sqlgGraph.traversal().V().hasLabel("A").filter(t -> true).out("ac").count().next().longValue());
+    }
+
+    @Test
+    public void testCountIsNotPushedDownForOptional() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A");
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A");
+        a1.addEdge("ab", this.sqlgGraph.addVertex(T.label, "B"));
+        this.sqlgGraph.tx().commit();
+
+        Assert.assertEquals(2L, this.sqlgGraph.traversal().V().hasLabel("A").optional(__.out()).count().next().longValue());
+        Assert.assertEquals(1L, this.sqlgGraph.traversal().V().hasLabel("A").local(__.out().count()).sum().next().longValue());
+        Assert.assertEquals(a2, this.sqlgGraph.traversal().V().hasLabel("A").where(__.out().count().is(0)).next());
+    }
+}
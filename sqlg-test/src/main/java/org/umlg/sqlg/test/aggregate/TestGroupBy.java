@@ -0,0 +1,87 @@
+package org.umlg.sqlg.test.aggregate;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.umlg.sqlg.step.SqlgGraphStep;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestGroupBy extends BaseTest {
+
+    @Test
+    public void testGroupCountIsDoneInTheDb() {
+        this.sqlgGraph.addVertex(T.label, "A", "type", "x");
+        this.sqlgGraph.addVertex(T.label, "A", "type", "x");
+        this.sqlgGraph.addVertex(T.label, "A", "type", "y");
+        this.sqlgGraph.addVertex(T.label, "B", "type", "x");
+        this.sqlgGraph.tx().commit();
+
+        DefaultGraphTraversal<Vertex, Map<Object, Long>> traversal = (DefaultGraphTraversal<Vertex, Map<Object, Long>>) this.sqlgGraph.traversal()
+                .V().<Object>groupCount().by("type");
+        List<Map<Object, Long>> groups = traversal.toList();
+        Assert.assertEquals(1, traversal.getSteps().size());
+        Assert.assertTrue(traversal.getSteps().get(0) instanceof SqlgGraphStep);
+        Assert.assertEquals(1, groups.size());
+        Assert.assertEquals(2, groups.get(0).size());
+        Assert.assertEquals(3L, groups.get(0).get("x").longValue());
+        Assert.assertEquals(1L, groups.get(0).get("y").longValue());
+
+        Map<Object, Object> groupCounts = this.sqlgGraph.traversal().V().group().by("type").by(__.count()).next();
+        Assert.assertEquals(3L, groupCounts.get("x"));
+        Assert.assertEquals(1L, groupCounts.get("y"));
+    }
+
+    @Test
+    public void testGroupByAggregate() {
+        this.sqlgGraph.addVertex(T.label, "A", "type", 1, "amount", 1);
+        this.sqlgGraph.addVertex(T.label, "A", "type", 1, "amount", 2);
+        this.sqlgGraph.addVertex(T.label, "A", "type", 2, "amount", 3);
+        this.sqlgGraph.addVertex(T.label, "B", "type", 1, "amount", 6);
+        this.sqlgGraph.addVertex(T.label, "B", "type", 2);
+        this.sqlgGraph.tx().commit();
+
+        Map<Object, Object> sums = this.sqlgGraph.traversal().V().group().by("type").by(__.values("amount").sum()).next();
+        Assert.assertEquals(2, sums.size());
+        Assert.assertEquals(9, ((Number) sums.get(1)).intValue());
+        Assert.assertEquals(3, ((Number) sums.get(2)).intValue());
+        Map<Object, Object> means = this.sqlgGraph.traversal().V().group().by("type").by(__.values("amount").mean()).next();
+        Assert.assertEquals(3D, ((Number) means.get(1)).doubleValue(), 0D);
+        Map<Object, Object> maxes = this.sqlgGraph.traversal().V().group().by("type").by(__.values("amount").max()).next();
+        Assert.assertEquals(6, maxes.get(1));
+        Assert.assertEquals(3, maxes.get(2));
+    }
+
+    @Test
+    public void testGroupByOnVertexStep() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A");
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A");
+        Vertex b1 = this.sqlgGraph.addVertex(T.label, "B", "type", "x");
+        a1.addEdge("ab", b1);
+        a2.addEdge("ab", b1);
+        a1.addEdge("ac", this.sqlgGraph.addVertex(T.label, "C", "type", "y"));
+        this.sqlgGraph.tx().commit();
+
+        Map<Object, Long> groups = this.sqlgGraph.traversal().V().hasLabel("A").filter(t -> true).out().<Object>groupCount().by("type").next();
+        Assert.assertEquals(2L, groups.get("x").longValue());
+        Assert.assertEquals(1L, groups.get("y").longValue());
+        Assert.assertEquals(
+                this.sqlgGraph.traversal().V().hasLabel("A").out().in().out().filter(t -> true).<Object>groupCount().by("type").next(),
+                this.sqlgGraph.traversal().V().hasLabel("A").out().in().out().<Object>groupCount().by("type").next()
+        );
+    }
+
+    @Test
+    public void testGroupByOfNothing() {
+        this.sqlgGraph.addVertex(T.label, "A", "type", "x");
+        this.sqlgGraph.tx().commit();
+
+        Assert.assertTrue(this.sqlgGraph.traversal().V().hasLabel("A").has("type", "y").groupCount().by("type").next().isEmpty());
+        Assert.assertTrue(this.sqlgGraph.traversal().V().hasLabel("A").has("type", "y").filter(t -> true).out().groupCount().by("type").next().isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package org.umlg.sqlg.test.aggregate;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.SumGlobalStep;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.umlg.sqlg.step.SqlgGraphStep;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.List;
+
+public class TestNumberAggregate extends BaseTest {
+
+    @Test
+    public void testSumIsDoneInTheDb() {
+        for (int i = 1; i <= 3; i++) {
+            this.sqlgGraph.addVertex(T.label, "A", "amount", i);
+        }
+        this.sqlgGraph.addVertex(T.label, "A");
+        this.sqlgGraph.tx().commit();
+
+        DefaultGraphTraversal<Vertex, Number> traversal = (DefaultGraphTraversal<Vertex, Number>) this.sqlgGraph.traversal()
+                .V().hasLabel("A").values("amount").sum();
+        List<Number> sums = traversal.toList();
+        Assert.assertEquals(2, traversal.getSteps().size());
+        Assert.assertTrue(traversal.getSteps().get(0) instanceof SqlgGraphStep);
+        Assert.assertTrue(traversal.getSteps().get(1) instanceof SumGlobalStep);
+        Assert.assertEquals(1, sums.size());
+        Assert.assertEquals(6, sums.get(0));
+    }
+
+    @Test
+    public void testAggregateOverMultipleLabels() {
+        for (int i = 1; i <= 3; i++) {
+            this.sqlgGraph.addVertex(T.label, "A", "amount", i);
+        }
+        this.sqlgGraph.addVertex(T.label, "B", "amount", 10D);
+        this.sqlgGraph.addVertex(T.label, "C", "name", "c");
+        this.sqlgGraph.tx().commit();
+
+        Assert.assertEquals(16D, this.sqlgGraph.traversal().V().values("amount").sum().next().doubleValue(), 0D);
+        //the mean of the means would be 6
+        Assert.assertEquals(4D, this.sqlgGraph.traversal().V().values("amount").mean().next().doubleValue(), 0D);
+        Assert.assertEquals(10D, this.sqlgGraph.traversal().V().values("amount").max().next().doubleValue(), 0D);
+        Assert.assertEquals(1D, this.sqlgGraph.traversal().V().values("amount").min().next().doubleValue(), 0D);
+        Number max = this.sqlgGraph.traversal().V().hasLabel("A").values("amount").max().next();
+        Assert.assertEquals(3, max);
+    }
+
+    @Test
+    public void testAggregateOnVertexStep() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A");
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A");
+        for (int i = 1; i <= 3; i++) {
+            a1.addEdge("ab", this.sqlgGraph.addVertex(T.label, "B", "amount", (long) i));
+        }
+        a2.addEdge("ac", this.sqlgGraph.addVertex(T.label, "C", "amount", 10L));
+        this.sqlgGraph.tx().commit();
+
+        Number sum = this.sqlgGraph.traversal().V().hasLabel("A").filter(t -> true).out().values("amount").sum().next();
+        Assert.assertEquals(16L, sum);
+        Assert.assertEquals(4D, this.sqlgGraph.traversal().V().hasLabel("A").filter(t -> true).out().values("amount").mean().next().doubleValue(), 0D);
+        Number min = this.sqlgGraph.traversal().V().hasLabel("A").filter(t -> true).out().values("amount").min().next();
+        Assert.assertEquals(1L, min);
+    }
+
+    @Test
+    public void testAggregateOfNothingMatchesTinkerPop() {
+        this.sqlgGraph.addVertex(T.label, "A", "amount", 1);
+        this.sqlgGraph.tx().commit();
+
+        Assert.assertEquals(
+                this.sqlgGraph.traversal().V().hasLabel("A").has("amount", 2).values("amount").filter(t -> true).sum().toList(),
+                this.sqlgGraph.traversal().V().hasLabel("A").has("amount", 2).values("amount").sum().toList()
+        );
+        Assert.assertEquals(
+                this.sqlgGraph.traversal().V().hasLabel("A").has("amount", 2).values("amount").filter(t -> true).mean().toList(),
+                this.sqlgGraph.traversal().V().hasLabel("A").has("amount", 2).values("amount").mean().toList()
+        );
+        Assert.assertEquals(
+                this.sqlgGraph.traversal().V().hasLabel("A").has("amount", 2).values("amount").filter(t -> true).max().toList(),
+                this.sqlgGraph.traversal().V().hasLabel("A").has("amount", 2).values("amount").max().toList()
+        );
+    }
+}
@@ -0,0 +1,183 @@
+package org.umlg.sqlg.test.batch;
+
+import org.apache.commons.collections4.set.ListOrderedSet;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.umlg.sqlg.structure.BatchFlushStatistics;
+import org.umlg.sqlg.structure.PropertyType;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+public class TestBatchAutoFlush extends BaseTest {
+
+    @Before
+    public void beforeTest() {
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsBatchMode());
+    }
+
+    @Test
+    public void testFlushOnRowCount() {
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.BATCH_FLUSH_ROWS, 100);
+        try (SqlgGraph flushGraph = SqlgGraph.open(configuration)) {
+            List<BatchFlushStatistics> flushes = new ArrayList<>();
+            flushGraph.tx().afterBatchFlush(flushes::add);
+            flushGraph.tx().normalBatchModeOn();
+            Vertex previous = null;
+            for (int i = 0; i < 500; i++) {
+                Vertex a = flushGraph.addVertex(T.label, "A", "name", "a" + i);
+                if (previous != null) {
+                    previous.addEdge("next", a, "index", i);
+                }
+                previous = a;
+            }
+            flushGraph.tx().commit();
+            flushGraph.tx().afterBatchFlush(null);
+
+            Assert.assertEquals(10, flushes.size());
+            for (int i = 0; i < 9; i++) {
+                BatchFlushStatistics statistics = flushes.get(i);
+                Assert.assertTrue(statistics.isAutomatic());
+                Assert.assertEquals(100, statistics.getVertices() + statistics.getEdges());
+                Assert.assertTrue(statistics.getEstimatedBytes() > 0);
+            }
+            Assert.assertFalse(flushes.get(9).isAutomatic());
+            Assert.assertEquals(999, flushes.stream().mapToInt(s -> s.getVertices() + s.getEdges()).sum());
+
+            Assert.assertEquals(500L, flushGraph.traversal().V().hasLabel("A").count().next().longValue());
+            Assert.assertEquals(499L, flushGraph.traversal().E().hasLabel("next").count().next().longValue());
+            Assert.assertEquals("a250", flushGraph.traversal().V().hasLabel("A").has("name", "a249").out("next").values("name").next());
+        }
+    }
+
+    @Test
+    public void testFlushOnEstimatedBytes() {
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.BATCH_FLUSH_BYTES, 100_000);
+        try (SqlgGraph flushGraph = SqlgGraph.open(configuration)) {
+            List<BatchFlushStatistics> flushes = new ArrayList<>();
+            flushGraph.tx().afterBatchFlush(flushes::add);
+            flushGraph.tx().normalBatchModeOn();
+            String description = StringUtils.repeat("x", 10_000);
+            for (int i = 0; i < 100; i++) {
+                flushGraph.addVertex(T.label, "A", "name", "a" + i, "description", description);
+            }
+            flushGraph.tx().commit();
+            flushGraph.tx().afterBatchFlush(null);
+
+            Assert.assertTrue(flushes.size() > 1);
+            Assert.assertTrue(flushes.get(0).isAutomatic());
+            Assert.assertEquals(100, flushes.stream().mapToInt(BatchFlushStatistics::getVertices).sum());
+            Assert.assertEquals(100L, flushGraph.traversal().V().hasLabel("A").has("description", description).count().next().longValue());
+        }
+    }
+
+    @Test
+    public void testFlushCountsTheUpsertedVertices() {
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsUpsert());
+        this.sqlgGraph.getTopology().getPublicSchema().ensureVertexLabelExist(
+                "Person",
+                new HashMap<String, PropertyType>() {{
+                    put("uid", PropertyType.varChar(100));
+                    put("name", PropertyType.STRING);
+                }},
+                ListOrderedSet.listOrderedSet(Collections.singletonList("uid"))
+        );
+        this.sqlgGraph.tx().commit();
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.BATCH_FLUSH_ROWS, 10);
+        try (SqlgGraph flushGraph = SqlgGraph.open(configuration)) {
+            List<BatchFlushStatistics> flushes = new ArrayList<>();
+            flushGraph.tx().afterBatchFlush(flushes::add);
+            flushGraph.tx().normalBatchModeOn();
+            for (int i = 0; i < 25; i++) {
+                flushGraph.upsertVertex(T.label, "Person", "uid", "u" + i, "name", "p" + i);
+                //the same unique values again is merged into the cached row.
+                flushGraph.upsertVertex(T.label, "Person", "uid", "u" + i, "name", "q" + i);
+            }
+            flushGraph.tx().commit();
+            flushGraph.tx().afterBatchFlush(null);
+
+            Assert.assertEquals(3, flushes.size());
+            Assert.assertTrue(flushes.get(0).isAutomatic());
+            Assert.assertEquals(10, flushes.get(0).getUpsertedVertices());
+            Assert.assertTrue(flushes.get(0).getEstimatedBytes() > 0);
+            Assert.assertEquals(25, flushes.stream().mapToInt(BatchFlushStatistics::getUpsertedVertices).sum());
+            Assert.assertEquals(0, flushes.stream().mapToInt(BatchFlushStatistics::getVertices).sum());
+            Assert.assertEquals(25L, flushGraph.traversal().V().hasLabel("Person").count().next().longValue());
+            Assert.assertEquals("q12", flushGraph.traversal().V().hasLabel("Person").has("uid", "u12").values("name").next());
+        }
+    }
+
+    @Test
+    public void testUpdatesAfterAutomaticFlush() {
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.BATCH_FLUSH_ROWS, 10);
+        try (SqlgGraph flushGraph = SqlgGraph.open(configuration)) {
+            flushGraph.tx().normalBatchModeOn();
+            List<Vertex> vertices = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                vertices.add(flushGraph.addVertex(T.label, "A", "name", "a" + i));
+            }
+            //some of the vertices are flushed, the others are still cached.
+            for (Vertex vertex : vertices) {
+                vertex.property("name", vertex.value("name") + "_updated");
+            }
+            vertices.get(0).remove();
+            vertices.get(24).remove();
+            flushGraph.tx().commit();
+            Assert.assertEquals(23L, flushGraph.traversal().V().hasLabel("A").count().next().longValue());
+            Assert.assertEquals(1L, flushGraph.traversal().V().hasLabel("A").has("name", "a12_updated").count().next().longValue());
+            Assert.assertEquals(0L, flushGraph.traversal().V().hasLabel("A").has("name", "a12").count().next().longValue());
+        }
+    }
+
+    @Test
+    public void testUpdateCachedVertexAcrossAutomaticFlush() {
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.BATCH_FLUSH_ROWS, 10);
+        configuration.setProperty(SqlgGraph.BATCH_FLUSH_BYTES, 4_000);
+        try (SqlgGraph flushGraph = SqlgGraph.open(configuration)) {
+            List<BatchFlushStatistics> flushes = new ArrayList<>();
+            flushGraph.tx().afterBatchFlush(flushes::add);
+            flushGraph.tx().normalBatchModeOn();
+            Vertex a = flushGraph.addVertex(T.label, "A", "name", "a");
+            Vertex b = flushGraph.addVertex(T.label, "A", "name", "b");
+            for (int i = 0; i < 100; i++) {
+                //the updates flush on the estimated bytes, the added vertices on the row count, a and b are updated
+                //while cached, as they are flushed and after they were flushed.
+                a.property("counter", i);
+                a.property("text", "a" + i);
+                b.property("counter", -i);
+                flushGraph.addVertex(T.label, "A", "name", "c" + i);
+            }
+            a.property("last", true);
+            flushGraph.tx().commit();
+            flushGraph.tx().afterBatchFlush(null);
+
+            Assert.assertTrue(flushes.size() > 10);
+            Assert.assertTrue(flushes.get(0).isAutomatic());
+            Assert.assertEquals(102L, flushGraph.traversal().V().hasLabel("A").count().next().longValue());
+            Vertex reloadedA = flushGraph.traversal().V(a.id()).next();
+            Assert.assertEquals("a", reloadedA.value("name"));
+            Assert.assertEquals(99, (int) reloadedA.value("counter"));
+            Assert.assertEquals("a99", reloadedA.value("text"));
+            Assert.assertTrue(reloadedA.value("last"));
+            Vertex reloadedB = flushGraph.traversal().V(b.id()).next();
+            Assert.assertEquals("b", reloadedB.value("name"));
+            Assert.assertEquals(-99, (int) reloadedB.value("counter"));
+            Assert.assertFalse(reloadedB.property("text").isPresent());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.umlg.sqlg.test.batch;
+
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestBatchCachedRows extends BaseTest {
+
+    @Before
+    public void beforeTest() {
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsBatchMode());
+    }
+
+    @Test
+    public void testRowsWithDifferentKeys() {
+        this.sqlgGraph.tx().normalBatchModeOn();
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A", "name", "a1");
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A", "surname", "s2", "age", 2);
+        Vertex a3 = this.sqlgGraph.addVertex(T.label, "A", "age", 3, "name", "a3", "nickname", null);
+        Vertex a4 = this.sqlgGraph.addVertex(T.label, "A");
+        //update and remove properties of the cached rows.
+        a1.property("age", 1);
+        a2.property("surname").remove();
+        a3.property("name", "a3_updated");
+        a4.property("nickname", "n4");
+        Edge e1 = a1.addEdge("ab", a2, "weight", 1.5D);
+        a2.addEdge("ab", a3, "label", "two");
+        e1.property("label", "one");
+        this.sqlgGraph.tx().commit();
+
+        Vertex v1 = this.sqlgGraph.traversal().V(a1).next();
+        Assert.assertEquals("a1", v1.value("name"));
+        Assert.assertEquals(1, v1.<Integer>value("age").intValue());
+        Assert.assertFalse(v1.property("surname").isPresent());
+        Vertex v2 = this.sqlgGraph.traversal().V(a2).next();
+        Assert.assertFalse(v2.property("surname").isPresent());
+        Assert.assertEquals(2, v2.<Integer>value("age").intValue());
+        Vertex v3 = this.sqlgGraph.traversal().V(a3).next();
+        Assert.assertEquals("a3_updated", v3.value("name"));
+        Assert.assertFalse(v3.property("nickname").isPresent());
+        Vertex v4 = this.sqlgGraph.traversal().V(a4).next();
+        Assert.assertEquals("n4", v4.value("nickname"));
+        Assert.assertFalse(v4.property("name").isPresent());
+
+        Edge edge1 = this.sqlgGraph.traversal().V(a1).outE("ab").next();
+        Assert.assertEquals(1.5D, edge1.<Double>value("weight"), 0D);
+        Assert.assertEquals("one", edge1.value("label"));
+        Edge edge2 = this.sqlgGraph.traversal().V(a2).outE("ab").next();
+        Assert.assertFalse(edge2.property("weight").isPresent());
+        Assert.assertEquals("two", edge2.value("label"));
+        Assert.assertEquals(a3, edge2.inVertex());
+    }
+
+    @Test
+    public void testTypedAndSparseColumns() {
+        this.sqlgGraph.tx().normalBatchModeOn();
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            vertices.add(this.sqlgGraph.addVertex(T.label, "A",
+                    "index", i,
+                    "big", (long) i * 1_000_000_000L,
+                    "ratio", i / 4D,
+                    "even", i % 2 == 0));
+        }
+        //a property that is first set on a late row and then on earlier ones.
+        vertices.get(900).property("sparse", "s900");
+        vertices.get(100).property("sparse", "s100");
+        vertices.get(500).property("sparse", "s500");
+        vertices.get(3).property("big", 3L);
+        vertices.get(4).property("even", false);
+        vertices.get(5).property("ratio").remove();
+        this.sqlgGraph.tx().commit();
+
+        Vertex v3 = this.sqlgGraph.traversal().V(vertices.get(3)).next();
+        Assert.assertEquals(3, v3.<Integer>value("index").intValue());
+        Assert.assertEquals(3L, v3.<Long>value("big").longValue());
+        Assert.assertEquals(0.75D, v3.<Double>value("ratio"), 0D);
+        Assert.assertFalse(v3.<Boolean>value("even"));
+        Assert.assertFalse(v3.property("sparse").isPresent());
+        Assert.assertFalse(this.sqlgGraph.traversal().V(vertices.get(4)).next().<Boolean>value("even"));
+        Assert.assertFalse(this.sqlgGraph.traversal().V(vertices.get(5)).next().property("ratio").isPresent());
+        Vertex v999 = this.sqlgGraph.traversal().V(vertices.get(999)).next();
+        Assert.assertEquals(999_000_000_000L, v999.<Long>value("big").longValue());
+        Assert.assertEquals(249.75D, v999.<Double>value("ratio"), 0D);
+        Assert.assertTrue(this.sqlgGraph.traversal().V(vertices.get(998)).next().<Boolean>value("even"));
+        Assert.assertEquals(3L, this.sqlgGraph.traversal().V().hasLabel("A").has("sparse").count().next().longValue());
+        Assert.assertEquals("s100", this.sqlgGraph.traversal().V(vertices.get(100)).next().value("sparse"));
+        Assert.assertEquals("s500", this.sqlgGraph.traversal().V(vertices.get(500)).next().value("sparse"));
+        Assert.assertEquals("s900", this.sqlgGraph.traversal().V(vertices.get(900)).next().value("sparse"));
+    }
+}
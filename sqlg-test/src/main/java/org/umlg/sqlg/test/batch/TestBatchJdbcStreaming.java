@@ -0,0 +1,154 @@
+package org.umlg.sqlg.test.batch;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang3.time.StopWatch;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.umlg.sqlg.structure.SchemaTable;
+import org.umlg.sqlg.structure.SequenceIdAllocator;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.structure.SqlgVertex;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.umlg.sqlg.structure.topology.Topology.VERTEX_PREFIX;
+
+public class TestBatchJdbcStreaming extends BaseTest {
+
+    @Before
+    public void beforeTest() {
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsJdbcStreamingBatchMode());
+    }
+
+    @Test
+    public void testStreamVertices() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        this.sqlgGraph.tx().streamingBatchModeOn();
+        for (int i = 0; i < 2_500; i++) {
+            LinkedHashMap<String, Object> keyValues = new LinkedHashMap<>();
+            keyValues.put("name", "a" + i);
+            keyValues.put("age", i);
+            keyValues.put("created", now);
+            this.sqlgGraph.streamVertex("A", keyValues);
+        }
+        this.sqlgGraph.tx().commit();
+        Assert.assertEquals(2_500L, this.sqlgGraph.traversal().V().hasLabel("A").count().next().longValue());
+        Vertex a = this.sqlgGraph.traversal().V().hasLabel("A").has("name", "a1234").next();
+        Assert.assertEquals(1234, (int) a.value("age"));
+        Assert.assertEquals(now, a.value("created"));
+    }
+
+    @Test
+    public void testStreamVerticesWithOtherKeysAfterAFlush() {
+        this.sqlgGraph.tx().streamingBatchModeOn();
+        for (int i = 0; i < 1_500; i++) {
+            LinkedHashMap<String, Object> keyValues = new LinkedHashMap<>();
+            keyValues.put("name", "a" + i);
+            keyValues.put("age", i);
+            this.sqlgGraph.streamVertex("A", keyValues);
+        }
+        this.sqlgGraph.tx().flush();
+        //the next stream's statement and the order its values are bound in are those of its first row.
+        for (int i = 1_500; i < 3_000; i++) {
+            LinkedHashMap<String, Object> keyValues = new LinkedHashMap<>();
+            keyValues.put("age", i);
+            keyValues.put("name", "a" + i);
+            keyValues.put("surname", "s" + i);
+            this.sqlgGraph.streamVertex("A", keyValues);
+        }
+        this.sqlgGraph.tx().commit();
+        Assert.assertEquals(3_000L, this.sqlgGraph.traversal().V().hasLabel("A").count().next().longValue());
+        Vertex a = this.sqlgGraph.traversal().V().hasLabel("A").has("name", "a1234").next();
+        Assert.assertEquals(1234, (int) a.value("age"));
+        Assert.assertFalse(a.property("surname").isPresent());
+        a = this.sqlgGraph.traversal().V().hasLabel("A").has("name", "a2345").next();
+        Assert.assertEquals(2345, (int) a.value("age"));
+        Assert.assertEquals("s2345", a.value("surname"));
+    }
+
+    @Test
+    public void testStreamVerticesWithoutProperties() {
+        this.sqlgGraph.tx().streamingBatchModeOn();
+        for (int i = 0; i < 1_001; i++) {
+            this.sqlgGraph.streamVertex("A");
+        }
+        this.sqlgGraph.tx().commit();
+        Assert.assertEquals(1_001L, this.sqlgGraph.traversal().V().hasLabel("A").count().next().longValue());
+    }
+
+    @Test
+    public void testStreamEdges() {
+        SqlgVertex a = (SqlgVertex) this.sqlgGraph.addVertex(T.label, "A", "name", "a");
+        this.sqlgGraph.tx().normalBatchModeOn();
+        for (int i = 0; i < 1_500; i++) {
+            this.sqlgGraph.addVertex(T.label, "B", "name", "b" + i);
+        }
+        this.sqlgGraph.tx().commit();
+        List<Vertex> bs = this.sqlgGraph.traversal().V().hasLabel("B").toList();
+        this.sqlgGraph.tx().streamingBatchModeOn();
+        for (Vertex b : bs) {
+            LinkedHashMap<String, Object> keyValues = new LinkedHashMap<>();
+            keyValues.put("weight", 1);
+            a.streamEdge("ab", (SqlgVertex) b, keyValues);
+        }
+        this.sqlgGraph.tx().commit();
+        Assert.assertEquals(1_500L, this.sqlgGraph.traversal().V(a.id()).out("ab").count().next().longValue());
+        Assert.assertEquals(1_500L, this.sqlgGraph.traversal().E().hasLabel("ab").has("weight", 1).count().next().longValue());
+    }
+
+    @Test
+    public void testStreamWithLockTakesTheIdsFromTheBlocks() {
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsSequenceIdAllocation());
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SequenceIdAllocator.ID_BLOCK_SIZE, 1000);
+        try (SqlgGraph blockGraph = SqlgGraph.open(configuration)) {
+            blockGraph.tx().streamingWithLockBatchModeOn();
+            for (int i = 0; i < 100; i++) {
+                blockGraph.streamVertex(T.label, "A", "name", "a" + i);
+            }
+            blockGraph.tx().commit();
+            SchemaTable a = SchemaTable.of(blockGraph.getSqlDialect().getPublicSchema(), "A");
+            Assert.assertEquals(900, blockGraph.getSequenceIdAllocator().available(a, VERTEX_PREFIX));
+        }
+        //the IDENTITY column's default takes its ids from the same sequence.
+        for (int i = 0; i < 10; i++) {
+            this.sqlgGraph.addVertex(T.label, "A", "name", "default" + i);
+        }
+        this.sqlgGraph.tx().commit();
+        Assert.assertEquals(110L, this.sqlgGraph.traversal().V().hasLabel("A").id().dedup().count().next().longValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStreamWithLockNeedsTableLockingOrTheBlocks() {
+        Assume.assumeFalse(this.sqlgGraph.getSqlDialect().supportsTableLocking());
+        Assume.assumeFalse(this.sqlgGraph.getSequenceIdAllocator().isEnabled());
+        this.sqlgGraph.tx().streamingWithLockBatchModeOn();
+    }
+
+    @Test
+    public void testStreamingPerformance() {
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.STREAMING_BATCH_SIZE, 10_000);
+        try (SqlgGraph streamingGraph = SqlgGraph.open(configuration)) {
+            StopWatch stopWatch = new StopWatch();
+            stopWatch.start();
+            streamingGraph.tx().streamingBatchModeOn();
+            for (int i = 0; i < 1_000_000; i++) {
+                LinkedHashMap<String, Object> keyValues = new LinkedHashMap<>();
+                keyValues.put("name", "a" + i);
+                streamingGraph.streamVertex("A", keyValues);
+            }
+            streamingGraph.tx().commit();
+            stopWatch.stop();
+            System.out.println(stopWatch.toString());
+            Assert.assertEquals(1_000_000L, streamingGraph.traversal().V().hasLabel("A").count().next().longValue());
+        }
+    }
+}
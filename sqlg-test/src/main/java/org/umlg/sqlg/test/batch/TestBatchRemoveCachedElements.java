@@ -0,0 +1,82 @@
+package org.umlg.sqlg.test.batch;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestBatchRemoveCachedElements extends BaseTest {
+
+    @Before
+    public void beforeTest() {
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsBatchMode());
+    }
+
+    @Test
+    public void testRemoveCachedVerticesRemovesTheirEdges() {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        this.sqlgGraph.tx().normalBatchModeOn();
+        List<Vertex> vertices = new ArrayList<>();
+        Vertex b = this.sqlgGraph.addVertex(T.label, "B", "name", "b");
+        for (int i = 0; i < 10_000; i++) {
+            Vertex a = this.sqlgGraph.addVertex(T.label, "A", "index", i);
+            a.addEdge("ab", b, "index", i);
+            if (!vertices.isEmpty()) {
+                vertices.get(vertices.size() - 1).addEdge("next", a);
+            }
+            vertices.add(a);
+        }
+        //prune every second vertex, with its edges, before it is flushed.
+        for (int i = 0; i < vertices.size(); i += 2) {
+            vertices.get(i).remove();
+        }
+        this.sqlgGraph.tx().commit();
+        stopWatch.stop();
+        System.out.println(stopWatch.toString());
+
+        Assert.assertEquals(5_000L, this.sqlgGraph.traversal().V().hasLabel("A").count().next().longValue());
+        Assert.assertEquals(5_000L, this.sqlgGraph.traversal().E().hasLabel("ab").count().next().longValue());
+        //every "next" edge has a removed vertex at one of its ends.
+        Assert.assertEquals(0L, this.sqlgGraph.traversal().E().hasLabel("next").count().next().longValue());
+        Assert.assertEquals(0L, this.sqlgGraph.traversal().V().hasLabel("A").has("index", 0).count().next().longValue());
+        Assert.assertEquals(1L, this.sqlgGraph.traversal().V().hasLabel("A").has("index", 1).count().next().longValue());
+    }
+
+    @Test
+    public void testUpdateAndRemoveCachedEdges() {
+        this.sqlgGraph.tx().normalBatchModeOn();
+        Vertex a = this.sqlgGraph.addVertex(T.label, "A", "name", "a");
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Vertex b = this.sqlgGraph.addVertex(T.label, "B", "name", "b" + i);
+            edges.add(a.addEdge("ab", b, "weight", i));
+        }
+        //a self loop is incident to its vertex once.
+        Vertex c = this.sqlgGraph.addVertex(T.label, "C", "name", "c");
+        c.addEdge("cc", c);
+        edges.get(0).property("weight", 100);
+        edges.get(0).property("name", "first");
+        edges.get(1).remove();
+        edges.get(2).property("weight").remove();
+        c.remove();
+        this.sqlgGraph.tx().commit();
+
+        Assert.assertEquals(9L, this.sqlgGraph.traversal().V(a).outE("ab").count().next().longValue());
+        Edge first = this.sqlgGraph.traversal().V(a).outE("ab").has("weight", 100).next();
+        Assert.assertEquals("first", first.value("name"));
+        Assert.assertEquals("b0", first.inVertex().value("name"));
+        Assert.assertFalse(this.sqlgGraph.traversal().V(a).out("ab").has("name", "b1").hasNext());
+        Assert.assertFalse(this.sqlgGraph.traversal().V().hasLabel("B").has("name", "b2").inE("ab").next().property("weight").isPresent());
+        Assert.assertEquals(0L, this.sqlgGraph.traversal().V().hasLabel("C").count().next().longValue());
+        Assert.assertEquals(0L, this.sqlgGraph.traversal().E().hasLabel("cc").count().next().longValue());
+    }
+}
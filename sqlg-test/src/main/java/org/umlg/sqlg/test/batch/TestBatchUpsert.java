@@ -0,0 +1,182 @@
+package org.umlg.sqlg.test.batch;
+
+import org.apache.commons.collections4.set.ListOrderedSet;
+import org.apache.commons.lang3.time.StopWatch;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.umlg.sqlg.structure.PropertyType;
+import org.umlg.sqlg.structure.topology.IndexType;
+import org.umlg.sqlg.structure.topology.VertexLabel;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.*;
+
+public class TestBatchUpsert extends BaseTest {
+
+    @Before
+    public void beforeTest() {
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsUpsert());
+    }
+
+    @Test
+    public void testUpsertByIdentifiers() {
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsBatchMode());
+        this.sqlgGraph.getTopology().getPublicSchema().ensureVertexLabelExist(
+                "Person",
+                new HashMap<String, PropertyType>() {{
+                    put("uid", PropertyType.varChar(100));
+                    put("name", PropertyType.STRING);
+                    put("age", PropertyType.INTEGER);
+                }},
+                ListOrderedSet.listOrderedSet(Collections.singletonList("uid"))
+        );
+        this.sqlgGraph.tx().commit();
+        //the first feed
+        this.sqlgGraph.tx().normalBatchModeOn();
+        for (int i = 0; i < 100; i++) {
+            this.sqlgGraph.upsertVertex(T.label, "Person", "uid", "u" + i, "name", "first" + i, "age", i);
+        }
+        this.sqlgGraph.tx().commit();
+        //the second feed overlaps the first
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        this.sqlgGraph.tx().normalBatchModeOn();
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 50; i < 150; i++) {
+            vertices.add(this.sqlgGraph.upsertVertex(T.label, "Person", "uid", "u" + i, "name", "second" + i, "age", i));
+        }
+        this.sqlgGraph.tx().commit();
+        stopWatch.stop();
+        System.out.println(stopWatch.toString());
+
+        Assert.assertEquals(150L, this.sqlgGraph.traversal().V().hasLabel("Person").count().next().longValue());
+        Assert.assertEquals("first49", this.sqlgGraph.traversal().V().hasLabel("Person").has("uid", "u49").values("name").next());
+        Assert.assertEquals("second50", this.sqlgGraph.traversal().V().hasLabel("Person").has("uid", "u50").values("name").next());
+        Assert.assertEquals("second149", this.sqlgGraph.traversal().V().hasLabel("Person").has("uid", "u149").values("name").next());
+        Assert.assertEquals("second75", this.sqlgGraph.traversal().V(vertices.get(25).id()).values("name").next());
+    }
+
+    @Test
+    public void testUpsertByUniqueIndex() {
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsBatchMode());
+        VertexLabel vertexLabel = this.sqlgGraph.getTopology().getPublicSchema().ensureVertexLabelExist("A", new HashMap<String, PropertyType>() {{
+            put("code", PropertyType.varChar(100));
+            put("name", PropertyType.STRING);
+        }});
+        vertexLabel.ensureIndexExists(IndexType.UNIQUE, Collections.singletonList(vertexLabel.getProperty("code").orElseThrow(IllegalStateException::new)));
+        this.sqlgGraph.tx().commit();
+        Vertex existing = this.sqlgGraph.addVertex(T.label, "A", "code", "c1", "name", "old");
+        this.sqlgGraph.tx().commit();
+
+        this.sqlgGraph.tx().normalBatchModeOn();
+        Vertex a1 = this.sqlgGraph.upsertVertex(Collections.singletonList("code"), T.label, "A", "code", "c1", "name", "new");
+        Vertex a2 = this.sqlgGraph.upsertVertex(Collections.singletonList("code"), T.label, "A", "code", "c2", "name", "a2");
+        //the same unique values before the flush are one vertex.
+        Vertex a2Again = this.sqlgGraph.upsertVertex(Collections.singletonList("code"), T.label, "A", "code", "c2", "name", "a2_again");
+        Assert.assertSame(a2, a2Again);
+        Vertex b = this.sqlgGraph.addVertex(T.label, "B", "name", "b");
+        a1.addEdge("ab", b);
+        a2.property("name", "a2_updated");
+        this.sqlgGraph.tx().commit();
+
+        Assert.assertEquals(existing.id(), a1.id());
+        Assert.assertEquals(2L, this.sqlgGraph.traversal().V().hasLabel("A").count().next().longValue());
+        Assert.assertEquals("new", this.sqlgGraph.traversal().V(existing.id()).values("name").next());
+        Assert.assertEquals("a2_updated", this.sqlgGraph.traversal().V(a2.id()).values("name").next());
+        Assert.assertEquals(b, this.sqlgGraph.traversal().V(existing.id()).out("ab").next());
+    }
+
+    @Test
+    public void testUpsertTheSameUniqueValuesWithDifferentProperties() {
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsBatchMode());
+        VertexLabel vertexLabel = this.sqlgGraph.getTopology().getPublicSchema().ensureVertexLabelExist("A", new HashMap<String, PropertyType>() {{
+            put("code", PropertyType.varChar(100));
+            put("name", PropertyType.STRING);
+            put("age", PropertyType.INTEGER);
+        }});
+        vertexLabel.ensureIndexExists(IndexType.UNIQUE, Collections.singletonList(vertexLabel.getProperty("code").orElseThrow(IllegalStateException::new)));
+        this.sqlgGraph.tx().commit();
+
+        this.sqlgGraph.tx().normalBatchModeOn();
+        Vertex a1 = this.sqlgGraph.upsertVertex(Collections.singletonList("code"), T.label, "A", "code", "c1", "name", "a1");
+        Vertex a1Again = this.sqlgGraph.upsertVertex(Collections.singletonList("code"), T.label, "A", "code", "c1", "age", 1);
+        Assert.assertSame(a1, a1Again);
+        Vertex a2 = this.sqlgGraph.upsertVertex(Collections.singletonList("code"), T.label, "A", "code", "c2", "name", "a2");
+        this.sqlgGraph.tx().commit();
+
+        Assert.assertNotNull(a1.id());
+        Assert.assertEquals(2L, this.sqlgGraph.traversal().V().hasLabel("A").count().next().longValue());
+        Vertex reloadedA1 = this.sqlgGraph.traversal().V(a1.id()).next();
+        Assert.assertEquals("a1", reloadedA1.value("name"));
+        Assert.assertEquals(1, (int) reloadedA1.value("age"));
+        Vertex reloadedA2 = this.sqlgGraph.traversal().V(a2.id()).next();
+        Assert.assertEquals("a2", reloadedA2.value("name"));
+        Assert.assertFalse(reloadedA2.property("age").isPresent());
+    }
+
+    @Test
+    public void testUpsertByCompositeUniqueIndex() {
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsBatchMode());
+        VertexLabel vertexLabel = this.sqlgGraph.getTopology().getPublicSchema().ensureVertexLabelExist("A", new HashMap<String, PropertyType>() {{
+            put("code", PropertyType.varChar(100));
+            put("number", PropertyType.INTEGER);
+            put("name", PropertyType.STRING);
+        }});
+        vertexLabel.ensureIndexExists(IndexType.UNIQUE, Arrays.asList(
+                vertexLabel.getProperty("code").orElseThrow(IllegalStateException::new),
+                vertexLabel.getProperty("number").orElseThrow(IllegalStateException::new)
+        ));
+        this.sqlgGraph.tx().commit();
+        this.sqlgGraph.tx().normalBatchModeOn();
+        for (int i = 0; i < 1000; i++) {
+            this.sqlgGraph.upsertVertex(Arrays.asList("code", "number"), T.label, "A", "code", "c" + (i % 10), "number", i, "name", "first" + i);
+        }
+        this.sqlgGraph.tx().commit();
+        //more vertices than fit in one select of their ids, half of them already exist.
+        this.sqlgGraph.tx().normalBatchModeOn();
+        Map<Integer, Vertex> vertices = new HashMap<>();
+        for (int i = 500; i < 2500; i++) {
+            vertices.put(i, this.sqlgGraph.upsertVertex(Arrays.asList("code", "number"), T.label, "A", "code", "c" + (i % 10), "number", i, "name", "second" + i));
+        }
+        this.sqlgGraph.tx().commit();
+
+        Assert.assertEquals(2500L, this.sqlgGraph.traversal().V().hasLabel("A").count().next().longValue());
+        for (int i : Arrays.asList(500, 999, 1000, 1777, 2499)) {
+            Vertex vertex = this.sqlgGraph.traversal().V(vertices.get(i).id()).next();
+            Assert.assertEquals(i, (int) vertex.value("number"));
+            Assert.assertEquals("second" + i, vertex.value("name"));
+        }
+    }
+
+    @Test
+    public void testUpsertOutsideBatchMode() {
+        VertexLabel vertexLabel = this.sqlgGraph.getTopology().getPublicSchema().ensureVertexLabelExist("A", new HashMap<String, PropertyType>() {{
+            put("code", PropertyType.varChar(100));
+            put("name", PropertyType.STRING);
+        }});
+        vertexLabel.ensureIndexExists(IndexType.UNIQUE, Collections.singletonList(vertexLabel.getProperty("code").orElseThrow(IllegalStateException::new)));
+        this.sqlgGraph.tx().commit();
+        Vertex a1 = this.sqlgGraph.upsertVertex(Collections.singletonList("code"), T.label, "A", "code", "c1", "name", "a1");
+        Assert.assertNotNull(a1.id());
+        Vertex a1Again = this.sqlgGraph.upsertVertex(Collections.singletonList("code"), T.label, "A", "code", "c1", "name", "a1_again");
+        Assert.assertEquals(a1.id(), a1Again.id());
+        this.sqlgGraph.tx().commit();
+        Assert.assertEquals(1L, this.sqlgGraph.traversal().V().hasLabel("A").count().next().longValue());
+        Assert.assertEquals("a1_again", this.sqlgGraph.traversal().V().hasLabel("A").values("name").next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpsertByNonUniqueKeysFails() {
+        VertexLabel vertexLabel = this.sqlgGraph.getTopology().getPublicSchema().ensureVertexLabelExist("A", new HashMap<String, PropertyType>() {{
+            put("code", PropertyType.varChar(100));
+            put("name", PropertyType.varChar(100));
+        }});
+        vertexLabel.ensureIndexExists(IndexType.UNIQUE, Collections.singletonList(vertexLabel.getProperty("code").orElseThrow(IllegalStateException::new)));
+        this.sqlgGraph.tx().commit();
+        this.sqlgGraph.upsertVertex(Collections.singletonList("name"), T.label, "A", "code", "c1", "name", "a1");
+    }
+}
@@ -0,0 +1,122 @@
+package org.umlg.sqlg.test.batch;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang3.time.StopWatch;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.umlg.sqlg.structure.PropertyType;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.structure.SqlgVertex;
+import org.umlg.sqlg.structure.topology.IndexType;
+import org.umlg.sqlg.structure.topology.VertexLabel;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+public class TestStreamingPipeline extends BaseTest {
+
+    @Before
+    public void beforeTest() {
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsStreamingBatchMode());
+    }
+
+    @Test
+    public void testStreamVerticesAndEdges() {
+        //a small queue so that the streaming thread waits on the writer thread.
+        try (SqlgGraph pipelineGraph = openGraph(16)) {
+            StopWatch stopWatch = new StopWatch();
+            stopWatch.start();
+            pipelineGraph.tx().streamingBatchModeOn();
+            for (int i = 0; i < 10_000; i++) {
+                pipelineGraph.streamVertex(T.label, "A", "name", "a" + i, "index", i);
+            }
+            pipelineGraph.tx().flush();
+            for (int i = 0; i < 10_000; i++) {
+                pipelineGraph.streamVertex(T.label, "B", "name", "b" + i);
+            }
+            pipelineGraph.tx().commit();
+            stopWatch.stop();
+            System.out.println(stopWatch.toString());
+            Assert.assertEquals(10_000L, pipelineGraph.traversal().V().hasLabel("A").count().next().longValue());
+            Assert.assertEquals(10_000L, pipelineGraph.traversal().V().hasLabel("B").count().next().longValue());
+            Assert.assertEquals(7, pipelineGraph.traversal().V().hasLabel("A").has("name", "a7").values("index").next());
+
+            List<Vertex> as = pipelineGraph.traversal().V().hasLabel("A").toList();
+            Vertex b = pipelineGraph.traversal().V().hasLabel("B").has("name", "b1").next();
+            pipelineGraph.tx().streamingBatchModeOn();
+            for (Vertex a : as) {
+                LinkedHashMap<String, Object> values = new LinkedHashMap<>();
+                values.put("weight", a.<Integer>value("index"));
+                ((SqlgVertex) a).streamEdge("ab", b, values);
+            }
+            pipelineGraph.tx().commit();
+            Assert.assertEquals(10_000L, pipelineGraph.traversal().V(b).inE("ab").count().next().longValue());
+        }
+    }
+
+    @Test
+    public void testStreamingFailureIsThrownOnCommit() {
+        try (SqlgGraph pipelineGraph = openGraph(16)) {
+            VertexLabel vertexLabel = pipelineGraph.getTopology().getPublicSchema().ensureVertexLabelExist("A", new HashMap<String, PropertyType>() {{
+                put("name", PropertyType.STRING);
+            }});
+            vertexLabel.ensureIndexExists(IndexType.UNIQUE, Collections.singletonList(vertexLabel.getProperty("name").orElseThrow(IllegalStateException::new)));
+            pipelineGraph.tx().commit();
+
+            pipelineGraph.tx().streamingBatchModeOn();
+            for (int i = 0; i < 1000; i++) {
+                pipelineGraph.streamVertex(T.label, "A", "name", "duplicate");
+            }
+            try {
+                pipelineGraph.tx().commit();
+                Assert.fail("the duplicate names must fail the copy");
+            } catch (RuntimeException e) {
+                //expected
+            }
+            Assert.assertEquals(0L, pipelineGraph.traversal().V().hasLabel("A").count().next().longValue());
+
+            //the graph is usable after the failure.
+            pipelineGraph.tx().streamingBatchModeOn();
+            for (int i = 0; i < 1000; i++) {
+                pipelineGraph.streamVertex(T.label, "A", "name", "a" + i);
+            }
+            pipelineGraph.tx().commit();
+            Assert.assertEquals(1000L, pipelineGraph.traversal().V().hasLabel("A").count().next().longValue());
+        }
+    }
+
+    @Test
+    public void testCallerMayReuseTheRow() {
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsIntegerArrayValues());
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.STREAMING_PIPELINE_SIZE, 16);
+        configuration.setProperty(SqlgGraph.STREAMING_PIPELINE_THREADS, 1);
+        try (SqlgGraph pipelineGraph = SqlgGraph.open(configuration)) {
+            pipelineGraph.tx().streamingBatchModeOn();
+            LinkedHashMap<String, Object> values = new LinkedHashMap<>();
+            int[] numbers = new int[1];
+            for (int i = 0; i < 10_000; i++) {
+                numbers[0] = i;
+                values.put("name", "a" + i);
+                values.put("numbers", numbers);
+                pipelineGraph.streamVertex("A", values);
+            }
+            pipelineGraph.tx().commit();
+            Vertex a = pipelineGraph.traversal().V().hasLabel("A").has("name", "a1234").next();
+            Assert.assertArrayEquals(new int[]{1234}, a.value("numbers"));
+        }
+    }
+
+    private SqlgGraph openGraph(int pipelineSize) {
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.STREAMING_PIPELINE_SIZE, pipelineSize);
+        return SqlgGraph.open(configuration);
+    }
+}
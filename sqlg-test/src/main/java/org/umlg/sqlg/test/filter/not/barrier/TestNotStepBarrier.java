@@ -1,7 +1,6 @@
 package org.umlg.sqlg.test.filter.not.barrier;
 
 import org.apache.tinkerpop.gremlin.process.traversal.Step;
-import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
 import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
@@ -9,7 +8,6 @@ import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.junit.Assert;
 import org.junit.Test;
-import org.umlg.sqlg.step.SqlgVertexStep;
 import org.umlg.sqlg.step.barrier.SqlgNotStepBarrier;
 import org.umlg.sqlg.test.BaseTest;
 
@@ -51,13 +49,26 @@ public class TestNotStepBarrier extends BaseTest {
         List<Vertex> vertices = traversal.toList();
         Assert.assertEquals(1, vertices.size());
         Assert.assertEquals(a2, vertices.get(0));
+        //the not's traversal is a vertex step only so it is compiled into a NOT EXISTS sub select.
         List<Step> steps = traversal.getSteps();
-        Assert.assertEquals(2, steps.size());
-        Assert.assertTrue(steps.get(1) instanceof SqlgNotStepBarrier);
-        SqlgNotStepBarrier sqlgNotStepBarrier = (SqlgNotStepBarrier) steps.get(1);
-        Assert.assertEquals(1, sqlgNotStepBarrier.getLocalChildren().size());
-        Traversal.Admin t = (Traversal.Admin) sqlgNotStepBarrier.getLocalChildren().get(0);
-        Assert.assertEquals(1, t.getSteps().size());
-        Assert.assertTrue(t.getSteps().get(0) instanceof SqlgVertexStep);
+        Assert.assertEquals(1, steps.size());
+        Assert.assertTrue(TraversalHelper.getStepsOfAssignableClassRecursively(SqlgNotStepBarrier.class, traversal).isEmpty());
+    }
+
+    @Test
+    public void testNotStepBarrierWithLabeledTraversal() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A");
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A");
+        Vertex b1 = this.sqlgGraph.addVertex(T.label, "B");
+        a1.addEdge("ab", b1);
+        this.sqlgGraph.tx().commit();
+
+        DefaultGraphTraversal<Vertex, Vertex> traversal = (DefaultGraphTraversal<Vertex, Vertex>) this.sqlgGraph.traversal().V().hasLabel("A").not(__.out().as("b"));
+        List<Vertex> vertices = traversal.toList();
+        Assert.assertEquals(1, vertices.size());
+        Assert.assertEquals(a2, vertices.get(0));
+        //the labeled traversal can not be compiled into a sub select.
+        List<SqlgNotStepBarrier> steps = TraversalHelper.getStepsOfAssignableClassRecursively(SqlgNotStepBarrier.class, traversal);
+        Assert.assertEquals(1, steps.size());
     }
 }
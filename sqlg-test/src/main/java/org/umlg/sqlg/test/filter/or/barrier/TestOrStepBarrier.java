@@ -67,8 +67,10 @@ public class TestOrStepBarrier extends BaseTest {
         List<Vertex> vertices = traversal.toList();
         Assert.assertEquals(3, vertices.size());
         Assert.assertTrue(vertices.containsAll(Arrays.asList(a1, a2, a3)));
+        //the or's traversals are vertex steps only so they are compiled into EXISTS sub selects.
         List<SqlgOrStepBarrier> sqlgOrStepBarriers = TraversalHelper.getStepsOfAssignableClassRecursively(SqlgOrStepBarrier.class, traversal);
-        Assert.assertEquals(1, sqlgOrStepBarriers.size());
+        Assert.assertEquals(0, sqlgOrStepBarriers.size());
+        Assert.assertEquals(1, traversal.getSteps().size());
     }
 
     @Test
@@ -94,8 +96,10 @@ public class TestOrStepBarrier extends BaseTest {
         List<Vertex> vertices = traversal.toList();
         Assert.assertEquals(2, vertices.size());
         Assert.assertTrue(vertices.containsAll(Arrays.asList(a1, a2)));
+        //the or's traversals are vertex steps only so they are compiled into EXISTS sub selects.
         List<SqlgOrStepBarrier> sqlgOrStepBarriers = TraversalHelper.getStepsOfAssignableClassRecursively(SqlgOrStepBarrier.class, traversal);
-        Assert.assertEquals(1, sqlgOrStepBarriers.size());
+        Assert.assertEquals(0, sqlgOrStepBarriers.size());
+        Assert.assertEquals(1, traversal.getSteps().size());
     }
 
     @Test
@@ -0,0 +1,123 @@
+package org.umlg.sqlg.test.gremlincompile;
+
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Filter traversals made up of vertex steps and has steps are compiled into [NOT] EXISTS sub selects.
+ */
+public class TestExistsPushdown extends BaseTest {
+
+    @Test
+    public void testNotExists() {
+        Vertex banned = this.sqlgGraph.addVertex(T.label, "Ban");
+        Vertex u1 = this.sqlgGraph.addVertex(T.label, "User", "name", "u1");
+        Vertex u2 = this.sqlgGraph.addVertex(T.label, "User", "name", "u2");
+        Vertex u3 = this.sqlgGraph.addVertex(T.label, "User", "name", "u3");
+        u1.addEdge("banned", banned);
+        this.sqlgGraph.tx().commit();
+
+        DefaultGraphTraversal<Vertex, Vertex> traversal = (DefaultGraphTraversal<Vertex, Vertex>) this.sqlgGraph.traversal()
+                .V().hasLabel("User").not(__.out("banned"));
+        List<Vertex> vertices = traversal.toList();
+        Assert.assertEquals(1, traversal.getSteps().size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(u2, u3)), new HashSet<>(vertices));
+
+        traversal = (DefaultGraphTraversal<Vertex, Vertex>) this.sqlgGraph.traversal()
+                .V().hasLabel("User").where(__.out("banned"));
+        vertices = traversal.toList();
+        Assert.assertEquals(1, traversal.getSteps().size());
+        Assert.assertEquals(Arrays.asList(u1), vertices);
+
+        //there is no such edge label so nothing is filtered.
+        Assert.assertEquals(3, this.sqlgGraph.traversal().V().hasLabel("User").not(__.out("nope")).toList().size());
+        Assert.assertEquals(0, this.sqlgGraph.traversal().V().hasLabel("User").where(__.out("nope")).toList().size());
+        Assert.assertEquals(Arrays.asList(banned), this.sqlgGraph.traversal().V().hasLabel("Ban").where(__.in("banned")).toList());
+        Assert.assertEquals(Arrays.asList(banned), this.sqlgGraph.traversal().V().hasLabel("Ban").where(__.both()).toList());
+    }
+
+    @Test
+    public void testExistsWithHasContainers() {
+        Vertex u1 = this.sqlgGraph.addVertex(T.label, "User", "name", "u1");
+        Vertex u2 = this.sqlgGraph.addVertex(T.label, "User", "name", "u2");
+        Vertex u3 = this.sqlgGraph.addVertex(T.label, "User", "name", "u3");
+        Vertex old = this.sqlgGraph.addVertex(T.label, "Friend", "age", 40);
+        Vertex young = this.sqlgGraph.addVertex(T.label, "Friend", "age", 20);
+        Vertex group = this.sqlgGraph.addVertex(T.label, "Group", "age", 50);
+        u1.addEdge("knows", old);
+        u2.addEdge("knows", young);
+        u3.addEdge("knows", group);
+        this.sqlgGraph.tx().commit();
+
+        DefaultGraphTraversal<Vertex, Vertex> traversal = (DefaultGraphTraversal<Vertex, Vertex>) this.sqlgGraph.traversal()
+                .V().hasLabel("User").where(__.out("knows").has("age", P.gt(30)));
+        List<Vertex> vertices = traversal.toList();
+        Assert.assertEquals(1, traversal.getSteps().size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(u1, u3)), new HashSet<>(vertices));
+
+        vertices = this.sqlgGraph.traversal().V().hasLabel("User").where(__.out("knows").hasLabel("Friend").has("age", P.gt(30))).toList();
+        Assert.assertEquals(Arrays.asList(u1), vertices);
+        vertices = this.sqlgGraph.traversal().V().hasLabel("User").not(__.out("knows").has("age", P.lt(30))).toList();
+        Assert.assertEquals(new HashSet<>(Arrays.asList(u1, u3)), new HashSet<>(vertices));
+    }
+
+    @Test
+    public void testAndOrExists() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A");
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A");
+        Vertex a3 = this.sqlgGraph.addVertex(T.label, "A");
+        Vertex b1 = this.sqlgGraph.addVertex(T.label, "B");
+        Vertex c1 = this.sqlgGraph.addVertex(T.label, "C");
+        a1.addEdge("ab", b1);
+        a1.addEdge("ac", c1);
+        a2.addEdge("ab", b1);
+        c1.addEdge("ca", a3);
+        this.sqlgGraph.tx().commit();
+
+        DefaultGraphTraversal<Vertex, Vertex> traversal = (DefaultGraphTraversal<Vertex, Vertex>) this.sqlgGraph.traversal()
+                .V().hasLabel("A").and(__.out("ab"), __.out("ac"));
+        List<Vertex> vertices = traversal.toList();
+        Assert.assertEquals(1, traversal.getSteps().size());
+        Assert.assertEquals(Arrays.asList(a1), vertices);
+
+        traversal = (DefaultGraphTraversal<Vertex, Vertex>) this.sqlgGraph.traversal()
+                .V().hasLabel("A").or(__.out("ac"), __.in("ca"));
+        vertices = traversal.toList();
+        Assert.assertEquals(1, traversal.getSteps().size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(a1, a3)), new HashSet<>(vertices));
+
+        //two hops
+        vertices = this.sqlgGraph.traversal().V().hasLabel("A").where(__.out("ac").out("ca")).toList();
+        Assert.assertEquals(Arrays.asList(a1), vertices);
+        vertices = this.sqlgGraph.traversal().V().hasLabel("A").not(__.out("ac").out("ca")).toList();
+        Assert.assertEquals(new HashSet<>(Arrays.asList(a2, a3)), new HashSet<>(vertices));
+    }
+
+    @Test
+    public void testExistsAfterVertexStep() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A");
+        Vertex b1 = this.sqlgGraph.addVertex(T.label, "B", "name", "b1");
+        Vertex b2 = this.sqlgGraph.addVertex(T.label, "B", "name", "b2");
+        Vertex c1 = this.sqlgGraph.addVertex(T.label, "C");
+        a1.addEdge("ab", b1);
+        a1.addEdge("ab", b2);
+        b1.addEdge("bc", c1);
+        this.sqlgGraph.tx().commit();
+
+        List<Vertex> vertices = this.sqlgGraph.traversal().V().hasLabel("A").out("ab").not(__.out("bc")).toList();
+        Assert.assertEquals(Arrays.asList(b2), vertices);
+        vertices = this.sqlgGraph.traversal().V().hasLabel("A").filter(t -> true).out("ab").where(__.out("bc")).toList();
+        Assert.assertEquals(Arrays.asList(b1), vertices);
+        Assert.assertEquals(1L, this.sqlgGraph.traversal().V().hasLabel("A").out("ab").not(__.out("bc")).count().next().longValue());
+    }
+}
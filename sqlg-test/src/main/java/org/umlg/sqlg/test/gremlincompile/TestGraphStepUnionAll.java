@@ -0,0 +1,139 @@
+package org.umlg.sqlg.test.gremlincompile;
+
+import org.apache.commons.collections4.set.ListOrderedSet;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.umlg.sqlg.structure.PropertyType;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Label-less scans are batched into UNION ALL statements.
+ */
+public class TestGraphStepUnionAll extends BaseTest {
+
+    @Test
+    public void testLabelLessScanOverManyLabels() {
+        Map<Object, Vertex> expected = new HashMap<>();
+        //more labels than the default union width
+        for (int i = 0; i < 60; i++) {
+            for (int j = 0; j < 2; j++) {
+                Vertex v;
+                if (i % 2 == 0) {
+                    v = this.sqlgGraph.addVertex(T.label, "A" + i, "name", "a" + i + "_" + j, "x", i);
+                } else {
+                    v = this.sqlgGraph.addVertex(T.label, "A" + i, "x", "x" + i, "y", (long) j);
+                }
+                expected.put(v.id(), v);
+            }
+        }
+        this.sqlgGraph.tx().commit();
+
+        List<Vertex> vertices = this.sqlgGraph.traversal().V().toList();
+        Assert.assertEquals(120, vertices.size());
+        for (Vertex vertex : vertices) {
+            Vertex v = expected.get(vertex.id());
+            Assert.assertNotNull(v);
+            Assert.assertEquals(v.label(), vertex.label());
+            Assert.assertEquals(v.keys(), vertex.keys());
+            for (String key : v.keys()) {
+                Assert.assertEquals(v.value(key), vertex.value(key));
+            }
+        }
+        Assert.assertEquals(120, new HashSet<>(vertices).size());
+    }
+
+    @Test
+    public void testLabelLessScanWithHas() {
+        for (int i = 0; i < 5; i++) {
+            this.sqlgGraph.addVertex(T.label, "A" + i, "name", "a" + i);
+            this.sqlgGraph.addVertex(T.label, "B" + i, "surname", "a" + i);
+        }
+        this.sqlgGraph.tx().commit();
+
+        List<Vertex> vertices = this.sqlgGraph.traversal().V().has("name", "a3").toList();
+        Assert.assertEquals(1, vertices.size());
+        Assert.assertEquals("A3", vertices.get(0).label());
+        Assert.assertEquals(5, this.sqlgGraph.traversal().V().has("surname").toList().size());
+        Assert.assertEquals(10, this.sqlgGraph.traversal().V().as("a").select("a").toList().size());
+        Assert.assertEquals(5, this.sqlgGraph.traversal().V().values("name").toList().size());
+    }
+
+    @Test
+    public void testLabelLessEdgeScan() {
+        Vertex a = this.sqlgGraph.addVertex(T.label, "A", "name", "a");
+        Vertex b = this.sqlgGraph.addVertex(T.label, "B", "name", "b");
+        Vertex c = this.sqlgGraph.addVertex(T.label, "C", "name", "c");
+        Edge ab = a.addEdge("ab", b, "weight", 1);
+        Edge bc = b.addEdge("bc", c, "name", "bc");
+        Edge ac = a.addEdge("ac", c);
+        this.sqlgGraph.tx().commit();
+
+        List<Edge> edges = this.sqlgGraph.traversal().E().toList();
+        Assert.assertEquals(3, edges.size());
+        for (Edge edge : edges) {
+            if (edge.equals(ab)) {
+                Assert.assertEquals(a, edge.outVertex());
+                Assert.assertEquals(b, edge.inVertex());
+                Assert.assertEquals(1, edge.<Integer>value("weight").intValue());
+            } else if (edge.equals(bc)) {
+                Assert.assertEquals(b, edge.outVertex());
+                Assert.assertEquals(c, edge.inVertex());
+                Assert.assertEquals("bc", edge.value("name"));
+            } else {
+                Assert.assertEquals(ac, edge);
+                Assert.assertEquals(a, edge.outVertex());
+                Assert.assertEquals(c, edge.inVertex());
+            }
+        }
+        Assert.assertEquals(1, this.sqlgGraph.traversal().E().has("name", "bc").toList().size());
+    }
+
+    @Test
+    public void testLabelLessEdgeScanWithIdentifierEndpoint() {
+        this.sqlgGraph.getTopology().getPublicSchema().ensureVertexLabelExist(
+                "Person",
+                new HashMap<String, PropertyType>() {{
+                    put("uid", PropertyType.varChar(100));
+                    put("name", PropertyType.STRING);
+                }},
+                ListOrderedSet.listOrderedSet(Collections.singletonList("uid"))
+        );
+        Vertex person = this.sqlgGraph.addVertex(T.label, "Person", "uid", "u1", "name", "p");
+        Vertex a = this.sqlgGraph.addVertex(T.label, "A", "name", "a");
+        Vertex b = this.sqlgGraph.addVertex(T.label, "B", "name", "b");
+        Vertex c = this.sqlgGraph.addVertex(T.label, "C", "name", "c");
+        Edge personA = person.addEdge("personA", a, "weight", 1);
+        Edge ab = a.addEdge("ab", b, "weight", 2);
+        Edge bc = b.addEdge("bc", c, "weight", 3);
+        this.sqlgGraph.tx().commit();
+
+        List<Edge> edges = this.sqlgGraph.traversal().E().toList();
+        Assert.assertEquals(3, edges.size());
+        for (Edge edge : edges) {
+            if (edge.equals(personA)) {
+                Assert.assertEquals(person, edge.outVertex());
+                Assert.assertEquals(a, edge.inVertex());
+                Assert.assertEquals(1, edge.<Integer>value("weight").intValue());
+            } else if (edge.equals(ab)) {
+                Assert.assertEquals(a, edge.outVertex());
+                Assert.assertEquals(b, edge.inVertex());
+                Assert.assertEquals(2, edge.<Integer>value("weight").intValue());
+            } else {
+                Assert.assertEquals(bc, edge);
+                Assert.assertEquals(b, edge.outVertex());
+                Assert.assertEquals(c, edge.inVertex());
+                Assert.assertEquals(3, edge.<Integer>value("weight").intValue());
+            }
+        }
+        Assert.assertEquals("u1", this.sqlgGraph.traversal().E().has("weight", 1).outV().values("uid").next());
+    }
+}
@@ -0,0 +1,68 @@
+package org.umlg.sqlg.test.gremlincompile;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.umlg.sqlg.predicate.Seek;
+import org.umlg.sqlg.structure.RecordId;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Pages are selected with the previous page's last sort value and id instead of an OFFSET.
+ */
+public class TestKeysetPagination extends BaseTest {
+
+    @Test
+    public void testPageThroughDuplicateSortValues() {
+        List<Vertex> persons = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            persons.add(this.sqlgGraph.addVertex(T.label, "Person", "name", "n" + (i % 5)));
+        }
+        this.sqlgGraph.tx().commit();
+        Comparator<Vertex> byNameThenId = Comparator.<Vertex, String>comparing(v -> v.value("name"))
+                .thenComparing(v -> ((RecordId) v.id()).sequenceId());
+
+        List<Vertex> expected = persons.stream().sorted(byNameThenId).collect(Collectors.toList());
+        Assert.assertEquals(expected, pageThrough(Order.asc));
+        expected = persons.stream().sorted(byNameThenId.reversed()).collect(Collectors.toList());
+        Assert.assertEquals(expected, pageThrough(Order.desc));
+    }
+
+    @Test
+    public void testSeekIsOptimized() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A", "name", "a");
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A", "name", "a");
+        Vertex b = this.sqlgGraph.addVertex(T.label, "A", "name", "b");
+        this.sqlgGraph.tx().commit();
+
+        DefaultGraphTraversal<Vertex, Vertex> traversal = (DefaultGraphTraversal<Vertex, Vertex>) this.sqlgGraph.traversal()
+                .V().hasLabel("A").has("name", Seek.after("a", (RecordId) a1.id(), Order.asc));
+        List<Vertex> vertices = traversal.toList();
+        Assert.assertEquals(1, traversal.getSteps().size());
+        Assert.assertEquals(2, vertices.size());
+        Assert.assertTrue(vertices.contains(a2));
+        Assert.assertTrue(vertices.contains(b));
+        Assert.assertEquals(0, this.sqlgGraph.traversal().page("A", "name", Order.asc, 10, b).toList().size());
+    }
+
+    private List<Vertex> pageThrough(Order order) {
+        List<Vertex> result = new ArrayList<>();
+        Vertex last = null;
+        List<Vertex> page = this.sqlgGraph.traversal().page("Person", "name", order, 4).toList();
+        while (!page.isEmpty()) {
+            Assert.assertTrue(page.size() <= 4);
+            result.addAll(page);
+            last = page.get(page.size() - 1);
+            page = this.sqlgGraph.traversal().page("Person", "name", order, 4, last).toList();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package org.umlg.sqlg.test.gremlincompile;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.HashSet;
+import java.util.List;
+
+public class TestParallelQueries extends BaseTest {
+
+    @Before
+    public void before() throws Exception {
+        super.before();
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsSharedSnapshot());
+    }
+
+    @Test
+    public void testDistinctQueriesExecuteConcurrently() {
+        for (int i = 0; i < 5; i++) {
+            Vertex a = this.sqlgGraph.addVertex(T.label, "A" + i, "name", "a" + i);
+            for (int j = 0; j < 3; j++) {
+                a.addEdge("ab", this.sqlgGraph.addVertex(T.label, "B" + j, "name", "b" + i + j));
+            }
+        }
+        this.sqlgGraph.tx().commit();
+
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.QUERY_PARALLEL_THREADS, 4);
+        configuration.setProperty("union.all.width", 0);
+        try (SqlgGraph parallelGraph = SqlgGraph.open(configuration)) {
+            Assert.assertNotNull(parallelGraph.getQueryExecutor());
+            List<Vertex> expected = this.sqlgGraph.traversal().V().out("ab").toList();
+            long snapshotQueries = parallelGraph.getQueryMetrics().getSnapshotQueries();
+            List<Vertex> vertices = parallelGraph.traversal().V().out("ab").toList();
+            //at least one snapshot query per A label
+            Assert.assertTrue(parallelGraph.getQueryMetrics().getSnapshotQueries() >= snapshotQueries + 5);
+            Assert.assertEquals(15, vertices.size());
+            Assert.assertEquals(new HashSet<>(expected), new HashSet<>(vertices));
+            for (Vertex vertex : vertices) {
+                Assert.assertTrue(vertex.<String>value("name").startsWith("b"));
+            }
+            Assert.assertEquals(20, parallelGraph.traversal().V().toList().size());
+            Assert.assertEquals(3, parallelGraph.traversal().V().has("name", "a1").out("ab").toList().size());
+            parallelGraph.tx().rollback();
+        }
+    }
+
+    @Test
+    public void testWriteTransactionSeesItsOwnWrites() {
+        for (int i = 0; i < 5; i++) {
+            this.sqlgGraph.addVertex(T.label, "A" + i, "name", "a" + i);
+        }
+        this.sqlgGraph.tx().commit();
+
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.QUERY_PARALLEL_THREADS, 4);
+        configuration.setProperty("union.all.width", 0);
+        try (SqlgGraph parallelGraph = SqlgGraph.open(configuration)) {
+            parallelGraph.addVertex(T.label, "A0", "name", "a0");
+            parallelGraph.addVertex(T.label, "A4", "name", "a4");
+            long snapshotQueries = parallelGraph.getQueryMetrics().getSnapshotQueries();
+            Assert.assertEquals(7, parallelGraph.traversal().V().toList().size());
+            Assert.assertEquals(snapshotQueries, parallelGraph.getQueryMetrics().getSnapshotQueries());
+            parallelGraph.tx().rollback();
+            Assert.assertEquals(5, parallelGraph.traversal().V().toList().size());
+            parallelGraph.tx().rollback();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.umlg.sqlg.test.gremlincompile;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+public class TestQueryPrefetch extends BaseTest {
+
+    @Test
+    public void testPrefetchNextDistinctQuery() {
+        for (int i = 0; i < 5; i++) {
+            Vertex a = this.sqlgGraph.addVertex(T.label, "A" + i, "name", "a" + i);
+            for (int j = 0; j < 3; j++) {
+                a.addEdge("ab", this.sqlgGraph.addVertex(T.label, "B" + j, "name", "b" + i + j));
+            }
+        }
+        this.sqlgGraph.tx().commit();
+
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.QUERY_PREFETCH_DEPTH, 2);
+        configuration.setProperty("union.all.width", 0);
+        try (SqlgGraph prefetchGraph = SqlgGraph.open(configuration)) {
+            Assume.assumeTrue(prefetchGraph.getSqlDialect().supportsSharedSnapshot());
+            List<Vertex> expected = this.sqlgGraph.traversal().V().out("ab").toList();
+            List<Vertex> vertices = prefetchGraph.traversal().V().out("ab").toList();
+            Assert.assertEquals(15, vertices.size());
+            Assert.assertEquals(new HashSet<>(expected), new HashSet<>(vertices));
+            Assert.assertTrue(prefetchGraph.getQueryMetrics().getPrefetched() > 0);
+            Assert.assertEquals(prefetchGraph.getQueryMetrics().getPrefetched(), prefetchGraph.getQueryMetrics().getSnapshotQueries());
+            Assert.assertEquals(0, prefetchGraph.getQueryMetrics().getPrefetchDepth());
+
+            prefetchGraph.tx().rollback();
+
+            //a write transaction can not share its snapshot, its queries execute sequentially and see its own writes.
+            long prefetched = prefetchGraph.getQueryMetrics().getPrefetched();
+            prefetchGraph.addVertex(T.label, "A0", "name", "a0");
+            Assert.assertEquals(21, prefetchGraph.traversal().V().toList().size());
+            Assert.assertEquals(prefetched, prefetchGraph.getQueryMetrics().getPrefetched());
+            prefetchGraph.tx().rollback();
+        }
+    }
+
+    @Test
+    public void testConcurrentWriteIsNotVisibleInTheSnapshot() {
+        for (int i = 0; i < 5; i++) {
+            this.sqlgGraph.addVertex(T.label, "A" + i, "name", "a" + i);
+        }
+        this.sqlgGraph.tx().commit();
+
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.QUERY_PREFETCH_DEPTH, 1);
+        configuration.setProperty("union.all.width", 0);
+        try (SqlgGraph prefetchGraph = SqlgGraph.open(configuration)) {
+            Assume.assumeTrue(prefetchGraph.getSqlDialect().supportsSharedSnapshot());
+            long snapshotQueries = prefetchGraph.getQueryMetrics().getSnapshotQueries();
+            Iterator<Vertex> vertices = prefetchGraph.traversal().V();
+            Set<String> names = new HashSet<>();
+            names.add(vertices.next().value("name"));
+            //the last labels' queries are not submitted yet, they execute after the write but on the snapshot.
+            this.sqlgGraph.addVertex(T.label, "A4", "name", "a5");
+            this.sqlgGraph.tx().commit();
+            while (vertices.hasNext()) {
+                names.add(vertices.next().value("name"));
+            }
+            Assert.assertEquals(new HashSet<>(Arrays.asList("a0", "a1", "a2", "a3", "a4")), names);
+            Assert.assertEquals(snapshotQueries + 5, prefetchGraph.getQueryMetrics().getSnapshotQueries());
+            prefetchGraph.tx().rollback();
+            Assert.assertEquals(6, prefetchGraph.traversal().V().toList().size());
+            prefetchGraph.tx().rollback();
+        }
+    }
+
+    @Test
+    public void testAbandonedTraversalCancelsThePrefetchedQueries() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Vertex a = this.sqlgGraph.addVertex(T.label, "A" + i, "name", "a" + i);
+            for (int j = 0; j < 3; j++) {
+                a.addEdge("ab", this.sqlgGraph.addVertex(T.label, "B" + j, "name", "b" + i + j));
+            }
+        }
+        this.sqlgGraph.tx().commit();
+
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.QUERY_PREFETCH_DEPTH, 2);
+        configuration.setProperty("union.all.width", 0);
+        try (SqlgGraph prefetchGraph = SqlgGraph.open(configuration)) {
+            Assume.assumeTrue(prefetchGraph.getSqlDialect().supportsSharedSnapshot());
+            try (GraphTraversal<Vertex, Vertex> traversal = prefetchGraph.traversal().V().out("ab")) {
+                Assert.assertTrue(traversal.hasNext());
+                traversal.next();
+                Assert.assertTrue(prefetchGraph.getQueryMetrics().getPrefetchDepth() > 0);
+            }
+            Assert.assertEquals(0, prefetchGraph.getQueryMetrics().getPrefetchDepth());
+            //the graph's pooled connections are returned, the next traversal prefetches again.
+            Assert.assertEquals(15, prefetchGraph.traversal().V().out("ab").toList().size());
+            Assert.assertEquals(0, prefetchGraph.getQueryMetrics().getPrefetchDepth());
+            prefetchGraph.tx().rollback();
+        }
+    }
+}
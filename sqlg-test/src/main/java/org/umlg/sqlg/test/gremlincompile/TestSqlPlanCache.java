@@ -0,0 +1,119 @@
+package org.umlg.sqlg.test.gremlincompile;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Test;
+import org.umlg.sqlg.sql.parse.SqlPlanCache;
+import org.umlg.sqlg.structure.PropertyType;
+import org.umlg.sqlg.structure.topology.VertexLabel;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestSqlPlanCache extends BaseTest {
+
+    @Test
+    public void testSameShapeDifferentValuesHitsTheCache() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A", "name", "a1");
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A", "name", "a2");
+        Vertex b1 = this.sqlgGraph.addVertex(T.label, "B", "name", "b1");
+        Vertex b2 = this.sqlgGraph.addVertex(T.label, "B", "name", "b2");
+        a1.addEdge("ab", b1);
+        a2.addEdge("ab", b2);
+        this.sqlgGraph.tx().commit();
+
+        SqlPlanCache sqlPlanCache = this.sqlgGraph.getSqlPlanCache();
+        sqlPlanCache.clear();
+        List<Vertex> vertices = this.sqlgGraph.traversal().V().hasLabel("A").has("name", "a1").out("ab").toList();
+        assertEquals(1, vertices.size());
+        assertEquals(b1, vertices.get(0));
+        long hits = sqlPlanCache.getHits();
+
+        vertices = this.sqlgGraph.traversal().V().hasLabel("A").has("name", "a2").out("ab").toList();
+        assertEquals(1, vertices.size());
+        assertEquals(b2, vertices.get(0));
+        assertTrue(sqlPlanCache.getHits() > hits);
+    }
+
+    @Test
+    public void testCachedPlanLoadsLabeledElements() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A", "name", "a1");
+        Vertex b1 = this.sqlgGraph.addVertex(T.label, "B", "name", "b1");
+        Vertex b2 = this.sqlgGraph.addVertex(T.label, "B", "name", "b2");
+        a1.addEdge("ab", b1);
+        a1.addEdge("ab", b2);
+        this.sqlgGraph.tx().commit();
+
+        this.sqlgGraph.getSqlPlanCache().clear();
+        for (int i = 0; i < 2; i++) {
+            List<Map<String, Vertex>> result = this.sqlgGraph.traversal()
+                    .V().hasLabel("A").as("a")
+                    .out("ab").as("b")
+                    .order().by("name", Order.decr)
+                    .<Vertex>select("a", "b")
+                    .toList();
+            assertEquals(2, result.size());
+            assertEquals(a1, result.get(0).get("a"));
+            assertEquals(b2, result.get(0).get("b"));
+            assertEquals("b2", result.get(0).get("b").value("name"));
+            assertEquals(b1, result.get(1).get("b"));
+        }
+    }
+
+    @Test
+    public void testBulkWithinBoundAsArray() {
+        for (int i = 0; i < 10; i++) {
+            this.sqlgGraph.addVertex(T.label, "A", "name", "a" + i);
+        }
+        this.sqlgGraph.tx().commit();
+
+        SqlPlanCache sqlPlanCache = this.sqlgGraph.getSqlPlanCache();
+        sqlPlanCache.clear();
+        List<Vertex> vertices = this.sqlgGraph.traversal().V().hasLabel("A").has("name", P.within("a1", "a2", "a3")).toList();
+        assertEquals(3, vertices.size());
+        long hits = sqlPlanCache.getHits();
+
+        vertices = this.sqlgGraph.traversal().V().hasLabel("A").has("name", P.within("a4", "a5", "a6", "a7", "a8")).toList();
+        assertEquals(5, vertices.size());
+        vertices = this.sqlgGraph.traversal().V().hasLabel("A").has("name", P.without("a4", "a5", "a6", "a7", "a8")).toList();
+        assertEquals(5, vertices.size());
+        if (this.sqlgGraph.getSqlDialect().supportsBulkWithinOutArrayParameter()) {
+            assertTrue(sqlPlanCache.getHits() > hits);
+        }
+
+        List<Object> ids = Arrays.asList(vertices.get(0).id(), vertices.get(1).id());
+        vertices = this.sqlgGraph.traversal().V().hasLabel("A").hasId(P.within(ids)).toList();
+        assertEquals(2, vertices.size());
+    }
+
+    @Test
+    public void testTopologyChangeEvictsThePlan() {
+        this.sqlgGraph.addVertex(T.label, "A", "name", "a1");
+        this.sqlgGraph.tx().commit();
+
+        SqlPlanCache sqlPlanCache = this.sqlgGraph.getSqlPlanCache();
+        sqlPlanCache.clear();
+        List<Vertex> vertices = this.sqlgGraph.traversal().V().hasLabel("A").toList();
+        assertEquals(1, vertices.size());
+        assertEquals(1, sqlPlanCache.size());
+
+        VertexLabel vertexLabel = this.sqlgGraph.getTopology().getPublicSchema().getVertexLabel("A").orElseThrow(IllegalStateException::new);
+        vertexLabel.ensurePropertiesExist(Collections.singletonMap("surname", PropertyType.STRING));
+        this.sqlgGraph.tx().commit();
+        assertEquals(0, sqlPlanCache.size());
+
+        this.sqlgGraph.addVertex(T.label, "A", "name", "a2", "surname", "s2");
+        this.sqlgGraph.tx().commit();
+        vertices = this.sqlgGraph.traversal().V().hasLabel("A").has("surname", "s2").toList();
+        assertEquals(1, vertices.size());
+        assertEquals("s2", vertices.get(0).value("surname"));
+    }
+}
@@ -0,0 +1,60 @@
+package org.umlg.sqlg.test.gremlincompile;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The starts of a vertex step are queried for in chunks.
+ */
+public class TestVertexStepBarrier extends BaseTest {
+
+    @Test
+    public void testVertexStepInChunks() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Vertex a = this.sqlgGraph.addVertex(T.label, "A", "name", "a" + i);
+            for (int j = 0; j < 3; j++) {
+                a.addEdge("ab", this.sqlgGraph.addVertex(T.label, "B", "name", "b" + i + j));
+                expected.add("b" + i + j);
+            }
+        }
+        this.sqlgGraph.tx().commit();
+
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.VERTEX_STEP_BARRIER_SIZE, 3);
+        try (SqlgGraph chunkedGraph = SqlgGraph.open(configuration)) {
+            long barriers = chunkedGraph.getQueryMetrics().getVertexStepBarriers();
+            List<String> names = chunkedGraph.traversal().V().hasLabel("A").order().by("name").filter(t -> true).out("ab").<String>values("name").toList();
+            //10 starts in chunks of 3
+            Assert.assertEquals(4, chunkedGraph.getQueryMetrics().getVertexStepBarriers() - barriers);
+            //the elements are emitted in the order of their starts.
+            Assert.assertEquals(
+                    expected.stream().map(name -> name.substring(0, 2)).collect(Collectors.toList()),
+                    names.stream().map(name -> name.substring(0, 2)).collect(Collectors.toList())
+            );
+            Assert.assertEquals(new HashSet<>(expected), new HashSet<>(names));
+            Assert.assertEquals(30L, chunkedGraph.traversal().V().hasLabel("A").filter(t -> true).out("ab").count().next().longValue());
+
+            //the order applies over all the starts so they are not chunked.
+            barriers = chunkedGraph.getQueryMetrics().getVertexStepBarriers();
+            List<String> ordered = chunkedGraph.traversal().V().hasLabel("A").filter(t -> true).out("ab").order().by("name", Order.decr).<String>values("name").toList();
+            Assert.assertEquals(1, chunkedGraph.getQueryMetrics().getVertexStepBarriers() - barriers);
+            Assert.assertEquals(30, ordered.size());
+            Assert.assertEquals("b92", ordered.get(0));
+            Assert.assertEquals("b00", ordered.get(29));
+            Assert.assertEquals(5, chunkedGraph.traversal().V().hasLabel("A").filter(t -> true).out("ab").limit(5).toList().size());
+            chunkedGraph.tx().rollback();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.umlg.sqlg.test.gremlincompile;
+
+import org.apache.commons.collections4.set.ListOrderedSet;
+import org.apache.commons.configuration.Configuration;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.umlg.sqlg.structure.PropertyType;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The incoming ids and indexes of a vertex step are bound as array parameters.
+ */
+public class TestVertexStepParentIdArrays extends BaseTest {
+
+    @Before
+    public void before() throws Exception {
+        super.before();
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsBulkWithinOutArrayParameter());
+    }
+
+    @Test
+    public void testParentIdsBoundAsArrays() {
+        for (int i = 0; i < 10; i++) {
+            Vertex a = this.sqlgGraph.addVertex(T.label, "A", "name", "a" + i);
+            a.addEdge("ab", this.sqlgGraph.addVertex(T.label, "B", "name", "b" + i));
+        }
+        this.sqlgGraph.tx().commit();
+
+        List<Vertex> vertices = this.sqlgGraph.traversal().V().hasLabel("A").has("name", "a1").filter(t -> true).out("ab").toList();
+        Assert.assertEquals(1, vertices.size());
+        vertices = this.sqlgGraph.traversal().V().hasLabel("A").filter(t -> true).out("ab").toList();
+        Assert.assertEquals(10, vertices.size());
+
+        this.sqlgGraph.addVertex(T.label, "A", "name", "a10").addEdge("ab", this.sqlgGraph.addVertex(T.label, "B", "name", "b10"));
+        this.sqlgGraph.tx().commit();
+        //the sql does not depend on the incoming ids so the vertex step's sql is also planned once.
+        long hits = this.sqlgGraph.getSqlPlanCache().getHits();
+        vertices = this.sqlgGraph.traversal().V().hasLabel("A").filter(t -> true).out("ab").toList();
+        Assert.assertEquals(11, vertices.size());
+        Assert.assertTrue(this.sqlgGraph.getSqlPlanCache().getHits() >= hits + 2);
+        Assert.assertEquals(11L, this.sqlgGraph.traversal().V().hasLabel("A").filter(t -> true).out("ab").count().next().longValue());
+    }
+
+    @Test
+    public void testUserSuppliedIdentifiersBoundAsArrays() {
+        this.sqlgGraph.getTopology().getPublicSchema().ensureVertexLabelExist(
+                "A",
+                new HashMap<String, PropertyType>() {{
+                    put("uid", PropertyType.STRING);
+                    put("name", PropertyType.STRING);
+                }},
+                ListOrderedSet.listOrderedSet(Collections.singletonList("uid"))
+        );
+        for (int i = 0; i < 10; i++) {
+            Vertex a = this.sqlgGraph.addVertex(T.label, "A", "uid", "a" + i, "name", "a" + i);
+            a.addEdge("ab", this.sqlgGraph.addVertex(T.label, "B", "name", "b" + i));
+        }
+        this.sqlgGraph.tx().commit();
+
+        List<String> names = this.sqlgGraph.traversal().V().hasLabel("A").filter(t -> true).out("ab").<String>values("name").toList();
+        Assert.assertEquals(10, names.size());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(names.contains("b" + i));
+        }
+    }
+
+    @Test
+    public void testParentIdsOverThresholdCopiedIntoTempTable() {
+        for (int i = 0; i < 10; i++) {
+            Vertex a = this.sqlgGraph.addVertex(T.label, "A", "name", "a" + i);
+            a.addEdge("ab", this.sqlgGraph.addVertex(T.label, "B", "name", "b" + i));
+        }
+        this.sqlgGraph.tx().commit();
+
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(SqlgGraph.PARENT_IDS_TEMP_TABLE_THRESHOLD, 5);
+        try (SqlgGraph tempTableGraph = SqlgGraph.open(configuration)) {
+            Assert.assertEquals(10, tempTableGraph.traversal().V().hasLabel("A").filter(t -> true).out("ab").toList().size());
+            //the temporary table is flushed in normal batch mode, the transaction's batch mode is restored.
+            Assert.assertFalse(tempTableGraph.tx().isInBatchMode());
+            Assert.assertEquals(3, tempTableGraph.traversal().V().hasLabel("A").range(0, 3).filter(t -> true).out("ab").toList().size());
+            tempTableGraph.tx().rollback();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.umlg.sqlg.test.localvertexstep;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.umlg.sqlg.step.barrier.SqlgLocalStepBarrier;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A range in a local traversal is applied per start in one query.
+ */
+public class TestLocalStepTopK extends BaseTest {
+
+    @Test
+    public void testLocalOrderLimitPerStart() {
+        List<Vertex> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Vertex user = this.sqlgGraph.addVertex(T.label, "User", "name", "u" + i);
+            users.add(user);
+            for (int j = 0; j < 4; j++) {
+                user.addEdge("posted", this.sqlgGraph.addVertex(T.label, "Post"), "ts", i * 10 + j);
+            }
+        }
+        this.sqlgGraph.tx().commit();
+
+        DefaultGraphTraversal<Vertex, Edge> traversal = (DefaultGraphTraversal<Vertex, Edge>) this.sqlgGraph.traversal()
+                .V().hasLabel("User").order().by("name")
+                .local(__.outE("posted").order().by("ts", Order.desc).limit(2));
+        List<Edge> edges = traversal.toList();
+        Assert.assertTrue(traversal.getSteps().stream().anyMatch(s -> s instanceof SqlgLocalStepBarrier));
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expected.add(i * 10 + 3);
+            expected.add(i * 10 + 2);
+        }
+        Assert.assertEquals(expected, edges.stream().map(e -> e.<Integer>value("ts")).collect(Collectors.toList()));
+
+        //range and skip
+        List<Integer> ts = this.sqlgGraph.traversal()
+                .V().hasLabel("User").order().by("name")
+                .local(__.outE("posted").order().by("ts").range(1, 2))
+                .<Integer>values("ts")
+                .toList();
+        Assert.assertEquals(Arrays.asList(1, 11, 21, 31, 41), ts);
+        ts = this.sqlgGraph.traversal()
+                .V().hasLabel("User").order().by("name")
+                .local(__.outE("posted").order().by("ts").skip(3))
+                .<Integer>values("ts")
+                .toList();
+        Assert.assertEquals(Arrays.asList(3, 13, 23, 33, 43), ts);
+
+        //a start without elements does not take from the others.
+        this.sqlgGraph.addVertex(T.label, "User", "name", "u5");
+        this.sqlgGraph.tx().commit();
+        Assert.assertEquals(10, this.sqlgGraph.traversal().V().hasLabel("User").local(__.out("posted").limit(2)).toList().size());
+    }
+
+    @Test
+    public void testLocalLimitOverMultipleLabels() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A", "name", "a1");
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A", "name", "a2");
+        for (int i = 0; i < 3; i++) {
+            a1.addEdge("ab", this.sqlgGraph.addVertex(T.label, "B", "order", i * 2));
+            a1.addEdge("ac", this.sqlgGraph.addVertex(T.label, "C", "order", i * 2 + 1));
+            a2.addEdge("ab", this.sqlgGraph.addVertex(T.label, "B", "order", 10 + i * 2));
+            a2.addEdge("ac", this.sqlgGraph.addVertex(T.label, "C", "order", 10 + i * 2 + 1));
+        }
+        this.sqlgGraph.tx().commit();
+
+        //out() queries B and C separately so the range is applied per start in memory.
+        List<Integer> orders = this.sqlgGraph.traversal()
+                .V().hasLabel("A").order().by("name")
+                .local(__.out().order().by("order", Order.desc).limit(3))
+                .<Integer>values("order")
+                .toList();
+        Assert.assertEquals(Arrays.asList(5, 4, 3, 15, 14, 13), orders);
+    }
+}
@@ -0,0 +1,59 @@
+package org.umlg.sqlg.test.preparedStatement;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.umlg.sqlg.structure.SqlgGraph;
+import org.umlg.sqlg.structure.StatementCache;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.Iterator;
+import java.util.List;
+
+public class TestStatementCache extends BaseTest {
+
+    @Test
+    public void testStatementIsReusedAcrossTransactions() {
+        Configuration configuration = getConfigurationClone();
+        configuration.setProperty(StatementCache.STATEMENT_CACHE_SIZE, 10);
+        try (SqlgGraph cacheGraph = SqlgGraph.open(configuration)) {
+            Vertex a1 = cacheGraph.addVertex(T.label, "A", "name", "a1");
+            cacheGraph.addVertex(T.label, "A", "name", "a2");
+            cacheGraph.tx().commit();
+
+            StatementCache statementCache = cacheGraph.getStatementCache();
+            Assert.assertTrue(statementCache.isEnabled());
+            long hits = statementCache.getHits();
+            for (int i = 0; i < 10; i++) {
+                List<Vertex> vertices = cacheGraph.traversal().V().hasLabel("A").has("name", "a1").toList();
+                Assert.assertEquals(1, vertices.size());
+                Assert.assertEquals(a1, vertices.get(0));
+                cacheGraph.tx().commit();
+            }
+            Assert.assertTrue(statementCache.getHits() > hits);
+            Assert.assertTrue(statementCache.size() > 0);
+
+            //the same sql while the cached statement is still being iterated.
+            Iterator<Vertex> iterator = cacheGraph.traversal().V().hasLabel("A").has("name", "a1");
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertEquals(a1, cacheGraph.traversal().V().hasLabel("A").has("name", "a1").next());
+            Assert.assertEquals(a1, iterator.next());
+            cacheGraph.tx().commit();
+
+            //a topology change discards the cached statements.
+            cacheGraph.addVertex(T.label, "A", "name", "a3", "surname", "s3");
+            cacheGraph.tx().commit();
+            List<Vertex> vertices = cacheGraph.traversal().V().hasLabel("A").has("name", "a3").toList();
+            Assert.assertEquals(1, vertices.size());
+            Assert.assertEquals("s3", vertices.get(0).value("surname"));
+            Assert.assertEquals(3, cacheGraph.traversal().V().hasLabel("A").toList().size());
+            cacheGraph.tx().commit();
+
+            cacheGraph.traversal().V(a1).next().remove();
+            cacheGraph.tx().commit();
+            Assert.assertEquals(2, cacheGraph.traversal().V().hasLabel("A").toList().size());
+        }
+    }
+}
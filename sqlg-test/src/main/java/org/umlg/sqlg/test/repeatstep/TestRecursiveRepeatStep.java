@@ -0,0 +1,105 @@
+package org.umlg.sqlg.test.repeatstep;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.umlg.sqlg.step.barrier.SqlgRecursiveRepeatStepBarrier;
+import org.umlg.sqlg.test.BaseTest;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+public class TestRecursiveRepeatStep extends BaseTest {
+
+    @Before
+    public void before() throws Exception {
+        super.before();
+        Assume.assumeTrue(this.sqlgGraph.getSqlDialect().supportsRecursiveCte());
+    }
+
+    @Test
+    public void testUntilOverADeepHierarchy() {
+        Vertex root = this.sqlgGraph.addVertex(T.label, "Folder", "name", "root", "depth", 0);
+        Vertex parent = root;
+        for (int i = 1; i <= 40; i++) {
+            Vertex child = this.sqlgGraph.addVertex(T.label, "Folder", "name", "folder" + i, "depth", i);
+            child.addEdge("parent", parent);
+            parent = child;
+        }
+        Vertex leaf = parent;
+        this.sqlgGraph.tx().commit();
+
+        DefaultGraphTraversal<Vertex, Vertex> traversal = (DefaultGraphTraversal<Vertex, Vertex>) this.sqlgGraph.traversal()
+                .V(leaf).repeat(__.out("parent")).until(__.has("name", "root"));
+        List<Vertex> vertices = traversal.toList();
+        Assert.assertTrue(traversal.getSteps().get(1) instanceof SqlgRecursiveRepeatStepBarrier);
+        Assert.assertEquals(1, vertices.size());
+        Assert.assertEquals(root, vertices.get(0));
+        Assert.assertEquals("root", vertices.get(0).value("name"));
+
+        vertices = this.sqlgGraph.traversal().V(leaf).repeat(__.out("parent")).until(__.has("depth", 30)).toList();
+        Assert.assertEquals(1, vertices.size());
+        Assert.assertEquals(30, (int) vertices.get(0).value("depth"));
+
+        Assert.assertEquals(
+                this.sqlgGraph.traversal().V(root).repeat(__.in("parent").filter(t -> true)).emit().toList().size(),
+                this.sqlgGraph.traversal().V(root).repeat(__.in("parent")).emit().toList().size()
+        );
+        Assert.assertEquals(40, this.sqlgGraph.traversal().V(root).repeat(__.in("parent")).emit().toList().size());
+        Assert.assertEquals(41, this.sqlgGraph.traversal().V(root).emit().repeat(__.in("parent")).toList().size());
+    }
+
+    @Test
+    public void testUntilAndEmitMatchTheUnoptimizedRepeat() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A", "name", "a1", "stop", false);
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A", "name", "a2", "stop", false);
+        Vertex a3 = this.sqlgGraph.addVertex(T.label, "A", "name", "a3", "stop", true);
+        Vertex a4 = this.sqlgGraph.addVertex(T.label, "A", "name", "a4", "stop", false);
+        Vertex a5 = this.sqlgGraph.addVertex(T.label, "A", "name", "a5", "stop", true);
+        a1.addEdge("aa", a2);
+        a1.addEdge("aa", a4);
+        a2.addEdge("aa", a3);
+        a3.addEdge("aa", a5);
+        a4.addEdge("aa", a5);
+        this.sqlgGraph.tx().commit();
+
+        Assert.assertEquals(
+                new HashSet<>(this.sqlgGraph.traversal().V().hasLabel("A").repeat(__.out("aa").filter(t -> true)).until(__.has("stop", true)).toList()),
+                new HashSet<>(this.sqlgGraph.traversal().V().hasLabel("A").repeat(__.out("aa")).until(__.has("stop", true)).toList())
+        );
+        Assert.assertEquals(
+                this.sqlgGraph.traversal().V().hasLabel("A").repeat(__.out("aa").filter(t -> true)).emit().until(__.has("stop", true)).count().next(),
+                this.sqlgGraph.traversal().V().hasLabel("A").repeat(__.out("aa")).emit().until(__.has("stop", true)).count().next()
+        );
+        Assert.assertEquals(
+                this.sqlgGraph.traversal().V(a1).until(__.has("stop", false)).repeat(__.out("aa").filter(t -> true)).toList(),
+                this.sqlgGraph.traversal().V(a1).until(__.has("stop", false)).repeat(__.out("aa")).toList()
+        );
+        Assert.assertEquals(2L, this.sqlgGraph.traversal().V(a1).repeat(__.out("aa")).until(__.has("stop", true)).count().next().longValue());
+    }
+
+    @Test
+    public void testCycleEndsTheWalk() {
+        Vertex a1 = this.sqlgGraph.addVertex(T.label, "A", "name", "a1");
+        Vertex a2 = this.sqlgGraph.addVertex(T.label, "A", "name", "a2");
+        Vertex a3 = this.sqlgGraph.addVertex(T.label, "A", "name", "a3");
+        a1.addEdge("aa", a2);
+        a2.addEdge("aa", a3);
+        a3.addEdge("aa", a1);
+        this.sqlgGraph.tx().commit();
+
+        List<Vertex> vertices = this.sqlgGraph.traversal().V(a1).repeat(__.out("aa")).emit().toList();
+        Assert.assertEquals(new HashSet<>(Arrays.asList(a1, a2, a3)), new HashSet<>(vertices));
+        Assert.assertEquals(3, vertices.size());
+
+        vertices = this.sqlgGraph.traversal().V(a1).repeat(__.out("aa")).until(__.has("name", "a3")).toList();
+        Assert.assertEquals(1, vertices.size());
+        Assert.assertEquals(a3, vertices.get(0));
+    }
+}